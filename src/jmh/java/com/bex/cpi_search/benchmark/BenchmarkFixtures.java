@@ -0,0 +1,76 @@
+package com.bex.cpi_search.benchmark;
+
+import com.bex.cpi_search.model.CPICacheKey;
+import com.bex.cpi_search.model.SeriesBlock;
+import com.bex.cpi_search.service.BLSResponseParser;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+
+/**
+ * BLS API responses recorded in the format the API returns them, including the latest flag,
+ * preliminary footnotes and annual-only series, loaded from {@code /fixtures} on the classpath.
+ *
+ * <ul>
+ *   <li>{@code cpi-u-one-year}: one series for one year, the smallest response.
+ *   <li>{@code configured-series-one-year}: the configured series for one year, as fetched for the
+ *       request form.
+ *   <li>{@code configured-series-twenty-years}: the configured series for twenty years, as fetched
+ *       for a range query or by the cache warmer.
+ * </ul>
+ */
+final class BenchmarkFixtures {
+
+  /** The year every fixture ends in. */
+  static final String LATEST_YEAR = "2024";
+
+  /** The month the benchmarks look up, present in every monthly series of the fixtures. */
+  static final String MONTH = "March";
+
+  private BenchmarkFixtures() {}
+
+  /**
+   * Reads a fixture.
+   *
+   * @param name the name of the fixture, without extension
+   * @return the response body
+   */
+  static byte[] bytes(final String name) {
+    try (InputStream fixture =
+        BenchmarkFixtures.class.getResourceAsStream("/fixtures/" + name + ".json")) {
+      if (fixture == null) {
+        throw new IllegalArgumentException("No fixture named " + name);
+      }
+      return fixture.readAllBytes();
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  /**
+   * Reads a fixture as text.
+   *
+   * @param name the name of the fixture, without extension
+   * @return the response body
+   */
+  static String json(final String name) {
+    return new String(bytes(name), StandardCharsets.UTF_8);
+  }
+
+  /**
+   * Decodes a fixture into the blocks it is cached as.
+   *
+   * @param name the name of the fixture, without extension
+   * @return the series-year blocks, by cache key
+   */
+  static Map<CPICacheKey, SeriesBlock> blocks(final String name) {
+    try {
+      return new BLSResponseParser(new ObjectMapper()).parse(json(name)).getBlocks();
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+}
@@ -0,0 +1,63 @@
+package com.bex.cpi_search.benchmark;
+
+import com.bex.cpi_search.model.CPICacheKey;
+import com.bex.cpi_search.model.SeriesBlock;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Measures building the cache keys of a form request for the configured series, and finding their
+ * blocks in a map of blocks read from the cache, as every lookup does before and after its Redis
+ * read.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CacheKeyBenchmark {
+
+  private List<String> seriesIds;
+
+  private Map<CPICacheKey, SeriesBlock> blocks;
+
+  @Setup(Level.Trial)
+  public void setUp() {
+    blocks = BenchmarkFixtures.blocks("configured-series-one-year");
+    seriesIds = new ArrayList<>();
+    blocks.keySet().forEach(cacheKey -> seriesIds.add(cacheKey.getSeriesId()));
+  }
+
+  @Benchmark
+  public void generate(final Blackhole blackhole) {
+    for (String seriesId : seriesIds) {
+      blackhole.consume(CPICacheKey.of(BenchmarkFixtures.LATEST_YEAR, seriesId).blockKey());
+    }
+  }
+
+  @Benchmark
+  public int generateAndFind() {
+    int found = 0;
+    for (String seriesId : seriesIds) {
+      if (blocks.containsKey(CPICacheKey.of(BenchmarkFixtures.LATEST_YEAR, seriesId))) {
+        found++;
+      }
+    }
+    return found;
+  }
+}
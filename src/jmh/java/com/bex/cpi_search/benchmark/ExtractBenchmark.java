@@ -0,0 +1,78 @@
+package com.bex.cpi_search.benchmark;
+
+import com.bex.cpi_search.model.CPICacheKey;
+import com.bex.cpi_search.model.CPIData;
+import com.bex.cpi_search.model.SeriesBlock;
+import com.bex.cpi_search.service.CPIDataService;
+import com.bex.cpi_search.service.CPIDataServiceAccess;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures extracting CPIData from the blocks of the recorded responses: one month of each series,
+ * as the request form reads it through {@code CPIDataService.readMonth}, and every data point, as a
+ * range query reads it.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ExtractBenchmark {
+
+  @Param({"configured-series-one-year", "configured-series-twenty-years"})
+  private String fixture;
+
+  private Map<CPICacheKey, SeriesBlock> blocks;
+
+  private Map<CPICacheKey, String> cacheKeys;
+
+  private CPIDataService cpiDataService;
+
+  @Setup(Level.Trial)
+  public void setUp() {
+    blocks = BenchmarkFixtures.blocks(fixture);
+    cacheKeys = new LinkedHashMap<>();
+    blocks.keySet().forEach(cacheKey -> cacheKeys.put(cacheKey, cacheKey.getSeriesId()));
+    cpiDataService = CPIDataServiceAccess.cpiDataService();
+  }
+
+  @Benchmark
+  public Map<String, CPIData> month() {
+    return CPIDataServiceAccess.readMonth(
+        cpiDataService,
+        BenchmarkFixtures.LATEST_YEAR,
+        BenchmarkFixtures.MONTH,
+        cacheKeys,
+        blocks,
+        new HashSet<>());
+  }
+
+  @Benchmark
+  public List<CPIData> allPoints() {
+    List<CPIData> result = new ArrayList<>();
+    for (SeriesBlock block : blocks.values()) {
+      for (int index = 0; index < block.size(); index++) {
+        result.add(block.toCPIData(index));
+      }
+    }
+    return result;
+  }
+}
@@ -0,0 +1,167 @@
+package com.bex.cpi_search.benchmark;
+
+import com.bex.cpi_search.CpiSearchApplication;
+import com.bex.cpi_search.model.CPIData;
+import com.bex.cpi_search.model.Months;
+import com.bex.cpi_search.model.SeriesBlock;
+import com.bex.cpi_search.service.CPIDataService;
+import com.sun.net.httpserver.HttpServer;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.Banner;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.redis.core.RedisTemplate;
+
+/**
+ * Measures a form request end to end, through {@code CPIDataService.getCPIData} for the configured
+ * series, with the application context the service runs in. BLS is replaced by an in-process HTTP
+ * server answering every request with the recorded response for the configured series.
+ *
+ * <ul>
+ *   <li>{@code near}: every block is in the near cache.
+ *   <li>{@code redis}: the near cache is disabled, so every block is read from Redis.
+ *   <li>{@code miss}: the blocks are deleted before each call, so each call fetches from the stub,
+ *       decodes and caches the response, then reads the blocks back.
+ * </ul>
+ *
+ * <p>{@code fixture} selects the recorded response; {@code configured-series-twenty-years} makes
+ * each miss decode and cache twenty years of every series. {@code logLevel} sets the application's
+ * log level; its log lines are written to target/benchmark-app.log, by logback-benchmark.xml,
+ * rather than with the results.
+ *
+ * <p>Requires a running Redis, located through the REDIS_HOST, REDIS_PORT and REDIS_PASSWORD
+ * environment variables (defaults: localhost, 6379, no password).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class GetCPIDataBenchmark {
+
+  @Param({"near", "redis", "miss"})
+  private String cache;
+
+  @Param({"configured-series-one-year"})
+  private String fixture;
+
+  @Param({"WARN"})
+  private String logLevel;
+
+  private HttpServer blsStub;
+
+  private ConfigurableApplicationContext context;
+
+  private CPIDataService cpiDataService;
+
+  private RedisTemplate<String, Object> redisTemplate;
+
+  private List<String> seriesIds;
+
+  private List<String> blockKeys;
+
+  @Setup(Level.Trial)
+  @SuppressWarnings("unchecked")
+  public void setUp() throws IOException {
+    byte[] response = BenchmarkFixtures.bytes(fixture);
+    // Without it, the stub's replies wait out the client's delayed acknowledgements
+    System.setProperty("sun.net.httpserver.nodelay", "true");
+    blsStub = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+    blsStub.createContext(
+        "/",
+        exchange -> {
+          exchange.getRequestBody().readAllBytes();
+          exchange.getResponseHeaders().set("Content-Type", "application/json");
+          exchange.sendResponseHeaders(200, response.length);
+          try (OutputStream body = exchange.getResponseBody()) {
+            body.write(response);
+          }
+        });
+    blsStub.start();
+
+    seriesIds = new ArrayList<>();
+    blockKeys = new ArrayList<>();
+    int period =
+        SeriesBlock.period(
+            Integer.parseInt(BenchmarkFixtures.LATEST_YEAR),
+            Months.number(BenchmarkFixtures.MONTH));
+    // Request only the series with monthly data; annual-only series have no data for the month
+    BenchmarkFixtures.blocks(fixture)
+        .forEach(
+            (cacheKey, block) -> {
+              if (block.indexOf(period) >= 0) {
+                seriesIds.add(cacheKey.getSeriesId());
+                blockKeys.add(cacheKey.blockKey());
+              }
+            });
+
+    System.setProperty("spring.devtools.restart.enabled", "false");
+    context =
+        new SpringApplicationBuilder(CpiSearchApplication.class)
+            .logStartupInfo(false)
+            .bannerMode(Banner.Mode.OFF)
+            .run(
+                "--spring.main.web-application-type=none",
+                "--logging.config=classpath:logback-benchmark.xml",
+                "--spring.docker.compose.enabled=false",
+                "--spring.redis.host=" + env("REDIS_HOST", "localhost"),
+                "--spring.redis.port=" + env("REDIS_PORT", "6379"),
+                "--spring.redis.password=" + env("REDIS_PASSWORD", ""),
+                "--cpi.bls.api.url=http://127.0.0.1:" + blsStub.getAddress().getPort() + "/",
+                // Measure the request path, not the rate limits of the real API
+                "--cpi.bls.rate.requests-per-second=1000000",
+                "--cpi.bls.rate.burst=1000000",
+                "--cpi.bls.quota.daily=0",
+                "--cpi.cache.warmer.enabled=false",
+                "--cpi.cache.migration.enabled=false",
+                "--cpi.cache.near.max-entries=" + ("near".equals(cache) ? "10000" : "0"),
+                "--logging.level.root=" + logLevel);
+    cpiDataService = context.getBean(CPIDataService.class);
+    redisTemplate = context.getBean("redisTemplate", RedisTemplate.class);
+  }
+
+  @Setup(Level.Invocation)
+  public void evict() {
+    if ("miss".equals(cache)) {
+      redisTemplate.delete(blockKeys);
+    }
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() {
+    context.close();
+    blsStub.stop(0);
+  }
+
+  @Benchmark
+  public Map<String, CPIData> getCPIData() throws IOException {
+    return cpiDataService.getCPIData(
+        BenchmarkFixtures.LATEST_YEAR, BenchmarkFixtures.MONTH, seriesIds);
+  }
+
+  private static String env(final String name, final String defaultValue) {
+    String value = System.getenv(name);
+    return value != null ? value : defaultValue;
+  }
+}
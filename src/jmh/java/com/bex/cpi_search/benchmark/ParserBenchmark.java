@@ -0,0 +1,139 @@
+package com.bex.cpi_search.benchmark;
+
+import com.bex.cpi_search.model.CPIData;
+import com.bex.cpi_search.model.Months;
+import com.bex.cpi_search.service.BLSResponseParser;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Compares decoding a BLS response with the single-pass streaming parser against reading it as a
+ * Jackson tree and copying every data point into a CPIData, as the code it replaced did. Responses
+ * are synthetic, with thirteen data points per series-year. Run with {@code -prof gc} to compare
+ * allocation per operation.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ParserBenchmark {
+
+  @Param({"1", "50"})
+  private int seriesCount;
+
+  @Param({"1", "20"})
+  private int years;
+
+  private String responseJson;
+
+  private byte[] responseBytes;
+
+  private BLSResponseParser parser;
+
+  @Setup(Level.Trial)
+  public void setUp() {
+    responseJson = response(seriesCount, years);
+    responseBytes = responseJson.getBytes(StandardCharsets.UTF_8);
+    parser = new BLSResponseParser(new ObjectMapper());
+  }
+
+  @Benchmark
+  public List<CPIData> tree() throws IOException {
+    ObjectMapper objectMapper = new ObjectMapper();
+    JsonNode rootNode = objectMapper.readTree(responseJson);
+    objectMapper.convertValue(rootNode.get("message"), new TypeReference<List<String>>() {});
+
+    List<CPIData> cpiDataList = new ArrayList<>();
+    for (JsonNode series : rootNode.path("Results").path("series")) {
+      for (JsonNode dataPoint : series.path("data")) {
+        List<String> notes = new ArrayList<>();
+        for (JsonNode footnote : dataPoint.path("footnotes")) {
+          notes.add(
+              String.format(
+                  "Code: %s, Text: %s",
+                  footnote.path("code").asText(null), footnote.path("text").asText(null)));
+        }
+        CPIData cpiData = new CPIData();
+        cpiData.setSeriesId(series.path("seriesID").asText());
+        cpiData.setYear(dataPoint.path("year").asText());
+        cpiData.setMonth(dataPoint.path("periodName").asText());
+        cpiData.setCPIValue(dataPoint.path("value").asText());
+        cpiData.setNotes(notes);
+        cpiDataList.add(cpiData);
+      }
+    }
+    return cpiDataList;
+  }
+
+  @Benchmark
+  public BLSResponseParser.ParsedResponse streamingString() throws IOException {
+    return parser.parse(responseJson);
+  }
+
+  @Benchmark
+  public BLSResponseParser.ParsedResponse streamingBytes() throws IOException {
+    return parser.parse(new ByteArrayInputStream(responseBytes));
+  }
+
+  /**
+   * Builds a BLS response in the shape the API returns.
+   *
+   * @param seriesCount the number of series
+   * @param years the number of years per series
+   * @return the response JSON
+   */
+  static String response(final int seriesCount, final int years) {
+    StringBuilder json = new StringBuilder(seriesCount * years * 13 * 160);
+    json.append("{\"status\":\"REQUEST_SUCCEEDED\",\"responseTime\":120,\"message\":[],")
+        .append("\"Results\":{\"series\":[");
+    for (int s = 0; s < seriesCount; s++) {
+      json.append(s == 0 ? "" : ",")
+          .append("{\"seriesID\":\"")
+          .append(String.format("CUUR%07dSA0", s))
+          .append("\",\"data\":[");
+      for (int y = 0; y < years; y++) {
+        int year = 2024 - y;
+        for (int month = Months.ANNUAL; month >= 1; month--) {
+          String value = BigDecimal.valueOf(250_000 + year * 37 + month * 211 + s, 3).toString();
+          json.append(y == 0 && month == Months.ANNUAL ? "" : ",")
+              .append("{\"year\":\"")
+              .append(year)
+              .append("\",\"period\":\"M")
+              .append(month < 10 ? "0" : "")
+              .append(month)
+              .append("\",\"periodName\":\"")
+              .append(Months.name(month))
+              .append("\",\"value\":\"")
+              .append(value)
+              .append("\",\"footnotes\":[")
+              .append(y == 0 && month == 1 ? "{\"code\":\"P\",\"text\":\"Preliminary.\"}" : "{}")
+              .append("]}");
+        }
+      }
+      json.append("]}");
+    }
+    return json.append("]}}").toString();
+  }
+}
@@ -0,0 +1,58 @@
+package com.bex.cpi_search.benchmark;
+
+import com.bex.cpi_search.service.BLSResponseParser;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures decoding the recorded BLS responses into series-year blocks, from the response text and
+ * from the response bytes as the HTTP client hands them over.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RecordedParseBenchmark {
+
+  @Param({"cpi-u-one-year", "configured-series-one-year", "configured-series-twenty-years"})
+  private String fixture;
+
+  private String responseJson;
+
+  private byte[] responseBytes;
+
+  private BLSResponseParser parser;
+
+  @Setup(Level.Trial)
+  public void setUp() {
+    responseJson = BenchmarkFixtures.json(fixture);
+    responseBytes = BenchmarkFixtures.bytes(fixture);
+    parser = new BLSResponseParser(new ObjectMapper());
+  }
+
+  @Benchmark
+  public BLSResponseParser.ParsedResponse parseString() throws IOException {
+    return parser.parse(responseJson);
+  }
+
+  @Benchmark
+  public BLSResponseParser.ParsedResponse parseBytes() throws IOException {
+    return parser.parse(new ByteArrayInputStream(responseBytes));
+  }
+}
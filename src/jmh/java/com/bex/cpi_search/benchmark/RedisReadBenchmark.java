@@ -0,0 +1,108 @@
+package com.bex.cpi_search.benchmark;
+
+import com.bex.cpi_search.config.RedisConfig;
+import com.bex.cpi_search.model.CPICacheKey;
+import com.bex.cpi_search.model.FootnoteDictionary;
+import com.bex.cpi_search.model.Months;
+import com.bex.cpi_search.model.SeriesBlock;
+import com.bex.cpi_search.repository.RedisRepository;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.convert.ApplicationConversionService;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+
+/**
+ * Measures cache read latency against the number of series requested, comparing one HGET per series
+ * with a single bulk read.
+ *
+ * <p>Requires a running Redis, located through the REDIS_HOST, REDIS_PORT and REDIS_PASSWORD
+ * environment variables (defaults: localhost, 6379, no password).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RedisReadBenchmark {
+
+  @Param({"1", "4", "16", "64"})
+  private int seriesCount;
+
+  private AnnotationConfigApplicationContext context;
+
+  private RedisRepository<CPICacheKey, SeriesBlock> repository;
+
+  private List<CPICacheKey> keys;
+
+  @Setup(Level.Trial)
+  @SuppressWarnings("unchecked")
+  public void setUp() {
+    System.setProperty("spring.redis.host", env("REDIS_HOST", "localhost"));
+    System.setProperty("spring.redis.port", env("REDIS_PORT", "6379"));
+    System.setProperty("spring.redis.password", env("REDIS_PASSWORD", ""));
+    // Measure the Redis hop, not the near cache
+    System.setProperty("cpi.cache.near.max-entries", "0");
+    context = new AnnotationConfigApplicationContext();
+    context.getBeanFactory().setConversionService(ApplicationConversionService.getSharedInstance());
+    context.register(RedisConfig.class, RedisRepository.class);
+    context.refresh();
+    repository = context.getBean(RedisRepository.class);
+
+    keys = new ArrayList<>();
+    for (int i = 0; i < seriesCount; i++) {
+      String seriesId = String.format("BENCH%015d", i);
+      int noteId = FootnoteDictionary.idOf(List.of("Code: null, Text: null"));
+      SeriesBlock.Builder builder = SeriesBlock.builder(seriesId);
+      for (int month = 1; month <= Months.ANNUAL; month++) {
+        builder.add(SeriesBlock.period(2024, month), "308.417", noteId);
+      }
+
+      CPICacheKey key = CPICacheKey.of("2024", seriesId);
+      repository.saveDocument(key, builder.build(), Duration.ofHours(1));
+      keys.add(key);
+    }
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() {
+    context.close();
+  }
+
+  @Benchmark
+  public int perSeriesGet() {
+    int found = 0;
+    for (CPICacheKey key : keys) {
+      if (repository.getDocument(key) != null) {
+        found++;
+      }
+    }
+    return found;
+  }
+
+  @Benchmark
+  public Map<CPICacheKey, SeriesBlock> bulkGet() {
+    return repository.getDocuments(keys);
+  }
+
+  private static String env(final String name, final String defaultValue) {
+    String value = System.getenv(name);
+    return value != null ? value : defaultValue;
+  }
+}
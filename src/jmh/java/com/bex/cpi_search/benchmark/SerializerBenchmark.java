@@ -0,0 +1,102 @@
+package com.bex.cpi_search.benchmark;
+
+import com.bex.cpi_search.model.CPIData;
+import com.bex.cpi_search.model.FootnoteDictionary;
+import com.bex.cpi_search.model.Months;
+import com.bex.cpi_search.model.SeriesBlock;
+import com.bex.cpi_search.repository.CPIDataRedisSerializer;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.data.redis.serializer.GenericJackson2JsonRedisSerializer;
+import org.springframework.data.redis.serializer.RedisSerializer;
+
+/**
+ * Compares the serialization throughput and payload size of a cached series-year in each format:
+ * twelve months of CPIData as polymorphic JSON, the same months as binary CPIData, and one binary
+ * SeriesBlock. The recorded format serializes the blocks of twenty years of the configured series,
+ * decoded from a recorded BLS response. Payload sizes are printed when each trial starts.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SerializerBenchmark {
+
+  @Param({"json", "binary", "block", "recorded"})
+  private String format;
+
+  private RedisSerializer<Object> serializer;
+
+  private List<Object> values;
+
+  private List<byte[]> payloads;
+
+  @Setup(Level.Trial)
+  public void setUp() {
+    serializer =
+        "json".equals(format)
+            ? new GenericJackson2JsonRedisSerializer()
+            : new CPIDataRedisSerializer(512);
+
+    List<String> notes = List.of("Code: null, Text: null");
+    List<Object> months = new ArrayList<>();
+    SeriesBlock.Builder builder = SeriesBlock.builder("CUUR0000SA0");
+    for (int month = 1; month <= 12; month++) {
+      String cpiValue = BigDecimal.valueOf(308417 + month * 391, 3).toPlainString();
+      CPIData cpiData = new CPIData();
+      cpiData.setSeriesId("CUUR0000SA0");
+      cpiData.setYear("2024");
+      cpiData.setMonth(Months.name(month));
+      cpiData.setCPIValue(cpiValue);
+      cpiData.setNotes(notes);
+      months.add(cpiData);
+      builder.add(SeriesBlock.period(2024, month), cpiValue, FootnoteDictionary.idOf(notes));
+    }
+    if ("recorded".equals(format)) {
+      values = new ArrayList<>(BenchmarkFixtures.blocks("configured-series-twenty-years").values());
+    } else {
+      values = "block".equals(format) ? List.of(builder.build()) : months;
+    }
+
+    payloads = new ArrayList<>();
+    int length = 0;
+    for (Object value : values) {
+      byte[] payload = serializer.serialize(value);
+      payloads.add(payload);
+      length += payload.length;
+    }
+    int seriesYears = "recorded".equals(format) ? values.size() : 1;
+    System.out.println(format + " payload: " + length / seriesYears + " bytes per series-year");
+  }
+
+  @Benchmark
+  public void serialize(final Blackhole blackhole) {
+    for (Object value : values) {
+      blackhole.consume(serializer.serialize(value));
+    }
+  }
+
+  @Benchmark
+  public void deserialize(final Blackhole blackhole) {
+    for (byte[] payload : payloads) {
+      blackhole.consume(serializer.deserialize(payload));
+    }
+  }
+}
@@ -0,0 +1,56 @@
+package com.bex.cpi_search.service;
+
+import com.bex.cpi_search.model.CPICacheKey;
+import com.bex.cpi_search.model.CPIData;
+import com.bex.cpi_search.model.SeriesBlock;
+import java.time.Duration;
+import java.util.Map;
+import java.util.Set;
+import org.springframework.test.util.ReflectionTestUtils;
+
+/**
+ * Opens the package-private steps of {@link CPIDataService} to the benchmarks, so that they measure
+ * the service's own code rather than a copy of it.
+ */
+public final class CPIDataServiceAccess {
+
+  private CPIDataServiceAccess() {}
+
+  /**
+   * Creates a CPIDataService, outside an application context, able to read cached blocks.
+   *
+   * @return the service
+   */
+  public static CPIDataService cpiDataService() {
+    CacheExpiryPolicy expiryPolicy = new CacheExpiryPolicy();
+    ReflectionTestUtils.setField(expiryPolicy, "currentYearTtl", Duration.ofDays(1));
+    ReflectionTestUtils.setField(expiryPolicy, "pastYearsTtl", Duration.ofDays(400));
+    ReflectionTestUtils.setField(expiryPolicy, "negativeTtl", Duration.ofHours(1));
+    ReflectionTestUtils.setField(expiryPolicy, "freshFor", Duration.ofHours(6));
+    CPIDataService cpiDataService = new CPIDataService();
+    ReflectionTestUtils.setField(cpiDataService, "expiryPolicy", expiryPolicy);
+    return cpiDataService;
+  }
+
+  /**
+   * Materializes CPIData for one month of cached blocks, as {@link CPIDataService#readMonth} does.
+   *
+   * @param cpiDataService the service
+   * @param year the year of the CPI data
+   * @param month the month of the CPI data
+   * @param cacheKeys the series ID of each cache key
+   * @param cachedBlocks the blocks read from the cache, by key
+   * @param absentSeriesIds receives the series IDs whose cached block confirms that BLS has no data
+   *     for the month
+   * @return a map of series IDs to the CPIData found
+   */
+  public static Map<String, CPIData> readMonth(
+      final CPIDataService cpiDataService,
+      final String year,
+      final String month,
+      final Map<CPICacheKey, String> cacheKeys,
+      final Map<CPICacheKey, SeriesBlock> cachedBlocks,
+      final Set<String> absentSeriesIds) {
+    return cpiDataService.readMonth(year, month, cacheKeys, cachedBlocks, absentSeriesIds);
+  }
+}
@@ -0,0 +1,284 @@
+package com.bex.cpi_search.loadtest;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Stands in for the BLS {@code timeseries/data} endpoint, so that the application can be load
+ * tested without api.bls.gov. It answers in the BLS v2 response format with synthetic but stable
+ * data, the same values for the same series-year on every call, and can be made slow, unreliable or
+ * short of quota.
+ *
+ * <pre>
+ * mvn -Ploadtest test-compile exec:exec@bls-stub -Dloadtest.args="--port=9099 --latency=PT0.2S"
+ * </pre>
+ *
+ * <p>Options, each as {@code --name=value}:
+ *
+ * <ul>
+ *   <li>{@code port}: the port to listen on (default 9099).
+ *   <li>{@code latency}: the least time to answer a request (default PT0.15S).
+ *   <li>{@code jitter}: the most time added at random to the latency (default PT0.1S).
+ *   <li>{@code error-rate}: the share of requests failed with a 503 (default 0).
+ *   <li>{@code quota}: the requests answered before every further request is refused as over the
+ *       daily threshold, as BLS does; 0 for no quota (default 0).
+ * </ul>
+ *
+ * <p>Point the application at it with {@code
+ * --cpi.bls.api.url=http://localhost:9099/publicAPI/v2/timeseries/data/}.
+ */
+public final class BLSStub {
+
+  /** The path of the endpoint. */
+  static final String PATH = "/publicAPI/v2/timeseries/data/";
+
+  /** The message BLS refuses requests with once the daily threshold is reached. */
+  static final String THRESHOLD_MESSAGE =
+      "Request could not be serviced, as the daily threshold for total number of requests"
+          + " allocated to the user has been reached.";
+
+  /** The most years BLS returns for one request. */
+  private static final int MAX_YEARS = 20;
+
+  /** The names of the months, as BLS returns them in periodName. */
+  private static final String[] MONTH_NAMES = {
+    "January",
+    "February",
+    "March",
+    "April",
+    "May",
+    "June",
+    "July",
+    "August",
+    "September",
+    "October",
+    "November",
+    "December"
+  };
+
+  /** Where BLS publishes from; a month is published once the next one has started there. */
+  private static final ZoneId RELEASE_ZONE = ZoneId.of("America/New_York");
+
+  private static final JsonFactory JSON_FACTORY = new JsonFactory();
+
+  private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+
+  private final Duration latency;
+
+  private final Duration jitter;
+
+  private final double errorRate;
+
+  private final long quota;
+
+  private final AtomicLong requests = new AtomicLong();
+
+  private final AtomicLong failed = new AtomicLong();
+
+  private final AtomicLong refused = new AtomicLong();
+
+  private BLSStub(final LoadTestOptions options) {
+    this.latency = options.duration("latency", Duration.ofMillis(150));
+    this.jitter = options.duration("jitter", Duration.ofMillis(100));
+    this.errorRate = options.decimal("error-rate", 0);
+    this.quota = options.integer("quota", 0);
+  }
+
+  /**
+   * Starts the stub and serves until the process is stopped.
+   *
+   * @param args the options
+   * @throws IOException if the port cannot be bound
+   */
+  public static void main(final String[] args) throws IOException {
+    LoadTestOptions options = LoadTestOptions.parse(args);
+    BLSStub stub = new BLSStub(options);
+    int port = (int) options.integer("port", 9099);
+
+    // Answer as soon as the response is written rather than after the client's delayed ACK
+    System.setProperty("sun.net.httpserver.nodelay", "true");
+    HttpServer server = HttpServer.create(new InetSocketAddress(port), 0);
+    server.createContext(PATH, stub::handle);
+    // Requests wait out their latency on threads of their own, like concurrent API calls
+    server.setExecutor(Executors.newCachedThreadPool());
+    server.start();
+    Runtime.getRuntime().addShutdownHook(new Thread(stub::printTotals));
+    System.out.printf(
+        "BLS stub on http://localhost:%d%s: latency %s + up to %s, error rate %s, quota %s%n",
+        port,
+        PATH,
+        stub.latency,
+        stub.jitter,
+        stub.errorRate,
+        stub.quota == 0 ? "none" : stub.quota);
+  }
+
+  private void handle(final HttpExchange exchange) throws IOException {
+    try {
+      JsonNode request = OBJECT_MAPPER.readTree(exchange.getRequestBody());
+      long count = requests.incrementAndGet();
+      sleep(latency.plusMillis(ThreadLocalRandom.current().nextLong(jitter.toMillis() + 1)));
+
+      if (ThreadLocalRandom.current().nextDouble() < errorRate) {
+        failed.incrementAndGet();
+        byte[] body = "Service Unavailable".getBytes(StandardCharsets.US_ASCII);
+        exchange.sendResponseHeaders(503, body.length);
+        exchange.getResponseBody().write(body);
+        return;
+      }
+
+      byte[] body;
+      if (quota > 0 && count > quota) {
+        refused.incrementAndGet();
+        body = refusal();
+      } else {
+        body = response(request);
+      }
+      String acceptEncoding = exchange.getRequestHeaders().getFirst("Accept-Encoding");
+      if (acceptEncoding != null && acceptEncoding.toLowerCase(Locale.ROOT).contains("gzip")) {
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream(body.length / 4);
+        try (GZIPOutputStream gzip = new GZIPOutputStream(compressed)) {
+          gzip.write(body);
+        }
+        body = compressed.toByteArray();
+        exchange.getResponseHeaders().set("Content-Encoding", "gzip");
+      }
+      exchange.getResponseHeaders().set("Content-Type", "application/json;charset=UTF-8");
+      exchange.sendResponseHeaders(200, body.length);
+      try (OutputStream out = exchange.getResponseBody()) {
+        out.write(body);
+      }
+    } finally {
+      exchange.close();
+    }
+  }
+
+  /**
+   * Writes the data of every series and year of a request. A year range longer than BLS allows is
+   * cut short, with the message BLS adds.
+   */
+  private static byte[] response(final JsonNode request) throws IOException {
+    List<String> seriesIds = new ArrayList<>();
+    request.path("seriesid").forEach(seriesId -> seriesIds.add(seriesId.asText()));
+    int endYear = request.path("endyear").asInt();
+    int startYear = request.path("startyear").asInt(endYear);
+    List<String> messages = new ArrayList<>();
+    if (endYear - startYear + 1 > MAX_YEARS) {
+      startYear = endYear - MAX_YEARS + 1;
+      messages.add("Year range has been reduced to the system limit of " + MAX_YEARS + " years.");
+    }
+
+    LocalDate today = LocalDate.now(RELEASE_ZONE);
+    ByteArrayOutputStream body = new ByteArrayOutputStream(seriesIds.size() * 2048);
+    try (JsonGenerator json = JSON_FACTORY.createGenerator(body)) {
+      json.writeStartObject();
+      json.writeStringField("status", "REQUEST_SUCCEEDED");
+      json.writeNumberField("responseTime", 50 + ThreadLocalRandom.current().nextInt(150));
+      json.writeArrayFieldStart("message");
+      for (String message : messages) {
+        json.writeString(message);
+      }
+      json.writeEndArray();
+      json.writeObjectFieldStart("Results");
+      json.writeArrayFieldStart("series");
+      for (String seriesId : seriesIds) {
+        json.writeStartObject();
+        json.writeStringField("seriesID", seriesId);
+        json.writeArrayFieldStart("data");
+        boolean latest = true;
+        for (int year = Math.min(endYear, today.getYear()); year >= startYear; year--) {
+          int lastMonth = year == today.getYear() ? today.getMonthValue() - 1 : 12;
+          for (int month = lastMonth; month >= 1; month--) {
+            writeDataPoint(json, seriesId, year, month, latest);
+            latest = false;
+          }
+        }
+        json.writeEndArray();
+        json.writeEndObject();
+      }
+      json.writeEndArray();
+      json.writeEndObject();
+      json.writeEndObject();
+    }
+    return body.toByteArray();
+  }
+
+  private static void writeDataPoint(
+      final JsonGenerator json,
+      final String seriesId,
+      final int year,
+      final int month,
+      final boolean latest)
+      throws IOException {
+    // Stable per series-month: a level per series, a yearly trend and a seasonal swing
+    double level = 100 + Math.floorMod(seriesId.hashCode(), 200);
+    double value =
+        level * Math.pow(1.025, year - 2000) * (1 + 0.01 * Math.sin(month * Math.PI / 6));
+    json.writeStartObject();
+    json.writeStringField("year", String.valueOf(year));
+    json.writeStringField("period", String.format("M%02d", month));
+    json.writeStringField("periodName", MONTH_NAMES[month - 1]);
+    if (latest) {
+      json.writeStringField("latest", "true");
+    }
+    json.writeStringField("value", String.format(Locale.ROOT, "%.3f", value));
+    json.writeArrayFieldStart("footnotes");
+    json.writeStartObject();
+    if (latest) {
+      json.writeStringField("code", "P");
+      json.writeStringField("text", "Preliminary.");
+    }
+    json.writeEndObject();
+    json.writeEndArray();
+    json.writeEndObject();
+  }
+
+  private static byte[] refusal() throws IOException {
+    ByteArrayOutputStream body = new ByteArrayOutputStream(256);
+    try (JsonGenerator json = JSON_FACTORY.createGenerator(body)) {
+      json.writeStartObject();
+      json.writeStringField("status", "REQUEST_NOT_PROCESSED");
+      json.writeNumberField("responseTime", 0);
+      json.writeArrayFieldStart("message");
+      json.writeString(THRESHOLD_MESSAGE);
+      json.writeEndArray();
+      json.writeObjectFieldStart("Results");
+      json.writeEndObject();
+      json.writeEndObject();
+    }
+    return body.toByteArray();
+  }
+
+  private static void sleep(final Duration duration) {
+    try {
+      Thread.sleep(duration.toMillis());
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  private void printTotals() {
+    System.out.printf(
+        "BLS stub: %d requests, %d failed with 503, %d refused over quota%n",
+        requests.get(), failed.get(), refused.get());
+  }
+}
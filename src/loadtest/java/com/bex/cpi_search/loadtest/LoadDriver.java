@@ -0,0 +1,379 @@
+package com.bex.cpi_search.loadtest;
+
+import com.bex.cpi_search.model.CPICacheKey;
+import com.bex.cpi_search.repository.RedisRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import io.lettuce.core.KeyScanCursor;
+import io.lettuce.core.RedisClient;
+import io.lettuce.core.RedisCredentials;
+import io.lettuce.core.RedisCredentialsProvider;
+import io.lettuce.core.RedisURI;
+import io.lettuce.core.ScanArgs;
+import io.lettuce.core.ScanCursor;
+import io.lettuce.core.api.StatefulRedisConnection;
+import io.lettuce.core.api.sync.RedisCommands;
+import java.io.File;
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Replays a {@link TrafficMix} of {@code /request-data} requests against a running application and
+ * reports throughput and latency percentiles, separately for a cold cache and a warm one.
+ *
+ * <ul>
+ *   <li>A cold run first deletes every cached block from Redis and drops them from the near caches
+ *       of the running nodes, so the first request for each series-year is fetched from BLS.
+ *   <li>A warm run first replays the same requests once, unmeasured, so every request is answered
+ *       from the cache.
+ * </ul>
+ *
+ * <p>Requests are sent at a fixed rate, on a schedule that does not wait for earlier answers, by up
+ * to {@code concurrency} clients at once. The latency of each request is measured from the time it
+ * was scheduled to start, not from the time a client got round to sending it, so a stall that holds
+ * back later requests counts against every request it held back rather than against one. A request
+ * fails if it is not answered with 200, or is answered with the error page.
+ *
+ * <pre>
+ * mvn -Ploadtest test-compile exec:exec@bls-stub
+ * java -jar target/cpi-search-0.0.1-SNAPSHOT.jar \
+ *     --cpi.bls.api.url=http://localhost:9099/publicAPI/v2/timeseries/data/ \
+ *     --cpi.bls.rate.requests-per-second=1000 --cpi.bls.quota.daily=0 \
+ *     --cpi.cache.warmer.enabled=false
+ * mvn -Ploadtest test-compile exec:exec@driver -Dloadtest.args="--requests=5000 --rate=500"
+ * </pre>
+ *
+ * <p>Options, each as {@code --name=value}:
+ *
+ * <ul>
+ *   <li>{@code url}: the application (default http://localhost:8080).
+ *   <li>{@code redis}: the Redis the application caches in (default redis://localhost:6379, with
+ *       the password in REDIS_PASSWORD, if set).
+ *   <li>{@code runs}: the runs, in order (default cold,warm).
+ *   <li>{@code requests}: the requests per run (default 2000).
+ *   <li>{@code rate}: the requests sent per second (default 200).
+ *   <li>{@code concurrency}: the most requests in flight at once; requests due while every client
+ *       is busy wait for one, and the wait counts towards their latency (default 16).
+ *   <li>{@code series-ids}: the series IDs the form offers (default those of
+ *       application.properties).
+ *   <li>{@code years}: the years the form offers (default 20).
+ *   <li>{@code seed}: the seed of the traffic mix (default 1).
+ *   <li>{@code timeout}: the time a request may take (default PT30S).
+ *   <li>{@code output}: the file receiving the results as JSON (default
+ *       target/loadtest-result.json).
+ * </ul>
+ */
+public final class LoadDriver {
+
+  /** Text only the error page carries. */
+  private static final String ERROR_PAGE_TEXT = "An error occurred while fetching CPI data.";
+
+  /** The number of block keys deleted, and announced, at a time. */
+  private static final int DELETE_BATCH_SIZE = 500;
+
+  /** Identifies the driver in invalidation messages, so no node mistakes them for its own. */
+  private static final String DRIVER_ID = "cpi-search-load-driver";
+
+  /** The series IDs the form offers, as in application.properties. */
+  private static final List<String> DEFAULT_SERIES_IDS =
+      List.of(
+          "LAUCN040010000000005",
+          "LAUCN040010000000006",
+          "OEUN000000056--5747213213",
+          "LUU0202891000");
+
+  /** The application the requests are sent to. */
+  private final URI baseUri;
+
+  /** The client sending the requests. */
+  private final HttpClient httpClient;
+
+  /** The time a request may take. */
+  private final Duration timeout;
+
+  /** The requests sent per second. */
+  private final double rate;
+
+  /** The most requests in flight at once. */
+  private final int concurrency;
+
+  /**
+   * Constructs a LoadDriver.
+   *
+   * @param baseUriValue the application the requests are sent to
+   * @param rateValue the requests sent per second
+   * @param concurrencyValue the most requests in flight at once
+   * @param timeoutValue the time a request may take
+   */
+  private LoadDriver(
+      final URI baseUriValue,
+      final double rateValue,
+      final int concurrencyValue,
+      final Duration timeoutValue) {
+    this.baseUri = baseUriValue;
+    this.rate = rateValue;
+    this.concurrency = concurrencyValue;
+    this.timeout = timeoutValue;
+    this.httpClient =
+        HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_1_1)
+            .connectTimeout(Duration.ofSeconds(5))
+            .build();
+  }
+
+  /**
+   * Runs the load test.
+   *
+   * @param args the options
+   * @throws Exception if the test cannot run or its results cannot be written
+   */
+  public static void main(final String[] args) throws Exception {
+    LoadTestOptions options = LoadTestOptions.parse(args);
+    int requestCount = (int) options.integer("requests", 2000);
+    List<String> requests =
+        new TrafficMix(
+                options.integer("seed", 1),
+                options.list("series-ids", DEFAULT_SERIES_IDS),
+                (int) options.integer("years", 20))
+            .requests(requestCount);
+    LoadDriver driver =
+        new LoadDriver(
+            URI.create(options.text("url", "http://localhost:8080")),
+            options.decimal("rate", 200),
+            (int) options.integer("concurrency", 16),
+            options.duration("timeout", Duration.ofSeconds(30)));
+    String redisUri = options.text("redis", "redis://localhost:6379");
+
+    List<Map<String, Object>> results = new ArrayList<>();
+    for (String run : options.list("runs", List.of("cold", "warm"))) {
+      if ("cold".equals(run)) {
+        System.out.printf("Cleared %d cached blocks%n", clearCache(redisUri));
+      } else if ("warm".equals(run)) {
+        driver.replay(requests);
+      } else {
+        throw new IllegalArgumentException("Unknown run: " + run);
+      }
+      Map<String, Object> result = driver.replay(requests).summary(run);
+      results.add(result);
+      System.out.println(format(result));
+    }
+
+    File output = new File(options.text("output", "target/loadtest-result.json"));
+    Map<String, Object> report = new LinkedHashMap<>();
+    report.put("url", options.text("url", "http://localhost:8080"));
+    report.put("requests", requestCount);
+    report.put("rate", driver.rate);
+    report.put("concurrency", driver.concurrency);
+    report.put("runs", results);
+    new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT).writeValue(output, report);
+    System.out.println("Results written to " + output);
+    System.exit(0);
+  }
+
+  /**
+   * Sends every request once, the i-th one scheduled {@code i / rate} seconds after the first.
+   *
+   * @param requests the path and query of each request
+   * @return the latency and outcome of the requests
+   */
+  private Recording replay(final List<String> requests) throws InterruptedException {
+    Recording recording = new Recording(requests.size());
+    ExecutorService clients = Executors.newFixedThreadPool(concurrency);
+    double intervalNanos = TimeUnit.SECONDS.toNanos(1) / rate;
+    long start = System.nanoTime();
+    for (int i = 0; i < requests.size(); i++) {
+      long intendedStart = start + (long) (i * intervalNanos);
+      // Sleeps to the scheduled time, without drifting from it, however late the last send was
+      for (long wait = intendedStart - System.nanoTime();
+          wait > 0;
+          wait = intendedStart - System.nanoTime()) {
+        LockSupport.parkNanos(wait);
+      }
+      String pathAndQuery = requests.get(i);
+      clients.execute(() -> send(pathAndQuery, intendedStart, recording));
+    }
+    clients.shutdown();
+    clients.awaitTermination(1, TimeUnit.DAYS);
+    recording.elapsedNanos = System.nanoTime() - start;
+    return recording;
+  }
+
+  /**
+   * Sends a request and records its outcome, and its latency from the time it was scheduled.
+   *
+   * @param pathAndQuery the path and query of the request
+   * @param intendedStart the {@link System#nanoTime()} at which the request was scheduled
+   * @param recording the recording of the replay
+   */
+  private void send(
+      final String pathAndQuery, final long intendedStart, final Recording recording) {
+    HttpRequest request =
+        HttpRequest.newBuilder(baseUri.resolve(pathAndQuery)).timeout(timeout).GET().build();
+    boolean succeeded;
+    try {
+      HttpResponse<String> response =
+          httpClient.send(request, HttpResponse.BodyHandlers.ofString());
+      succeeded = response.statusCode() == 200 && !response.body().contains(ERROR_PAGE_TEXT);
+    } catch (IOException e) {
+      succeeded = false;
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      return;
+    }
+    recording.record(System.nanoTime() - intendedStart, succeeded);
+  }
+
+  /**
+   * Deletes every cached block and announces the deletions, so that running nodes drop their near
+   * cache copies too.
+   *
+   * @param redisUri the Redis the application caches in
+   * @return the number of blocks deleted
+   */
+  private static long clearCache(final String redisUri) {
+    RedisURI uri = RedisURI.create(redisUri);
+    String password = System.getenv("REDIS_PASSWORD");
+    if (URI.create(redisUri).getUserInfo() == null && password != null && !password.isEmpty()) {
+      // Without a user name, as REDIS_PASSWORD is the application's spring.redis.password
+      uri =
+          RedisURI.builder(uri)
+              .withAuthentication(
+                  RedisCredentialsProvider.from(() -> RedisCredentials.just(null, password)))
+              .build();
+    }
+    RedisClient client = RedisClient.create(uri);
+    long deleted = 0;
+    try (StatefulRedisConnection<String, String> connection = client.connect()) {
+      RedisCommands<String, String> redis = connection.sync();
+      ScanArgs scanArgs =
+          ScanArgs.Builder.matches(CPICacheKey.BLOCK_PREFIX + "*").limit(DELETE_BATCH_SIZE);
+      ScanCursor cursor = ScanCursor.INITIAL;
+      do {
+        KeyScanCursor<String> page = redis.scan(cursor, scanArgs);
+        List<String> keys = page.getKeys();
+        if (!keys.isEmpty()) {
+          deleted += redis.del(keys.toArray(new String[0]));
+          redis.publish(
+              RedisRepository.INVALIDATION_CHANNEL,
+              DRIVER_ID
+                  + RedisRepository.MESSAGE_SEPARATOR
+                  + String.join(RedisRepository.MESSAGE_SEPARATOR, keys));
+        }
+        cursor = page;
+      } while (!cursor.isFinished());
+    } finally {
+      client.shutdown();
+    }
+    return deleted;
+  }
+
+  /**
+   * Formats the results of a run as one line.
+   *
+   * @param result the summary of the run
+   * @return the line
+   */
+  private static String format(final Map<String, Object> result) {
+    return String.format(
+        "%-5s %6d requests %5d failed %9.1f req/s   p50 %8.2f ms   p99 %8.2f ms   p999 %8.2f ms"
+            + "   max %8.2f ms",
+        result.get("run"),
+        result.get("requests"),
+        result.get("failed"),
+        result.get("throughput"),
+        result.get("p50Millis"),
+        result.get("p99Millis"),
+        result.get("p999Millis"),
+        result.get("maxMillis"));
+  }
+
+  /** The latencies and outcomes of one replay. */
+  private static final class Recording {
+
+    /** The latency of each request answered, in nanoseconds from its scheduled start. */
+    private final long[] latencies;
+
+    /** The number of latencies recorded. */
+    private final AtomicInteger recorded = new AtomicInteger();
+
+    /** The number of requests failed. */
+    private final AtomicLong failed = new AtomicLong();
+
+    /** The time from the first request's scheduled start to the last answer. */
+    private long elapsedNanos;
+
+    /**
+     * Constructs a Recording.
+     *
+     * @param requests the number of requests the replay sends
+     */
+    Recording(final int requests) {
+      this.latencies = new long[requests];
+    }
+
+    /**
+     * Records the outcome of a request.
+     *
+     * @param latencyNanos the time from the request's scheduled start to its answer
+     * @param succeeded whether the request succeeded
+     */
+    void record(final long latencyNanos, final boolean succeeded) {
+      latencies[recorded.getAndIncrement()] = latencyNanos;
+      if (!succeeded) {
+        failed.incrementAndGet();
+      }
+    }
+
+    /**
+     * Summarizes the replay.
+     *
+     * @param run the name of the run
+     * @return the throughput, failures and latency percentiles of the replay
+     */
+    Map<String, Object> summary(final String run) {
+      long[] sorted = Arrays.copyOf(latencies, recorded.get());
+      Arrays.sort(sorted);
+      Map<String, Object> summary = new LinkedHashMap<>();
+      summary.put("run", run);
+      summary.put("requests", sorted.length);
+      summary.put("failed", failed.get());
+      summary.put("seconds", elapsedNanos / 1e9);
+      summary.put("throughput", sorted.length / (elapsedNanos / 1e9));
+      summary.put("p50Millis", percentile(sorted, 0.5));
+      summary.put("p99Millis", percentile(sorted, 0.99));
+      summary.put("p999Millis", percentile(sorted, 0.999));
+      summary.put("maxMillis", sorted.length == 0 ? 0.0 : sorted[sorted.length - 1] / 1e6);
+      return summary;
+    }
+
+    /**
+     * Computes a nearest-rank percentile.
+     *
+     * @param sorted the latencies, in ascending order
+     * @param quantile the quantile, between 0 and 1
+     * @return the percentile, in milliseconds
+     */
+    private static double percentile(final long[] sorted, final double quantile) {
+      if (sorted.length == 0) {
+        return 0;
+      }
+      int rank = (int) Math.ceil(quantile * sorted.length);
+      return sorted[Math.max(rank, 1) - 1] / 1e6;
+    }
+  }
+}
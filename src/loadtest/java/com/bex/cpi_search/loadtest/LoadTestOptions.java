@@ -0,0 +1,59 @@
+package com.bex.cpi_search.loadtest;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/** The options of a load-test tool, given as {@code --name=value} arguments. */
+final class LoadTestOptions {
+
+  private final Map<String, String> values;
+
+  private LoadTestOptions(final Map<String, String> valuesByName) {
+    this.values = valuesByName;
+  }
+
+  /**
+   * Parses the arguments of a tool.
+   *
+   * @param args the arguments, each {@code --name=value}
+   * @return the options
+   * @throws IllegalArgumentException if an argument is not of that form
+   */
+  static LoadTestOptions parse(final String[] args) {
+    Map<String, String> values = new HashMap<>();
+    for (String arg : args) {
+      int separator = arg.indexOf('=');
+      if (!arg.startsWith("--") || separator < 0) {
+        throw new IllegalArgumentException("Expected --name=value, got: " + arg);
+      }
+      values.put(arg.substring(2, separator), arg.substring(separator + 1));
+    }
+    return new LoadTestOptions(values);
+  }
+
+  String text(final String name, final String defaultValue) {
+    return values.getOrDefault(name, defaultValue);
+  }
+
+  List<String> list(final String name, final List<String> defaultValue) {
+    String value = values.get(name);
+    return value == null ? defaultValue : List.of(value.split(","));
+  }
+
+  long integer(final String name, final long defaultValue) {
+    String value = values.get(name);
+    return value == null ? defaultValue : Long.parseLong(value);
+  }
+
+  double decimal(final String name, final double defaultValue) {
+    String value = values.get(name);
+    return value == null ? defaultValue : Double.parseDouble(value);
+  }
+
+  Duration duration(final String name, final Duration defaultValue) {
+    String value = values.get(name);
+    return value == null ? defaultValue : Duration.parse(value);
+  }
+}
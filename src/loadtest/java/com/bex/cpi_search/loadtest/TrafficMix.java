@@ -0,0 +1,125 @@
+package com.bex.cpi_search.loadtest;
+
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Generates {@code /request-data} traffic shaped like visitors of the request form: some load the
+ * empty form, most submit it for one or a few series, recent years are asked for far more than old
+ * ones, and months are asked for evenly. The same seed gives the same requests in the same order.
+ */
+final class TrafficMix {
+
+  /** The share of requests that load the empty form. */
+  private static final double FORM_SHARE = 0.2;
+
+  /** The chance of asking for 1, 2, 3 or 4 series in a submission. */
+  private static final double[] SERIES_COUNT_WEIGHTS = {0.5, 0.25, 0.15, 0.1};
+
+  /** The chance of asking for the latest year; each earlier year is asked for less often. */
+  private static final double LATEST_YEAR_SHARE = 0.35;
+
+  /** How much less often each year is asked for than the year after it. */
+  private static final double YEAR_DECAY = 0.7;
+
+  private static final String[] MONTH_NAMES = {
+    "January",
+    "February",
+    "March",
+    "April",
+    "May",
+    "June",
+    "July",
+    "August",
+    "September",
+    "October",
+    "November",
+    "December"
+  };
+
+  private final Random random;
+
+  private final List<String> seriesIds;
+
+  private final int years;
+
+  private final LocalDate today;
+
+  /**
+   * Constructs a TrafficMix.
+   *
+   * @param seed the seed of the request sequence
+   * @param seriesIdValues the series IDs the form offers
+   * @param yearsValue the number of years the form offers, ending with the current year
+   */
+  TrafficMix(final long seed, final List<String> seriesIdValues, final int yearsValue) {
+    this.random = new Random(seed);
+    this.seriesIds = new ArrayList<>(seriesIdValues);
+    this.years = yearsValue;
+    this.today = LocalDate.now(ZoneId.of("America/New_York"));
+  }
+
+  /**
+   * Generates requests.
+   *
+   * @param count the number of requests
+   * @return the path and query of each request
+   */
+  List<String> requests(final int count) {
+    List<String> requests = new ArrayList<>(count);
+    for (int i = 0; i < count; i++) {
+      requests.add(random.nextDouble() < FORM_SHARE ? "/request-data" : submission());
+    }
+    return requests;
+  }
+
+  private String submission() {
+    int year = year();
+    // The current year only has data up to the previous month
+    int months = year == today.getYear() ? today.getMonthValue() - 1 : 12;
+    if (months == 0) {
+      year--;
+      months = 12;
+    }
+    String month = MONTH_NAMES[random.nextInt(months)];
+
+    Collections.shuffle(seriesIds, random);
+    StringBuilder query = new StringBuilder("/request-data?year=").append(year);
+    query.append("&month=").append(month);
+    for (String seriesId : seriesIds.subList(0, Math.min(seriesCount(), seriesIds.size()))) {
+      query.append("&seriesIds=").append(URLEncoder.encode(seriesId, StandardCharsets.UTF_8));
+    }
+    return query.toString();
+  }
+
+  private int seriesCount() {
+    double draw = random.nextDouble();
+    for (int i = 0; i < SERIES_COUNT_WEIGHTS.length; i++) {
+      draw -= SERIES_COUNT_WEIGHTS[i];
+      if (draw < 0) {
+        return i + 1;
+      }
+    }
+    return SERIES_COUNT_WEIGHTS.length;
+  }
+
+  private int year() {
+    double share = LATEST_YEAR_SHARE;
+    double draw = random.nextDouble();
+    for (int age = 0; age < years - 1; age++) {
+      if (draw < share) {
+        return today.getYear() - age;
+      }
+      draw -= share;
+      share *= YEAR_DECAY;
+    }
+    // The rest of the draws are spread evenly over every year offered
+    return today.getYear() - random.nextInt(years);
+  }
+}
@@ -1,20 +1,98 @@
 package com.bex.cpi_search.config;
 
+import io.netty.channel.ChannelOption;
+import io.netty.handler.timeout.ReadTimeoutHandler;
+import java.net.http.HttpClient;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.embedded.netty.NettyReactiveWebServerFactory;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.client.JdkClientHttpRequestFactory;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
+import org.springframework.scheduling.annotation.EnableScheduling;
 import org.springframework.web.client.RestTemplate;
+import org.springframework.web.reactive.function.client.WebClient;
 
-/** Configuration class for application-specific beans. */
+/**
+ * Configuration class for application-specific beans. Also enables scheduled tasks, such as cache
+ * warming.
+ */
 @Configuration
+@EnableScheduling
 public class AppConfig {
 
   /**
-   * Creates a {@link RestTemplate} bean.
+   * Creates a {@link RestTemplate} bean backed by the JDK {@link HttpClient}, which keeps
+   * connections alive in a pool, negotiates HTTP/2 where the server supports it, and falls back to
+   * HTTP/1.1 otherwise.
    *
+   * <p>The read timeout only bounds the wait for the response headers; the JDK client sets no
+   * deadline on reading the body, which {@link com.bex.cpi_search.service.BLSApiService} enforces
+   * itself with {@code cpi.bls.http.response-timeout}.
+   *
+   * @param connectTimeout the maximum time to establish a connection
+   * @param readTimeout the maximum time to wait for the response headers of a request
    * @return a new instance of {@link RestTemplate}
    */
   @Bean
-  public RestTemplate restTemplate() {
-    return new RestTemplate();
+  public RestTemplate restTemplate(
+      @Value("${cpi.bls.http.connect-timeout:PT5S}") final Duration connectTimeout,
+      @Value("${cpi.bls.http.read-timeout:PT30S}") final Duration readTimeout) {
+    HttpClient httpClient =
+        HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_2)
+            .connectTimeout(connectTimeout)
+            .followRedirects(HttpClient.Redirect.NORMAL)
+            .build();
+    JdkClientHttpRequestFactory requestFactory = new JdkClientHttpRequestFactory(httpClient);
+    requestFactory.setReadTimeout(readTimeout);
+    return new RestTemplate(requestFactory);
+  }
+
+  /**
+   * Creates the {@link WebClient} the reactive request pipeline calls the BLS API with. It runs on
+   * the Reactor Netty event loops, requests gzip-compressed responses and decompresses them, and
+   * applies the same timeouts as {@link #restTemplate(Duration, Duration)}. The read timeout bounds
+   * both the wait for the response headers and each wait for more of the body; the deadline of the
+   * whole call is enforced by {@link com.bex.cpi_search.service.ReactiveBLSApiService}.
+   *
+   * @param webClientBuilder the builder configured with the application's codecs
+   * @param connectTimeout the maximum time to establish a connection
+   * @param readTimeout the maximum time to wait for the response headers, or for more of the body,
+   *     of a request
+   * @return a new instance of {@link WebClient}
+   */
+  @Bean
+  @ConditionalOnProperty(name = "cpi.pipeline.mode", havingValue = "reactive")
+  public WebClient blsWebClient(
+      final WebClient.Builder webClientBuilder,
+      @Value("${cpi.bls.http.connect-timeout:PT5S}") final Duration connectTimeout,
+      @Value("${cpi.bls.http.read-timeout:PT30S}") final Duration readTimeout) {
+    reactor.netty.http.client.HttpClient httpClient =
+        reactor.netty.http.client.HttpClient.create()
+            .option(ChannelOption.CONNECT_TIMEOUT_MILLIS, (int) connectTimeout.toMillis())
+            .responseTimeout(readTimeout)
+            .doOnConnected(
+                connection ->
+                    connection.addHandlerLast(
+                        new ReadTimeoutHandler(readTimeout.toMillis(), TimeUnit.MILLISECONDS)))
+            .followRedirect(true)
+            .compress(true);
+    return webClientBuilder.clientConnector(new ReactorClientHttpConnector(httpClient)).build();
+  }
+
+  /**
+   * Serves the reactive request pipeline with Reactor Netty, whose few event-loop threads hold
+   * every pending request, rather than with the Tomcat server of the servlet pipeline.
+   *
+   * @return a new instance of {@link NettyReactiveWebServerFactory}
+   */
+  @Bean
+  @ConditionalOnProperty(name = "cpi.pipeline.mode", havingValue = "reactive")
+  public NettyReactiveWebServerFactory nettyReactiveWebServerFactory() {
+    return new NettyReactiveWebServerFactory();
   }
 }
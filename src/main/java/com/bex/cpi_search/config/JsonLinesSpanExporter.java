@@ -0,0 +1,175 @@
+package com.bex.cpi_search.config;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.StreamWriteFeature;
+import io.opentelemetry.api.common.AttributeKey;
+import io.opentelemetry.api.trace.SpanId;
+import io.opentelemetry.sdk.common.CompletableResultCode;
+import io.opentelemetry.sdk.trace.data.SpanData;
+import io.opentelemetry.sdk.trace.export.SpanExporter;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.Map;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Exports finished spans to a local file, one JSON object per line, so that where the time of a
+ * request went can be analysed without a tracing collector: the spans of one request share a {@code
+ * traceId}, and each names the span it ran within as its {@code parentSpanId}.
+ *
+ * <pre>
+ * {"traceId":"…","spanId":"…","parentSpanId":"…","name":"fetch-data","kind":"INTERNAL",
+ *  "start":"2024-04-10T12:30:00.123456Z","durationMicros":412345,"status":"UNSET",
+ *  "attributes":{"priority":"INTERACTIVE","series.count":"2"}}
+ * </pre>
+ *
+ * <p>Once the file reaches its maximum size it is renamed with a {@code .1} suffix, replacing the
+ * previous one, and a new file is started, so at most about twice the maximum size is kept.
+ */
+public final class JsonLinesSpanExporter implements SpanExporter {
+
+  /** Creates the generator of each line, leaving the file open after it. */
+  private static final JsonFactory JSON_FACTORY =
+      JsonFactory.builder().disable(StreamWriteFeature.AUTO_CLOSE_TARGET).build();
+
+  private static final Logger log = LoggerFactory.getLogger(JsonLinesSpanExporter.class);
+
+  /** The file the spans are appended to. */
+  private final Path file;
+
+  /** The file the spans are moved to once the file reaches its maximum size. */
+  private final Path rotatedFile;
+
+  /** The size in bytes at which the file is rotated. */
+  private final long maxFileSize;
+
+  /** Appends to the file; guarded by this exporter. */
+  private Writer writer;
+
+  /**
+   * Constructs an exporter appending to a file, creating the file and its directory if needed.
+   *
+   * @param fileValue the file the spans are appended to
+   * @param maxFileSizeValue the size in bytes at which the file is rotated
+   * @throws IOException if the file cannot be opened
+   */
+  public JsonLinesSpanExporter(final Path fileValue, final long maxFileSizeValue)
+      throws IOException {
+    this.file = fileValue;
+    this.rotatedFile = fileValue.resolveSibling(fileValue.getFileName() + ".1");
+    this.maxFileSize = maxFileSizeValue;
+    Path directory = fileValue.toAbsolutePath().getParent();
+    if (directory != null) {
+      Files.createDirectories(directory);
+    }
+    this.writer = open();
+    log.info(
+        "Exporting trace spans to {}, rotated at {} bytes",
+        fileValue.toAbsolutePath(),
+        maxFileSize);
+  }
+
+  /**
+   * Appends a batch of finished spans to the file.
+   *
+   * @param spans the spans
+   * @return success, or failure if the spans could not be written
+   */
+  @Override
+  public synchronized CompletableResultCode export(final Collection<SpanData> spans) {
+    try {
+      for (SpanData span : spans) {
+        writeSpan(span);
+      }
+      writer.flush();
+      if (Files.size(file) >= maxFileSize) {
+        rotate();
+      }
+      return CompletableResultCode.ofSuccess();
+    } catch (IOException e) {
+      log.warn("Failed to export {} trace spans to {}", spans.size(), file, e);
+      return CompletableResultCode.ofFailure();
+    }
+  }
+
+  @Override
+  public synchronized CompletableResultCode flush() {
+    try {
+      writer.flush();
+      return CompletableResultCode.ofSuccess();
+    } catch (IOException e) {
+      return CompletableResultCode.ofFailure();
+    }
+  }
+
+  @Override
+  public synchronized CompletableResultCode shutdown() {
+    try {
+      writer.close();
+      return CompletableResultCode.ofSuccess();
+    } catch (IOException e) {
+      return CompletableResultCode.ofFailure();
+    }
+  }
+
+  /**
+   * Opens the file for appending, creating it if needed.
+   *
+   * @return the writer appending to the file
+   * @throws IOException if the file cannot be opened
+   */
+  private Writer open() throws IOException {
+    return Files.newBufferedWriter(
+        file, StandardCharsets.UTF_8, StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+  }
+
+  /**
+   * Moves the full file aside, replacing the file moved aside before it, and starts a new one.
+   *
+   * @throws IOException if the file cannot be moved or reopened
+   */
+  private void rotate() throws IOException {
+    writer.close();
+    try {
+      Files.move(file, rotatedFile, StandardCopyOption.REPLACE_EXISTING);
+    } finally {
+      writer = open();
+    }
+  }
+
+  private void writeSpan(final SpanData span) throws IOException {
+    try (JsonGenerator json = JSON_FACTORY.createGenerator(writer)) {
+      json.writeStartObject();
+      json.writeStringField("traceId", span.getTraceId());
+      json.writeStringField("spanId", span.getSpanId());
+      if (SpanId.isValid(span.getParentSpanId())) {
+        json.writeStringField("parentSpanId", span.getParentSpanId());
+      }
+      json.writeStringField("name", span.getName());
+      json.writeStringField("kind", span.getKind().name());
+      json.writeStringField("start", Instant.EPOCH.plusNanos(span.getStartEpochNanos()).toString());
+      json.writeNumberField(
+          "durationMicros", (span.getEndEpochNanos() - span.getStartEpochNanos()) / 1000);
+      json.writeStringField("status", span.getStatus().getStatusCode().name());
+      if (!span.getStatus().getDescription().isEmpty()) {
+        json.writeStringField("statusDescription", span.getStatus().getDescription());
+      }
+      json.writeObjectFieldStart("attributes");
+      for (Map.Entry<AttributeKey<?>, Object> attribute : span.getAttributes().asMap().entrySet()) {
+        json.writeStringField(attribute.getKey().getKey(), String.valueOf(attribute.getValue()));
+      }
+      json.writeEndObject();
+      json.writeEndObject();
+    }
+    writer.write('\n');
+  }
+}
@@ -1,12 +1,18 @@
 package com.bex.cpi_search.config;
 
+import com.bex.cpi_search.repository.CPIDataRedisSerializer;
+import io.lettuce.core.resource.ClientResources;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.data.redis.connection.RedisStandaloneConfiguration;
+import org.springframework.data.redis.connection.lettuce.LettuceClientConfiguration;
 import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.core.ReactiveRedisTemplate;
 import org.springframework.data.redis.core.RedisTemplate;
-import org.springframework.data.redis.serializer.GenericJackson2JsonRedisSerializer;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.data.redis.serializer.RedisSerializationContext;
 import org.springframework.data.redis.serializer.StringRedisSerializer;
 
 /**
@@ -29,9 +35,20 @@ public class RedisConfig {
   @Value("${spring.redis.password}")
   private String redisPassword;
 
+  /** The size in bytes above which cached values are deflated; 0 disables compression. */
+  @Value("${cpi.cache.serializer.compression-threshold:512}")
+  private int compressionThreshold;
+
+  /**
+   * The Lettuce event loops and timers, as configured by Spring Boot, which include the recorder
+   * publishing the latency of each Redis command as a meter.
+   */
+  @Autowired private ClientResources clientResources;
+
   /**
    * Creates and configures a LettuceConnectionFactory for Redis based on the specified host, port,
-   * and password.
+   * and password. Its connections share the application's Lettuce client resources, so that Redis
+   * command latencies are recorded.
    *
    * @return a LettuceConnectionFactory configured with the Redis server details
    */
@@ -41,12 +58,15 @@ public class RedisConfig {
     redisConfig.setHostName(redisHost);
     redisConfig.setPort(redisPort);
     redisConfig.setPassword(redisPassword);
-    return new LettuceConnectionFactory(redisConfig);
+    LettuceClientConfiguration clientConfig =
+        LettuceClientConfiguration.builder().clientResources(clientResources).build();
+    return new LettuceConnectionFactory(redisConfig, clientConfig);
   }
 
   /**
    * Configures a RedisTemplate with a connection factory and serializers for keys and values. The
-   * keys are serialized as strings, and the values are serialized as JSON using Jackson.
+   * keys and hash keys are serialized as strings, and the values and hash values are serialized
+   * with the compact binary CPI data format, falling back to JSON for other types.
    *
    * @return a RedisTemplate configured for String keys and JSON-serialized values
    */
@@ -55,7 +75,50 @@ public class RedisConfig {
     RedisTemplate<String, Object> template = new RedisTemplate<>();
     template.setConnectionFactory(redisConnectionFactory());
     template.setKeySerializer(new StringRedisSerializer());
-    template.setValueSerializer(new GenericJackson2JsonRedisSerializer());
+    CPIDataRedisSerializer valueSerializer = new CPIDataRedisSerializer(compressionThreshold);
+    template.setValueSerializer(valueSerializer);
+    template.setHashKeySerializer(new StringRedisSerializer());
+    template.setHashValueSerializer(valueSerializer);
     return template;
   }
+
+  /**
+   * Configures a ReactiveRedisTemplate for the reactive request pipeline, serializing keys and
+   * values the same way as {@link #redisTemplate()} so that both read and write the same blocks.
+   *
+   * @return a ReactiveRedisTemplate configured for String keys and CPI data values
+   */
+  @Bean
+  public ReactiveRedisTemplate<String, Object> reactiveRedisTemplate() {
+    CPIDataRedisSerializer valueSerializer = new CPIDataRedisSerializer(compressionThreshold);
+    RedisSerializationContext<String, Object> serializationContext =
+        RedisSerializationContext.<String, Object>newSerializationContext(
+                new StringRedisSerializer())
+            .value(valueSerializer)
+            .hashKey(new StringRedisSerializer())
+            .hashValue(valueSerializer)
+            .build();
+    return new ReactiveRedisTemplate<>(redisConnectionFactory(), serializationContext);
+  }
+
+  /**
+   * Creates a container for Redis pub/sub listeners, used to propagate near cache invalidations
+   * between nodes. It is not started with the application context, which would fail to start while
+   * Redis is unavailable; the repository subscribes once Redis can be reached.
+   *
+   * @return a RedisMessageListenerContainer using the Redis connection factory
+   * @see com.bex.cpi_search.repository.RedisRepository#subscribe()
+   */
+  @Bean
+  public RedisMessageListenerContainer redisMessageListenerContainer() {
+    RedisMessageListenerContainer container =
+        new RedisMessageListenerContainer() {
+          @Override
+          public boolean isAutoStartup() {
+            return false;
+          }
+        };
+    container.setConnectionFactory(redisConnectionFactory());
+    return container;
+  }
 }
@@ -0,0 +1,127 @@
+package com.bex.cpi_search.config;
+
+import io.lettuce.core.tracing.MicrometerTracing;
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationRegistry;
+import io.opentelemetry.sdk.trace.export.SpanExporter;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.nio.file.Path;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.data.redis.ClientResourcesBuilderCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.servlet.HandlerInterceptor;
+import org.springframework.web.servlet.ModelAndView;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+/**
+ * Configuration class for tracing. Spring Boot traces each request served, and each call made with
+ * an instrumented HTTP client, through the OpenTelemetry SDK; this class adds spans for each Redis
+ * command and each view rendered, and exports every finished span of the sampled requests to a
+ * local file rather than to a collector.
+ */
+@Configuration
+public class TracingConfig {
+
+  /**
+   * Creates the exporter that appends finished spans to a local file as JSON lines. It is handed
+   * batches of spans by the OpenTelemetry SDK on a thread of its own, off the request path.
+   *
+   * @param file the file the spans are appended to
+   * @param maxFileSize the size at which the file is rotated
+   * @return a new instance of {@link JsonLinesSpanExporter}
+   * @throws IOException if the file cannot be opened
+   */
+  @Bean
+  @ConditionalOnProperty(name = "management.tracing.enabled", matchIfMissing = true)
+  public SpanExporter jsonLinesSpanExporter(
+      @Value("${cpi.tracing.file:traces.jsonl}") final Path file,
+      @Value("${cpi.tracing.max-file-size:100MB}") final DataSize maxFileSize)
+      throws IOException {
+    return new JsonLinesSpanExporter(file, maxFileSize.toBytes());
+  }
+
+  /**
+   * Traces each Redis command as a child of the observation it is sent within.
+   *
+   * @param observationRegistry the registry of the application's observations
+   * @return a customizer of the Lettuce client resources
+   */
+  @Bean
+  public ClientResourcesBuilderCustomizer lettuceTracing(
+      final ObservationRegistry observationRegistry) {
+    return builder -> builder.tracing(new MicrometerTracing(observationRegistry, "redis"));
+  }
+
+  /**
+   * Traces the rendering of each view of the servlet request pipeline.
+   *
+   * @param observationRegistry the registry of the application's observations
+   * @return a configurer registering the view rendering interceptor
+   */
+  @Bean
+  @ConditionalOnProperty(name = "cpi.pipeline.mode", havingValue = "servlet", matchIfMissing = true)
+  public WebMvcConfigurer viewRenderingObservation(final ObservationRegistry observationRegistry) {
+    return new WebMvcConfigurer() {
+      @Override
+      public void addInterceptors(final InterceptorRegistry registry) {
+        registry.addInterceptor(new ViewRenderingInterceptor(observationRegistry));
+      }
+    };
+  }
+
+  /**
+   * Observes the rendering of a view, from the return of its handler to the completion of the
+   * request, as a child of the request's observation.
+   */
+  static final class ViewRenderingInterceptor implements HandlerInterceptor {
+
+    /** The request attribute holding the observation of the rendering. */
+    private static final String OBSERVATION_ATTRIBUTE =
+        ViewRenderingInterceptor.class.getName() + ".observation";
+
+    /** The registry of the application's observations. */
+    private final ObservationRegistry observationRegistry;
+
+    ViewRenderingInterceptor(final ObservationRegistry observationRegistryValue) {
+      this.observationRegistry = observationRegistryValue;
+    }
+
+    @Override
+    public void postHandle(
+        final HttpServletRequest request,
+        final HttpServletResponse response,
+        final Object handler,
+        final ModelAndView modelAndView) {
+      if (modelAndView == null || modelAndView.getViewName() == null) {
+        return;
+      }
+      Observation observation =
+          Observation.createNotStarted("cpi.view.render", observationRegistry)
+              .contextualName("render " + modelAndView.getViewName())
+              .lowCardinalityKeyValue("view", modelAndView.getViewName())
+              .start();
+      request.setAttribute(OBSERVATION_ATTRIBUTE, observation);
+    }
+
+    @Override
+    public void afterCompletion(
+        final HttpServletRequest request,
+        final HttpServletResponse response,
+        final Object handler,
+        final Exception ex) {
+      if (request.getAttribute(OBSERVATION_ATTRIBUTE) instanceof Observation observation) {
+        request.removeAttribute(OBSERVATION_ATTRIBUTE);
+        if (ex != null) {
+          observation.error(ex);
+        }
+        observation.stop();
+      }
+    }
+  }
+}
@@ -3,61 +3,139 @@ package com.bex.cpi_search.controller;
 import com.bex.cpi_search.model.CPIData;
 import com.bex.cpi_search.service.BLSApiService;
 import com.bex.cpi_search.service.CPIDataService;
+import com.bex.cpi_search.service.CacheExpiryPolicy;
+import jakarta.servlet.http.HttpServletResponse;
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
 import java.time.YearMonth;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
+import java.util.TreeMap;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
+import org.springframework.util.DigestUtils;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.context.request.ServletWebRequest;
 
-/** Controller for handling requests related to CPI (Consumer Price Index) data. */
+/**
+ * Controller for handling requests related to CPI (Consumer Price Index) data, in the servlet
+ * request pipeline.
+ */
 @Controller
+@ConditionalOnProperty(name = "cpi.pipeline.mode", havingValue = "servlet", matchIfMissing = true)
 public class CPIDataController {
 
+  /**
+   * The version of the rendered results, part of every ETag; change it when the results page
+   * changes, so that clients do not keep pages rendered by the previous version.
+   */
+  private static final String RESPONSE_VERSION = "1";
+
   /** Service for interacting with CPI data. */
   private final CPIDataService cpiDataService;
 
+  /** Decides which years BLS has published in full. */
+  private final CacheExpiryPolicy expiryPolicy;
+
+  /**
+   * The caching of results for a year BLS has published in full, which change only with its annual
+   * revisions.
+   */
+  private final CacheControl finalizedCacheControl;
+
+  /** The caching of results for a year whose data may still change. */
+  private final CacheControl changeableCacheControl;
+
   private static final Logger log = LoggerFactory.getLogger(BLSApiService.class);
 
   /** List of available series IDs for selection. */
-  private static final List<String> SERIES_IDS =
-      List.of(
-          "LAUCN040010000000005",
-          "LAUCN040010000000006",
-          "OEUN000000056--5747213213",
-          "LUU0202891000");
+  private final List<String> seriesIdOptions;
 
   /**
    * Constructor for CPIDataController.
    *
    * @param providedCpiDataService service for CPI data interaction
+   * @param providedExpiryPolicy policy deciding which years BLS has published in full
+   * @param seriesIdValues the series IDs available for selection
+   * @param finalizedMaxAgeValue how long clients may reuse results for a year published in full
+   *     before revalidating them
+   * @param changeableMaxAgeValue how long clients may reuse results for a year that may change
    */
-  public CPIDataController(final CPIDataService providedCpiDataService) {
+  public CPIDataController(
+      final CPIDataService providedCpiDataService,
+      final CacheExpiryPolicy providedExpiryPolicy,
+      @Value("${cpi.series-ids}") final List<String> seriesIdValues,
+      @Value("${cpi.http.cache.finalized-max-age:P1D}") final Duration finalizedMaxAgeValue,
+      @Value("${cpi.http.cache.changeable-max-age:PT5M}") final Duration changeableMaxAgeValue) {
     this.cpiDataService = providedCpiDataService;
+    this.expiryPolicy = providedExpiryPolicy;
+    this.seriesIdOptions = List.copyOf(seriesIdValues);
+    this.finalizedCacheControl = CacheControl.maxAge(finalizedMaxAgeValue).cachePublic();
+    this.changeableCacheControl = CacheControl.maxAge(changeableMaxAgeValue).cachePublic();
   }
 
   /**
    * Displays the form for requesting CPI data and optionally the results.
    *
-   * @param seriesIds selected series IDs
-   * @param year selected year
-   * @param month selected month
+   * <p>Results requested with GET carry validators and caching headers, so that browsers and the
+   * CDN can reuse them. Their ETag is derived from the values shown, so a conditional request gets
+   * a 304 only while the cached data is unchanged. Months of a year BLS has published in full may
+   * be reused for longer, but are still revalidated, since annual revisions can change them.
+   *
+   * @param seriesIds selected series IDs, or null to show only the form
+   * @param year selected year, or null to show only the form
+   * @param month selected month, or null to show only the form
+   * @param webRequest the request, used to check its preconditions
+   * @param response the response receiving the caching headers
    * @param model model to pass data to the view
-   * @return the name of the view template for the request form and results
+   * @return the name of the view template for the request form and results, or null if the results
+   *     are not modified
+   * @throws IOException if an error occurs during the API request
    */
   @GetMapping("/request-data")
-  public String showForm(final Model model) {
-    model.addAttribute("seriesIds", SERIES_IDS);
-    model.addAttribute("months", getMonths());
-    model.addAttribute("years", getYears());
-    return "request-response";
+  public String showForm(
+      @RequestParam(required = false) final List<String> seriesIds,
+      @RequestParam(required = false) final String year,
+      @RequestParam(required = false) final String month,
+      final ServletWebRequest webRequest,
+      final HttpServletResponse response,
+      final Model model)
+      throws IOException {
+    if (seriesIds == null || seriesIds.isEmpty() || year == null || month == null) {
+      addFormAttributes(model);
+      return "request-response";
+    }
+
+    try {
+      Map<String, CPIData> cpiData = cpiDataService.getCPIData(year, month, seriesIds);
+      CacheControl cacheControl =
+          expiryPolicy.isFinalized(year) ? finalizedCacheControl : changeableCacheControl;
+      response.setHeader(HttpHeaders.CACHE_CONTROL, cacheControl.getHeaderValue());
+      if (webRequest.checkNotModified(dataETag(year, month, cpiData))) {
+        return null;
+      }
+      addResponseAttributes(model, cpiData, year, month);
+      return "request-response";
+    } catch (RuntimeException e) {
+      // An error page must not be reused in place of the data
+      response.setHeader(HttpHeaders.CACHE_CONTROL, CacheControl.noStore().getHeaderValue());
+      log.error("An error occurred while fetching CPI data.", e);
+      model.addAttribute(
+          "errorMessage", "An error occurred while fetching CPI data." + e.getMessage());
+      return "error";
+    }
   }
 
   /**
@@ -80,12 +158,7 @@ public class CPIDataController {
     try {
       Map<String, CPIData> response = cpiDataService.getCPIData(year, month, seriesIds);
 
-      model.addAttribute("response", response);
-      model.addAttribute("seriesIds", SERIES_IDS);
-      model.addAttribute("years", getYears());
-      model.addAttribute("months", getMonths());
-      model.addAttribute("selectedYear", year);
-      model.addAttribute("selectedMonth", month);
+      addResponseAttributes(model, response, year, month);
       return "request-response";
     } catch (RuntimeException e) {
       // Log the error and add an attribute to the model to display the error message
@@ -98,12 +171,65 @@ public class CPIDataController {
     }
   }
 
+  /**
+   * Adds the attributes of the request form to the model.
+   *
+   * @param model model to pass data to the view
+   */
+  private void addFormAttributes(final Model model) {
+    model.addAttribute("seriesIds", seriesIdOptions);
+    model.addAttribute("months", getMonths());
+    model.addAttribute("years", getYears());
+  }
+
+  /**
+   * Adds the attributes of the request form and its results to the model.
+   *
+   * @param model model to pass data to the view
+   * @param response the CPI data by series ID
+   * @param year selected year
+   * @param month selected month
+   */
+  private void addResponseAttributes(
+      final Model model,
+      final Map<String, CPIData> response,
+      final String year,
+      final String month) {
+    model.addAttribute("response", response);
+    addFormAttributes(model);
+    model.addAttribute("selectedYear", year);
+    model.addAttribute("selectedMonth", month);
+  }
+
+  /**
+   * Derives the ETag of results from the data they show.
+   *
+   * @param year selected year
+   * @param month selected month
+   * @param cpiData the CPI data by series ID
+   * @return the ETag
+   */
+  static String dataETag(
+      final String year, final String month, final Map<String, CPIData> cpiData) {
+    StringBuilder data = new StringBuilder(RESPONSE_VERSION).append('|').append(year);
+    data.append('|').append(month.toLowerCase(Locale.ROOT));
+    new TreeMap<>(cpiData)
+        .forEach(
+            (seriesId, cpi) ->
+                data.append('|')
+                    .append(seriesId)
+                    .append('=')
+                    .append(cpi.getCPIValue())
+                    .append(cpi.getNotes()));
+    return '"' + DigestUtils.md5DigestAsHex(data.toString().getBytes(StandardCharsets.UTF_8)) + '"';
+  }
+
   /**
    * Provides a list of years for selection.
    *
    * @return list of years
    */
-  private List<String> getYears() {
+  static List<String> getYears() {
     return Stream.iterate(YearMonth.now().getYear(), year -> year - 1)
         .limit(20)
         .map(String::valueOf)
@@ -115,7 +241,7 @@ public class CPIDataController {
    *
    * @return list of months
    */
-  private List<String> getMonths() {
+  static List<String> getMonths() {
     return Stream.of(
             "January",
             "February",
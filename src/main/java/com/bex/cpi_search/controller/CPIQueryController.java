@@ -0,0 +1,288 @@
+package com.bex.cpi_search.controller;
+
+import com.bex.cpi_search.model.CPIConversion;
+import com.bex.cpi_search.model.CPIConversionRequest;
+import com.bex.cpi_search.model.CPIConversionResult;
+import com.bex.cpi_search.model.CPIQuery;
+import com.bex.cpi_search.model.CPIQueryRequest;
+import com.bex.cpi_search.model.CPIQueryResult;
+import com.bex.cpi_search.service.BLSRateLimitException;
+import com.bex.cpi_search.service.CPIDataExporter;
+import com.bex.cpi_search.service.CPIDataService;
+import jakarta.servlet.http.HttpServletResponse;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.Year;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.zip.GZIPOutputStream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ProblemDetail;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.client.RestClientException;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+/**
+ * JSON API for resolving a batch of CPI queries in one call, for converting a batch of amounts
+ * between months, and for exporting the full history of a set of series, for services that would
+ * otherwise submit the request form once per series and month. Errors found before a response
+ * starts are reported as RFC 9457 problem details.
+ */
+@RestController
+@RequestMapping("/api/v1/cpi")
+@ConditionalOnProperty(name = "cpi.pipeline.mode", havingValue = "servlet", matchIfMissing = true)
+public class CPIQueryController {
+
+  /** The content coding of a compressed export. */
+  private static final String GZIP = "gzip";
+
+  /** The size of the buffers between the rows of an export and the response. */
+  private static final int EXPORT_BUFFER_SIZE = 8192;
+
+  /** Service for interacting with CPI data. */
+  private final CPIDataService cpiDataService;
+
+  /** Service for exporting CPI data. */
+  private final CPIDataExporter cpiDataExporter;
+
+  private static final Logger log = LoggerFactory.getLogger(CPIQueryController.class);
+
+  /** The maximum number of queries accepted in one call. */
+  private final int maxQueries;
+
+  /** The maximum number of conversions accepted in one call. */
+  private final int maxConversions;
+
+  /** The series ID of conversions that name none, by default CPI-U, all items. */
+  private final String defaultSeriesId;
+
+  /**
+   * Constructor for CPIQueryController.
+   *
+   * @param providedCpiDataService service for CPI data interaction
+   * @param providedCpiDataExporter service for exporting CPI data
+   * @param maxQueriesValue the maximum number of queries accepted in one call
+   * @param maxConversionsValue the maximum number of conversions accepted in one call
+   * @param defaultSeriesIdValue the series ID of conversions that name none
+   */
+  public CPIQueryController(
+      final CPIDataService providedCpiDataService,
+      final CPIDataExporter providedCpiDataExporter,
+      @Value("${cpi.api.query.max-queries:1000}") final int maxQueriesValue,
+      @Value("${cpi.api.convert.max-conversions:10000}") final int maxConversionsValue,
+      @Value("${cpi.api.convert.default-series-id:CUUR0000SA0}")
+          final String defaultSeriesIdValue) {
+    this.cpiDataService = providedCpiDataService;
+    this.cpiDataExporter = providedCpiDataExporter;
+    this.maxQueries = maxQueriesValue;
+    this.maxConversions = maxConversionsValue;
+    this.defaultSeriesId = defaultSeriesIdValue;
+  }
+
+  /**
+   * Resolves a batch of queries, each for a range of months of one series and year.
+   *
+   * @param request the queries
+   * @return the results, in the order of the queries
+   * @throws IOException if an error occurs during an API request
+   */
+  @PostMapping("/query")
+  public Map<String, List<CPIQueryResult>> query(@RequestBody final CPIQueryRequest request)
+      throws IOException {
+    List<CPIQuery> queries = request.getQueries();
+    if (queries == null || queries.isEmpty()) {
+      throw new IllegalArgumentException("The request has no queries.");
+    }
+    if (queries.size() > maxQueries) {
+      throw new IllegalArgumentException(
+          "The request has " + queries.size() + " queries; at most " + maxQueries + " allowed.");
+    }
+    return Map.of("results", cpiDataService.queryCPIData(queries));
+  }
+
+  /**
+   * Converts a batch of amounts from one month to another by the ratio of the CPI values of the two
+   * months, answering from the in-memory CPI index once its series are indexed.
+   *
+   * @param request the conversions
+   * @return the results, in the order of the conversions
+   * @throws IOException if an error occurs during an API request
+   */
+  @PostMapping("/convert")
+  public Map<String, List<CPIConversionResult>> convert(
+      @RequestBody final CPIConversionRequest request) throws IOException {
+    List<CPIConversion> conversions = request.getConversions();
+    if (conversions == null || conversions.isEmpty()) {
+      throw new IllegalArgumentException("The request has no conversions.");
+    }
+    if (conversions.size() > maxConversions) {
+      throw new IllegalArgumentException(
+          "The request has "
+              + conversions.size()
+              + " conversions; at most "
+              + maxConversions
+              + " allowed.");
+    }
+    String seriesId =
+        request.getSeriesId() == null || request.getSeriesId().isBlank()
+            ? defaultSeriesId
+            : request.getSeriesId();
+    return Map.of("results", cpiDataService.convertAmounts(conversions, seriesId));
+  }
+
+  /**
+   * Streams the full history of a set of series, one row per month, as the rows are read from the
+   * cache or fetched from BLS. The response is gzip-compressed if the client accepts it. A client
+   * that was disconnected can continue after the last row it received by passing that row's {@code
+   * <seriesId>:<year>:<month>} as the cursor.
+   *
+   * @param seriesIds the series IDs to export, in export order
+   * @param startYear the first year to export, by default the first year BLS publishes CPI data for
+   * @param endYear the last year to export, or null for the current year
+   * @param format "csv" or "ndjson"
+   * @param after the cursor of the last row already received, or null to export from the start
+   * @param acceptEncoding the Accept-Encoding header of the request, or null
+   * @return the streamed export
+   */
+  @GetMapping("/export")
+  public ResponseEntity<StreamingResponseBody> export(
+      @RequestParam final List<String> seriesIds,
+      @RequestParam(defaultValue = "" + CPIDataService.FIRST_CPI_YEAR) final int startYear,
+      @RequestParam(required = false) final Integer endYear,
+      @RequestParam(defaultValue = "csv") final String format,
+      @RequestParam(required = false) final String after,
+      @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false)
+          final String acceptEncoding) {
+    CPIDataExporter.Format exportFormat = CPIDataExporter.Format.of(format);
+    CPIDataExporter.Range range =
+        cpiDataExporter.range(
+            seriesIds, startYear, endYear != null ? endYear : Year.now().getValue(), after);
+    boolean gzip = acceptsGzip(acceptEncoding);
+
+    StreamingResponseBody body =
+        outputStream -> {
+          GZIPOutputStream gzipStream =
+              gzip ? new GZIPOutputStream(outputStream, EXPORT_BUFFER_SIZE, true) : null;
+          Writer writer =
+              new BufferedWriter(
+                  new OutputStreamWriter(gzip ? gzipStream : outputStream, StandardCharsets.UTF_8),
+                  EXPORT_BUFFER_SIZE);
+          try {
+            cpiDataExporter.export(range, exportFormat, writer);
+          } catch (IOException | RuntimeException e) {
+            // The response is already under way, so the export is cut short rather than
+            // completed; the client continues from the last row it received
+            log.warn("CPI export stopped: {}", e.getMessage());
+            throw e;
+          }
+          if (gzipStream != null) {
+            gzipStream.finish();
+          }
+        };
+
+    ResponseEntity.BodyBuilder response =
+        ResponseEntity.ok()
+            .contentType(
+                new MediaType(
+                    MediaType.parseMediaType(exportFormat.getMediaType()), StandardCharsets.UTF_8))
+            .header(
+                HttpHeaders.CONTENT_DISPOSITION,
+                ContentDisposition.attachment()
+                    .filename("cpi-export." + exportFormat.name().toLowerCase(Locale.ROOT))
+                    .build()
+                    .toString())
+            .header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+    if (gzip) {
+      response.header(HttpHeaders.CONTENT_ENCODING, GZIP);
+    }
+    return response.body(body);
+  }
+
+  /**
+   * Checks whether an Accept-Encoding header accepts gzip.
+   *
+   * @param acceptEncoding the header, or null
+   * @return true if gzip is listed without a zero quality
+   */
+  private static boolean acceptsGzip(final String acceptEncoding) {
+    if (acceptEncoding == null) {
+      return false;
+    }
+    for (String coding : acceptEncoding.split(",")) {
+      String[] parts = coding.trim().split(";");
+      if (parts[0].trim().equalsIgnoreCase(GZIP)) {
+        return parts.length == 1 || !parts[1].replace(" ", "").matches("q=0(\\.0*)?");
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Reports an invalid request.
+   *
+   * @param e the exception describing what is invalid
+   * @return a 400 problem detail
+   */
+  @ExceptionHandler(IllegalArgumentException.class)
+  public ProblemDetail handleInvalidRequest(final IllegalArgumentException e) {
+    return ProblemDetail.forStatusAndDetail(HttpStatus.BAD_REQUEST, e.getMessage());
+  }
+
+  /**
+   * Reports that the BLS API limits were reached, with when to retry.
+   *
+   * @param e the exception refusing the API request
+   * @param response the response
+   * @return a 429 problem detail with a Retry-After header
+   */
+  @ExceptionHandler(BLSRateLimitException.class)
+  public ResponseEntity<ProblemDetail> handleRateLimit(
+      final BLSRateLimitException e, final HttpServletResponse response) {
+    if (response.isCommitted()) {
+      throw e;
+    }
+    long retryAfterSeconds = Math.max(1, (e.getRetryAfter().toMillis() + 999) / 1000);
+    return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+        .header(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfterSeconds))
+        .body(ProblemDetail.forStatusAndDetail(HttpStatus.TOO_MANY_REQUESTS, e.getMessage()));
+  }
+
+  /**
+   * Reports that the BLS API could not be reached or failed.
+   *
+   * @param e the exception from the API request
+   * @param response the response
+   * @return a 502 problem detail
+   * @throws Exception the exception itself, if the response is already under way
+   */
+  @ExceptionHandler({IOException.class, RestClientException.class})
+  public ProblemDetail handleUpstreamFailure(final Exception e, final HttpServletResponse response)
+      throws Exception {
+    if (response.isCommitted()) {
+      // Part of an export was sent; rethrow so that the connection is cut rather than completed
+      throw e;
+    }
+    log.error("An error occurred while fetching CPI data.", e);
+    return ProblemDetail.forStatusAndDetail(
+        HttpStatus.BAD_GATEWAY, "An error occurred while fetching CPI data from BLS.");
+  }
+}
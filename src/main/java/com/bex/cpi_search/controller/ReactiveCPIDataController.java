@@ -0,0 +1,226 @@
+package com.bex.cpi_search.controller;
+
+import com.bex.cpi_search.model.CPIData;
+import com.bex.cpi_search.service.CacheExpiryPolicy;
+import com.bex.cpi_search.service.ReactiveCPIDataService;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Controller;
+import org.springframework.ui.Model;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.reactive.result.view.View;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+
+/**
+ * Controller for handling requests related to CPI (Consumer Price Index) data, in the reactive
+ * request pipeline. It serves the same form and results as {@link CPIDataController}, with the same
+ * caching headers, without holding a thread while the data is read or fetched.
+ */
+@Controller
+@ConditionalOnProperty(name = "cpi.pipeline.mode", havingValue = "reactive")
+public class ReactiveCPIDataController {
+
+  /** The view rendering the request form and results. */
+  private static final String FORM_VIEW = "request-response";
+
+  /** The view rendering an error. */
+  private static final String ERROR_VIEW = "error";
+
+  /**
+   * Completes a response found to be not modified once the data was read, leaving it without a
+   * body; a handler that completes empty after that point would be rendered with its default view.
+   */
+  private static final View NOT_MODIFIED =
+      new View() {
+        @Override
+        public List<MediaType> getSupportedMediaTypes() {
+          return List.of(MediaType.TEXT_HTML);
+        }
+
+        @Override
+        public Mono<Void> render(
+            final Map<String, ?> model,
+            final MediaType contentType,
+            final ServerWebExchange exchange) {
+          return exchange.getResponse().setComplete();
+        }
+      };
+
+  /** Service for interacting with CPI data. */
+  private final ReactiveCPIDataService cpiDataService;
+
+  /** Decides which years BLS has published in full. */
+  private final CacheExpiryPolicy expiryPolicy;
+
+  /**
+   * The caching of results for a year BLS has published in full, which change only with its annual
+   * revisions.
+   */
+  private final CacheControl finalizedCacheControl;
+
+  /** The caching of results for a year whose data may still change. */
+  private final CacheControl changeableCacheControl;
+
+  private static final Logger log = LoggerFactory.getLogger(ReactiveCPIDataController.class);
+
+  /** List of available series IDs for selection. */
+  private final List<String> seriesIdOptions;
+
+  /**
+   * Constructor for ReactiveCPIDataController.
+   *
+   * @param providedCpiDataService service for CPI data interaction
+   * @param providedExpiryPolicy policy deciding which years BLS has published in full
+   * @param seriesIdValues the series IDs available for selection
+   * @param finalizedMaxAgeValue how long clients may reuse results for a year published in full
+   *     before revalidating them
+   * @param changeableMaxAgeValue how long clients may reuse results for a year that may change
+   */
+  public ReactiveCPIDataController(
+      final ReactiveCPIDataService providedCpiDataService,
+      final CacheExpiryPolicy providedExpiryPolicy,
+      @Value("${cpi.series-ids}") final List<String> seriesIdValues,
+      @Value("${cpi.http.cache.finalized-max-age:P1D}") final Duration finalizedMaxAgeValue,
+      @Value("${cpi.http.cache.changeable-max-age:PT5M}") final Duration changeableMaxAgeValue) {
+    this.cpiDataService = providedCpiDataService;
+    this.expiryPolicy = providedExpiryPolicy;
+    this.seriesIdOptions = List.copyOf(seriesIdValues);
+    this.finalizedCacheControl = CacheControl.maxAge(finalizedMaxAgeValue).cachePublic();
+    this.changeableCacheControl = CacheControl.maxAge(changeableMaxAgeValue).cachePublic();
+  }
+
+  /**
+   * Displays the form for requesting CPI data and optionally the results.
+   *
+   * @param seriesIds selected series IDs, or null to show only the form
+   * @param year selected year, or null to show only the form
+   * @param month selected month, or null to show only the form
+   * @param exchange the exchange, used to check the preconditions of the request
+   * @param model model to pass data to the view
+   * @return a Mono of the name of the view template, or of a view leaving the response without a
+   *     body if the results are not modified
+   * @see CPIDataController#showForm
+   */
+  @GetMapping("/request-data")
+  public Mono<Object> showForm(
+      @RequestParam(required = false) final List<String> seriesIds,
+      @RequestParam(required = false) final String year,
+      @RequestParam(required = false) final String month,
+      final ServerWebExchange exchange,
+      final Model model) {
+    if (seriesIds == null || seriesIds.isEmpty() || year == null || month == null) {
+      addFormAttributes(model);
+      return Mono.just(FORM_VIEW);
+    }
+
+    HttpHeaders headers = exchange.getResponse().getHeaders();
+    CacheControl cacheControl =
+        expiryPolicy.isFinalized(year) ? finalizedCacheControl : changeableCacheControl;
+
+    return cpiDataService
+        .getCPIData(year, month, seriesIds)
+        .flatMap(
+            cpiData -> {
+              headers.setCacheControl(cacheControl);
+              if (exchange.checkNotModified(CPIDataController.dataETag(year, month, cpiData))) {
+                return Mono.<Object>just(NOT_MODIFIED);
+              }
+              addResponseAttributes(model, cpiData, year, month);
+              return Mono.<Object>just(FORM_VIEW);
+            })
+        .onErrorResume(
+            RuntimeException.class,
+            e -> {
+              // An error page must not be reused in place of the data
+              headers.setCacheControl(CacheControl.noStore());
+              return errorView(model, e).cast(Object.class);
+            });
+  }
+
+  /**
+   * Handles the form submission for requesting CPI data.
+   *
+   * @param exchange the exchange holding the submitted form
+   * @param model model to pass data to the view
+   * @return a Mono of the name of the view template to display the response
+   */
+  @PostMapping("/request-data")
+  public Mono<String> handleFormSubmission(final ServerWebExchange exchange, final Model model) {
+    return exchange
+        .getFormData()
+        .flatMap(
+            form -> {
+              List<String> seriesIds = form.get("seriesIds");
+              String year = form.getFirst("year");
+              String month = form.getFirst("month");
+              if (seriesIds == null || seriesIds.isEmpty() || year == null || month == null) {
+                return errorView(
+                    model,
+                    new IllegalArgumentException("Series IDs, year and month are required."));
+              }
+              return cpiDataService
+                  .getCPIData(year, month, seriesIds)
+                  .map(
+                      response -> {
+                        addResponseAttributes(model, response, year, month);
+                        return FORM_VIEW;
+                      })
+                  .onErrorResume(RuntimeException.class, e -> errorView(model, e));
+            });
+  }
+
+  /**
+   * Logs a failure and adds its message to the model.
+   *
+   * @param model model to pass data to the view
+   * @param e the failure
+   * @return a Mono of the name of the error view template
+   */
+  private Mono<String> errorView(final Model model, final RuntimeException e) {
+    log.error("An error occurred while fetching CPI data.", e);
+    model.addAttribute(
+        "errorMessage", "An error occurred while fetching CPI data." + e.getMessage());
+    return Mono.just(ERROR_VIEW);
+  }
+
+  /**
+   * Adds the attributes of the request form to the model.
+   *
+   * @param model model to pass data to the view
+   */
+  private void addFormAttributes(final Model model) {
+    model.addAttribute("seriesIds", seriesIdOptions);
+    model.addAttribute("months", CPIDataController.getMonths());
+    model.addAttribute("years", CPIDataController.getYears());
+  }
+
+  /**
+   * Adds the attributes of the request form and its results to the model.
+   *
+   * @param model model to pass data to the view
+   * @param response the CPI data by series ID
+   * @param year selected year
+   * @param month selected month
+   */
+  private void addResponseAttributes(
+      final Model model,
+      final Map<String, CPIData> response,
+      final String year,
+      final String month) {
+    model.addAttribute("response", response);
+    addFormAttributes(model);
+    model.addAttribute("selectedYear", year);
+    model.addAttribute("selectedMonth", month);
+  }
+}
@@ -0,0 +1,161 @@
+package com.bex.cpi_search.controller;
+
+import com.bex.cpi_search.model.CPIConversion;
+import com.bex.cpi_search.model.CPIConversionRequest;
+import com.bex.cpi_search.model.CPIConversionResult;
+import com.bex.cpi_search.model.CPIQuery;
+import com.bex.cpi_search.model.CPIQueryRequest;
+import com.bex.cpi_search.model.CPIQueryResult;
+import com.bex.cpi_search.service.BLSRateLimitException;
+import com.bex.cpi_search.service.ReactiveCPIDataService;
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ProblemDetail;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.reactive.function.client.WebClientException;
+import reactor.core.publisher.Mono;
+
+/**
+ * JSON API for resolving a batch of CPI queries and for converting a batch of amounts between
+ * months in one call, in the reactive request pipeline. It accepts and answers the same documents
+ * as {@link CPIQueryController}. The streaming export is only served by the servlet pipeline.
+ */
+@RestController
+@RequestMapping("/api/v1/cpi")
+@ConditionalOnProperty(name = "cpi.pipeline.mode", havingValue = "reactive")
+public class ReactiveCPIQueryController {
+
+  /** Service for interacting with CPI data. */
+  private final ReactiveCPIDataService cpiDataService;
+
+  private static final Logger log = LoggerFactory.getLogger(ReactiveCPIQueryController.class);
+
+  /** The maximum number of queries accepted in one call. */
+  private final int maxQueries;
+
+  /** The maximum number of conversions accepted in one call. */
+  private final int maxConversions;
+
+  /** The series ID of conversions that name none, by default CPI-U, all items. */
+  private final String defaultSeriesId;
+
+  /**
+   * Constructor for ReactiveCPIQueryController.
+   *
+   * @param providedCpiDataService service for CPI data interaction
+   * @param maxQueriesValue the maximum number of queries accepted in one call
+   * @param maxConversionsValue the maximum number of conversions accepted in one call
+   * @param defaultSeriesIdValue the series ID of conversions that name none
+   */
+  public ReactiveCPIQueryController(
+      final ReactiveCPIDataService providedCpiDataService,
+      @Value("${cpi.api.query.max-queries:1000}") final int maxQueriesValue,
+      @Value("${cpi.api.convert.max-conversions:10000}") final int maxConversionsValue,
+      @Value("${cpi.api.convert.default-series-id:CUUR0000SA0}")
+          final String defaultSeriesIdValue) {
+    this.cpiDataService = providedCpiDataService;
+    this.maxQueries = maxQueriesValue;
+    this.maxConversions = maxConversionsValue;
+    this.defaultSeriesId = defaultSeriesIdValue;
+  }
+
+  /**
+   * Resolves a batch of queries, each for a range of months of one series and year.
+   *
+   * @param request the queries
+   * @return a Mono of the results, in the order of the queries
+   */
+  @PostMapping("/query")
+  public Mono<Map<String, List<CPIQueryResult>>> query(@RequestBody final CPIQueryRequest request) {
+    List<CPIQuery> queries = request.getQueries();
+    if (queries == null || queries.isEmpty()) {
+      throw new IllegalArgumentException("The request has no queries.");
+    }
+    if (queries.size() > maxQueries) {
+      throw new IllegalArgumentException(
+          "The request has " + queries.size() + " queries; at most " + maxQueries + " allowed.");
+    }
+    return cpiDataService.queryCPIData(queries).map(results -> Map.of("results", results));
+  }
+
+  /**
+   * Converts a batch of amounts from one month to another by the ratio of the CPI values of the two
+   * months, answering from the in-memory CPI index once its series are indexed.
+   *
+   * @param request the conversions
+   * @return a Mono of the results, in the order of the conversions
+   */
+  @PostMapping("/convert")
+  public Mono<Map<String, List<CPIConversionResult>>> convert(
+      @RequestBody final CPIConversionRequest request) {
+    List<CPIConversion> conversions = request.getConversions();
+    if (conversions == null || conversions.isEmpty()) {
+      throw new IllegalArgumentException("The request has no conversions.");
+    }
+    if (conversions.size() > maxConversions) {
+      throw new IllegalArgumentException(
+          "The request has "
+              + conversions.size()
+              + " conversions; at most "
+              + maxConversions
+              + " allowed.");
+    }
+    String seriesId =
+        request.getSeriesId() == null || request.getSeriesId().isBlank()
+            ? defaultSeriesId
+            : request.getSeriesId();
+    return cpiDataService
+        .convertAmounts(conversions, seriesId)
+        .map(results -> Map.of("results", results));
+  }
+
+  /**
+   * Reports an invalid request.
+   *
+   * @param e the exception describing what is invalid
+   * @return a 400 problem detail
+   */
+  @ExceptionHandler(IllegalArgumentException.class)
+  public ProblemDetail handleInvalidRequest(final IllegalArgumentException e) {
+    return ProblemDetail.forStatusAndDetail(HttpStatus.BAD_REQUEST, e.getMessage());
+  }
+
+  /**
+   * Reports that the BLS API limits were reached, with when to retry.
+   *
+   * @param e the exception refusing the API request
+   * @return a 429 problem detail with a Retry-After header
+   */
+  @ExceptionHandler(BLSRateLimitException.class)
+  public ResponseEntity<ProblemDetail> handleRateLimit(final BLSRateLimitException e) {
+    long retryAfterSeconds = Math.max(1, (e.getRetryAfter().toMillis() + 999) / 1000);
+    return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+        .header(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfterSeconds))
+        .body(ProblemDetail.forStatusAndDetail(HttpStatus.TOO_MANY_REQUESTS, e.getMessage()));
+  }
+
+  /**
+   * Reports that the BLS API could not be reached or failed.
+   *
+   * @param e the exception from the API request
+   * @return a 502 problem detail
+   */
+  @ExceptionHandler({IOException.class, WebClientException.class})
+  public ProblemDetail handleUpstreamFailure(final Exception e) {
+    log.error("An error occurred while fetching CPI data.", e);
+    return ProblemDetail.forStatusAndDetail(
+        HttpStatus.BAD_GATEWAY, "An error occurred while fetching CPI data from BLS.");
+  }
+}
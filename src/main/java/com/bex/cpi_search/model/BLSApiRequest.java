@@ -1,6 +1,5 @@
 package com.bex.cpi_search.model;
 
-import com.bex.cpi_search.service.BLSApiService;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import java.util.List;
 import org.slf4j.Logger;
@@ -9,7 +8,7 @@ import org.slf4j.LoggerFactory;
 /** Represents a request to the BLS API for timeseries data. */
 public class BLSApiRequest {
 
-  private static final Logger log = LoggerFactory.getLogger(BLSApiService.class);
+  private static final Logger log = LoggerFactory.getLogger(BLSApiRequest.class);
 
   /** A list of series IDs to request data for. */
   @JsonProperty("seriesid")
@@ -54,10 +53,8 @@ public class BLSApiRequest {
    * @param seriesIdValues the list of series IDs to set
    */
   public void setSeriesIds(final List<String> seriesIdValues) {
-    // Log the values
-    log.info("Series ID values received: " + seriesIdValues);
     this.seriesIds = seriesIdValues;
-    log.info("Series IDs set to: " + this.seriesIds);
+    log.debug("Series IDs set to: {}", seriesIdValues);
   }
 
   /**
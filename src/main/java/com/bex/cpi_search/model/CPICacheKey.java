@@ -0,0 +1,110 @@
+package com.bex.cpi_search.model;
+
+import com.bex.cpi_search.repository.BlockKey;
+
+/**
+ * Identifies the cached {@link SeriesBlock} of one series and one year. Each block is stored under
+ * {@code cpi:v2:<seriesId>:<year>}.
+ */
+public final class CPICacheKey implements BlockKey {
+
+  /** The prefix shared by every CPI block key. */
+  public static final String BLOCK_PREFIX = "cpi:v2:";
+
+  /** The multiplier used to combine field hash codes. */
+  private static final int HASH_MULTIPLIER = 31;
+
+  /** The series ID. */
+  private final String seriesId;
+
+  /** The year. */
+  private final String year;
+
+  /** The Redis key of the series-year block. */
+  private final String blockKey;
+
+  /**
+   * Constructs a cache key.
+   *
+   * @param yearValue the year
+   * @param seriesIdValue the series ID
+   */
+  private CPICacheKey(final String yearValue, final String seriesIdValue) {
+    this.seriesId = seriesIdValue;
+    this.year = yearValue;
+    this.blockKey = BLOCK_PREFIX + seriesIdValue + ':' + yearValue;
+  }
+
+  /**
+   * Creates the cache key for a year of CPI data.
+   *
+   * @param year the year
+   * @param seriesId the series ID
+   * @return the cache key
+   */
+  public static CPICacheKey of(final String year, final String seriesId) {
+    return new CPICacheKey(year, seriesId);
+  }
+
+  /**
+   * Parses the key of a series-year block, formatted as {@code cpi:v2:<seriesId>:<year>}.
+   *
+   * @param blockKey the key of the block
+   * @return the cache key, or null if the key is not a block key
+   */
+  public static CPICacheKey fromBlockKey(final String blockKey) {
+    if (!blockKey.startsWith(BLOCK_PREFIX)) {
+      return null;
+    }
+    int yearStart = blockKey.lastIndexOf(':') + 1;
+    if (yearStart <= BLOCK_PREFIX.length() + 1 || yearStart == blockKey.length()) {
+      return null;
+    }
+    return new CPICacheKey(
+        blockKey.substring(yearStart), blockKey.substring(BLOCK_PREFIX.length(), yearStart - 1));
+  }
+
+  /**
+   * Gets the series ID.
+   *
+   * @return the series ID
+   */
+  public String getSeriesId() {
+    return seriesId;
+  }
+
+  /**
+   * Gets the year.
+   *
+   * @return the year
+   */
+  public String getYear() {
+    return year;
+  }
+
+  @Override
+  public String blockKey() {
+    return blockKey;
+  }
+
+  @Override
+  public boolean equals(final Object other) {
+    if (this == other) {
+      return true;
+    }
+    if (!(other instanceof CPICacheKey)) {
+      return false;
+    }
+    return blockKey.equals(((CPICacheKey) other).blockKey);
+  }
+
+  @Override
+  public int hashCode() {
+    return HASH_MULTIPLIER * blockKey.hashCode();
+  }
+
+  @Override
+  public String toString() {
+    return blockKey;
+  }
+}
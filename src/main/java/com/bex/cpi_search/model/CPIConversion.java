@@ -0,0 +1,142 @@
+package com.bex.cpi_search.model;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+/**
+ * One inflation adjustment: what an amount in one month is worth in another, by the ratio of the
+ * values of a CPI series in the two months. "Annual" converts from or to an annual average.
+ */
+public class CPIConversion {
+
+  /** The series ID, or null for the series of the request. */
+  @JsonProperty("seriesId")
+  private String seriesId;
+
+  /** The amount to convert; required. */
+  @JsonProperty("amount")
+  private Double amount;
+
+  /** The year the amount is in. */
+  @JsonProperty("fromYear")
+  private String fromYear;
+
+  /** The month the amount is in. */
+  @JsonProperty("fromMonth")
+  private String fromMonth;
+
+  /** The year to convert the amount to. */
+  @JsonProperty("toYear")
+  private String toYear;
+
+  /** The month to convert the amount to. */
+  @JsonProperty("toMonth")
+  private String toMonth;
+
+  /**
+   * Gets the series ID.
+   *
+   * @return the series ID, or null for the series of the request
+   */
+  public String getSeriesId() {
+    return seriesId;
+  }
+
+  /**
+   * Sets the series ID.
+   *
+   * @param seriesIdValue the series ID to set
+   */
+  public void setSeriesId(final String seriesIdValue) {
+    this.seriesId = seriesIdValue;
+  }
+
+  /**
+   * Gets the amount to convert.
+   *
+   * @return the amount, or null if the conversion has none
+   */
+  public Double getAmount() {
+    return amount;
+  }
+
+  /**
+   * Sets the amount to convert.
+   *
+   * @param amountValue the amount to set
+   */
+  public void setAmount(final Double amountValue) {
+    this.amount = amountValue;
+  }
+
+  /**
+   * Gets the year the amount is in.
+   *
+   * @return the year
+   */
+  public String getFromYear() {
+    return fromYear;
+  }
+
+  /**
+   * Sets the year the amount is in.
+   *
+   * @param fromYearValue the year to set
+   */
+  public void setFromYear(final String fromYearValue) {
+    this.fromYear = fromYearValue;
+  }
+
+  /**
+   * Gets the month the amount is in.
+   *
+   * @return the month name
+   */
+  public String getFromMonth() {
+    return fromMonth;
+  }
+
+  /**
+   * Sets the month the amount is in.
+   *
+   * @param fromMonthValue the month name to set
+   */
+  public void setFromMonth(final String fromMonthValue) {
+    this.fromMonth = fromMonthValue;
+  }
+
+  /**
+   * Gets the year to convert the amount to.
+   *
+   * @return the year
+   */
+  public String getToYear() {
+    return toYear;
+  }
+
+  /**
+   * Sets the year to convert the amount to.
+   *
+   * @param toYearValue the year to set
+   */
+  public void setToYear(final String toYearValue) {
+    this.toYear = toYearValue;
+  }
+
+  /**
+   * Gets the month to convert the amount to.
+   *
+   * @return the month name
+   */
+  public String getToMonth() {
+    return toMonth;
+  }
+
+  /**
+   * Sets the month to convert the amount to.
+   *
+   * @param toMonthValue the month name to set
+   */
+  public void setToMonth(final String toMonthValue) {
+    this.toMonth = toMonthValue;
+  }
+}
@@ -0,0 +1,55 @@
+package com.bex.cpi_search.model;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import java.util.List;
+
+/**
+ * Represents a batch of inflation adjustments converted in one call. A conversion without a series
+ * ID of its own uses the series ID of the request, or else the default CPI series.
+ */
+public class CPIConversionRequest {
+
+  /** The series ID of the conversions that do not name one, or null for the default series. */
+  @JsonProperty("seriesId")
+  private String seriesId;
+
+  /** The conversions. */
+  @JsonProperty("conversions")
+  private List<CPIConversion> conversions;
+
+  /**
+   * Gets the series ID of the conversions that do not name one.
+   *
+   * @return the series ID, or null for the default series
+   */
+  public String getSeriesId() {
+    return seriesId;
+  }
+
+  /**
+   * Sets the series ID of the conversions that do not name one.
+   *
+   * @param seriesIdValue the series ID to set
+   */
+  public void setSeriesId(final String seriesIdValue) {
+    this.seriesId = seriesIdValue;
+  }
+
+  /**
+   * Gets the conversions.
+   *
+   * @return the conversions
+   */
+  public List<CPIConversion> getConversions() {
+    return conversions;
+  }
+
+  /**
+   * Sets the conversions.
+   *
+   * @param conversionValues the conversions to set
+   */
+  public void setConversions(final List<CPIConversion> conversionValues) {
+    this.conversions = conversionValues;
+  }
+}
@@ -0,0 +1,63 @@
+package com.bex.cpi_search.model;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+/**
+ * The answer to one {@link CPIConversion}: the amount converted, or null if the series has no value
+ * for one of the two months.
+ */
+public class CPIConversionResult {
+
+  /** The series ID the amount was converted by. */
+  @JsonProperty("seriesId")
+  private String seriesId;
+
+  /** The amount converted. */
+  @JsonProperty("amount")
+  private double amount;
+
+  /** The amount in the month converted to, or null if it could not be converted. */
+  @JsonProperty("convertedAmount")
+  private Double convertedAmount;
+
+  /**
+   * Constructs a CPIConversionResult.
+   *
+   * @param seriesIdValue the series ID the amount was converted by
+   * @param amountValue the amount converted
+   * @param convertedAmountValue the amount in the month converted to, or null
+   */
+  public CPIConversionResult(
+      final String seriesIdValue, final double amountValue, final Double convertedAmountValue) {
+    this.seriesId = seriesIdValue;
+    this.amount = amountValue;
+    this.convertedAmount = convertedAmountValue;
+  }
+
+  /**
+   * Gets the series ID the amount was converted by.
+   *
+   * @return the series ID
+   */
+  public String getSeriesId() {
+    return seriesId;
+  }
+
+  /**
+   * Gets the amount converted.
+   *
+   * @return the amount
+   */
+  public double getAmount() {
+    return amount;
+  }
+
+  /**
+   * Gets the amount in the month converted to.
+   *
+   * @return the converted amount, or null if the series has no value for one of the months
+   */
+  public Double getConvertedAmount() {
+    return convertedAmount;
+  }
+}
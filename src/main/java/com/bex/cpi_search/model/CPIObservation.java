@@ -0,0 +1,66 @@
+package com.bex.cpi_search.model;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import java.util.List;
+
+/**
+ * The CPI value of one month in a {@link CPIQueryResult}. The series and year are given once by the
+ * result rather than repeated for every month, and notes are left out when there are none.
+ */
+public class CPIObservation {
+
+  /** The month name, or "Annual" for the annual average. */
+  @JsonProperty("month")
+  private String month;
+
+  /** The CPI value, as published by BLS. */
+  @JsonProperty("value")
+  private String value;
+
+  /** The footnotes of the value. */
+  @JsonProperty("notes")
+  @JsonInclude(JsonInclude.Include.NON_EMPTY)
+  private List<String> notes;
+
+  /**
+   * Constructs a CPIObservation.
+   *
+   * @param monthValue the month name, or "Annual" for the annual average
+   * @param valueText the CPI value, as published by BLS
+   * @param noteValues the footnotes of the value
+   */
+  public CPIObservation(
+      final String monthValue, final String valueText, final List<String> noteValues) {
+    this.month = monthValue;
+    this.value = valueText;
+    this.notes = noteValues;
+  }
+
+  /**
+   * Gets the month name.
+   *
+   * @return the month name, or "Annual" for the annual average
+   */
+  public String getMonth() {
+    return month;
+  }
+
+  /**
+   * Gets the CPI value.
+   *
+   * @return the CPI value, as published by BLS
+   */
+  public String getValue() {
+    return value;
+  }
+
+  /**
+   * Gets the footnotes of the value.
+   *
+   * @return the footnotes
+   */
+  public List<String> getNotes() {
+    return notes;
+  }
+}
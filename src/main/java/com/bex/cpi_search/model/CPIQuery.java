@@ -0,0 +1,99 @@
+package com.bex.cpi_search.model;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+/**
+ * One query of a bulk CPI request: the values of a series for a range of months of one year. The
+ * range defaults to January through December; "Annual" as the last month includes the annual
+ * average.
+ */
+public class CPIQuery {
+
+  /** The series ID to query. */
+  @JsonProperty("seriesId")
+  private String seriesId;
+
+  /** The year to query. */
+  @JsonProperty("year")
+  private String year;
+
+  /** The first month of the range, or null for January. */
+  @JsonProperty("fromMonth")
+  private String fromMonth;
+
+  /** The last month of the range, or null for December. */
+  @JsonProperty("toMonth")
+  private String toMonth;
+
+  /**
+   * Gets the series ID to query.
+   *
+   * @return the series ID
+   */
+  public String getSeriesId() {
+    return seriesId;
+  }
+
+  /**
+   * Sets the series ID to query.
+   *
+   * @param seriesIdValue the series ID to set
+   */
+  public void setSeriesId(final String seriesIdValue) {
+    this.seriesId = seriesIdValue;
+  }
+
+  /**
+   * Gets the year to query.
+   *
+   * @return the year
+   */
+  public String getYear() {
+    return year;
+  }
+
+  /**
+   * Sets the year to query.
+   *
+   * @param yearValue the year to set
+   */
+  public void setYear(final String yearValue) {
+    this.year = yearValue;
+  }
+
+  /**
+   * Gets the first month of the range.
+   *
+   * @return the month name, or null for January
+   */
+  public String getFromMonth() {
+    return fromMonth;
+  }
+
+  /**
+   * Sets the first month of the range.
+   *
+   * @param fromMonthValue the month name to set
+   */
+  public void setFromMonth(final String fromMonthValue) {
+    this.fromMonth = fromMonthValue;
+  }
+
+  /**
+   * Gets the last month of the range.
+   *
+   * @return the month name, or null for December
+   */
+  public String getToMonth() {
+    return toMonth;
+  }
+
+  /**
+   * Sets the last month of the range.
+   *
+   * @param toMonthValue the month name to set
+   */
+  public void setToMonth(final String toMonthValue) {
+    this.toMonth = toMonthValue;
+  }
+}
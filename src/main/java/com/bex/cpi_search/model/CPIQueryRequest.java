@@ -0,0 +1,30 @@
+package com.bex.cpi_search.model;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import java.util.List;
+
+/** Represents a bulk request for CPI data: a batch of queries resolved in one call. */
+public class CPIQueryRequest {
+
+  /** The queries to resolve. */
+  @JsonProperty("queries")
+  private List<CPIQuery> queries;
+
+  /**
+   * Gets the queries to resolve.
+   *
+   * @return the queries
+   */
+  public List<CPIQuery> getQueries() {
+    return queries;
+  }
+
+  /**
+   * Sets the queries to resolve.
+   *
+   * @param queryValues the queries to set
+   */
+  public void setQueries(final List<CPIQuery> queryValues) {
+    this.queries = queryValues;
+  }
+}
@@ -0,0 +1,64 @@
+package com.bex.cpi_search.model;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import java.util.List;
+
+/**
+ * The answer to one {@link CPIQuery}: the values of a series for the months of the queried range
+ * that BLS publishes, in month order.
+ */
+public class CPIQueryResult {
+
+  /** The series ID. */
+  @JsonProperty("seriesId")
+  private String seriesId;
+
+  /** The year. */
+  @JsonProperty("year")
+  private String year;
+
+  /** The values for the months of the range, in month order. */
+  @JsonProperty("values")
+  private List<CPIObservation> values;
+
+  /**
+   * Constructs a CPIQueryResult.
+   *
+   * @param seriesIdValue the series ID
+   * @param yearValue the year
+   * @param valueList the values for the months of the range, in month order
+   */
+  public CPIQueryResult(
+      final String seriesIdValue, final String yearValue, final List<CPIObservation> valueList) {
+    this.seriesId = seriesIdValue;
+    this.year = yearValue;
+    this.values = valueList;
+  }
+
+  /**
+   * Gets the series ID.
+   *
+   * @return the series ID
+   */
+  public String getSeriesId() {
+    return seriesId;
+  }
+
+  /**
+   * Gets the year.
+   *
+   * @return the year
+   */
+  public String getYear() {
+    return year;
+  }
+
+  /**
+   * Gets the values for the months of the range.
+   *
+   * @return the values, in month order; empty if BLS has no data for the range
+   */
+  public List<CPIObservation> getValues() {
+    return values;
+  }
+}
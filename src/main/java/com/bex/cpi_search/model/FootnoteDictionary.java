@@ -0,0 +1,128 @@
+package com.bex.cpi_search.model;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Assigns stable numeric codes to the footnotes BLS attaches to nearly every data point, so that
+ * cached data can store a small code instead of repeating the footnote text.
+ *
+ * <p>Codes are persisted in Redis: entries may be appended but must never be reordered or removed.
+ *
+ * <p>The dictionary also interns the footnote lists of data points, so that a {@link SeriesBlock}
+ * holds one int per observation and every block shares a single copy of each distinct list. Ids of
+ * interned lists are local to this process and are never persisted.
+ */
+public final class FootnoteDictionary {
+
+  /** Known footnotes, in code order starting at 1. Append only. */
+  private static final List<String> ENTRIES =
+      List.of(
+          "Code: null, Text: null",
+          "Code: P, Text: Preliminary.",
+          "Code: P, Text: Preliminary",
+          "Code: R, Text: Revised",
+          "Code: A, Text: Area boundaries do not reflect official OMB definitions.",
+          "Code: N, Text: Not available");
+
+  /** Codes by footnote text. */
+  private static final Map<String, Integer> CODES = new HashMap<>();
+
+  static {
+    for (int i = 0; i < ENTRIES.size(); i++) {
+      CODES.put(ENTRIES.get(i), i + 1);
+    }
+  }
+
+  /** The id of the empty footnote list. */
+  public static final int NO_NOTES = 0;
+
+  /** Ids of interned footnote lists. */
+  private static final Map<List<String>, Integer> NOTES_IDS = new ConcurrentHashMap<>();
+
+  /** Interned footnote lists by id; replaced, never modified, when a list is interned. */
+  private static volatile List<List<String>> notesById = List.of(List.of());
+
+  static {
+    NOTES_IDS.put(List.of(), NO_NOTES);
+  }
+
+  /** Prevents instantiation. */
+  private FootnoteDictionary() {}
+
+  /**
+   * Gets the code of a footnote.
+   *
+   * @param footnote the footnote text
+   * @return the code of the footnote, or 0 if it is not in the dictionary
+   */
+  public static int codeOf(final String footnote) {
+    Integer code = CODES.get(footnote);
+    return code != null ? code : 0;
+  }
+
+  /**
+   * Gets the footnote for a code.
+   *
+   * @param code the code, as returned by {@link #codeOf(String)}
+   * @return the footnote text
+   * @throws IllegalArgumentException if the code is not in the dictionary
+   */
+  public static String footnoteOf(final int code) {
+    if (code < 1 || code > ENTRIES.size()) {
+      throw new IllegalArgumentException("Unknown footnote code: " + code);
+    }
+    return ENTRIES.get(code - 1);
+  }
+
+  /**
+   * Gets the id of a footnote list, interning the list if it has not been seen before.
+   *
+   * @param notes the footnotes of a data point
+   * @return the id of the list
+   */
+  public static int idOf(final List<String> notes) {
+    if (notes == null || notes.isEmpty()) {
+      return NO_NOTES;
+    }
+    Integer id = NOTES_IDS.get(notes);
+    return id != null ? id : intern(notes);
+  }
+
+  /**
+   * Gets an interned footnote list.
+   *
+   * @param id the id, as returned by {@link #idOf(List)}
+   * @return the unmodifiable footnote list
+   * @throws IllegalArgumentException if no list has the id
+   */
+  public static List<String> notesOf(final int id) {
+    List<List<String>> lists = notesById;
+    if (id < 0 || id >= lists.size()) {
+      throw new IllegalArgumentException("Unknown footnote list id: " + id);
+    }
+    return lists.get(id);
+  }
+
+  /**
+   * Interns a footnote list that was not found on the lock-free path.
+   *
+   * @param notes the footnotes
+   * @return the id of the list
+   */
+  private static synchronized int intern(final List<String> notes) {
+    Integer id = NOTES_IDS.get(notes);
+    if (id != null) {
+      return id;
+    }
+    List<String> copy = List.copyOf(notes);
+    List<List<String>> lists = new ArrayList<>(notesById);
+    lists.add(copy);
+    notesById = List.copyOf(lists);
+    NOTES_IDS.put(copy, lists.size() - 1);
+    return lists.size() - 1;
+  }
+}
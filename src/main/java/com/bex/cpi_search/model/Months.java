@@ -0,0 +1,67 @@
+package com.bex.cpi_search.model;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/** Converts between BLS period names, such as "January", and period numbers, such as 1. */
+public final class Months {
+
+  /** The period number BLS uses for the annual average (M13). */
+  public static final int ANNUAL = 13;
+
+  /** Period names in period number order, starting at 1. */
+  private static final List<String> NAMES =
+      List.of(
+          "January",
+          "February",
+          "March",
+          "April",
+          "May",
+          "June",
+          "July",
+          "August",
+          "September",
+          "October",
+          "November",
+          "December",
+          "Annual");
+
+  /** Period numbers by lower-case period name. */
+  private static final Map<String, Integer> NUMBERS = new HashMap<>();
+
+  static {
+    for (int i = 0; i < NAMES.size(); i++) {
+      NUMBERS.put(NAMES.get(i).toLowerCase(Locale.ROOT), i + 1);
+    }
+  }
+
+  /** Prevents instantiation. */
+  private Months() {}
+
+  /**
+   * Gets the period number of a period name, ignoring case.
+   *
+   * @param name the period name, e.g. "January"
+   * @return the period number (1-12, or 13 for the annual average), or 0 if the name is unknown
+   */
+  public static int number(final String name) {
+    Integer number = name == null ? null : NUMBERS.get(name.toLowerCase(Locale.ROOT));
+    return number != null ? number : 0;
+  }
+
+  /**
+   * Gets the period name of a period number.
+   *
+   * @param number the period number (1-12, or 13 for the annual average)
+   * @return the period name
+   * @throws IllegalArgumentException if the number is not a period number
+   */
+  public static String name(final int number) {
+    if (number < 1 || number > NAMES.size()) {
+      throw new IllegalArgumentException("Unknown period number: " + number);
+    }
+    return NAMES.get(number - 1);
+  }
+}
@@ -0,0 +1,190 @@
+package com.bex.cpi_search.model;
+
+/**
+ * Measures derived from the monthly observations of one series over a range of years: the
+ * month-over-month and year-over-year percentage changes, the rolling average over a window of
+ * months, and the average of each year. Like a {@link SeriesBlock}, the measures are held in
+ * parallel primitive arrays, one entry per month from January of the first year to the latest month
+ * with a value.
+ *
+ * <p>A measure that cannot be computed, because an observation it depends on is missing or not a
+ * number, is NaN.
+ */
+public final class SeriesAnalytics {
+
+  /** The number of months in a year. */
+  public static final int MONTHS_PER_YEAR = 12;
+
+  /** The series ID. */
+  private final String seriesId;
+
+  /** The first year of the range. */
+  private final int firstYear;
+
+  /** The number of months the rolling average spans. */
+  private final int window;
+
+  /** The value of each month, or NaN. */
+  private final double[] values;
+
+  /** The percentage change of each month from the month before, or NaN. */
+  private final double[] monthOverMonth;
+
+  /** The percentage change of each month from the same month a year before, or NaN. */
+  private final double[] yearOverYear;
+
+  /** The average of each month and the months before it in the window, or NaN. */
+  private final double[] rollingAverages;
+
+  /** The average of the twelve months of each year of the range, or NaN. */
+  private final double[] annualAverages;
+
+  /**
+   * Constructs analytics from parallel arrays. The arrays are not copied.
+   *
+   * @param seriesIdValue the series ID
+   * @param firstYearValue the first year of the range
+   * @param windowValue the number of months the rolling average spans
+   * @param valueValues the value of each month from January of the first year
+   * @param monthOverMonthValues the month-over-month percentage change of each month
+   * @param yearOverYearValues the year-over-year percentage change of each month
+   * @param rollingAverageValues the rolling average of each month
+   * @param annualAverageValues the average of each year of the range
+   */
+  public SeriesAnalytics(
+      final String seriesIdValue,
+      final int firstYearValue,
+      final int windowValue,
+      final double[] valueValues,
+      final double[] monthOverMonthValues,
+      final double[] yearOverYearValues,
+      final double[] rollingAverageValues,
+      final double[] annualAverageValues) {
+    this.seriesId = seriesIdValue;
+    this.firstYear = firstYearValue;
+    this.window = windowValue;
+    this.values = valueValues;
+    this.monthOverMonth = monthOverMonthValues;
+    this.yearOverYear = yearOverYearValues;
+    this.rollingAverages = rollingAverageValues;
+    this.annualAverages = annualAverageValues;
+  }
+
+  /**
+   * Gets the series ID.
+   *
+   * @return the series ID
+   */
+  public String getSeriesId() {
+    return seriesId;
+  }
+
+  /**
+   * Gets the number of months the rolling average spans.
+   *
+   * @return the window in months
+   */
+  public int getWindow() {
+    return window;
+  }
+
+  /**
+   * Gets the number of months, from January of the first year to the latest month with a value.
+   *
+   * @return the number of months
+   */
+  public int size() {
+    return values.length;
+  }
+
+  /**
+   * Gets the period code of a month.
+   *
+   * @param index the index of the month
+   * @return the period code
+   */
+  public int periodAt(final int index) {
+    return SeriesBlock.period(firstYear + index / MONTHS_PER_YEAR, index % MONTHS_PER_YEAR + 1);
+  }
+
+  /**
+   * Finds the month of a period.
+   *
+   * @param period the period code
+   * @return the index of the month, or a negative number if it is not in the range
+   */
+  public int indexOf(final int period) {
+    int month = period % SeriesBlock.YEAR_MULTIPLIER;
+    if (month < 1 || month > MONTHS_PER_YEAR) {
+      return -1;
+    }
+    int index = (period / SeriesBlock.YEAR_MULTIPLIER - firstYear) * MONTHS_PER_YEAR + month - 1;
+    return index < values.length ? index : -1;
+  }
+
+  /**
+   * Gets the value of a month.
+   *
+   * @param index the index of the month
+   * @return the value, or NaN if there is none
+   */
+  public double valueAt(final int index) {
+    return values[index];
+  }
+
+  /**
+   * Gets the percentage change of a month from the month before.
+   *
+   * @param index the index of the month
+   * @return the percentage change, or NaN
+   */
+  public double monthOverMonthAt(final int index) {
+    return monthOverMonth[index];
+  }
+
+  /**
+   * Gets the percentage change of a month from the same month a year before.
+   *
+   * @param index the index of the month
+   * @return the percentage change, or NaN
+   */
+  public double yearOverYearAt(final int index) {
+    return yearOverYear[index];
+  }
+
+  /**
+   * Gets the average of a month and the months before it in the window.
+   *
+   * @param index the index of the month
+   * @return the rolling average, or NaN if a month of the window has no value
+   */
+  public double rollingAverageAt(final int index) {
+    return rollingAverages[index];
+  }
+
+  /**
+   * Gets the average of the twelve months of a year.
+   *
+   * @param year the year
+   * @return the annual average, or NaN if the year is not in the range or a month has no value
+   */
+  public double annualAverage(final int year) {
+    int index = year - firstYear;
+    return index >= 0 && index < annualAverages.length ? annualAverages[index] : Double.NaN;
+  }
+
+  @Override
+  public String toString() {
+    return "SeriesAnalytics{"
+        + "seriesId='"
+        + seriesId
+        + '\''
+        + ", firstYear="
+        + firstYear
+        + ", size="
+        + values.length
+        + ", window="
+        + window
+        + '}';
+  }
+}
@@ -0,0 +1,484 @@
+package com.bex.cpi_search.model;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * A columnar, primitive-backed run of observations for one series. Observations are held in
+ * parallel arrays sorted by period, where a period is encoded as {@code year * 100 + month} (month
+ * 13 being the annual average), so that a block costs a few bytes per observation rather than an
+ * object graph per observation.
+ *
+ * <p>Values that BLS reports as text rather than a number, such as "-", are held as NaN. Footnotes
+ * are held as ids into the shared {@link FootnoteDictionary}.
+ *
+ * <p>A block also records when it was fetched from BLS and which of its observations, if any, BLS
+ * flagged as the latest of the series, so that blocks still receiving new data can be refreshed.
+ */
+public final class SeriesBlock {
+
+  /** The multiplier turning a year into the year part of a period code. */
+  public static final int YEAR_MULTIPLIER = 100;
+
+  /** The text rendered for a value that is not a number. */
+  private static final String MISSING_VALUE = "-";
+
+  /** The largest number of decimal places kept for a value. */
+  private static final int MAX_SCALE = 9;
+
+  /** Powers of ten up to {@link #MAX_SCALE}. */
+  private static final double[] POWERS_OF_TEN = {
+    1, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9,
+  };
+
+  /** The series ID. */
+  private final String seriesId;
+
+  /** The period code of each observation, ascending. */
+  private final int[] periods;
+
+  /** The value of each observation, or NaN if BLS did not report a number. */
+  private final double[] values;
+
+  /** The number of decimal places BLS reported for each value. */
+  private final byte[] scales;
+
+  /** The {@link FootnoteDictionary} id of the footnotes of each observation. */
+  private final int[] footnoteIds;
+
+  /** When the block was fetched from BLS, in epoch milliseconds, or 0 if unknown. */
+  private final long fetchedAt;
+
+  /** The period code of the observation BLS flagged as the latest, or 0 if none. */
+  private final int latestPeriod;
+
+  /**
+   * Constructs a block from parallel arrays already sorted by period. The arrays are not copied.
+   *
+   * @param seriesIdValue the series ID
+   * @param periodValues the period code of each observation, ascending
+   * @param valueValues the value of each observation, or NaN
+   * @param scaleValues the number of decimal places of each value
+   * @param footnoteIdValues the footnote id of each observation
+   * @param fetchedAtValue when the block was fetched, in epoch milliseconds, or 0 if unknown
+   * @param latestPeriodValue the period code of the latest observation, or 0 if none
+   */
+  public SeriesBlock(
+      final String seriesIdValue,
+      final int[] periodValues,
+      final double[] valueValues,
+      final byte[] scaleValues,
+      final int[] footnoteIdValues,
+      final long fetchedAtValue,
+      final int latestPeriodValue) {
+    this.seriesId = seriesIdValue;
+    this.periods = periodValues;
+    this.values = valueValues;
+    this.scales = scaleValues;
+    this.footnoteIds = footnoteIdValues;
+    this.fetchedAt = fetchedAtValue;
+    this.latestPeriod = latestPeriodValue;
+  }
+
+  /**
+   * Creates a builder for a block of the given series.
+   *
+   * @param seriesId the series ID
+   * @return a new builder
+   */
+  public static Builder builder(final String seriesId) {
+    return new Builder(seriesId);
+  }
+
+  /**
+   * Encodes a year and month as a period code.
+   *
+   * @param year the year
+   * @param month the month number (1-12, or 13 for the annual average)
+   * @return the period code
+   */
+  public static int period(final int year, final int month) {
+    return year * YEAR_MULTIPLIER + month;
+  }
+
+  /**
+   * Gets the series ID.
+   *
+   * @return the series ID
+   */
+  public String getSeriesId() {
+    return seriesId;
+  }
+
+  /**
+   * Gets the number of observations.
+   *
+   * @return the number of observations
+   */
+  public int size() {
+    return periods.length;
+  }
+
+  /**
+   * Gets when the block was fetched from BLS.
+   *
+   * @return the fetch time in epoch milliseconds, or 0 if unknown
+   */
+  public long getFetchedAt() {
+    return fetchedAt;
+  }
+
+  /**
+   * Gets the period code of the observation BLS flagged as the latest of the series.
+   *
+   * @return the period code, or 0 if the block does not hold the latest observation
+   */
+  public int getLatestPeriod() {
+    return latestPeriod;
+  }
+
+  /**
+   * Checks whether the block holds the observation BLS flagged as the latest of the series, and so
+   * is where the next release of the series may land.
+   *
+   * @return true if the block holds the latest observation
+   */
+  public boolean hasLatest() {
+    return latestPeriod != 0;
+  }
+
+  /**
+   * Finds the observation for a period.
+   *
+   * @param period the period code
+   * @return the index of the observation, or a negative number if there is none
+   */
+  public int indexOf(final int period) {
+    return Arrays.binarySearch(periods, period);
+  }
+
+  /**
+   * Gets the period code of an observation.
+   *
+   * @param index the index of the observation
+   * @return the period code
+   */
+  public int periodAt(final int index) {
+    return periods[index];
+  }
+
+  /**
+   * Gets the value of an observation.
+   *
+   * @param index the index of the observation
+   * @return the value, or NaN if BLS did not report a number
+   */
+  public double valueAt(final int index) {
+    return values[index];
+  }
+
+  /**
+   * Gets the number of decimal places BLS reported for the value of an observation.
+   *
+   * @param index the index of the observation
+   * @return the number of decimal places
+   */
+  public int scaleAt(final int index) {
+    return scales[index];
+  }
+
+  /**
+   * Gets the footnote id of an observation.
+   *
+   * @param index the index of the observation
+   * @return the {@link FootnoteDictionary} id of the footnotes
+   */
+  public int footnoteIdAt(final int index) {
+    return footnoteIds[index];
+  }
+
+  /**
+   * Renders the value of an observation as BLS reported it.
+   *
+   * @param index the index of the observation
+   * @return the value text
+   */
+  public String valueTextAt(final int index) {
+    double value = values[index];
+    if (Double.isNaN(value)) {
+      return MISSING_VALUE;
+    }
+    return BigDecimal.valueOf(unscaledValueAt(index), scales[index]).toPlainString();
+  }
+
+  /**
+   * Gets the value of an observation as an unscaled decimal, that is the value multiplied by ten to
+   * the power of its scale.
+   *
+   * @param index the index of the observation
+   * @return the unscaled value; undefined if the value is NaN
+   */
+  public long unscaledValueAt(final int index) {
+    return Math.round(values[index] * POWERS_OF_TEN[scales[index]]);
+  }
+
+  /**
+   * Gets the footnotes of an observation.
+   *
+   * @param index the index of the observation
+   * @return the footnotes
+   */
+  public List<String> footnotesAt(final int index) {
+    return FootnoteDictionary.notesOf(footnoteIds[index]);
+  }
+
+  /**
+   * Creates a {@link CPIData} view of an observation.
+   *
+   * @param index the index of the observation
+   * @return the observation as CPIData
+   */
+  public CPIData toCPIData(final int index) {
+    int period = periods[index];
+    CPIData cpiData = new CPIData();
+    cpiData.setSeriesId(seriesId);
+    cpiData.setYear(Integer.toString(period / YEAR_MULTIPLIER));
+    cpiData.setMonth(Months.name(period % YEAR_MULTIPLIER));
+    cpiData.setCPIValue(valueTextAt(index));
+    cpiData.setNotes(footnotesAt(index));
+    return cpiData;
+  }
+
+  @Override
+  public String toString() {
+    return "SeriesBlock{"
+        + "seriesId='"
+        + seriesId
+        + '\''
+        + ", size="
+        + periods.length
+        + ", fetchedAt="
+        + fetchedAt
+        + ", latestPeriod="
+        + latestPeriod
+        + '}';
+  }
+
+  /** Accumulates observations in any order and builds a block sorted by period. */
+  public static final class Builder {
+
+    /** The initial capacity of the builder, enough for a year of months and its average. */
+    private static final int INITIAL_CAPACITY = 13;
+
+    /** The series ID. */
+    private final String seriesId;
+
+    /** The period codes added so far. */
+    private int[] periods = new int[INITIAL_CAPACITY];
+
+    /** The values added so far. */
+    private double[] values = new double[INITIAL_CAPACITY];
+
+    /** The scales added so far. */
+    private byte[] scales = new byte[INITIAL_CAPACITY];
+
+    /** The footnote ids added so far. */
+    private int[] footnoteIds = new int[INITIAL_CAPACITY];
+
+    /** The number of observations added. */
+    private int size;
+
+    /** When the block was fetched, in epoch milliseconds, or 0 if unknown. */
+    private long fetchedAt;
+
+    /** The period code of the latest observation, or 0 if none. */
+    private int latestPeriod;
+
+    /**
+     * Constructs a builder.
+     *
+     * @param seriesIdValue the series ID
+     */
+    private Builder(final String seriesIdValue) {
+      this.seriesId = seriesIdValue;
+    }
+
+    /**
+     * Adds an observation from the value text BLS reported.
+     *
+     * @param period the period code
+     * @param valueText the value text, such as "308.417" or "-"
+     * @param footnoteId the {@link FootnoteDictionary} id of the footnotes
+     * @return this builder
+     */
+    public Builder add(final int period, final String valueText, final int footnoteId) {
+      double value = Double.NaN;
+      int scale = 0;
+      if (valueText != null) {
+        try {
+          BigDecimal decimal = new BigDecimal(valueText.trim());
+          scale = Math.min(Math.max(decimal.scale(), 0), MAX_SCALE);
+          value = decimal.doubleValue();
+        } catch (NumberFormatException e) {
+          // Not a number, e.g. "-" for a missing value; kept as NaN
+        }
+      }
+      return add(period, value, scale, footnoteId);
+    }
+
+    /**
+     * Adds an observation.
+     *
+     * @param period the period code
+     * @param value the value, or NaN
+     * @param scale the number of decimal places of the value
+     * @param footnoteId the {@link FootnoteDictionary} id of the footnotes
+     * @return this builder
+     */
+    public Builder add(
+        final int period, final double value, final int scale, final int footnoteId) {
+      if (size == periods.length) {
+        int capacity = size * 2;
+        periods = Arrays.copyOf(periods, capacity);
+        values = Arrays.copyOf(values, capacity);
+        scales = Arrays.copyOf(scales, capacity);
+        footnoteIds = Arrays.copyOf(footnoteIds, capacity);
+      }
+      periods[size] = period;
+      values[size] = value;
+      scales[size] = (byte) Math.min(Math.max(scale, 0), MAX_SCALE);
+      footnoteIds[size] = footnoteId;
+      size++;
+      return this;
+    }
+
+    /**
+     * Adds an observation from an unscaled decimal.
+     *
+     * @param period the period code
+     * @param unscaledValue the value multiplied by ten to the power of its scale
+     * @param scale the number of decimal places of the value
+     * @param footnoteId the {@link FootnoteDictionary} id of the footnotes
+     * @return this builder
+     */
+    public Builder addScaled(
+        final int period, final long unscaledValue, final int scale, final int footnoteId) {
+      if (scale >= 0 && scale <= MAX_SCALE) {
+        return add(period, unscaledValue / POWERS_OF_TEN[scale], scale, footnoteId);
+      }
+      return add(period, BigDecimal.valueOf(unscaledValue, scale).doubleValue(), scale, footnoteId);
+    }
+
+    /**
+     * Sets when the block was fetched from BLS.
+     *
+     * @param fetchedAtValue the fetch time in epoch milliseconds, or 0 if unknown
+     * @return this builder
+     */
+    public Builder fetchedAt(final long fetchedAtValue) {
+      this.fetchedAt = fetchedAtValue;
+      return this;
+    }
+
+    /**
+     * Sets the period code of the observation BLS flagged as the latest of the series.
+     *
+     * @param latestPeriodValue the period code, or 0 if none
+     * @return this builder
+     */
+    public Builder latestPeriod(final int latestPeriodValue) {
+      this.latestPeriod = latestPeriodValue;
+      return this;
+    }
+
+    /**
+     * Gets the number of observations added.
+     *
+     * @return the number of observations
+     */
+    public int size() {
+      return size;
+    }
+
+    /**
+     * Builds the block, sorting observations by period. When a period was added more than once, the
+     * last observation added wins.
+     *
+     * @return the block
+     */
+    public SeriesBlock build() {
+      // BLS lists data points newest first, so avoid a general sort for monotonic input
+      boolean ascending = true;
+      boolean descending = true;
+      for (int i = 1; i < size; i++) {
+        ascending &= periods[i] > periods[i - 1];
+        descending &= periods[i] < periods[i - 1];
+      }
+      if (ascending) {
+        return new SeriesBlock(
+            seriesId,
+            Arrays.copyOf(periods, size),
+            Arrays.copyOf(values, size),
+            Arrays.copyOf(scales, size),
+            Arrays.copyOf(footnoteIds, size),
+            fetchedAt,
+            latestPeriod);
+      }
+      if (descending) {
+        int[] reversedPeriods = new int[size];
+        double[] reversedValues = new double[size];
+        byte[] reversedScales = new byte[size];
+        int[] reversedFootnoteIds = new int[size];
+        for (int i = 0; i < size; i++) {
+          int source = size - 1 - i;
+          reversedPeriods[i] = periods[source];
+          reversedValues[i] = values[source];
+          reversedScales[i] = scales[source];
+          reversedFootnoteIds[i] = footnoteIds[source];
+        }
+        return new SeriesBlock(
+            seriesId,
+            reversedPeriods,
+            reversedValues,
+            reversedScales,
+            reversedFootnoteIds,
+            fetchedAt,
+            latestPeriod);
+      }
+
+      Integer[] order = new Integer[size];
+      for (int i = 0; i < size; i++) {
+        order[i] = i;
+      }
+      // Stable sort, so later duplicates stay after earlier ones
+      Arrays.sort(order, (a, b) -> Integer.compare(periods[a], periods[b]));
+
+      int[] sortedPeriods = new int[size];
+      double[] sortedValues = new double[size];
+      byte[] sortedScales = new byte[size];
+      int[] sortedFootnoteIds = new int[size];
+      int count = 0;
+      for (int i = 0; i < size; i++) {
+        int source = order[i];
+        if (count > 0 && sortedPeriods[count - 1] == periods[source]) {
+          count--;
+        }
+        sortedPeriods[count] = periods[source];
+        sortedValues[count] = values[source];
+        sortedScales[count] = scales[source];
+        sortedFootnoteIds[count] = footnoteIds[source];
+        count++;
+      }
+
+      return new SeriesBlock(
+          seriesId,
+          Arrays.copyOf(sortedPeriods, count),
+          Arrays.copyOf(sortedValues, count),
+          Arrays.copyOf(sortedScales, count),
+          Arrays.copyOf(sortedFootnoteIds, count),
+          fetchedAt,
+          latestPeriod);
+    }
+  }
+}
@@ -0,0 +1,15 @@
+package com.bex.cpi_search.repository;
+
+/**
+ * A key that locates a block of documents. Each block is stored as its own Redis value, so blocks
+ * spread across cluster slots and carry their own expiry.
+ */
+public interface BlockKey {
+
+  /**
+   * Gets the Redis key of the block.
+   *
+   * @return the block key
+   */
+  String blockKey();
+}
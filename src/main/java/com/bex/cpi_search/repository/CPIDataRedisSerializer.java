@@ -0,0 +1,641 @@
+package com.bex.cpi_search.repository;
+
+import com.bex.cpi_search.model.CPIData;
+import com.bex.cpi_search.model.FootnoteDictionary;
+import com.bex.cpi_search.model.Months;
+import com.bex.cpi_search.model.SeriesBlock;
+import java.io.ByteArrayOutputStream;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+import org.springframework.data.redis.serializer.GenericJackson2JsonRedisSerializer;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.data.redis.serializer.SerializationException;
+
+/**
+ * A compact, versioned binary {@link RedisSerializer} for {@link SeriesBlock} and {@link CPIData}.
+ *
+ * <p>Every payload starts with a magic byte, a format byte naming the type and version of the body,
+ * and a flags byte. Values are stored as scaled decimals rather than text, months as period
+ * numbers, and footnotes as {@link FootnoteDictionary} codes. A series block stores its periods as
+ * deltas and its footnote lists once per block. Payloads larger than the compression threshold are
+ * deflated when that makes them smaller.
+ *
+ * <p>Other values, and payloads written before this format existed, are handled as JSON so that
+ * existing cache entries stay readable.
+ */
+public final class CPIDataRedisSerializer implements RedisSerializer<Object> {
+
+  /** The first byte of every binary payload. JSON payloads start with '{' or '['. */
+  static final byte MAGIC = (byte) 0xC7;
+
+  /** The format of a single {@link CPIData} payload. */
+  static final byte FORMAT_CPI_DATA = 1;
+
+  /** The format of a {@link SeriesBlock} payload without fetch metadata; still read. */
+  static final byte FORMAT_SERIES_BLOCK = 2;
+
+  /** The format of a {@link SeriesBlock} payload followed by its fetch time and latest period. */
+  static final byte FORMAT_TIMED_SERIES_BLOCK = 3;
+
+  /** Set in the flags byte when the body is deflated. */
+  private static final int FLAG_DEFLATED = 1;
+
+  /** Set in the flags byte when the year is stored as text rather than a number. */
+  private static final int FLAG_TEXT_YEAR = 1 << 1;
+
+  /** The length of the header: magic, format and flags. */
+  private static final int HEADER_LENGTH = 3;
+
+  /** Value kind: no value. */
+  private static final int VALUE_NULL = 0;
+
+  /** Value kind: a scaled decimal. */
+  private static final int VALUE_DECIMAL = 1;
+
+  /** Value kind: text that is not a plain decimal, such as "-". */
+  private static final int VALUE_TEXT = 2;
+
+  /** Footnote code written before an inline footnote that is not in the dictionary. */
+  private static final int INLINE_FOOTNOTE = 0;
+
+  /** The number of payload bits carried by each varint byte. */
+  private static final int VARINT_BITS = 7;
+
+  /** The mask of the payload bits of a varint byte. */
+  private static final int VARINT_MASK = 0x7F;
+
+  /** The continuation bit of a varint byte. */
+  private static final int VARINT_MORE = 0x80;
+
+  /** The largest scale stored for a decimal value. */
+  private static final int MAX_SCALE = 0xFF;
+
+  /** The bit length beyond which an unscaled decimal no longer fits in a long. */
+  private static final int MAX_UNSCALED_BITS = 63;
+
+  /** The most bytes a varint of a long takes. */
+  private static final int MAX_VARINT_LENGTH = 10;
+
+  /** The most digits of a year stored as a number. */
+  private static final int MAX_YEAR_DIGITS = 9;
+
+  /** The expected ratio of inflated to deflated body size, used to size buffers. */
+  private static final int INFLATE_RATIO = 4;
+
+  /** The initial size of the serialization buffer. */
+  private static final int INITIAL_BUFFER_SIZE = 64;
+
+  /** Scale written before a series block value that is not a number. */
+  private static final int SCALE_NAN = 0;
+
+  /** The serializer for legacy and non-CPI values. */
+  private final GenericJackson2JsonRedisSerializer jsonSerializer =
+      new GenericJackson2JsonRedisSerializer();
+
+  /** The body size above which deflate is attempted; 0 or less disables compression. */
+  private final int compressionThreshold;
+
+  /**
+   * Constructs a serializer.
+   *
+   * @param compressionThresholdValue the body size in bytes above which deflate is attempted; 0 or
+   *     less disables compression
+   */
+  public CPIDataRedisSerializer(final int compressionThresholdValue) {
+    this.compressionThreshold = compressionThresholdValue;
+  }
+
+  @Override
+  public byte[] serialize(final Object value) throws SerializationException {
+    if (value instanceof SeriesBlock block) {
+      Writer body = new Writer();
+      writeSeriesBlock(body, block);
+      body.writeVarint(block.getFetchedAt());
+      body.writeVarint(block.getLatestPeriod());
+      return frame(FORMAT_TIMED_SERIES_BLOCK, 0, body);
+    }
+    if (!(value instanceof CPIData cpiData)) {
+      return jsonSerializer.serialize(value);
+    }
+
+    int flags = 0;
+    Writer body = new Writer();
+    body.writeString(cpiData.getSeriesId());
+
+    int year = parseYear(cpiData.getYear());
+    if (year >= 0) {
+      body.writeVarint(year);
+    } else {
+      flags |= FLAG_TEXT_YEAR;
+      body.writeString(cpiData.getYear());
+    }
+
+    int month = Months.number(cpiData.getMonth());
+    body.writeVarint(month);
+    if (month == 0) {
+      body.writeString(cpiData.getMonth());
+    }
+
+    writeValue(body, cpiData.getCPIValue());
+    writeNotes(body, cpiData.getNotes());
+    return frame(FORMAT_CPI_DATA, flags, body);
+  }
+
+  @Override
+  public Object deserialize(final byte[] bytes) throws SerializationException {
+    if (bytes == null || bytes.length == 0) {
+      return null;
+    }
+    if (bytes[0] != MAGIC) {
+      return jsonSerializer.deserialize(bytes);
+    }
+    if (bytes.length < HEADER_LENGTH) {
+      throw new SerializationException(
+          "Truncated CPI data header: " + bytes.length + " of " + HEADER_LENGTH + " bytes");
+    }
+    if (bytes[1] != FORMAT_CPI_DATA
+        && bytes[1] != FORMAT_SERIES_BLOCK
+        && bytes[1] != FORMAT_TIMED_SERIES_BLOCK) {
+      throw new SerializationException("Unsupported CPI data format: " + bytes[1]);
+    }
+
+    int flags = bytes[2];
+    byte[] body = Arrays.copyOfRange(bytes, HEADER_LENGTH, bytes.length);
+    if ((flags & FLAG_DEFLATED) != 0) {
+      body = inflate(body);
+    }
+
+    try {
+      Reader reader = new Reader(body);
+      if (bytes[1] == FORMAT_SERIES_BLOCK) {
+        return readSeriesBlock(reader).build();
+      }
+      if (bytes[1] == FORMAT_TIMED_SERIES_BLOCK) {
+        SeriesBlock.Builder builder = readSeriesBlock(reader);
+        return builder
+            .fetchedAt(reader.readVarint())
+            .latestPeriod((int) reader.readVarint())
+            .build();
+      }
+      CPIData cpiData = new CPIData();
+      cpiData.setSeriesId(reader.readString());
+      cpiData.setYear(
+          (flags & FLAG_TEXT_YEAR) != 0
+              ? reader.readString()
+              : Integer.toString((int) reader.readVarint()));
+
+      int month = (int) reader.readVarint();
+      cpiData.setMonth(month == 0 ? reader.readString() : Months.name(month));
+      cpiData.setCPIValue(readValue(reader));
+      cpiData.setNotes(readNotes(reader));
+      return cpiData;
+    } catch (IllegalArgumentException | IndexOutOfBoundsException e) {
+      throw new SerializationException("Malformed CPI data payload", e);
+    }
+  }
+
+  /**
+   * Prepends the header to a body, deflating the body when that pays off.
+   *
+   * @param format the format byte
+   * @param flags the flags of the body
+   * @param body the body writer
+   * @return the payload
+   */
+  private byte[] frame(final byte format, final int flags, final Writer body) {
+    int payloadFlags = flags;
+    byte[] bodyBytes = body.toByteArray();
+    if (compressionThreshold > 0 && bodyBytes.length > compressionThreshold) {
+      byte[] deflated = deflate(bodyBytes);
+      if (deflated.length < bodyBytes.length) {
+        bodyBytes = deflated;
+        payloadFlags |= FLAG_DEFLATED;
+      }
+    }
+
+    byte[] payload = new byte[HEADER_LENGTH + bodyBytes.length];
+    payload[0] = MAGIC;
+    payload[1] = format;
+    payload[2] = (byte) payloadFlags;
+    System.arraycopy(bodyBytes, 0, payload, HEADER_LENGTH, bodyBytes.length);
+    return payload;
+  }
+
+  /**
+   * Writes a series block: the series ID, the observation count, the periods as deltas, each value
+   * as a scale and unscaled decimal, the distinct footnote lists of the block, and for each
+   * observation the index of its list.
+   *
+   * @param writer the body writer
+   * @param block the series block
+   */
+  private static void writeSeriesBlock(final Writer writer, final SeriesBlock block) {
+    int size = block.size();
+    writer.writeString(block.getSeriesId());
+    writer.writeVarint(size);
+
+    int previous = 0;
+    for (int i = 0; i < size; i++) {
+      writer.writeVarint(block.periodAt(i) - previous);
+      previous = block.periodAt(i);
+    }
+
+    for (int i = 0; i < size; i++) {
+      if (Double.isNaN(block.valueAt(i))) {
+        writer.writeVarint(SCALE_NAN);
+      } else {
+        writer.writeVarint(block.scaleAt(i) + 1L);
+        writer.writeSignedVarint(block.unscaledValueAt(i));
+      }
+    }
+
+    Map<Integer, Integer> localIndexes = new HashMap<>();
+    List<Integer> footnoteIds = new ArrayList<>();
+    int[] observationIndexes = new int[size];
+    for (int i = 0; i < size; i++) {
+      observationIndexes[i] =
+          localIndexes.computeIfAbsent(
+              block.footnoteIdAt(i),
+              id -> {
+                footnoteIds.add(id);
+                return footnoteIds.size() - 1;
+              });
+    }
+    writer.writeVarint(footnoteIds.size());
+    for (int id : footnoteIds) {
+      writeNotes(writer, FootnoteDictionary.notesOf(id));
+    }
+    for (int index : observationIndexes) {
+      writer.writeVarint(index);
+    }
+  }
+
+  /**
+   * Reads a series block written by {@link #writeSeriesBlock(Writer, SeriesBlock)}.
+   *
+   * @param reader the body reader
+   * @return a builder holding the observations of the series block
+   */
+  private static SeriesBlock.Builder readSeriesBlock(final Reader reader) {
+    String seriesId = reader.readString();
+    int size = (int) reader.readVarint();
+    if (size < 0 || size > reader.remaining()) {
+      throw new IllegalArgumentException("Bad observation count: " + size);
+    }
+
+    int[] periods = new int[size];
+    int previous = 0;
+    for (int i = 0; i < size; i++) {
+      previous += (int) reader.readVarint();
+      periods[i] = previous;
+    }
+
+    int[] scales = new int[size];
+    long[] unscaled = new long[size];
+    for (int i = 0; i < size; i++) {
+      scales[i] = (int) reader.readVarint();
+      if (scales[i] != SCALE_NAN) {
+        unscaled[i] = reader.readSignedVarint();
+      }
+    }
+
+    int footnoteCount = (int) reader.readVarint();
+    if (footnoteCount < 0 || footnoteCount > reader.remaining()) {
+      throw new IllegalArgumentException("Bad footnote list count: " + footnoteCount);
+    }
+    int[] footnoteIds = new int[footnoteCount];
+    for (int i = 0; i < footnoteIds.length; i++) {
+      footnoteIds[i] = FootnoteDictionary.idOf(readNotes(reader));
+    }
+
+    SeriesBlock.Builder builder = SeriesBlock.builder(seriesId);
+    for (int i = 0; i < size; i++) {
+      int footnoteId = footnoteIds[(int) reader.readVarint()];
+      if (scales[i] == SCALE_NAN) {
+        builder.add(periods[i], Double.NaN, 0, footnoteId);
+      } else {
+        builder.addScaled(periods[i], unscaled[i], scales[i] - 1, footnoteId);
+      }
+    }
+    return builder;
+  }
+
+  /**
+   * Parses a year stored as text.
+   *
+   * @param year the year text
+   * @return the year, or -1 if it is not a plain non-negative number that round-trips as text
+   */
+  private static int parseYear(final String year) {
+    if (year == null || year.isEmpty() || year.length() > MAX_YEAR_DIGITS) {
+      return -1;
+    }
+    for (int i = 0; i < year.length(); i++) {
+      char c = year.charAt(i);
+      if (c < '0' || c > '9') {
+        return -1;
+      }
+    }
+    if (year.length() > 1 && year.charAt(0) == '0') {
+      return -1;
+    }
+    return Integer.parseInt(year);
+  }
+
+  /**
+   * Writes a CPI value as a scaled decimal when it round-trips exactly, and as text otherwise.
+   *
+   * @param writer the body writer
+   * @param value the CPI value text
+   */
+  private static void writeValue(final Writer writer, final String value) {
+    if (value == null) {
+      writer.writeVarint(VALUE_NULL);
+      return;
+    }
+    try {
+      BigDecimal decimal = new BigDecimal(value);
+      BigInteger unscaled = decimal.unscaledValue();
+      if (decimal.scale() >= 0
+          && decimal.scale() <= MAX_SCALE
+          && unscaled.bitLength() <= MAX_UNSCALED_BITS
+          && decimal.toPlainString().equals(value)) {
+        writer.writeVarint(VALUE_DECIMAL);
+        writer.writeVarint(decimal.scale());
+        writer.writeSignedVarint(unscaled.longValue());
+        return;
+      }
+    } catch (NumberFormatException e) {
+      // Not a number, e.g. "-" for a missing value; stored as text below
+    }
+    writer.writeVarint(VALUE_TEXT);
+    writer.writeString(value);
+  }
+
+  /**
+   * Reads a CPI value written by {@link #writeValue(Writer, String)}.
+   *
+   * @param reader the body reader
+   * @return the CPI value text
+   */
+  private static String readValue(final Reader reader) {
+    int kind = (int) reader.readVarint();
+    switch (kind) {
+      case VALUE_NULL:
+        return null;
+      case VALUE_DECIMAL:
+        int scale = (int) reader.readVarint();
+        return BigDecimal.valueOf(reader.readSignedVarint(), scale).toPlainString();
+      case VALUE_TEXT:
+        return reader.readString();
+      default:
+        throw new IllegalArgumentException("Unknown value kind: " + kind);
+    }
+  }
+
+  /**
+   * Writes footnotes as dictionary codes, inlining any footnote not in the dictionary.
+   *
+   * @param writer the body writer
+   * @param notes the footnotes, or null
+   */
+  private static void writeNotes(final Writer writer, final List<String> notes) {
+    if (notes == null) {
+      writer.writeVarint(0);
+      return;
+    }
+    writer.writeVarint(notes.size() + 1L);
+    for (String note : notes) {
+      int code = FootnoteDictionary.codeOf(note);
+      writer.writeVarint(code);
+      if (code == INLINE_FOOTNOTE) {
+        writer.writeString(note);
+      }
+    }
+  }
+
+  /**
+   * Reads footnotes written by {@link #writeNotes(Writer, List)}.
+   *
+   * @param reader the body reader
+   * @return the footnotes, or null
+   */
+  private static List<String> readNotes(final Reader reader) {
+    int count = (int) reader.readVarint() - 1;
+    if (count < 0) {
+      return null;
+    }
+    List<String> notes = new ArrayList<>(count);
+    for (int i = 0; i < count; i++) {
+      int code = (int) reader.readVarint();
+      notes.add(
+          code == INLINE_FOOTNOTE ? reader.readString() : FootnoteDictionary.footnoteOf(code));
+    }
+    return notes;
+  }
+
+  /**
+   * Deflates a body.
+   *
+   * @param body the body
+   * @return the deflated body
+   */
+  private static byte[] deflate(final byte[] body) {
+    Deflater deflater = new Deflater(Deflater.BEST_SPEED, true);
+    try {
+      deflater.setInput(body);
+      deflater.finish();
+      ByteArrayOutputStream out = new ByteArrayOutputStream(body.length);
+      byte[] chunk = new byte[body.length];
+      while (!deflater.finished()) {
+        out.write(chunk, 0, deflater.deflate(chunk));
+      }
+      return out.toByteArray();
+    } finally {
+      deflater.end();
+    }
+  }
+
+  /**
+   * Inflates a deflated body.
+   *
+   * @param body the deflated body
+   * @return the original body
+   */
+  private static byte[] inflate(final byte[] body) {
+    Inflater inflater = new Inflater(true);
+    try {
+      inflater.setInput(body);
+      ByteArrayOutputStream out = new ByteArrayOutputStream(body.length * INFLATE_RATIO);
+      byte[] chunk = new byte[Math.max(INITIAL_BUFFER_SIZE, body.length * INFLATE_RATIO)];
+      while (!inflater.finished()) {
+        int inflated = inflater.inflate(chunk);
+        if (inflated == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+          throw new SerializationException("Truncated deflated CPI data payload");
+        }
+        out.write(chunk, 0, inflated);
+      }
+      return out.toByteArray();
+    } catch (DataFormatException e) {
+      throw new SerializationException("Corrupt deflated CPI data payload", e);
+    } finally {
+      inflater.end();
+    }
+  }
+
+  /** Appends varints and strings to a growable byte array. */
+  private static final class Writer {
+
+    /** The bytes written so far, followed by spare capacity. */
+    private byte[] buffer = new byte[INITIAL_BUFFER_SIZE];
+
+    /** The number of bytes written. */
+    private int length;
+
+    /**
+     * Writes an unsigned variable-length integer.
+     *
+     * @param value the non-negative value
+     */
+    void writeVarint(final long value) {
+      long remaining = value;
+      ensureCapacity(MAX_VARINT_LENGTH);
+      while ((remaining & ~VARINT_MASK) != 0) {
+        buffer[length++] = (byte) ((remaining & VARINT_MASK) | VARINT_MORE);
+        remaining >>>= VARINT_BITS;
+      }
+      buffer[length++] = (byte) remaining;
+    }
+
+    /**
+     * Writes a signed variable-length integer using zig-zag encoding.
+     *
+     * @param value the value
+     */
+    void writeSignedVarint(final long value) {
+      writeVarint((value << 1) ^ (value >> (Long.SIZE - 1)));
+    }
+
+    /**
+     * Writes a length-prefixed UTF-8 string; null is written as length 0.
+     *
+     * @param value the string, or null
+     */
+    void writeString(final String value) {
+      if (value == null) {
+        writeVarint(0);
+        return;
+      }
+      byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+      writeVarint(bytes.length + 1L);
+      ensureCapacity(bytes.length);
+      System.arraycopy(bytes, 0, buffer, length, bytes.length);
+      length += bytes.length;
+    }
+
+    /**
+     * Gets the bytes written.
+     *
+     * @return a copy of the bytes written
+     */
+    byte[] toByteArray() {
+      return Arrays.copyOf(buffer, length);
+    }
+
+    /**
+     * Grows the buffer to fit more bytes.
+     *
+     * @param extra the number of bytes about to be written
+     */
+    private void ensureCapacity(final int extra) {
+      if (length + extra > buffer.length) {
+        buffer = Arrays.copyOf(buffer, Math.max(buffer.length * 2, length + extra));
+      }
+    }
+  }
+
+  /** Reads varints and strings written by {@link Writer}. */
+  private static final class Reader {
+
+    /** The bytes being read. */
+    private final byte[] buffer;
+
+    /** The position of the next byte to read. */
+    private int position;
+
+    /**
+     * Constructs a reader.
+     *
+     * @param bytes the bytes to read
+     */
+    Reader(final byte[] bytes) {
+      this.buffer = bytes;
+    }
+
+    /**
+     * Reads an unsigned variable-length integer.
+     *
+     * @return the value
+     */
+    long readVarint() {
+      long value = 0;
+      int shift = 0;
+      byte b;
+      do {
+        if (shift >= Long.SIZE) {
+          throw new IllegalArgumentException("Varint too long");
+        }
+        b = buffer[position++];
+        value |= (long) (b & VARINT_MASK) << shift;
+        shift += VARINT_BITS;
+      } while ((b & VARINT_MORE) != 0);
+      return value;
+    }
+
+    /**
+     * Gets the number of bytes left to read.
+     *
+     * @return the number of unread bytes
+     */
+    int remaining() {
+      return buffer.length - position;
+    }
+
+    /**
+     * Reads a zig-zag encoded signed variable-length integer.
+     *
+     * @return the value
+     */
+    long readSignedVarint() {
+      long encoded = readVarint();
+      return (encoded >>> 1) ^ -(encoded & 1);
+    }
+
+    /**
+     * Reads a length-prefixed UTF-8 string.
+     *
+     * @return the string, or null
+     */
+    String readString() {
+      int length = (int) readVarint() - 1;
+      if (length < 0) {
+        return null;
+      }
+      if (position + length > buffer.length) {
+        throw new IndexOutOfBoundsException("String runs past end of payload");
+      }
+      String value = new String(buffer, position, length, StandardCharsets.UTF_8);
+      position += length;
+      return value;
+    }
+  }
+}
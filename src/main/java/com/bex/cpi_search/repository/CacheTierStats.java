@@ -0,0 +1,94 @@
+package com.bex.cpi_search.repository;
+
+/** A point-in-time snapshot of the hit, miss and eviction counters of one cache tier. */
+public final class CacheTierStats {
+
+  /** The name of the cache tier. */
+  private final String tier;
+
+  /** The number of lookups answered by the tier. */
+  private final long hits;
+
+  /** The number of lookups the tier could not answer. */
+  private final long misses;
+
+  /** The number of entries removed by the tier to stay within its bounds. */
+  private final long evictions;
+
+  /**
+   * Constructs a snapshot of the counters of a cache tier.
+   *
+   * @param tierName the name of the cache tier
+   * @param hitCount the number of lookups answered by the tier
+   * @param missCount the number of lookups the tier could not answer
+   * @param evictionCount the number of entries removed by the tier to stay within its bounds
+   */
+  public CacheTierStats(
+      final String tierName, final long hitCount, final long missCount, final long evictionCount) {
+    this.tier = tierName;
+    this.hits = hitCount;
+    this.misses = missCount;
+    this.evictions = evictionCount;
+  }
+
+  /**
+   * Gets the name of the cache tier.
+   *
+   * @return the tier name
+   */
+  public String getTier() {
+    return tier;
+  }
+
+  /**
+   * Gets the number of lookups answered by the tier.
+   *
+   * @return the hit count
+   */
+  public long getHits() {
+    return hits;
+  }
+
+  /**
+   * Gets the number of lookups the tier could not answer.
+   *
+   * @return the miss count
+   */
+  public long getMisses() {
+    return misses;
+  }
+
+  /**
+   * Gets the number of entries removed by the tier to stay within its bounds.
+   *
+   * @return the eviction count
+   */
+  public long getEvictions() {
+    return evictions;
+  }
+
+  /**
+   * Gets the fraction of lookups answered by the tier.
+   *
+   * @return the hit ratio, or 0 if there have been no lookups
+   */
+  public double getHitRatio() {
+    long lookups = hits + misses;
+    return lookups == 0 ? 0 : (double) hits / lookups;
+  }
+
+  @Override
+  public String toString() {
+    return "CacheTierStats{"
+        + "tier='"
+        + tier
+        + '\''
+        + ", hits="
+        + hits
+        + ", misses="
+        + misses
+        + ", evictions="
+        + evictions
+        + '}';
+  }
+}
@@ -0,0 +1,233 @@
+package com.bex.cpi_search.repository;
+
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * A size-bounded, TTL-aware in-process cache used in front of Redis. Entries are evicted in
+ * least-recently-used order once the cache is full, and are treated as absent once they are older
+ * than the configured time to live.
+ *
+ * <p>A value read from the backing store is cached with {@link #putIfUnchanged}, against the {@link
+ * #version()} taken before the read, so that an entry invalidated or rewritten while the read was
+ * in flight is not replaced by the older value it returned.
+ *
+ * @param <K> the type of the cache key
+ * @param <V> the type of the cached value
+ */
+public final class NearCache<K, V> {
+
+  /** The initial capacity of the backing map. */
+  private static final int INITIAL_CAPACITY = 16;
+
+  /** The load factor of the backing map. */
+  private static final float LOAD_FACTOR = 0.75f;
+
+  /** The maximum number of entries held. */
+  private final int maxEntries;
+
+  /** The time to live of an entry in nanoseconds, or 0 if entries never expire. */
+  private final long ttlNanos;
+
+  /** The source of the current time in nanoseconds. */
+  private final LongSupplier ticker;
+
+  /** The cached entries, in least-recently-used order. */
+  private final LinkedHashMap<K, Entry<V>> entries;
+
+  /**
+   * The number of times entries were invalidated, cleared or written with {@link #put}; guarded by
+   * this cache.
+   */
+  private long version;
+
+  /** The number of lookups answered from the cache. */
+  private final LongAdder hits = new LongAdder();
+
+  /** The number of lookups not answered from the cache. */
+  private final LongAdder misses = new LongAdder();
+
+  /** The number of entries removed because the cache was full or the entry had expired. */
+  private final LongAdder evictions = new LongAdder();
+
+  /**
+   * Constructs a near cache.
+   *
+   * @param maxEntriesValue the maximum number of entries held; 0 disables the cache
+   * @param ttl the time to live of an entry; zero means entries never expire
+   */
+  public NearCache(final int maxEntriesValue, final Duration ttl) {
+    this(maxEntriesValue, ttl, System::nanoTime);
+  }
+
+  /**
+   * Constructs a near cache with the given time source.
+   *
+   * @param maxEntriesValue the maximum number of entries held; 0 disables the cache
+   * @param ttl the time to live of an entry; zero means entries never expire
+   * @param tickerValue the source of the current time in nanoseconds
+   */
+  NearCache(final int maxEntriesValue, final Duration ttl, final LongSupplier tickerValue) {
+    this.maxEntries = maxEntriesValue;
+    this.ttlNanos = ttl.toNanos();
+    this.ticker = tickerValue;
+    this.entries = new LinkedHashMap<>(INITIAL_CAPACITY, LOAD_FACTOR, true);
+  }
+
+  /**
+   * Gets the value cached for a key.
+   *
+   * @param key the cache key
+   * @return the cached value, or null if the key is absent or its entry has expired
+   */
+  public synchronized V get(final K key) {
+    Entry<V> entry = entries.get(key);
+    if (entry != null && isExpired(entry, ticker.getAsLong())) {
+      entries.remove(key);
+      evictions.increment();
+      entry = null;
+    }
+
+    if (entry == null) {
+      misses.increment();
+      return null;
+    }
+    hits.increment();
+    return entry.value;
+  }
+
+  /**
+   * Caches a value just written to the backing store for a key, evicting the least recently used
+   * entry if the cache is full. Reads in flight do not cache the values they return over it.
+   *
+   * @param key the cache key
+   * @param value the value to cache
+   */
+  public synchronized void put(final K key, final V value) {
+    version++;
+    store(key, value);
+  }
+
+  /**
+   * Caches a value read from the backing store, unless an entry was invalidated, cleared or written
+   * since the given version was taken, in which case the value read may be older than the one now
+   * in the backing store.
+   *
+   * @param key the cache key
+   * @param value the value read
+   * @param readVersion the {@link #version()} taken before the value was read
+   * @return true if the value was cached
+   */
+  public synchronized boolean putIfUnchanged(final K key, final V value, final long readVersion) {
+    if (version != readVersion) {
+      return false;
+    }
+    store(key, value);
+    return true;
+  }
+
+  /**
+   * Gets the current version of the cache, to take before reading a value from the backing store.
+   *
+   * @return the number of times entries were invalidated, cleared or written
+   * @see #putIfUnchanged(Object, Object, long)
+   */
+  public synchronized long version() {
+    return version;
+  }
+
+  /**
+   * Removes the entry for a key, if present.
+   *
+   * @param key the cache key
+   */
+  public synchronized void invalidate(final K key) {
+    version++;
+    entries.remove(key);
+  }
+
+  /** Removes every entry. */
+  public synchronized void clear() {
+    version++;
+    entries.clear();
+  }
+
+  /**
+   * Stores an entry, evicting the least recently used entry if the cache is full.
+   *
+   * @param key the cache key
+   * @param value the value to cache
+   */
+  private void store(final K key, final V value) {
+    if (maxEntries <= 0) {
+      return;
+    }
+    entries.put(key, new Entry<>(value, ticker.getAsLong()));
+
+    Iterator<Map.Entry<K, Entry<V>>> eldest = entries.entrySet().iterator();
+    while (entries.size() > maxEntries && eldest.hasNext()) {
+      eldest.next();
+      eldest.remove();
+      evictions.increment();
+    }
+  }
+
+  /**
+   * Gets the number of entries currently held, including expired entries not yet removed.
+   *
+   * @return the number of entries
+   */
+  public synchronized int size() {
+    return entries.size();
+  }
+
+  /**
+   * Gets a snapshot of the hit, miss and eviction counters of the cache.
+   *
+   * @param tier the name to report the cache under
+   * @return the cache statistics
+   */
+  public CacheTierStats stats(final String tier) {
+    return new CacheTierStats(tier, hits.sum(), misses.sum(), evictions.sum());
+  }
+
+  /**
+   * Checks whether an entry has outlived the time to live.
+   *
+   * @param entry the entry
+   * @param now the current time in nanoseconds
+   * @return true if the entry has expired
+   */
+  private boolean isExpired(final Entry<V> entry, final long now) {
+    return ttlNanos > 0 && now - entry.createdAt >= ttlNanos;
+  }
+
+  /**
+   * A cached value and the time it was cached.
+   *
+   * @param <V> the type of the cached value
+   */
+  private static final class Entry<V> {
+
+    /** The cached value. */
+    private final V value;
+
+    /** The time the value was cached, in nanoseconds. */
+    private final long createdAt;
+
+    /**
+     * Constructs an entry.
+     *
+     * @param cachedValue the cached value
+     * @param createdAtValue the time the value was cached, in nanoseconds
+     */
+    Entry(final V cachedValue, final long createdAtValue) {
+      this.value = cachedValue;
+      this.createdAt = createdAtValue;
+    }
+  }
+}
@@ -1,42 +1,761 @@
 package com.bex.cpi_search.repository;
 
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.annotation.PostConstruct;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BinaryOperator;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.ToDoubleFunction;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.data.redis.core.HashOperations;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.connection.ReturnType;
+import org.springframework.data.redis.connection.SubscriptionListener;
+import org.springframework.data.redis.core.ReactiveRedisTemplate;
+import org.springframework.data.redis.core.ReactiveValueOperations;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisOperations;
 import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.SessionCallback;
+import org.springframework.data.redis.core.ValueOperations;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
 
 /**
  * Generic repository class for interacting with Redis to store and retrieve objects.
  *
- * @param <K> the type of the hash key
- * @param <V> the type of the hash value
+ * <p>Each document is a block stored as a single Redis value under {@link BlockKey#blockKey()}.
+ * Blocks spread across cluster slots and expire independently of each other.
+ *
+ * <p>Reads are served from an in-process near cache when possible and fall through to Redis
+ * otherwise. Every write is published on a Redis channel so that the near caches of other nodes
+ * drop their copy of the rewritten key. The near cache is only used while this node is subscribed
+ * to that channel, and is cleared whenever the subscription is made again, since invalidations
+ * published while it was down were missed. The subscription is made in the background, so that the
+ * application starts while Redis is unavailable.
+ *
+ * <p>Reads and writes are offered both blocking and, for the reactive request pipeline, as {@link
+ * Mono}s that do not block the calling thread; both share the near cache and its invalidations.
+ *
+ * <p>The hit, miss and eviction counters of both tiers are published as meters, tagged with the
+ * tier.
+ *
+ * @param <K> the type of the document key
+ * @param <V> the type of the document
  */
 @Repository
-public class RedisRepository<K, V> {
+public class RedisRepository<K extends BlockKey, V>
+    implements MessageListener, SubscriptionListener, MeterBinder {
 
   @Autowired private RedisTemplate<String, V> redisTemplate;
 
-  private static final String DOCUMENTS_KEY = "documents";
+  /** The non-blocking template used by the reactive request pipeline. */
+  @Autowired private ReactiveRedisTemplate<String, V> reactiveRedisTemplate;
+
+  /** The container that delivers invalidation messages published by other nodes. */
+  @Autowired private RedisMessageListenerContainer listenerContainer;
+
+  /** The maximum number of blocks held in the near cache. */
+  @Value("${cpi.cache.near.max-entries:10000}")
+  private int nearCacheMaxEntries;
+
+  /** How long a block is served from the near cache before it is re-read from Redis. */
+  @Value("${cpi.cache.near.ttl:PT10M}")
+  private Duration nearCacheTtl;
+
+  /** How long the number of keys evicted by the Redis server is reported before it is re-read. */
+  @Value("${cpi.cache.redis.evictions-refresh:PT1M}")
+  private Duration evictionsRefresh;
+
+  /**
+   * The channel on which rewritten keys are announced to other nodes. A message is the ID of the
+   * publishing node followed by the keys, each on its own line.
+   */
+  public static final String INVALIDATION_CHANNEL = "cpi-search:near-cache:invalidate";
+
+  /** Separates the publishing node ID and the keys in an invalidation message. */
+  public static final String MESSAGE_SEPARATOR = "\n";
+
+  private static final Logger log = LoggerFactory.getLogger(RedisRepository.class);
+
+  /** The number of times a merge is retried when its blocks are rewritten concurrently. */
+  static final int MAX_MERGE_ATTEMPTS = 3;
+
+  /**
+   * Sets a key to a new value only if it still holds the expected value, or is missing when the
+   * expected value is empty. The arguments are the expected value, the new value and its time to
+   * live in milliseconds, zero for none. Returns 1 if the key was set, 0 otherwise.
+   */
+  private static final byte[] COMPARE_AND_SET_SCRIPT =
+      ("local current = redis.call('GET', KEYS[1]) or ''\n"
+              + "if current ~= ARGV[1] then return 0 end\n"
+              + "if tonumber(ARGV[3]) > 0 then\n"
+              + "  redis.call('SET', KEYS[1], ARGV[2], 'PX', ARGV[3])\n"
+              + "else\n"
+              + "  redis.call('SET', KEYS[1], ARGV[2])\n"
+              + "end\n"
+              + "return 1")
+          .getBytes(StandardCharsets.UTF_8);
+
+  /** Identifies this node so that it can ignore its own invalidation messages. */
+  private final String nodeId = UUID.randomUUID().toString();
+
+  /** The number of lookups answered by Redis. */
+  private final LongAdder redisHits = new LongAdder();
+
+  /** The number of lookups Redis could not answer. */
+  private final LongAdder redisMisses = new LongAdder();
+
+  /** The number of keys evicted by the Redis server, as last read. */
+  private long redisEvictions;
+
+  /** When the number of keys evicted by the Redis server was last read, on the nanoTime clock. */
+  private long redisEvictionsReadAt;
+
+  /** Whether the number of keys evicted by the Redis server has been read. */
+  private boolean redisEvictionsRead;
+
+  /** The in-process cache in front of Redis, keyed by block key. */
+  private NearCache<String, V> nearCache;
+
+  /** Told the block keys rewritten by other nodes, once they are dropped from the near cache. */
+  private final List<Consumer<List<String>>> invalidationListeners = new CopyOnWriteArrayList<>();
+
+  /** Told when the near cache is cleared because invalidations may have been missed. */
+  private final List<Runnable> clearListeners = new CopyOnWriteArrayList<>();
+
+  /** Creates the near cache and registers for invalidation messages from other nodes. */
+  @PostConstruct
+  public void init() {
+    nearCache = new NearCache<>(nearCacheMaxEntries, nearCacheTtl);
+    listenerContainer.addMessageListener(this, new ChannelTopic(INVALIDATION_CHANNEL));
+  }
+
+  /**
+   * Subscribes to invalidation messages from other nodes unless already subscribed. It runs on the
+   * scheduler shortly after startup and then periodically, so that a Redis unavailable at startup
+   * does not stop the application, and the subscription is made once Redis is back.
+   */
+  @Scheduled(
+      initialDelayString = "${cpi.cache.near.subscribe-delay:PT1S}",
+      fixedDelayString = "${cpi.cache.near.subscribe-retry:PT30S}")
+  public void subscribe() {
+    if (listenerContainer.isListening()) {
+      return;
+    }
+    try {
+      listenerContainer.start();
+    } catch (RuntimeException e) {
+      // Leaves the container stopped, so that the next attempt subscribes from scratch
+      listenerContainer.stop();
+      log.warn(
+          "Failed to subscribe to near cache invalidations; reading from Redis only until it"
+              + " succeeds: {}",
+          e.getMessage());
+    }
+  }
+
+  /**
+   * Saves a block and sets its expiry.
+   *
+   * @param key the key of the block
+   * @param document the block to be saved
+   * @param blockTtl the time to live of the block; zero or negative means no expiry
+   */
+  public void saveDocument(final K key, final V document, final Duration blockTtl) {
+    saveDocuments(Map.of(key, document), blockTtl);
+  }
+
+  /**
+   * Saves several blocks in one pipelined round trip, writing each block and its expiry with a
+   * single SET.
+   *
+   * @param documents the blocks to be saved, by key
+   * @param blockTtl the time to live of each block written; zero or negative means no expiry
+   */
+  public void saveDocuments(final Map<K, V> documents, final Duration blockTtl) {
+    saveDocuments(documents, key -> blockTtl);
+  }
+
+  /**
+   * Saves several blocks in one pipelined round trip, writing each block and its own expiry with a
+   * single SET.
+   *
+   * @param documents the blocks to be saved, by key
+   * @param blockTtls gives the time to live of the block with a key; zero or negative means no
+   *     expiry
+   */
+  public void saveDocuments(
+      final Map<K, V> documents, final Function<? super K, Duration> blockTtls) {
+    if (documents.isEmpty()) {
+      return;
+    }
+
+    redisTemplate.executePipelined(
+        new SessionCallback<Object>() {
+          @Override
+          @SuppressWarnings("unchecked")
+          public <S, T> Object execute(final RedisOperations<S, T> operations) {
+            ValueOperations<String, V> valueOps =
+                ((RedisOperations<String, V>) operations).opsForValue();
+            documents.forEach(
+                (key, document) -> {
+                  Duration blockTtl = blockTtls.apply(key);
+                  if (blockTtl.compareTo(Duration.ZERO) > 0) {
+                    valueOps.set(key.blockKey(), document, blockTtl);
+                  } else {
+                    valueOps.set(key.blockKey(), document);
+                  }
+                });
+            return null;
+          }
+        });
+
+    publishInvalidation(cacheWritten(documents));
+  }
 
   /**
-   * Saves a document in Redis using a hash.
+   * Merges blocks into the ones already saved under their keys, without losing a block another
+   * writer saves concurrently. Each merged block is written with a compare-and-set that only
+   * succeeds if the saved block is still the one it was merged with; blocks rewritten in between
+   * are read and merged again, up to {@link #MAX_MERGE_ATTEMPTS} times.
+   *
+   * <p>The current blocks are read with one MGET and the merged ones written in one pipelined round
+   * trip per attempt. Blocks written are put in the near cache and announced to other nodes.
    *
-   * @param key the key for the hash
-   * @param document the document to be saved
+   * @param documents the blocks to merge, by key
+   * @param merge merges the saved block, first, with the block to merge; returns null to leave the
+   *     saved block as it is
+   * @param blockTtls gives the time to live of the block with a key; zero or negative means no
+   *     expiry
+   * @return the keys whose merge is settled, whether written or left as they are; keys still
+   *     contended after the last attempt are omitted
    */
-  public void saveDocument(final K key, final V document) {
-    HashOperations<String, K, V> hashOps = redisTemplate.opsForHash();
-    hashOps.put(DOCUMENTS_KEY, key, document);
+  @SuppressWarnings("unchecked")
+  public Set<K> mergeDocuments(
+      final Map<K, V> documents,
+      final BinaryOperator<V> merge,
+      final Function<? super K, Duration> blockTtls) {
+    RedisSerializer<V> valueSerializer = (RedisSerializer<V>) redisTemplate.getValueSerializer();
+    Map<K, V> pending = new LinkedHashMap<>(documents);
+    Map<K, V> written = new LinkedHashMap<>();
+    Set<K> settled = new LinkedHashSet<>();
+
+    for (int attempt = 0; attempt < MAX_MERGE_ATTEMPTS && !pending.isEmpty(); attempt++) {
+      List<K> keys = new ArrayList<>(pending.keySet());
+      byte[][] rawKeys = new byte[keys.size()][];
+      for (int i = 0; i < rawKeys.length; i++) {
+        rawKeys[i] = keys.get(i).blockKey().getBytes(StandardCharsets.UTF_8);
+      }
+      List<byte[]> current =
+          redisTemplate.execute(
+              (RedisCallback<List<byte[]>>)
+                  connection -> connection.stringCommands().mGet(rawKeys));
+
+      List<K> mergedKeys = new ArrayList<>();
+      List<V> mergedDocuments = new ArrayList<>();
+      List<byte[][]> scriptArgs = new ArrayList<>();
+      for (int i = 0; i < keys.size(); i++) {
+        K key = keys.get(i);
+        byte[] saved = current == null ? null : current.get(i);
+        V merged =
+            saved == null
+                ? pending.get(key)
+                : merge.apply(valueSerializer.deserialize(saved), pending.get(key));
+        if (merged == null) {
+          settled.add(key);
+          pending.remove(key);
+          continue;
+        }
+        long ttlMillis = Math.max(blockTtls.apply(key).toMillis(), 0);
+        mergedKeys.add(key);
+        mergedDocuments.add(merged);
+        scriptArgs.add(
+            new byte[][] {
+              rawKeys[i],
+              saved == null ? new byte[0] : saved,
+              valueSerializer.serialize(merged),
+              Long.toString(ttlMillis).getBytes(StandardCharsets.UTF_8)
+            });
+      }
+      if (mergedKeys.isEmpty()) {
+        break;
+      }
+
+      List<Object> replies =
+          redisTemplate.executePipelined(
+              (RedisCallback<Object>)
+                  connection -> {
+                    for (byte[][] args : scriptArgs) {
+                      connection
+                          .scriptingCommands()
+                          .eval(COMPARE_AND_SET_SCRIPT, ReturnType.INTEGER, 1, args);
+                    }
+                    return null;
+                  });
+      for (int i = 0; i < mergedKeys.size(); i++) {
+        if (Long.valueOf(1).equals(replies.get(i))) {
+          K key = mergedKeys.get(i);
+          written.put(key, mergedDocuments.get(i));
+          settled.add(key);
+          pending.remove(key);
+        }
+      }
+    }
+
+    if (!pending.isEmpty()) {
+      log.warn("Gave up merging {} blocks rewritten concurrently", pending.size());
+    }
+    if (!written.isEmpty()) {
+      publishInvalidation(cacheWritten(written));
+    }
+    return settled;
+  }
+
+  /**
+   * Saves several blocks without blocking the calling thread, writing each block and its own expiry
+   * with a single SET. The SETs share one connection and are sent without waiting for each other's
+   * replies.
+   *
+   * @param documents the blocks to be saved, by key
+   * @param blockTtls gives the time to live of the block with a key; zero or negative means no
+   *     expiry
+   * @return a Mono completing once every block is written and the write is announced
+   */
+  public Mono<Void> saveDocumentsReactive(
+      final Map<K, V> documents, final Function<? super K, Duration> blockTtls) {
+    if (documents.isEmpty()) {
+      return Mono.empty();
+    }
+
+    ReactiveValueOperations<String, V> valueOps = reactiveRedisTemplate.opsForValue();
+    return Flux.fromIterable(documents.entrySet())
+        .flatMap(
+            entry -> {
+              Duration blockTtl = blockTtls.apply(entry.getKey());
+              return blockTtl.compareTo(Duration.ZERO) > 0
+                  ? valueOps.set(entry.getKey().blockKey(), entry.getValue(), blockTtl)
+                  : valueOps.set(entry.getKey().blockKey(), entry.getValue());
+            })
+        .then(Mono.fromCallable(() -> cacheWritten(documents)))
+        .flatMap(
+            nearKeys ->
+                reactiveRedisTemplate
+                    .execute(
+                        connection ->
+                            connection
+                                .pubSubCommands()
+                                .publish(
+                                    ByteBuffer.wrap(
+                                        INVALIDATION_CHANNEL.getBytes(StandardCharsets.UTF_8)),
+                                    ByteBuffer.wrap(invalidationMessage(nearKeys))))
+                    .then()
+                    .onErrorResume(
+                        e -> {
+                          log.warn(
+                              "Failed to publish near cache invalidation for {} keys",
+                              nearKeys.size(),
+                              e);
+                          return Mono.empty();
+                        }));
   }
 
   /**
-   * Retrieves a document from Redis based on the provided key.
+   * Retrieves a block.
    *
-   * @param key the key for the hash
-   * @return the retrieved document, or null if not found
+   * @param key the key of the block
+   * @return the retrieved block, or null if not found
    */
   public V getDocument(final K key) {
-    HashOperations<String, K, V> hashOps = redisTemplate.opsForHash();
-    return hashOps.get(DOCUMENTS_KEY, key);
+    V document = isNearCacheActive() ? nearCache.get(key.blockKey()) : null;
+    if (document != null) {
+      return document;
+    }
+
+    long readVersion = nearCache.version();
+    document = redisTemplate.opsForValue().get(key.blockKey());
+    recordRedisLookup(document != null);
+    if (document != null) {
+      cacheRead(key.blockKey(), document, readVersion);
+    }
+    return document;
+  }
+
+  /**
+   * Retrieves several blocks in at most one Redis round trip. Blocks held in the near cache are
+   * served from memory, and the remaining keys are read with a single MGET.
+   *
+   * @param keys the keys of the blocks
+   * @return a map of keys to the blocks found; keys with no block are omitted
+   */
+  public Map<K, V> getDocuments(final Collection<K> keys) {
+    Map<K, V> documents = new HashMap<>();
+    List<K> remoteKeys = readNearCache(keys, documents);
+    if (remoteKeys.isEmpty()) {
+      return documents;
+    }
+
+    long readVersion = nearCache.version();
+    List<V> values = redisTemplate.opsForValue().multiGet(blockKeys(remoteKeys));
+    addRemoteDocuments(remoteKeys, values, documents, readVersion);
+    return documents;
+  }
+
+  /**
+   * Retrieves several blocks in at most one Redis round trip without blocking the calling thread.
+   * Blocks held in the near cache are served from memory, and the remaining keys are read with a
+   * single MGET.
+   *
+   * @param keys the keys of the blocks
+   * @return a Mono of a map of keys to the blocks found; keys with no block are omitted
+   */
+  public Mono<Map<K, V>> getDocumentsReactive(final Collection<K> keys) {
+    Map<K, V> documents = new HashMap<>();
+    List<K> remoteKeys = readNearCache(keys, documents);
+    if (remoteKeys.isEmpty()) {
+      return Mono.just(documents);
+    }
+
+    long readVersion = nearCache.version();
+    return reactiveRedisTemplate
+        .opsForValue()
+        .multiGet(blockKeys(remoteKeys))
+        .map(
+            values -> {
+              addRemoteDocuments(remoteKeys, values, documents, readVersion);
+              return documents;
+            });
+  }
+
+  /**
+   * Drops a key rewritten by another node from the near cache.
+   *
+   * @param message the invalidation message
+   * @param pattern the channel pattern the message matched, if any
+   */
+  @Override
+  public void onMessage(final Message message, final byte[] pattern) {
+    String[] lines = new String(message.getBody(), StandardCharsets.UTF_8).split(MESSAGE_SEPARATOR);
+    if (lines.length < 2 || nodeId.equals(lines[0])) {
+      return;
+    }
+    for (int i = 1; i < lines.length; i++) {
+      nearCache.invalidate(lines[i]);
+    }
+    List<String> nearKeys = Arrays.asList(lines).subList(1, lines.length);
+    invalidationListeners.forEach(listener -> listener.accept(nearKeys));
+  }
+
+  /**
+   * Clears the near cache once the subscription to invalidation messages is made, on startup or
+   * after Redis comes back, since the blocks it holds may have been rewritten by other nodes while
+   * this node was not subscribed.
+   *
+   * @param channel the channel subscribed to
+   * @param count the number of channels this node is subscribed to
+   */
+  @Override
+  public void onChannelSubscribed(final byte[] channel, final long count) {
+    int dropped = nearCache.size();
+    nearCache.clear();
+    clearListeners.forEach(Runnable::run);
+    log.info("Subscribed to near cache invalidations; dropped {} blocks cached before", dropped);
+  }
+
+  /**
+   * Adds a listener told the block keys rewritten by other nodes, for in-process copies of blocks
+   * kept outside the near cache. It is called on the thread delivering the invalidation message,
+   * once the keys are dropped from the near cache, so that a block read again is the new one.
+   *
+   * @param listener the listener
+   */
+  public void addInvalidationListener(final Consumer<List<String>> listener) {
+    invalidationListeners.add(listener);
+  }
+
+  /**
+   * Adds a listener told when the near cache is cleared because invalidation messages may have been
+   * missed, for in-process copies of blocks kept outside the near cache.
+   *
+   * @param listener the listener
+   */
+  public void addClearListener(final Runnable listener) {
+    clearListeners.add(listener);
+  }
+
+  /**
+   * Gets the hit, miss and eviction counters of the in-process near cache.
+   *
+   * @return the near cache statistics
+   */
+  public CacheTierStats getNearCacheStats() {
+    return nearCache.stats("near");
+  }
+
+  /**
+   * Gets the hit and miss counters of lookups that reached Redis. Evictions are the number of keys
+   * the Redis server has evicted under its memory policy.
+   *
+   * @return the Redis tier statistics
+   */
+  public CacheTierStats getRedisStats() {
+    return new CacheTierStats("redis", redisHits.sum(), redisMisses.sum(), redisEvictions());
+  }
+
+  /**
+   * Publishes the counters of both cache tiers: lookups as {@code cpi.cache.gets}, tagged with the
+   * result, entries removed to stay within bounds as {@code cpi.cache.evictions}, and the near
+   * cache size as {@code cpi.cache.size}. The Redis eviction count is read from the server at most
+   * once per eviction refresh interval, however often the counters are scraped.
+   *
+   * @param registry the registry to publish the counters in
+   */
+  @Override
+  public void bindTo(final MeterRegistry registry) {
+    bindGets(registry, "near", "hit", repository -> repository.nearCache.stats("near").getHits());
+    bindGets(
+        registry, "near", "miss", repository -> repository.nearCache.stats("near").getMisses());
+    bindGets(registry, "redis", "hit", repository -> repository.redisHits.sum());
+    bindGets(registry, "redis", "miss", repository -> repository.redisMisses.sum());
+    FunctionCounter.builder(
+            "cpi.cache.evictions",
+            this,
+            repository -> repository.nearCache.stats("near").getEvictions())
+        .description("Entries removed by a cache tier to stay within its bounds")
+        .tag("tier", "near")
+        .register(registry);
+    FunctionCounter.builder("cpi.cache.evictions", this, repository -> repository.redisEvictions())
+        .description("Entries removed by a cache tier to stay within its bounds")
+        .tag("tier", "redis")
+        .register(registry);
+    Gauge.builder("cpi.cache.size", this, repository -> repository.nearCache.size())
+        .description("Entries held by a cache tier")
+        .tag("tier", "near")
+        .register(registry);
+  }
+
+  /**
+   * Publishes the lookups of a cache tier with one result as a {@code cpi.cache.gets} counter.
+   *
+   * @param registry the registry to publish the counter in
+   * @param tier the cache tier, {@code near} or {@code redis}
+   * @param result whether the tier answered the lookups, {@code hit} or {@code miss}
+   * @param count reads the number of lookups from the repository
+   */
+  private void bindGets(
+      final MeterRegistry registry,
+      final String tier,
+      final String result,
+      final ToDoubleFunction<RedisRepository<K, V>> count) {
+    FunctionCounter.builder("cpi.cache.gets", this, count)
+        .description("Lookups of a cache tier, by whether the tier answered them")
+        .tag("tier", tier)
+        .tag("result", result)
+        .register(registry);
+  }
+
+  /**
+   * Serves the keys held in the near cache from memory.
+   *
+   * @param keys the keys of the blocks
+   * @param documents receives the blocks found in the near cache
+   * @return the keys to read from Redis
+   */
+  private List<K> readNearCache(final Collection<K> keys, final Map<K, V> documents) {
+    if (!isNearCacheActive()) {
+      return new ArrayList<>(keys);
+    }
+    List<K> remoteKeys = new ArrayList<>();
+    for (K key : keys) {
+      V document = nearCache.get(key.blockKey());
+      if (document != null) {
+        documents.put(key, document);
+      } else {
+        remoteKeys.add(key);
+      }
+    }
+    return remoteKeys;
+  }
+
+  /**
+   * Gets the Redis keys of blocks.
+   *
+   * @param keys the keys of the blocks
+   * @return the block keys, in the same order
+   */
+  private List<String> blockKeys(final List<K> keys) {
+    List<String> blockKeys = new ArrayList<>(keys.size());
+    keys.forEach(key -> blockKeys.add(key.blockKey()));
+    return blockKeys;
+  }
+
+  /**
+   * Adds the blocks read from Redis to the result and the near cache.
+   *
+   * @param remoteKeys the keys read from Redis
+   * @param values the values read, in the order of the keys, null where there was none
+   * @param documents receives the blocks found
+   * @param readVersion the version of the near cache taken before the blocks were read
+   */
+  private void addRemoteDocuments(
+      final List<K> remoteKeys,
+      final List<V> values,
+      final Map<K, V> documents,
+      final long readVersion) {
+    for (int i = 0; i < remoteKeys.size(); i++) {
+      V value = values == null ? null : values.get(i);
+      recordRedisLookup(value != null);
+      if (value != null) {
+        K key = remoteKeys.get(i);
+        documents.put(key, value);
+        cacheRead(key.blockKey(), value, readVersion);
+      }
+    }
+  }
+
+  /**
+   * Puts a block read from Redis in the near cache, unless a block was invalidated or written since
+   * the read started, in which case the block read may already be outdated.
+   *
+   * @param nearKey the block key
+   * @param document the block read
+   * @param readVersion the version of the near cache taken before the block was read
+   */
+  private void cacheRead(final String nearKey, final V document, final long readVersion) {
+    if (isNearCacheActive()) {
+      nearCache.putIfUnchanged(nearKey, document, readVersion);
+    }
+  }
+
+  /**
+   * Puts written blocks in the near cache.
+   *
+   * @param documents the blocks written, by key
+   * @return the block keys written, to announce to other nodes
+   */
+  private List<String> cacheWritten(final Map<K, V> documents) {
+    boolean nearCacheActive = isNearCacheActive();
+    List<String> nearKeys = new ArrayList<>(documents.size());
+    documents.forEach(
+        (key, document) -> {
+          if (nearCacheActive) {
+            nearCache.put(key.blockKey(), document);
+          }
+          nearKeys.add(key.blockKey());
+        });
+    return nearKeys;
+  }
+
+  /**
+   * Checks whether the near cache may be used, which is only while this node is subscribed to
+   * invalidation messages, so that it does not keep serving blocks rewritten by other nodes.
+   *
+   * @return true if the near cache may be used
+   */
+  private boolean isNearCacheActive() {
+    return listenerContainer.isListening();
+  }
+
+  /**
+   * Creates the message announcing rewritten keys to other nodes.
+   *
+   * @param nearKeys the rewritten block keys
+   * @return the message
+   */
+  private byte[] invalidationMessage(final List<String> nearKeys) {
+    return (nodeId + MESSAGE_SEPARATOR + String.join(MESSAGE_SEPARATOR, nearKeys))
+        .getBytes(StandardCharsets.UTF_8);
+  }
+
+  /**
+   * Announces rewritten keys to the near caches of other nodes in a single message.
+   *
+   * @param nearKeys the rewritten block keys
+   */
+  private void publishInvalidation(final List<String> nearKeys) {
+    byte[] channel = INVALIDATION_CHANNEL.getBytes(StandardCharsets.UTF_8);
+    byte[] message = invalidationMessage(nearKeys);
+    try {
+      redisTemplate.execute(connection -> connection.publish(channel, message), true);
+    } catch (RuntimeException e) {
+      log.warn("Failed to publish near cache invalidation for {} keys", nearKeys.size(), e);
+    }
+  }
+
+  /**
+   * Counts a lookup that reached Redis.
+   *
+   * @param hit true if Redis held the block
+   */
+  private void recordRedisLookup(final boolean hit) {
+    if (hit) {
+      redisHits.increment();
+    } else {
+      redisMisses.increment();
+    }
+  }
+
+  /**
+   * Gets the number of keys evicted by the Redis server, as last read. It is read again once it is
+   * older than the eviction refresh interval, so that frequent scrapes and statistics requests do
+   * not each send Redis an INFO command.
+   *
+   * @return the number of evicted keys
+   */
+  private synchronized long redisEvictions() {
+    long now = System.nanoTime();
+    if (!redisEvictionsRead || now - redisEvictionsReadAt >= evictionsRefresh.toNanos()) {
+      long evictions = readRedisEvictions();
+      if (evictions >= 0) {
+        redisEvictions = evictions;
+      }
+      redisEvictionsRead = true;
+      redisEvictionsReadAt = now;
+    }
+    return redisEvictions;
+  }
+
+  /**
+   * Reads the number of keys evicted by the Redis server.
+   *
+   * @return the number of evicted keys, or -1 if it could not be read
+   */
+  private long readRedisEvictions() {
+    try {
+      Properties info =
+          redisTemplate.execute(connection -> connection.serverCommands().info("stats"), true);
+      String evicted = info == null ? null : info.getProperty("evicted_keys");
+      return evicted == null ? 0 : Long.parseLong(evicted.trim());
+    } catch (RuntimeException e) {
+      log.warn("Failed to read Redis eviction count", e);
+      return -1;
+    }
   }
 }
@@ -1,13 +1,30 @@
 package com.bex.cpi_search.service;
 
 import com.bex.cpi_search.model.BLSApiRequest;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationRegistry;
+import java.io.ByteArrayInputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.http.HttpTimeoutException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.zip.GZIPInputStream;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpEntity;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpMethod;
 import org.springframework.http.MediaType;
-import org.springframework.http.ResponseEntity;
+import org.springframework.http.client.ClientHttpResponse;
 import org.springframework.stereotype.Service;
 import org.springframework.web.client.RestTemplate;
 
@@ -17,15 +34,87 @@ public class BLSApiService {
   /** The RestTemplate used to make HTTP requests to the BLS API. */
   private final RestTemplate restTemplate;
 
+  /** The URL of the BLS time series data endpoint. */
+  private final String apiUrl;
+
+  /** Keeps calls within the BLS API request rate and daily quota. */
+  private final BLSRateLimiter rateLimiter;
+
+  /** Records the latency, status and response size of each call. */
+  private final CPIMetrics metrics;
+
+  /** Traces each call as a span of the request it is made for. */
+  private final ObservationRegistry observationRegistry;
+
+  /** The most time a call may take from sending its request until its body has been read. */
+  private final Duration responseTimeout;
+
+  /** The content coding requested for, and decoded from, BLS responses. */
+  private static final String GZIP = "gzip";
+
   private static final Logger log = LoggerFactory.getLogger(BLSApiService.class);
 
+  /**
+   * Logs the full request and decoded response body of each call at DEBUG. Bodies run to hundreds
+   * of kilobytes, so they are only buffered and logged when this logger is enabled.
+   */
+  static final Logger payloadLog = LoggerFactory.getLogger("com.bex.cpi_search.payload");
+
+  /**
+   * Closes responses whose body is still being read when their call runs out of time, which fails
+   * the blocked read. The HTTP client's own timeout only bounds the wait for the response headers.
+   */
+  private static final ScheduledExecutorService WATCHDOG =
+      Executors.newSingleThreadScheduledExecutor(
+          runnable -> {
+            Thread thread = new Thread(runnable, "bls-response-watchdog");
+            thread.setDaemon(true);
+            return thread;
+          });
+
+  /**
+   * Reads a BLS response body as it arrives.
+   *
+   * @param <T> the type of the result
+   */
+  @FunctionalInterface
+  public interface ResponseBodyReader<T> {
+
+    /**
+     * Reads a response body.
+     *
+     * @param body the decoded response body; closed by the caller
+     * @return the result of reading the body
+     * @throws IOException if the body cannot be read or decoded
+     */
+    T read(InputStream body) throws IOException;
+  }
+
   /**
    * Constructs a BLSApiService with the specified RestTemplate.
    *
    * @param providedRestTemplate the RestTemplate to be used for API calls
+   * @param apiUrlValue the URL of the BLS time series data endpoint
+   * @param providedRateLimiter keeps calls within the BLS API request rate and daily quota
+   * @param providedMetrics records the latency, status and response size of each call
+   * @param providedObservationRegistry traces each call as a span of the request it is made for
+   * @param responseTimeoutValue the most time a call may take from sending its request until its
+   *     body has been read
    */
-  public BLSApiService(final RestTemplate providedRestTemplate) {
+  public BLSApiService(
+      final RestTemplate providedRestTemplate,
+      @Value("${cpi.bls.api.url:https://api.bls.gov/publicAPI/v2/timeseries/data/}")
+          final String apiUrlValue,
+      final BLSRateLimiter providedRateLimiter,
+      final CPIMetrics providedMetrics,
+      final ObservationRegistry providedObservationRegistry,
+      @Value("${cpi.bls.http.response-timeout:PT60S}") final Duration responseTimeoutValue) {
     this.restTemplate = providedRestTemplate;
+    this.apiUrl = apiUrlValue;
+    this.rateLimiter = providedRateLimiter;
+    this.metrics = providedMetrics;
+    this.observationRegistry = providedObservationRegistry;
+    this.responseTimeout = responseTimeoutValue;
   }
 
   /**
@@ -33,35 +122,242 @@ public class BLSApiService {
    *
    * @param request the BLSApiRequest object containing request parameters
    * @return the response body from the BLS API as a String
+   * @throws BLSRateLimitException if the call would exceed the BLS API request rate or daily quota
    */
   public String fetchData(final BLSApiRequest request) {
-    final String url = "https://api.bls.gov/publicAPI/v2/timeseries/data/";
+    return fetchData(request, body -> new String(body.readAllBytes(), StandardCharsets.UTF_8));
+  }
+
+  /**
+   * Fetches data from the BLS API for an interactive caller, handing the response body to a reader
+   * as a stream.
+   *
+   * @param <T> the type of the result
+   * @param request the BLSApiRequest object containing request parameters
+   * @param reader reads the decoded response body
+   * @return the result of the reader
+   * @throws BLSRateLimitException if the call would exceed the BLS API request rate or daily quota
+   */
+  public <T> T fetchData(final BLSApiRequest request, final ResponseBodyReader<T> reader) {
+    return fetchData(request, FetchPriority.INTERACTIVE, reader);
+  }
+
+  /**
+   * Fetches data from the BLS API, handing the response body to a reader as a stream rather than
+   * buffering it. The response is requested gzip-compressed and decompressed while it is read.
+   *
+   * <p>The call first waits for its turn under the BLS API request rate, behind calls of higher
+   * priority, and is counted against the daily query quota. The call is timed from then until its
+   * response body has been read, and recorded with its HTTP status and decoded response size. It is
+   * traced as a {@code fetch-data} span, within which the reader runs.
+   *
+   * <p>The call fails if its response body has not been read within the response timeout of sending
+   * the request, however slowly the body arrives.
+   *
+   * @param <T> the type of the result
+   * @param request the BLSApiRequest object containing request parameters
+   * @param priority the priority of the call
+   * @param reader reads the decoded response body
+   * @return the result of the reader
+   * @throws BLSRateLimitException if the call would exceed the BLS API request rate or daily quota
+   */
+  public <T> T fetchData(
+      final BLSApiRequest request,
+      final FetchPriority priority,
+      final ResponseBodyReader<T> reader) {
+    return Observation.createNotStarted("cpi.bls.fetch", observationRegistry)
+        .contextualName("fetch-data")
+        .lowCardinalityKeyValue("priority", priority.name())
+        .highCardinalityKeyValue("series.count", String.valueOf(request.getSeriesIds().size()))
+        .highCardinalityKeyValue("years", request.getStartYear() + "-" + request.getEndYear())
+        .observe(() -> send(request, priority, reader));
+  }
+
+  /**
+   * Sends a request to the BLS API once the rate limiter allows it, and reads the response. Calls
+   * the rate limiter refuses are counted apart from the calls sent.
+   *
+   * @param <T> the type of the result
+   * @param request the BLSApiRequest object containing request parameters
+   * @param priority the priority of the call
+   * @param reader reads the decoded response body
+   * @return the result of the reader
+   */
+  private <T> T send(
+      final BLSApiRequest request,
+      final FetchPriority priority,
+      final ResponseBodyReader<T> reader) {
+    try {
+      rateLimiter.acquire(priority);
+    } catch (BLSRateLimitException e) {
+      metrics.recordBLSRefusal(priority);
+      throw e;
+    }
 
-    // Create request entity
-    final HttpHeaders headers = new HttpHeaders();
-    headers.setContentType(MediaType.APPLICATION_JSON);
-    final HttpEntity<BLSApiRequest> requestEntity = new HttpEntity<>(request, headers);
+    Timer.Sample sample = metrics.startBLSRequest();
+    ReceivedResponse received = new ReceivedResponse();
+    try {
+      // Create request entity
+      final HttpHeaders headers = new HttpHeaders();
+      headers.setContentType(MediaType.APPLICATION_JSON);
+      headers.set(HttpHeaders.ACCEPT_ENCODING, GZIP);
+      final HttpEntity<BLSApiRequest> requestEntity = new HttpEntity<>(request, headers);
 
-    // Log request details
-    log.info("Sending request to BLS API: URL = {}, Request = {}", url, request);
+      // Log request details
+      log.info(
+          "Sending request to BLS API: URL = {}, Series = {}, Years = {}-{}",
+          apiUrl,
+          request.getSeriesIds().size(),
+          request.getStartYear(),
+          request.getEndYear());
+      payloadLog.debug("BLS API request: {}", request);
 
-    // Make the POST request
-    final ResponseEntity<String> response =
-        restTemplate.exchange(url, HttpMethod.POST, requestEntity, String.class);
+      // Make the POST request; error statuses are raised by the template's error handler
+      long deadline = System.nanoTime() + responseTimeout.toNanos();
+      T result =
+          restTemplate.execute(
+              apiUrl,
+              HttpMethod.POST,
+              restTemplate.httpEntityCallback(requestEntity),
+              response -> readBodyBefore(deadline, response, reader, received));
+      metrics.recordBLSRequest(sample, priority, received.status, received.bodyBytes);
+      return result;
+    } catch (RuntimeException e) {
+      String status = received.status != null ? received.status : CPIMetrics.status(e);
+      metrics.recordBLSRequest(sample, priority, status, received.bodyBytes);
+      throw e;
+    }
+  }
+
+  /**
+   * Decodes a successful response body and hands it to a reader, closing the body if it has not
+   * been read by a deadline.
+   *
+   * @param <T> the type of the result
+   * @param deadline the {@link System#nanoTime()} by which the body must have been read
+   * @param response the response
+   * @param reader reads the decoded response body
+   * @param received receives the status of the response and the size of its decoded body
+   * @return the result of the reader
+   * @throws HttpTimeoutException if the body was not read by the deadline
+   * @throws IOException if the body cannot be read or decoded
+   */
+  private <T> T readBodyBefore(
+      final long deadline,
+      final ClientHttpResponse response,
+      final ResponseBodyReader<T> reader,
+      final ReceivedResponse received)
+      throws IOException {
+    AtomicBoolean timedOut = new AtomicBoolean();
+    ScheduledFuture<?> watchdog =
+        WATCHDOG.schedule(
+            () -> {
+              timedOut.set(true);
+              // Closing the response would first drain the rest of the body
+              try {
+                response.getBody().close();
+              } catch (IOException e) {
+                log.debug("Failed to close a timed out BLS API response", e);
+              }
+            },
+            deadline - System.nanoTime(),
+            TimeUnit.NANOSECONDS);
+    try {
+      return readBody(response, reader, received);
+    } catch (IOException | RuntimeException e) {
+      if (timedOut.get()) {
+        throw new HttpTimeoutException(
+            "BLS API response not read within " + responseTimeout + ": " + e.getMessage());
+      }
+      throw e;
+    } finally {
+      watchdog.cancel(false);
+    }
+  }
+
+  /**
+   * Decodes a successful response body and hands it to a reader.
+   *
+   * @param <T> the type of the result
+   * @param response the response
+   * @param reader reads the decoded response body
+   * @param received receives the status of the response and the size of its decoded body
+   * @return the result of the reader
+   * @throws IOException if the body cannot be read or decoded
+   */
+  private static <T> T readBody(
+      final ClientHttpResponse response,
+      final ResponseBodyReader<T> reader,
+      final ReceivedResponse received)
+      throws IOException {
+    received.status = String.valueOf(response.getStatusCode().value());
+    String contentEncoding = response.getHeaders().getFirst(HttpHeaders.CONTENT_ENCODING);
 
     // Log response details
     log.info(
-        "Received response from BLS API: Status = {}, Body = {}",
+        "Received response from BLS API: Status = {}, Content-Encoding = {}",
         response.getStatusCode(),
-        response.getBody());
-
-    // Check for errors and handle them if needed
-    if (response.getStatusCode().is2xxSuccessful()) {
-      return response.getBody();
-    } else {
-      // Handle errors as needed
-      throw new RuntimeException(
-          "Failed to fetch data from BLS API, Status Code: " + response.getStatusCode());
+        contentEncoding);
+
+    InputStream body = response.getBody();
+    if (GZIP.equalsIgnoreCase(contentEncoding)) {
+      body = new GZIPInputStream(body);
+    }
+    try (InputStream decoded = new CountingInputStream(body, received)) {
+      if (!payloadLog.isDebugEnabled()) {
+        return reader.read(decoded);
+      }
+      byte[] buffered = decoded.readAllBytes();
+      payloadLog.debug("BLS API response: {}", new String(buffered, StandardCharsets.UTF_8));
+      return reader.read(new ByteArrayInputStream(buffered));
+    }
+  }
+
+  /** What has been received of a BLS response, for the metrics of the call. */
+  private static final class ReceivedResponse {
+
+    /** The HTTP status code of the response, or null until it has arrived. */
+    private String status;
+
+    /** The number of decoded body bytes read, or -1 until the body is read. */
+    private long bodyBytes = -1;
+  }
+
+  /** Counts the bytes read through it into the response they belong to. */
+  private static final class CountingInputStream extends FilterInputStream {
+
+    /** The response the bytes are counted into. */
+    private final ReceivedResponse received;
+
+    CountingInputStream(final InputStream bodyValue, final ReceivedResponse receivedValue) {
+      super(bodyValue);
+      this.received = receivedValue;
+      receivedValue.bodyBytes = 0;
+    }
+
+    @Override
+    public int read() throws IOException {
+      int b = super.read();
+      if (b >= 0) {
+        received.bodyBytes++;
+      }
+      return b;
+    }
+
+    @Override
+    public int read(final byte[] buffer, final int offset, final int length) throws IOException {
+      int n = super.read(buffer, offset, length);
+      if (n > 0) {
+        received.bodyBytes += n;
+      }
+      return n;
+    }
+
+    @Override
+    public long skip(final long n) throws IOException {
+      long skipped = super.skip(n);
+      received.bodyBytes += skipped;
+      return skipped;
     }
   }
 }
@@ -0,0 +1,33 @@
+package com.bex.cpi_search.service;
+
+import java.time.Duration;
+
+/**
+ * Thrown when a call to the BLS API is refused because the client-side request rate or the daily
+ * query quota would be exceeded. The call was not sent and may be retried later.
+ */
+public class BLSRateLimitException extends RuntimeException {
+
+  /** How long to wait before retrying. */
+  private final Duration retryAfter;
+
+  /**
+   * Constructs a BLSRateLimitException.
+   *
+   * @param message the detail message
+   * @param retryAfterValue how long to wait before retrying
+   */
+  public BLSRateLimitException(final String message, final Duration retryAfterValue) {
+    super(message);
+    this.retryAfter = retryAfterValue;
+  }
+
+  /**
+   * Gets how long to wait before retrying.
+   *
+   * @return the time to wait before retrying
+   */
+  public Duration getRetryAfter() {
+    return retryAfter;
+  }
+}
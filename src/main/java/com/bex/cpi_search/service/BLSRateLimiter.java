@@ -0,0 +1,181 @@
+package com.bex.cpi_search.service;
+
+import java.io.InterruptedIOException;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.List;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.ResourceAccessException;
+
+/**
+ * Keeps calls to the BLS API within its limits. Calls on this node are paced by a {@link
+ * TokenBucket}, with interactive calls served ahead of background ones. Calls on every node count
+ * against a daily query quota kept in Redis; background calls stop short of the quota so that a
+ * reserve is left for interactive calls. A call that would exceed either limit is refused with a
+ * {@link BLSRateLimitException} instead of being sent.
+ */
+@Component
+public class BLSRateLimiter {
+
+  /** The prefix of the Redis key counting the queries made on a day. */
+  private static final String QUOTA_KEY_PREFIX = "bls:quota:";
+
+  /** The time zone of the day the quota counts queries for. */
+  private static final ZoneId QUOTA_ZONE = ZoneId.of("America/New_York");
+
+  /** How long a day's query count is kept; long enough to outlast the day in every time zone. */
+  private static final Duration QUOTA_KEY_TTL = Duration.ofDays(2);
+
+  /**
+   * Counts a query unless the count has reached the limit, setting the expiry of a new count.
+   * Returns the new count, or -1 if the query was not counted.
+   */
+  private static final RedisScript<Long> COUNT_QUERY =
+      new DefaultRedisScript<>(
+          """
+          local used = tonumber(redis.call('GET', KEYS[1]) or '0')
+          if used >= tonumber(ARGV[1]) then
+            return -1
+          end
+          used = redis.call('INCR', KEYS[1])
+          if used == 1 then
+            redis.call('EXPIRE', KEYS[1], ARGV[2])
+          end
+          return used
+          """,
+          Long.class);
+
+  private static final Logger log = LoggerFactory.getLogger(BLSRateLimiter.class);
+
+  /** Paces calls made on this node. */
+  private final TokenBucket tokenBucket;
+
+  /** The number of queries allowed per day across all nodes; zero or negative disables it. */
+  private final int dailyQuota;
+
+  /** The number of daily queries only interactive calls may use. */
+  private final int backgroundReserve;
+
+  /** The Redis template holding the daily query count. */
+  private final StringRedisTemplate redisTemplate;
+
+  /**
+   * Constructs a BLSRateLimiter.
+   *
+   * @param requestsPerSecondValue the sustained number of calls per second on this node
+   * @param burstValue the number of calls that may be made at once after a quiet period
+   * @param maxWaitValue the longest a call may wait for its turn before it is refused
+   * @param dailyQuotaValue the number of queries allowed per day; zero or negative disables it
+   * @param backgroundReserveValue the number of daily queries only interactive calls may use
+   * @param providedRedisTemplate the Redis template holding the daily query count
+   */
+  public BLSRateLimiter(
+      @Value("${cpi.bls.rate.requests-per-second:5}") final double requestsPerSecondValue,
+      @Value("${cpi.bls.rate.burst:5}") final int burstValue,
+      @Value("${cpi.bls.rate.max-wait:PT2S}") final Duration maxWaitValue,
+      @Value("${cpi.bls.quota.daily:500}") final int dailyQuotaValue,
+      @Value("${cpi.bls.quota.background-reserve:50}") final int backgroundReserveValue,
+      final StringRedisTemplate providedRedisTemplate) {
+    this.tokenBucket = new TokenBucket(requestsPerSecondValue, burstValue, maxWaitValue);
+    this.dailyQuota = dailyQuotaValue;
+    this.backgroundReserve = backgroundReserveValue;
+    this.redisTemplate = providedRedisTemplate;
+  }
+
+  /**
+   * Waits for the turn of a call and counts it against the daily quota.
+   *
+   * @param priority the priority of the call
+   * @throws BLSRateLimitException if the call would exceed the request rate or the daily quota
+   * @throws ResourceAccessException if the caller is interrupted while waiting
+   */
+  public void acquire(final FetchPriority priority) {
+    try {
+      tokenBucket.acquire(priority);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new ResourceAccessException(
+          "Interrupted while waiting to call the BLS API.", new InterruptedIOException());
+    }
+    countQuery(priority);
+  }
+
+  /** Marks today's quota as used up, for when the BLS API reports that it has been reached. */
+  public void exhaustDailyQuota() {
+    if (dailyQuota > 0) {
+      redisTemplate.opsForValue().set(quotaKey(), String.valueOf(dailyQuota), QUOTA_KEY_TTL);
+    }
+  }
+
+  /**
+   * Gets the number of queries counted against today's quota across all nodes.
+   *
+   * @return the number of queries made today
+   */
+  public long getDailyQueriesUsed() {
+    if (dailyQuota <= 0) {
+      return 0;
+    }
+    String used = redisTemplate.opsForValue().get(quotaKey());
+    return used == null ? 0 : Long.parseLong(used);
+  }
+
+  /**
+   * Gets how long until the daily quota resets.
+   *
+   * @return the time until the start of the next quota day
+   */
+  public static Duration untilQuotaReset() {
+    ZonedDateTime now = ZonedDateTime.now(QUOTA_ZONE);
+    return Duration.between(now, now.toLocalDate().plusDays(1).atStartOfDay(QUOTA_ZONE));
+  }
+
+  /**
+   * Counts a query against today's quota, refusing it if the quota available to its priority is
+   * used up.
+   *
+   * @param priority the priority of the call
+   * @throws BLSRateLimitException if the quota available to the priority is used up
+   */
+  private void countQuery(final FetchPriority priority) {
+    if (dailyQuota <= 0) {
+      return;
+    }
+    int limit =
+        priority == FetchPriority.BACKGROUND
+            ? Math.max(0, dailyQuota - backgroundReserve)
+            : dailyQuota;
+    Long used =
+        redisTemplate.execute(
+            COUNT_QUERY,
+            List.of(quotaKey()),
+            String.valueOf(limit),
+            String.valueOf(QUOTA_KEY_TTL.toSeconds()));
+
+    if (used == null || used < 0) {
+      log.warn("Daily BLS API quota available to {} calls is used up", priority);
+      throw new BLSRateLimitException(
+          "The daily BLS API query quota is used up; try again tomorrow.", untilQuotaReset());
+    }
+    if (used == limit) {
+      log.warn("Used the last of the daily BLS API quota available to {} calls", priority);
+    }
+  }
+
+  /**
+   * Gets the Redis key counting today's queries.
+   *
+   * @return the key
+   */
+  private static String quotaKey() {
+    return QUOTA_KEY_PREFIX + LocalDate.now(QUOTA_ZONE);
+  }
+}
@@ -0,0 +1,96 @@
+package com.bex.cpi_search.service;
+
+import com.bex.cpi_search.model.BLSApiRequest;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+/**
+ * Splits the series-years missing from the cache into as few BLS API requests as the API allows.
+ * Series are grouped up to the per-request series limit, and the years missing for each group are
+ * covered by windows of at most the per-request year limit, each starting and ending at a missing
+ * year so that no request asks only for years that are already cached.
+ */
+public final class BLSRequestPlanner {
+
+  /** The maximum number of series IDs in a single request. */
+  private final int maxSeriesPerRequest;
+
+  /** The maximum number of years spanned by a single request. */
+  private final int maxYearsPerRequest;
+
+  /**
+   * Constructs a planner for the given request limits.
+   *
+   * @param maxSeriesValue the maximum number of series IDs in a single request
+   * @param maxYearsValue the maximum number of years spanned by a single request
+   */
+  public BLSRequestPlanner(final int maxSeriesValue, final int maxYearsValue) {
+    if (maxSeriesValue < 1 || maxYearsValue < 1) {
+      throw new IllegalArgumentException("Request limits must be positive.");
+    }
+    this.maxSeriesPerRequest = maxSeriesValue;
+    this.maxYearsPerRequest = maxYearsValue;
+  }
+
+  /**
+   * Plans the requests that fetch every missing series-year.
+   *
+   * @param missingYearsBySeries the missing years of each series ID; series with no missing years
+   *     are ignored
+   * @return the requests, in series then year order
+   */
+  public List<BLSApiRequest> plan(
+      final Map<String, ? extends Collection<Integer>> missingYearsBySeries) {
+    // Sort the series so that the same misses always produce the same requests
+    Map<String, Collection<Integer>> missing = new TreeMap<>();
+    missingYearsBySeries.forEach(
+        (seriesId, years) -> {
+          if (!years.isEmpty()) {
+            missing.put(seriesId, years);
+          }
+        });
+
+    List<BLSApiRequest> requests = new ArrayList<>();
+    List<String> seriesIds = new ArrayList<>(missing.keySet());
+    for (int from = 0; from < seriesIds.size(); from += maxSeriesPerRequest) {
+      List<String> group =
+          List.copyOf(
+              seriesIds.subList(from, Math.min(from + maxSeriesPerRequest, seriesIds.size())));
+
+      TreeSet<Integer> years = new TreeSet<>();
+      for (String seriesId : group) {
+        years.addAll(missing.get(seriesId));
+      }
+
+      Integer startYear = years.first();
+      while (startYear != null) {
+        // End the window at its last missing year
+        int endYear = years.floor(startYear + maxYearsPerRequest - 1);
+        requests.add(request(group, startYear, endYear));
+        startYear = years.higher(endYear);
+      }
+    }
+    return requests;
+  }
+
+  /**
+   * Creates a request for a range of years of a group of series.
+   *
+   * @param seriesIds the series IDs
+   * @param startYear the first year
+   * @param endYear the last year
+   * @return the request
+   */
+  private static BLSApiRequest request(
+      final List<String> seriesIds, final int startYear, final int endYear) {
+    BLSApiRequest request = new BLSApiRequest();
+    request.setSeriesIds(seriesIds);
+    request.setStartYear(String.valueOf(startYear));
+    request.setEndYear(String.valueOf(endYear));
+    return request;
+  }
+}
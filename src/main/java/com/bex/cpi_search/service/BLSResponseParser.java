@@ -0,0 +1,617 @@
+package com.bex.cpi_search.service;
+
+import com.bex.cpi_search.model.CPICacheKey;
+import com.bex.cpi_search.model.FootnoteDictionary;
+import com.bex.cpi_search.model.Months;
+import com.bex.cpi_search.model.SeriesBlock;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+/**
+ * Decodes BLS API responses straight into {@link SeriesBlock}s in a single streaming pass.
+ *
+ * <p>The response is read token by token with a {@link JsonParser} created from the shared,
+ * application-wide {@link ObjectMapper}, without building a tree or intermediate POJOs. Numeric
+ * values and years are decoded from the parser's character buffer, and the data points of a series
+ * are staged in reusable primitive buffers, so allocation is bounded by the blocks produced rather
+ * than by the size of the response. Fields the cache does not use are skipped.
+ */
+@Component
+public class BLSResponseParser {
+
+  /** The footnote text BLS data points carry when a footnote has neither code nor text. */
+  private static final String EMPTY_FOOTNOTE = "Code: null, Text: null";
+
+  /** The number of data points the staging buffers hold before growing; ten years of months. */
+  private static final int INITIAL_BUFFER_SIZE = 130;
+
+  /**
+   * The most digits of a value decoded from the character buffer; small enough that the unscaled
+   * value still fits in a long once shifted to make room for the scale.
+   */
+  private static final int MAX_FAST_DIGITS = 16;
+
+  /** The most digits of a year decoded from the character buffer. */
+  private static final int MAX_INT_DIGITS = 9;
+
+  /** The mask of the scale in a packed decimal. */
+  private static final int SCALE_MASK = 0xFF;
+
+  /** The length of a monthly or annual BLS period code, such as "M01" or "A01". */
+  private static final int PERIOD_CODE_LENGTH = 3;
+
+  /** The radix of decimal digits. */
+  private static final int DECIMAL_RADIX = 10;
+
+  private static final Logger log = LoggerFactory.getLogger(BLSResponseParser.class);
+
+  /** The factory of the shared ObjectMapper, used to create streaming parsers. */
+  private final JsonFactory jsonFactory;
+
+  /**
+   * Constructs a parser.
+   *
+   * @param objectMapper the application-wide ObjectMapper whose factory creates the parsers
+   */
+  public BLSResponseParser(final ObjectMapper objectMapper) {
+    this.jsonFactory = objectMapper.getFactory();
+  }
+
+  /**
+   * Parses a BLS API response.
+   *
+   * @param responseJson the response body
+   * @return the parsed response
+   * @throws IOException if the response is not valid JSON
+   */
+  public ParsedResponse parse(final String responseJson) throws IOException {
+    try (JsonParser parser = jsonFactory.createParser(responseJson)) {
+      return parse(parser);
+    }
+  }
+
+  /**
+   * Parses a BLS API response from a stream, without buffering the whole body.
+   *
+   * @param responseBody the response body; not closed by this method
+   * @return the parsed response
+   * @throws IOException if the stream cannot be read or is not valid JSON
+   */
+  public ParsedResponse parse(final InputStream responseBody) throws IOException {
+    try (JsonParser parser = jsonFactory.createParser(responseBody)) {
+      parser.disable(JsonParser.Feature.AUTO_CLOSE_SOURCE);
+      return parse(parser);
+    }
+  }
+
+  /**
+   * Walks the top-level response object.
+   *
+   * @param parser the parser, positioned before the first token
+   * @return the parsed response
+   * @throws IOException if the response is not valid JSON
+   */
+  private ParsedResponse parse(final JsonParser parser) throws IOException {
+    ParsedResponse response = new ParsedResponse();
+    if (parser.nextToken() != JsonToken.START_OBJECT) {
+      throw new IOException("BLS response is not a JSON object");
+    }
+
+    SeriesBuffer buffer = new SeriesBuffer();
+    buffer.fetchedAt = System.currentTimeMillis();
+    while (parser.nextToken() == JsonToken.FIELD_NAME) {
+      String field = parser.currentName();
+      JsonToken value = parser.nextToken();
+      switch (field) {
+        case "status" -> {
+          response.status = parser.getValueAsString();
+        }
+        case "responseTime" -> {
+          response.responseTime = parser.getValueAsInt();
+        }
+        case "message" -> readMessages(parser, value, response.messages);
+        case "Results" -> readResults(parser, value, buffer, response.blocks);
+        default -> parser.skipChildren();
+      }
+    }
+
+    log.info(
+        "Parsed BLS response: status = {}, blocks = {}, messages = {}",
+        response.status,
+        response.blocks.size(),
+        response.messages);
+    return response;
+  }
+
+  /**
+   * Reads the message array of the response.
+   *
+   * @param parser the parser, positioned on the value of the message field
+   * @param value the current token
+   * @param messages the list the messages are added to
+   * @throws IOException if the response is not valid JSON
+   */
+  private static void readMessages(
+      final JsonParser parser, final JsonToken value, final List<String> messages)
+      throws IOException {
+    if (value != JsonToken.START_ARRAY) {
+      parser.skipChildren();
+      return;
+    }
+    while (parser.nextToken() != JsonToken.END_ARRAY) {
+      if (parser.currentToken() == JsonToken.VALUE_STRING) {
+        messages.add(parser.getText());
+      } else {
+        parser.skipChildren();
+      }
+    }
+  }
+
+  /**
+   * Reads the Results object and the series it holds.
+   *
+   * @param parser the parser, positioned on the value of the Results field
+   * @param value the current token
+   * @param buffer the reusable staging buffer
+   * @param blocks the map the blocks are added to
+   * @throws IOException if the response is not valid JSON
+   */
+  private static void readResults(
+      final JsonParser parser,
+      final JsonToken value,
+      final SeriesBuffer buffer,
+      final Map<CPICacheKey, SeriesBlock> blocks)
+      throws IOException {
+    if (value != JsonToken.START_OBJECT) {
+      parser.skipChildren();
+      return;
+    }
+    while (parser.nextToken() == JsonToken.FIELD_NAME) {
+      String field = parser.currentName();
+      if (parser.nextToken() == JsonToken.START_ARRAY && "series".equals(field)) {
+        while (parser.nextToken() != JsonToken.END_ARRAY) {
+          if (parser.currentToken() == JsonToken.START_OBJECT) {
+            readSeries(parser, buffer);
+            buffer.drainInto(blocks);
+          } else {
+            parser.skipChildren();
+          }
+        }
+      } else {
+        parser.skipChildren();
+      }
+    }
+  }
+
+  /**
+   * Reads one series object into the staging buffer.
+   *
+   * @param parser the parser, positioned on the start of the series object
+   * @param buffer the staging buffer, reset by this method
+   * @throws IOException if the response is not valid JSON
+   */
+  private static void readSeries(final JsonParser parser, final SeriesBuffer buffer)
+      throws IOException {
+    buffer.reset();
+    while (parser.nextToken() == JsonToken.FIELD_NAME) {
+      String field = parser.currentName();
+      JsonToken value = parser.nextToken();
+      if ("seriesID".equals(field)) {
+        buffer.seriesId = parser.getValueAsString();
+      } else if ("data".equals(field) && value == JsonToken.START_ARRAY) {
+        while (parser.nextToken() != JsonToken.END_ARRAY) {
+          if (parser.currentToken() == JsonToken.START_OBJECT) {
+            readDataPoint(parser, buffer);
+          } else {
+            parser.skipChildren();
+          }
+        }
+      } else {
+        parser.skipChildren();
+      }
+    }
+  }
+
+  /**
+   * Reads one data point into the staging buffer. Data points whose period is not a month or the
+   * annual average, or whose year is not a number, are skipped.
+   *
+   * @param parser the parser, positioned on the start of the data point object
+   * @param buffer the staging buffer
+   * @throws IOException if the response is not valid JSON
+   */
+  private static void readDataPoint(final JsonParser parser, final SeriesBuffer buffer)
+      throws IOException {
+    int year = -1;
+    int month = 0;
+    int periodNameMonth = 0;
+    boolean hasValue = false;
+    long unscaled = 0;
+    int scale = 0;
+    String valueText = null;
+    int footnoteId = FootnoteDictionary.NO_NOTES;
+    boolean latest = false;
+
+    while (parser.nextToken() == JsonToken.FIELD_NAME) {
+      String field = parser.currentName();
+      JsonToken value = parser.nextToken();
+      switch (field) {
+        case "year" -> {
+          year = parseInt(parser);
+        }
+        case "period" -> {
+          month = parsePeriodCode(parser);
+        }
+        case "periodName" -> {
+          // Only needed when the period code was missing or not understood
+          if (month == 0) {
+            periodNameMonth = Months.number(parser.getValueAsString());
+          }
+        }
+        case "value" -> {
+          long decimal = parseDecimal(parser);
+          if (decimal != Long.MIN_VALUE) {
+            hasValue = true;
+            unscaled = decimal >> Byte.SIZE;
+            scale = (int) (decimal & SCALE_MASK);
+          } else {
+            valueText = parser.getValueAsString();
+          }
+        }
+        case "footnotes" -> {
+          footnoteId = readFootnotes(parser, value, buffer.notes);
+        }
+        case "latest" -> {
+          latest = parser.getValueAsBoolean();
+        }
+        default -> parser.skipChildren();
+      }
+    }
+
+    if (month == 0) {
+      month = periodNameMonth;
+    }
+    if (year < 0 || month == 0) {
+      return;
+    }
+    buffer.add(year, month, hasValue, unscaled, scale, valueText, footnoteId);
+    if (latest) {
+      buffer.latestPeriod = SeriesBlock.period(year, month);
+    }
+  }
+
+  /**
+   * Reads the footnotes of a data point and interns them.
+   *
+   * @param parser the parser, positioned on the value of the footnotes field
+   * @param value the current token
+   * @param notes a reusable scratch list
+   * @return the {@link FootnoteDictionary} id of the footnotes
+   * @throws IOException if the response is not valid JSON
+   */
+  private static int readFootnotes(
+      final JsonParser parser, final JsonToken value, final List<String> notes) throws IOException {
+    if (value != JsonToken.START_ARRAY) {
+      parser.skipChildren();
+      return FootnoteDictionary.NO_NOTES;
+    }
+    notes.clear();
+    while (parser.nextToken() != JsonToken.END_ARRAY) {
+      if (parser.currentToken() != JsonToken.START_OBJECT) {
+        parser.skipChildren();
+        continue;
+      }
+      String code = null;
+      String text = null;
+      while (parser.nextToken() == JsonToken.FIELD_NAME) {
+        String field = parser.currentName();
+        parser.nextToken();
+        if ("code".equals(field)) {
+          code = parser.getValueAsString();
+        } else if ("text".equals(field)) {
+          text = parser.getValueAsString();
+        } else {
+          parser.skipChildren();
+        }
+      }
+      notes.add(
+          code == null && text == null ? EMPTY_FOOTNOTE : "Code: " + code + ", Text: " + text);
+    }
+    return FootnoteDictionary.idOf(notes);
+  }
+
+  /**
+   * Parses a non-negative integer from the current string or number token without allocating.
+   *
+   * @param parser the parser
+   * @return the integer, or -1 if the token is not a plain non-negative integer
+   * @throws IOException if the token cannot be read
+   */
+  private static int parseInt(final JsonParser parser) throws IOException {
+    if (parser.currentToken() == JsonToken.VALUE_NUMBER_INT) {
+      return parser.getIntValue();
+    }
+    if (parser.currentToken() != JsonToken.VALUE_STRING) {
+      return -1;
+    }
+    char[] chars = parser.getTextCharacters();
+    int offset = parser.getTextOffset();
+    int length = parser.getTextLength();
+    if (length == 0 || length > MAX_INT_DIGITS) {
+      return -1;
+    }
+    int result = 0;
+    for (int i = offset; i < offset + length; i++) {
+      int digit = chars[i] - '0';
+      if (digit < 0 || digit >= DECIMAL_RADIX) {
+        return -1;
+      }
+      result = result * DECIMAL_RADIX + digit;
+    }
+    return result;
+  }
+
+  /**
+   * Parses a monthly ("M01" to "M13") or annual ("A01") BLS period code.
+   *
+   * @param parser the parser, positioned on the period value
+   * @return the month number, 13 for the annual average, or 0 for any other period
+   * @throws IOException if the token cannot be read
+   */
+  private static int parsePeriodCode(final JsonParser parser) throws IOException {
+    if (parser.currentToken() != JsonToken.VALUE_STRING
+        || parser.getTextLength() != PERIOD_CODE_LENGTH) {
+      return 0;
+    }
+    char[] chars = parser.getTextCharacters();
+    int offset = parser.getTextOffset();
+    int tens = chars[offset + 1] - '0';
+    int units = chars[offset + 2] - '0';
+    if (tens < 0 || tens >= DECIMAL_RADIX || units < 0 || units >= DECIMAL_RADIX) {
+      return 0;
+    }
+    int number = tens * DECIMAL_RADIX + units;
+    if (chars[offset] == 'M' && number >= 1 && number <= Months.ANNUAL) {
+      return number;
+    }
+    return chars[offset] == 'A' && number == 1 ? Months.ANNUAL : 0;
+  }
+
+  /**
+   * Parses a plain decimal, such as "308.417" or "-1.5", from the current token without allocating.
+   * The result packs the unscaled value into the upper bits and the scale into the lowest byte.
+   *
+   * @param parser the parser, positioned on the value
+   * @return the packed decimal, or {@link Long#MIN_VALUE} if the token is not a plain decimal of at
+   *     most 16 digits
+   * @throws IOException if the token cannot be read
+   */
+  private static long parseDecimal(final JsonParser parser) throws IOException {
+    JsonToken token = parser.currentToken();
+    if (token != JsonToken.VALUE_STRING
+        && token != JsonToken.VALUE_NUMBER_INT
+        && token != JsonToken.VALUE_NUMBER_FLOAT) {
+      return Long.MIN_VALUE;
+    }
+    char[] chars = parser.getTextCharacters();
+    int offset = parser.getTextOffset();
+    int end = offset + parser.getTextLength();
+    boolean negative = offset < end && chars[offset] == '-';
+    int position = negative ? offset + 1 : offset;
+
+    long unscaled = 0;
+    int digits = 0;
+    int scale = -1;
+    for (; position < end; position++) {
+      char c = chars[position];
+      if (c == '.' && scale < 0) {
+        scale = 0;
+      } else if (c >= '0' && c <= '9' && digits < MAX_FAST_DIGITS) {
+        unscaled = unscaled * DECIMAL_RADIX + (c - '0');
+        digits++;
+        if (scale >= 0) {
+          scale++;
+        }
+      } else {
+        return Long.MIN_VALUE;
+      }
+    }
+    if (digits == 0 || scale == 0 || scale > SCALE_MASK) {
+      return Long.MIN_VALUE;
+    }
+    long signed = negative ? -unscaled : unscaled;
+    return (signed << Byte.SIZE) | Math.max(scale, 0);
+  }
+
+  /** The fields of a BLS response the cache uses. */
+  public static final class ParsedResponse {
+
+    /** The status of the response, such as "REQUEST_SUCCEEDED". */
+    private String status;
+
+    /** The time BLS took to respond, in milliseconds. */
+    private int responseTime;
+
+    /** The messages BLS returned, such as warnings about unknown series. */
+    private final List<String> messages = new ArrayList<>();
+
+    /** One block per series and year, in response order. */
+    private final Map<CPICacheKey, SeriesBlock> blocks = new LinkedHashMap<>();
+
+    /**
+     * Gets the status of the response.
+     *
+     * @return the status, or null if the response had none
+     */
+    public String getStatus() {
+      return status;
+    }
+
+    /**
+     * Gets the time BLS took to respond.
+     *
+     * @return the response time in milliseconds
+     */
+    public int getResponseTime() {
+      return responseTime;
+    }
+
+    /**
+     * Gets the messages BLS returned.
+     *
+     * @return the unmodifiable list of messages
+     */
+    public List<String> getMessages() {
+      return Collections.unmodifiableList(messages);
+    }
+
+    /**
+     * Gets the series blocks of the response.
+     *
+     * @return the unmodifiable map of blocks, by cache key
+     */
+    public Map<CPICacheKey, SeriesBlock> getBlocks() {
+      return Collections.unmodifiableMap(blocks);
+    }
+  }
+
+  /**
+   * Stages the data points of one series in primitive arrays that are reused from series to series,
+   * then splits them into one block per year.
+   */
+  private static final class SeriesBuffer {
+
+    /** The series ID of the series being read. */
+    private String seriesId;
+
+    /** The year of each data point. */
+    private int[] years = new int[INITIAL_BUFFER_SIZE];
+
+    /** The month number of each data point. */
+    private int[] months = new int[INITIAL_BUFFER_SIZE];
+
+    /** Whether each data point has a decimal value. */
+    private boolean[] hasValues = new boolean[INITIAL_BUFFER_SIZE];
+
+    /** The unscaled decimal value of each data point. */
+    private long[] unscaledValues = new long[INITIAL_BUFFER_SIZE];
+
+    /** The scale of each decimal value. */
+    private int[] scales = new int[INITIAL_BUFFER_SIZE];
+
+    /** The value text of data points whose value is not a plain decimal; usually all null. */
+    private String[] valueTexts = new String[INITIAL_BUFFER_SIZE];
+
+    /** The footnote id of each data point. */
+    private int[] footnoteIds = new int[INITIAL_BUFFER_SIZE];
+
+    /** The number of data points staged. */
+    private int size;
+
+    /** The period code of the data point BLS flagged as the latest, or 0 if none. */
+    private int latestPeriod;
+
+    /** When the response was fetched, in epoch milliseconds; stamped on every block. */
+    private long fetchedAt;
+
+    /** A scratch list for the footnotes of one data point. */
+    private final List<String> notes = new ArrayList<>();
+
+    /** Clears the buffer for the next series. */
+    void reset() {
+      seriesId = null;
+      Arrays.fill(valueTexts, 0, size, null);
+      size = 0;
+      latestPeriod = 0;
+    }
+
+    /**
+     * Stages a data point.
+     *
+     * @param year the year
+     * @param month the month number
+     * @param hasValue whether the value is a decimal
+     * @param unscaled the unscaled decimal value
+     * @param scale the scale of the decimal value
+     * @param valueText the value text if it is not a decimal
+     * @param footnoteId the footnote id
+     */
+    void add(
+        final int year,
+        final int month,
+        final boolean hasValue,
+        final long unscaled,
+        final int scale,
+        final String valueText,
+        final int footnoteId) {
+      if (size == years.length) {
+        int capacity = size * 2;
+        years = Arrays.copyOf(years, capacity);
+        months = Arrays.copyOf(months, capacity);
+        hasValues = Arrays.copyOf(hasValues, capacity);
+        unscaledValues = Arrays.copyOf(unscaledValues, capacity);
+        scales = Arrays.copyOf(scales, capacity);
+        valueTexts = Arrays.copyOf(valueTexts, capacity);
+        footnoteIds = Arrays.copyOf(footnoteIds, capacity);
+      }
+      years[size] = year;
+      months[size] = month;
+      hasValues[size] = hasValue;
+      unscaledValues[size] = unscaled;
+      scales[size] = scale;
+      valueTexts[size] = valueText;
+      footnoteIds[size] = footnoteId;
+      size++;
+    }
+
+    /**
+     * Builds one block per year from the staged data points.
+     *
+     * @param blocks the map the blocks are added to
+     */
+    void drainInto(final Map<CPICacheKey, SeriesBlock> blocks) {
+      if (seriesId == null) {
+        if (size > 0) {
+          log.warn("Skipping {} data points of a series without a series ID", size);
+        }
+        return;
+      }
+      if (size == 0) {
+        log.warn("No data found for series ID: {}", seriesId);
+        return;
+      }
+
+      Map<Integer, SeriesBlock.Builder> builders = new LinkedHashMap<>();
+      for (int i = 0; i < size; i++) {
+        SeriesBlock.Builder builder =
+            builders.computeIfAbsent(
+                years[i], year -> SeriesBlock.builder(seriesId).fetchedAt(fetchedAt));
+        int period = SeriesBlock.period(years[i], months[i]);
+        if (hasValues[i]) {
+          builder.addScaled(period, unscaledValues[i], scales[i], footnoteIds[i]);
+        } else {
+          builder.add(period, valueTexts[i], footnoteIds[i]);
+        }
+      }
+      if (latestPeriod != 0) {
+        builders.get(latestPeriod / SeriesBlock.YEAR_MULTIPLIER).latestPeriod(latestPeriod);
+      }
+      builders.forEach(
+          (year, builder) ->
+              blocks.put(CPICacheKey.of(Integer.toString(year), seriesId), builder.build()));
+    }
+  }
+}
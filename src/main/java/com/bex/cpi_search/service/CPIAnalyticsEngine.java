@@ -0,0 +1,257 @@
+package com.bex.cpi_search.service;
+
+import com.bex.cpi_search.model.SeriesAnalytics;
+import com.bex.cpi_search.model.SeriesBlock;
+import com.bex.cpi_search.repository.NearCache;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Computes {@link SeriesAnalytics} from cached series-year blocks, so that percentage changes and
+ * averages never have to be requested from BLS with the {@code calculations} and {@code
+ * annualaverage} flags.
+ *
+ * <p>The monthly values of a series are laid out on a dense grid of twelve slots a year, so each
+ * measure is a straight loop over primitive arrays, with NaN standing in for a missing value and
+ * propagating to every measure that depends on it.
+ *
+ * <p>Results are memoized per series, range and window, and kept for as long as the blocks they
+ * were computed from are the same version: a block fetched again from BLS, for a revision or a new
+ * release, has a new fetch time, and the analytics of its series are computed again.
+ */
+@Component
+public class CPIAnalyticsEngine {
+
+  /** The largest number of months a rolling average may span. */
+  public static final int MAX_WINDOW = 120;
+
+  /** The memoized analytics, by series, range and window. */
+  private final NearCache<String, Memo> memo;
+
+  /**
+   * Constructs a CPIAnalyticsEngine.
+   *
+   * @param maxEntriesValue the maximum number of analytics memoized; 0 disables memoization
+   */
+  public CPIAnalyticsEngine(
+      @Value("${cpi.analytics.memo.max-entries:1000}") final int maxEntriesValue) {
+    this.memo = new NearCache<>(maxEntriesValue, Duration.ZERO);
+  }
+
+  /**
+   * Gets the number of years before the first year of a range whose blocks the analytics of the
+   * range depend on: the year before, for the year-over-year change of each month, and as many as
+   * the rolling average window reaches back.
+   *
+   * @param window the number of months the rolling average spans
+   * @return the number of years to read before the range
+   * @throws IllegalArgumentException if the window is not between 1 and {@link #MAX_WINDOW}
+   */
+  public static int leadYears(final int window) {
+    if (window < 1 || window > MAX_WINDOW) {
+      throw new IllegalArgumentException(
+          "The window must be between 1 and " + MAX_WINDOW + " months: " + window);
+    }
+    return Math.max(
+        1, (window - 1 + SeriesAnalytics.MONTHS_PER_YEAR - 1) / SeriesAnalytics.MONTHS_PER_YEAR);
+  }
+
+  /**
+   * Gets the analytics of a series over a range of years, computing them unless the same blocks
+   * were analysed before.
+   *
+   * @param seriesId the series ID
+   * @param firstYear the first year of the range
+   * @param lastYear the last year of the range
+   * @param window the number of months the rolling average spans
+   * @param blocks the block of each year from {@link #leadYears(int)} years before the first year
+   *     to the last year, in year order; null for a year with no block
+   * @return the analytics
+   */
+  public SeriesAnalytics analyze(
+      final String seriesId,
+      final int firstYear,
+      final int lastYear,
+      final int window,
+      final List<SeriesBlock> blocks) {
+    long[] version = new long[blocks.size()];
+    for (int i = 0; i < version.length; i++) {
+      SeriesBlock block = blocks.get(i);
+      version[i] = block != null ? block.getFetchedAt() : -1;
+    }
+
+    String key = seriesId + ":" + firstYear + "-" + lastYear + ":" + window;
+    Memo memoized = memo.get(key);
+    if (memoized != null && Arrays.equals(memoized.version, version)) {
+      return memoized.analytics;
+    }
+    SeriesAnalytics analytics = compute(seriesId, firstYear, lastYear, window, blocks);
+    memo.put(key, new Memo(version, analytics));
+    return analytics;
+  }
+
+  /**
+   * Computes the analytics of a series over a range of years.
+   *
+   * @param seriesId the series ID
+   * @param firstYear the first year of the range
+   * @param lastYear the last year of the range
+   * @param window the number of months the rolling average spans
+   * @param blocks the block of each year from {@link #leadYears(int)} years before the first year
+   *     to the last year, in year order; null for a year with no block
+   * @return the analytics
+   */
+  static SeriesAnalytics compute(
+      final String seriesId,
+      final int firstYear,
+      final int lastYear,
+      final int window,
+      final List<SeriesBlock> blocks) {
+    int leadYears = leadYears(window);
+    int gridFirstYear = firstYear - leadYears;
+    double[] grid = monthlyGrid(gridFirstYear, lastYear, blocks);
+
+    // Measure over the whole grid, so the first months of the range see the months before it
+    double[] monthOverMonth = percentChange(grid, 1);
+    double[] yearOverYear = percentChange(grid, SeriesAnalytics.MONTHS_PER_YEAR);
+    double[] rollingAverages = rollingAverage(grid, window);
+
+    int from = leadYears * SeriesAnalytics.MONTHS_PER_YEAR;
+    // Leave out the months of the last year that have not been released yet
+    int to = grid.length;
+    while (to > from && Double.isNaN(grid[to - 1])) {
+      to--;
+    }
+    double[] values = Arrays.copyOfRange(grid, from, grid.length);
+    return new SeriesAnalytics(
+        seriesId,
+        firstYear,
+        window,
+        Arrays.copyOf(values, to - from),
+        Arrays.copyOfRange(monthOverMonth, from, to),
+        Arrays.copyOfRange(yearOverYear, from, to),
+        Arrays.copyOfRange(rollingAverages, from, to),
+        annualAverages(values));
+  }
+
+  /**
+   * Lays out the monthly values of a series on a grid of twelve slots a year. Annual averages held
+   * in the blocks are left out.
+   *
+   * @param firstYear the year of the first block
+   * @param lastYear the year of the last block
+   * @param blocks the block of each year, in year order; null for a year with no block
+   * @return the value of each month from January of the first year, or NaN where there is none
+   */
+  static double[] monthlyGrid(
+      final int firstYear, final int lastYear, final List<SeriesBlock> blocks) {
+    double[] grid = new double[(lastYear - firstYear + 1) * SeriesAnalytics.MONTHS_PER_YEAR];
+    Arrays.fill(grid, Double.NaN);
+    for (int year = firstYear; year <= lastYear; year++) {
+      SeriesBlock block = blocks.get(year - firstYear);
+      if (block == null) {
+        continue;
+      }
+      int offset = (year - firstYear) * SeriesAnalytics.MONTHS_PER_YEAR - 1;
+      for (int index = 0; index < block.size(); index++) {
+        int period = block.periodAt(index);
+        int month = period % SeriesBlock.YEAR_MULTIPLIER;
+        if (period / SeriesBlock.YEAR_MULTIPLIER == year
+            && month >= 1
+            && month <= SeriesAnalytics.MONTHS_PER_YEAR) {
+          grid[offset + month] = block.valueAt(index);
+        }
+      }
+    }
+    return grid;
+  }
+
+  /**
+   * Computes the percentage change of each value from the value a number of slots before it.
+   *
+   * @param values the values, NaN where there is none
+   * @param lag the number of slots between the values compared
+   * @return the percentage change of each value; NaN for the first {@code lag} values, and where
+   *     either value is NaN or the earlier one is zero
+   */
+  static double[] percentChange(final double[] values, final int lag) {
+    double[] changes = new double[values.length];
+    Arrays.fill(changes, 0, Math.min(lag, values.length), Double.NaN);
+    for (int i = lag; i < values.length; i++) {
+      double base = values[i - lag];
+      changes[i] = base != 0 ? (values[i] / base - 1) * 100 : Double.NaN;
+    }
+    return changes;
+  }
+
+  /**
+   * Computes the average of each value and the values before it in a window, keeping a running sum
+   * rather than summing each window anew.
+   *
+   * @param values the values, NaN where there is none
+   * @param window the number of values each average spans
+   * @return the rolling average of each value; NaN until the window is full, and wherever it holds
+   *     a NaN
+   */
+  static double[] rollingAverage(final double[] values, final int window) {
+    double[] averages = new double[values.length];
+    double sum = 0;
+    int missing = 0;
+    for (int i = 0; i < values.length; i++) {
+      double entering = values[i];
+      if (Double.isNaN(entering)) {
+        missing++;
+      } else {
+        sum += entering;
+      }
+      if (i >= window) {
+        double leaving = values[i - window];
+        if (Double.isNaN(leaving)) {
+          missing--;
+        } else {
+          sum -= leaving;
+        }
+      }
+      averages[i] = i >= window - 1 && missing == 0 ? sum / window : Double.NaN;
+    }
+    return averages;
+  }
+
+  /**
+   * Computes the average of each year of a monthly grid.
+   *
+   * @param values the value of each month from January of the first year, NaN where there is none
+   * @return the average of each year whose twelve months all have a value, or NaN
+   */
+  static double[] annualAverages(final double[] values) {
+    double[] averages = new double[values.length / SeriesAnalytics.MONTHS_PER_YEAR];
+    for (int year = 0; year < averages.length; year++) {
+      double sum = 0;
+      int offset = year * SeriesAnalytics.MONTHS_PER_YEAR;
+      for (int month = 0; month < SeriesAnalytics.MONTHS_PER_YEAR; month++) {
+        // NaN propagates, leaving a year with a missing month without an average
+        sum += values[offset + month];
+      }
+      averages[year] = sum / SeriesAnalytics.MONTHS_PER_YEAR;
+    }
+    return averages;
+  }
+
+  /** Analytics memoized with the version of the blocks they were computed from. */
+  private static final class Memo {
+
+    /** The fetch time of each block the analytics were computed from, or -1 where none. */
+    private final long[] version;
+
+    /** The analytics. */
+    private final SeriesAnalytics analytics;
+
+    Memo(final long[] versionValue, final SeriesAnalytics analyticsValue) {
+      this.version = versionValue;
+      this.analytics = analyticsValue;
+    }
+  }
+}
@@ -0,0 +1,405 @@
+package com.bex.cpi_search.service;
+
+import com.bex.cpi_search.model.CPICacheKey;
+import com.bex.cpi_search.model.Months;
+import com.bex.cpi_search.model.SeriesBlock;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.StreamWriteFeature;
+import java.io.IOException;
+import java.io.Writer;
+import java.time.Year;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+/**
+ * Exports the full history of a set of series as CSV or newline-delimited JSON, one row per month.
+ * Series-years are read, and fetched from the API where missing, a chunk at a time, and each chunk
+ * is written and flushed before the next is read, so memory use does not grow with the size of the
+ * export.
+ *
+ * <p>Rows are written in series order, then period order. An export can continue after the last row
+ * a client received, given as a cursor of the form {@code <seriesId>:<year>:<month>}.
+ */
+@Service
+public class CPIDataExporter {
+
+  /** The header row of a CSV export. */
+  private static final String CSV_HEADER = "seriesId,year,month,value,notes";
+
+  /** The separator between the notes of a value in a CSV export. */
+  private static final String CSV_NOTE_SEPARATOR = "; ";
+
+  /** Creates the generators writing NDJSON rows, leaving the response writer open. */
+  private static final JsonFactory JSON_FACTORY =
+      JsonFactory.builder().disable(StreamWriteFeature.AUTO_CLOSE_TARGET).build();
+
+  private static final Logger log = LoggerFactory.getLogger(CPIDataExporter.class);
+
+  /** The service used to read and fetch series-year blocks. */
+  @Autowired private CPIDataService cpiDataService;
+
+  /** The number of series-years read and written at a time. */
+  @Value("${cpi.export.chunk-size:100}")
+  private int chunkSize;
+
+  /** The maximum number of series in one export. */
+  @Value("${cpi.export.max-series:50}")
+  private int maxSeries;
+
+  /**
+   * The maximum number of series-years in one export, each of which may have to be fetched from
+   * BLS.
+   */
+  @Value("${cpi.export.max-series-years:2500}")
+  private int maxSeriesYears;
+
+  /** The formats an export can be written in. */
+  public enum Format {
+    /** Comma-separated values, with a header row unless the export continues after a cursor. */
+    CSV("text/csv"),
+
+    /** One JSON object per line. */
+    NDJSON("application/x-ndjson");
+
+    /** The media type of the format. */
+    private final String mediaType;
+
+    /**
+     * Constructs a Format.
+     *
+     * @param mediaTypeValue the media type of the format
+     */
+    Format(final String mediaTypeValue) {
+      this.mediaType = mediaTypeValue;
+    }
+
+    /**
+     * Gets the media type of the format.
+     *
+     * @return the media type
+     */
+    public String getMediaType() {
+      return mediaType;
+    }
+
+    /**
+     * Gets the format of a name, ignoring case.
+     *
+     * @param name the name, e.g. "csv"
+     * @return the format
+     * @throws IllegalArgumentException if the name is not a format
+     */
+    public static Format of(final String name) {
+      for (Format format : values()) {
+        if (format.name().equalsIgnoreCase(name)) {
+          return format;
+        }
+      }
+      throw new IllegalArgumentException("Unknown export format: " + name);
+    }
+  }
+
+  /** The series and years of an export, and where in them it starts. */
+  public static final class Range {
+
+    /** The series IDs, in export order. */
+    private final List<String> seriesIds;
+
+    /** The first year of the export. */
+    private final int firstYear;
+
+    /** The last year of the export. */
+    private final int lastYear;
+
+    /** The index of the series the export starts in. */
+    private final int startSeries;
+
+    /** The period code the export continues after, or 0 to start at the first year. */
+    private final int afterPeriod;
+
+    /**
+     * Constructs a Range.
+     *
+     * @param seriesIdValues the series IDs, in export order
+     * @param firstYearValue the first year of the export
+     * @param lastYearValue the last year of the export
+     * @param startSeriesValue the index of the series the export starts in
+     * @param afterPeriodValue the period code the export continues after, or 0
+     */
+    private Range(
+        final List<String> seriesIdValues,
+        final int firstYearValue,
+        final int lastYearValue,
+        final int startSeriesValue,
+        final int afterPeriodValue) {
+      this.seriesIds = seriesIdValues;
+      this.firstYear = firstYearValue;
+      this.lastYear = lastYearValue;
+      this.startSeries = startSeriesValue;
+      this.afterPeriod = afterPeriodValue;
+    }
+
+    /**
+     * Checks whether the export continues after a cursor.
+     *
+     * @return true if the export continues after a cursor
+     */
+    public boolean isContinued() {
+      return afterPeriod > 0;
+    }
+  }
+
+  /**
+   * Validates the series and years of an export and where it starts, before anything is written.
+   *
+   * @param seriesIdValues the series IDs, in export order; repeated IDs are exported once
+   * @param firstYear the first year of the export
+   * @param lastYear the last year of the export
+   * @param after the cursor of the last row already received, as {@code <seriesId>:<year>:<month>},
+   *     or null to export from the start
+   * @return the range of the export
+   * @throws IllegalArgumentException if the years are outside the years BLS has published CPI data
+   *     for, the export is larger than allowed, or the cursor is not valid
+   */
+  public Range range(
+      final List<String> seriesIdValues,
+      final int firstYear,
+      final int lastYear,
+      final String after) {
+    List<String> seriesIds = List.copyOf(new LinkedHashSet<>(seriesIdValues));
+    if (seriesIds.isEmpty()) {
+      throw new IllegalArgumentException("The export has no series IDs.");
+    }
+    if (firstYear > lastYear) {
+      throw new IllegalArgumentException("Start year must not be after end year.");
+    }
+    int currentYear = Year.now().getValue();
+    if (firstYear < CPIDataService.FIRST_CPI_YEAR || lastYear > currentYear) {
+      throw new IllegalArgumentException(
+          "Years must be between " + CPIDataService.FIRST_CPI_YEAR + " and " + currentYear + ".");
+    }
+    if (seriesIds.size() > maxSeries) {
+      throw new IllegalArgumentException(
+          "The export has " + seriesIds.size() + " series; at most " + maxSeries + " allowed.");
+    }
+    long seriesYears = (long) seriesIds.size() * (lastYear - firstYear + 1);
+    if (seriesYears > maxSeriesYears) {
+      throw new IllegalArgumentException(
+          "The export has "
+              + seriesYears
+              + " series-years; at most "
+              + maxSeriesYears
+              + " allowed.");
+    }
+    if (after == null || after.isBlank()) {
+      return new Range(seriesIds, firstYear, lastYear, 0, 0);
+    }
+
+    int monthStart = after.lastIndexOf(':');
+    int yearStart = monthStart > 0 ? after.lastIndexOf(':', monthStart - 1) : -1;
+    int startSeries = yearStart > 0 ? seriesIds.indexOf(after.substring(0, yearStart)) : -1;
+    int month = Months.number(after.substring(monthStart + 1));
+    int year;
+    try {
+      year = yearStart > 0 ? Integer.parseInt(after.substring(yearStart + 1, monthStart)) : -1;
+    } catch (NumberFormatException e) {
+      year = -1;
+    }
+    if (startSeries < 0 || month == 0 || year < firstYear || year > lastYear) {
+      throw new IllegalArgumentException("Invalid cursor for this export: " + after);
+    }
+    return new Range(seriesIds, firstYear, lastYear, startSeries, SeriesBlock.period(year, month));
+  }
+
+  /**
+   * Writes the rows of an export, fetching the series-years missing from the cache as it goes. The
+   * writer is flushed after each chunk, so rows reach the client as they are produced.
+   *
+   * @param range the range of the export
+   * @param format the format of the rows
+   * @param writer the writer receiving the rows
+   * @return the number of rows written
+   * @throws IOException if writing fails or an error occurs during an API request
+   * @throws BLSRateLimitException if an API request would exceed the BLS API limits
+   */
+  public long export(final Range range, final Format format, final Writer writer)
+      throws IOException {
+    JsonGenerator json = null;
+    if (format == Format.NDJSON) {
+      // Rows end in a line break rather than being separated by the default space
+      json = JSON_FACTORY.createGenerator(writer).setRootValueSeparator(null);
+    }
+    if (format == Format.CSV && !range.isContinued()) {
+      writer.write(CSV_HEADER);
+      writer.write('\n');
+    }
+
+    long rows = 0;
+    List<CPICacheKey> chunk = new ArrayList<>(chunkSize);
+    for (int series = range.startSeries; series < range.seriesIds.size(); series++) {
+      int firstYear =
+          series == range.startSeries && range.isContinued()
+              ? range.afterPeriod / SeriesBlock.YEAR_MULTIPLIER
+              : range.firstYear;
+      for (int year = firstYear; year <= range.lastYear; year++) {
+        chunk.add(CPICacheKey.of(String.valueOf(year), range.seriesIds.get(series)));
+        if (chunk.size() == chunkSize) {
+          rows += writeChunk(chunk, range, writer, json);
+          chunk.clear();
+        }
+      }
+    }
+    if (!chunk.isEmpty()) {
+      rows += writeChunk(chunk, range, writer, json);
+    }
+
+    if (json != null) {
+      json.close();
+    }
+    writer.flush();
+    log.info(
+        "Exported {} rows for {} series, years {}-{}",
+        rows,
+        range.seriesIds.size() - range.startSeries,
+        range.firstYear,
+        range.lastYear);
+    return rows;
+  }
+
+  /**
+   * Reads a chunk of series-years and writes their rows.
+   *
+   * @param chunk the cache keys of the series-years, in export order
+   * @param range the range of the export
+   * @param writer the writer receiving CSV rows
+   * @param json the generator receiving NDJSON rows, or null for CSV
+   * @return the number of rows written
+   * @throws IOException if writing fails or an error occurs during an API request
+   */
+  private long writeChunk(
+      final List<CPICacheKey> chunk,
+      final Range range,
+      final Writer writer,
+      final JsonGenerator json)
+      throws IOException {
+    Map<CPICacheKey, SeriesBlock> blocks =
+        cpiDataService.getSeriesBlocks(chunk, FetchPriority.BACKGROUND);
+
+    long rows = 0;
+    String cursorSeriesId = range.seriesIds.get(range.startSeries);
+    for (CPICacheKey cacheKey : chunk) {
+      SeriesBlock block = blocks.get(cacheKey);
+      if (block == null) {
+        continue;
+      }
+      boolean atCursor = range.isContinued() && cacheKey.getSeriesId().equals(cursorSeriesId);
+      for (int index = 0; index < block.size(); index++) {
+        int period = block.periodAt(index);
+        if (atCursor && period <= range.afterPeriod) {
+          continue;
+        }
+        String month = Months.name(period % SeriesBlock.YEAR_MULTIPLIER);
+        if (json != null) {
+          writeJsonRow(json, cacheKey, month, block, index);
+        } else {
+          writeCsvRow(writer, cacheKey, month, block, index);
+        }
+        rows++;
+      }
+    }
+
+    if (json != null) {
+      json.flush();
+    } else {
+      writer.flush();
+    }
+    return rows;
+  }
+
+  /**
+   * Writes one CSV row.
+   *
+   * @param writer the writer
+   * @param cacheKey the series-year of the row
+   * @param month the month name
+   * @param block the block holding the row
+   * @param index the index of the row in the block
+   * @throws IOException if writing fails
+   */
+  private static void writeCsvRow(
+      final Writer writer,
+      final CPICacheKey cacheKey,
+      final String month,
+      final SeriesBlock block,
+      final int index)
+      throws IOException {
+    writer.write(csvField(cacheKey.getSeriesId()));
+    writer.write(',');
+    writer.write(cacheKey.getYear());
+    writer.write(',');
+    writer.write(month);
+    writer.write(',');
+    writer.write(csvField(block.valueTextAt(index)));
+    writer.write(',');
+    writer.write(csvField(String.join(CSV_NOTE_SEPARATOR, block.footnotesAt(index))));
+    writer.write('\n');
+  }
+
+  /**
+   * Writes one NDJSON row.
+   *
+   * @param json the generator
+   * @param cacheKey the series-year of the row
+   * @param month the month name
+   * @param block the block holding the row
+   * @param index the index of the row in the block
+   * @throws IOException if writing fails
+   */
+  private static void writeJsonRow(
+      final JsonGenerator json,
+      final CPICacheKey cacheKey,
+      final String month,
+      final SeriesBlock block,
+      final int index)
+      throws IOException {
+    json.writeStartObject();
+    json.writeStringField("seriesId", cacheKey.getSeriesId());
+    json.writeStringField("year", cacheKey.getYear());
+    json.writeStringField("month", month);
+    json.writeStringField("value", block.valueTextAt(index));
+    List<String> notes = block.footnotesAt(index);
+    if (!notes.isEmpty()) {
+      json.writeArrayFieldStart("notes");
+      for (String note : notes) {
+        json.writeString(note);
+      }
+      json.writeEndArray();
+    }
+    json.writeEndObject();
+    json.writeRaw('\n');
+  }
+
+  /**
+   * Quotes a CSV field if it holds a comma, quote or line break.
+   *
+   * @param field the field
+   * @return the field as written to CSV
+   */
+  private static String csvField(final String field) {
+    if (field.indexOf(',') < 0
+        && field.indexOf('"') < 0
+        && field.indexOf('\n') < 0
+        && field.indexOf('\r') < 0) {
+      return field;
+    }
+    return '"' + field.replace("\"", "\"\"") + '"';
+  }
+}
@@ -0,0 +1,36 @@
+package com.bex.cpi_search.service;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Thrown when BLS has no data for some of the requested series in the requested month, for example
+ * because the month has not been published yet or the series has no data for the year.
+ */
+public class CPIDataNotFoundException extends RuntimeException {
+
+  /** The series IDs without data. */
+  private final List<String> seriesIds;
+
+  /**
+   * Constructs a CPIDataNotFoundException.
+   *
+   * @param year the requested year
+   * @param month the requested month
+   * @param seriesIdValues the series IDs without data
+   */
+  public CPIDataNotFoundException(
+      final String year, final String month, final Collection<String> seriesIdValues) {
+    super("Data not found for series IDs " + seriesIdValues + " for " + month + " " + year + ".");
+    this.seriesIds = List.copyOf(seriesIdValues);
+  }
+
+  /**
+   * Gets the series IDs without data.
+   *
+   * @return the series IDs
+   */
+  public List<String> getSeriesIds() {
+    return seriesIds;
+  }
+}
@@ -1,147 +1,1062 @@
 package com.bex.cpi_search.service;
 
 import com.bex.cpi_search.model.BLSApiRequest;
-import com.bex.cpi_search.model.BLSApiResponse;
+import com.bex.cpi_search.model.CPICacheKey;
+import com.bex.cpi_search.model.CPIConversion;
+import com.bex.cpi_search.model.CPIConversionResult;
 import com.bex.cpi_search.model.CPIData;
-import com.bex.cpi_search.model.DataPoint;
-import com.bex.cpi_search.model.Results;
-import com.bex.cpi_search.model.Series;
+import com.bex.cpi_search.model.CPIObservation;
+import com.bex.cpi_search.model.CPIQuery;
+import com.bex.cpi_search.model.CPIQueryResult;
+import com.bex.cpi_search.model.Months;
+import com.bex.cpi_search.model.SeriesAnalytics;
+import com.bex.cpi_search.model.SeriesBlock;
 import com.bex.cpi_search.repository.RedisRepository;
-import com.fasterxml.jackson.core.type.TypeReference;
-import com.fasterxml.jackson.databind.DeserializationFeature;
-import com.fasterxml.jackson.databind.JsonNode;
-import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationRegistry;
 import java.io.IOException;
+import java.io.InputStream;
+import java.time.Duration;
+import java.time.Year;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
-import java.util.stream.Collectors;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 /** Service class for managing CPI (Consumer Price Index) data. */
 @Service
-public class CPIDataService {
+public class CPIDataService implements MeterBinder {
 
   @Autowired private BLSApiService blsApiService;
 
-  @Autowired private RedisRepository<String, CPIData> redisRepository;
+  @Autowired private BLSResponseParser responseParser;
+
+  @Autowired private RedisRepository<CPICacheKey, SeriesBlock> redisRepository;
+
+  @Autowired private CacheExpiryPolicy expiryPolicy;
+
+  @Autowired private KeyspaceMigrator keyspaceMigrator;
+
+  @Autowired private FanOutExecutor fanOutExecutor;
+
+  @Autowired private BLSRateLimiter rateLimiter;
+
+  /** Computes and memoizes the analytics of cached series. */
+  @Autowired private CPIAnalyticsEngine analyticsEngine;
+
+  /** Answers inflation adjustments from memory. */
+  @Autowired private CPIIndex cpiIndex;
+
+  /** Counts how much of each form lookup the cache answers. */
+  @Autowired private CPIMetrics metrics;
+
+  /** Traces the stages of each form lookup as spans of the request. */
+  @Autowired private ObservationRegistry observationRegistry;
+
+  /** The maximum number of series IDs the BLS API accepts in a single request. */
+  @Value("${cpi.bls.request.max-series:25}")
+  private int maxSeriesPerRequest;
+
+  /** The maximum number of years the BLS API accepts in a single request. */
+  @Value("${cpi.bls.request.max-years:10}")
+  private int maxYearsPerRequest;
+
+  /** The maximum number of distinct series a batch of conversions may name. */
+  @Value("${cpi.api.convert.max-series:10}")
+  private int maxConversionSeries;
 
   private static final Logger log = LoggerFactory.getLogger(BLSApiService.class);
 
+  /** The status of a BLS response to a request that was refused. */
+  private static final String REQUEST_NOT_PROCESSED = "REQUEST_NOT_PROCESSED";
+
+  /** The first year BLS publishes CPI data for. */
+  public static final int FIRST_CPI_YEAR = 1913;
+
+  /** The month number of December, the last month of a query's range by default. */
+  private static final int DECEMBER = 12;
+
+  /** The status of a BLS response to a request that was processed. */
+  private static final String REQUEST_SUCCEEDED = "REQUEST_SUCCEEDED";
+
+  /** A word of the messages BLS adds when it serves fewer years or series than requested. */
+  private static final String REDUCED = "reduced";
+
+  /** A word of the messages BLS adds when a request exceeds the API limits. */
+  private static final String LIMIT = "limit";
+
+  /** The word BLS uses in the message refusing a request over the daily quota. */
+  private static final String THRESHOLD = "threshold";
+
+  /** Coalesces concurrent API fetches for the same year and set of series IDs. */
+  private final SingleFlight<String, Integer> apiFetches = new SingleFlight<>();
+
+  /** The fetch keys of the background refreshes in flight, so each is started only once. */
+  private final Set<String> revalidating = ConcurrentHashMap.newKeySet();
+
   /**
    * Retrieves CPI values and notes for specific month, year, and series IDs.
    *
    * <p>The method first attempts to fetch data from Redis cache. If data is not found in the cache,
    * it fetches data from the API for the full year, caches the data, and then retrieves the data
-   * from the cache again.
+   * from the cache again. Concurrent misses for the same year and set of series IDs share a single
+   * API fetch. Cached data that is past its freshness window is returned at once while it is
+   * refreshed in the background. A month that BLS recently confirmed it has no data for is not
+   * fetched again until the negative cache time to live has passed.
+   *
+   * <p>The lookup is traced as a {@code get-cpi-data} span, within which each cache read and API
+   * fetch has a span of its own.
    *
    * @param year the year of the CPI data
    * @param month the month of the CPI data
    * @param seriesIds the list of series IDs
    * @return a map of series IDs to CPIData
    * @throws IOException if an error occurs during the API request
+   * @throws CPIDataNotFoundException if BLS has no data for some of the series in the month
    */
   public Map<String, CPIData> getCPIData(
       final String year, final String month, final List<String> seriesIds) throws IOException {
-    log.info("Retrieving CPI data for year: {}, month: {}, seriesIds: {}", year, month, seriesIds);
+    return Observation.createNotStarted("cpi.data.get", observationRegistry)
+        .contextualName("get-cpi-data")
+        .highCardinalityKeyValue("year", year)
+        .highCardinalityKeyValue("month", month)
+        .highCardinalityKeyValue("series.count", String.valueOf(seriesIds.size()))
+        .observeChecked(() -> lookUpCPIData(year, month, seriesIds));
+  }
+
+  /**
+   * Retrieves CPI values and notes for specific month, year, and series IDs, from the cache or else
+   * from the API.
+   *
+   * @param year the year of the CPI data
+   * @param month the month of the CPI data
+   * @param seriesIds the list of series IDs
+   * @return a map of series IDs to CPIData
+   * @throws IOException if an error occurs during the API request
+   * @throws CPIDataNotFoundException if BLS has no data for some of the series in the month
+   * @see #getCPIData(String, String, List)
+   */
+  private Map<String, CPIData> lookUpCPIData(
+      final String year, final String month, final List<String> seriesIds) throws IOException {
+    log.debug("Retrieving CPI data for year: {}, month: {}, seriesIds: {}", year, month, seriesIds);
 
     // First, try to fetch data from cache
-    Map<String, CPIData> cachedData = fetchCachedData(year, month, seriesIds);
+    Set<String> absentSeriesIds = new HashSet<>();
+    Map<String, CPIData> cachedData = fetchCachedData(year, month, seriesIds, absentSeriesIds);
+    metrics.recordCacheLookup(cachedData.size() + absentSeriesIds.size(), seriesIds.size());
 
     if (cachedData.size() == seriesIds.size()) {
-      log.info("Successfully retrieved all requested data from cache.");
+      log.debug("Successfully retrieved all requested data from cache.");
       return cachedData;
     }
 
+    // Fetching again would not help while BLS's answer that the data is absent is recent
+    if (cachedData.size() + absentSeriesIds.size() == seriesIds.size()) {
+      log.debug(
+          "BLS recently had no data for series IDs: {}; not fetching again.", absentSeriesIds);
+      throw new CPIDataNotFoundException(year, month, absentSeriesIds);
+    }
+
     log.info("Not all requested data found in cache. Fetching data from API...");
 
-    boolean cacheSuccess = this.fetchAndCacheFromAPI(year, seriesIds);
-    if (cacheSuccess) {
-      // Retrieve data from cache again
-      Map<String, CPIData> finalResult = fetchCachedData(year, month, seriesIds);
+    BLSApiRequest request = createBLSApiRequest(year, seriesIds);
+    // Coalesce before taking a permit, so that callers waiting on a fetch do not hold one
+    apiFetches.execute(
+        generateFetchKey(request),
+        () -> fanOutExecutor.call(() -> fetchAndCacheFromAPI(request, FetchPriority.INTERACTIVE)));
+
+    // Retrieve data from cache again
+    Map<String, CPIData> finalResult = fetchCachedData(year, month, seriesIds, new HashSet<>());
+
+    // Check if all requested data is now available
+    if (finalResult.size() != seriesIds.size()) {
+      List<String> missingSeriesIds = new ArrayList<>(seriesIds);
+      missingSeriesIds.removeAll(finalResult.keySet());
+      log.warn("Data not found for series IDs after fetching from API: {}", missingSeriesIds);
+      throw new CPIDataNotFoundException(year, month, missingSeriesIds);
+    }
 
-      // Check if all requested data is now available
-      if (finalResult.size() != seriesIds.size()) {
-        log.error("Data not found for all requested series IDs after fetching from API.");
-        throw new RuntimeException("Data not found for all requested series IDs.");
+    log.debug("Successfully retrieved CPI data for series IDs: {}", finalResult.keySet());
+    return finalResult;
+  }
+
+  /**
+   * Retrieves CPI values and notes for a range of years, for the given months of each year.
+   *
+   * <p>Every series-year block in the range is read from the cache in one round trip. The blocks
+   * that are missing are fetched from the API in as few requests as its limits allow, at most 25
+   * series and 10 years per request by default. The requests run concurrently, and each is cached
+   * in one pipelined write. Months for which BLS publishes no data are left out of the result.
+   *
+   * @param startYear the first year of the range
+   * @param endYear the last year of the range
+   * @param months the month names to retrieve, or "Annual" for the annual average; an empty list
+   *     retrieves every period
+   * @param seriesIds the list of series IDs
+   * @return a map of series IDs to their CPIData, in year then month order
+   * @throws IOException if an error occurs during an API request
+   */
+  public Map<String, List<CPIData>> getCPIData(
+      final String startYear,
+      final String endYear,
+      final List<String> months,
+      final List<String> seriesIds)
+      throws IOException {
+    return getCPIData(startYear, endYear, months, seriesIds, FetchPriority.INTERACTIVE);
+  }
+
+  /**
+   * Retrieves CPI values and notes for a range of years, fetching missing data from the API at the
+   * given priority.
+   *
+   * @param startYear the first year of the range
+   * @param endYear the last year of the range
+   * @param months the month names to retrieve, or "Annual" for the annual average; an empty list
+   *     retrieves every period
+   * @param seriesIds the list of series IDs
+   * @param priority the priority of the API requests, if any are needed
+   * @return a map of series IDs to their CPIData, in year then month order
+   * @throws IOException if an error occurs during an API request
+   * @throws BLSRateLimitException if an API request would exceed the BLS API limits
+   * @see #getCPIData(String, String, List, List)
+   */
+  public Map<String, List<CPIData>> getCPIData(
+      final String startYear,
+      final String endYear,
+      final List<String> months,
+      final List<String> seriesIds,
+      final FetchPriority priority)
+      throws IOException {
+    log.debug(
+        "Retrieving CPI data for years: {}-{}, months: {}, seriesIds: {}",
+        startYear,
+        endYear,
+        months,
+        seriesIds);
+
+    int firstYear = Integer.parseInt(startYear);
+    int lastYear = Integer.parseInt(endYear);
+    if (firstYear > lastYear) {
+      throw new IllegalArgumentException("Start year must not be after end year.");
+    }
+    int[] monthNumbers = toMonthNumbers(months);
+
+    List<CPICacheKey> cacheKeys = new ArrayList<>();
+    for (String seriesId : seriesIds) {
+      for (int year = firstYear; year <= lastYear; year++) {
+        cacheKeys.add(generateCacheKey(String.valueOf(year), seriesId));
       }
+    }
+
+    Map<CPICacheKey, SeriesBlock> cachedBlocks = getSeriesBlocks(cacheKeys, priority);
 
-      log.info("Successfully retrieved CPI data for series IDs: {}", finalResult.keySet());
-      return finalResult;
-    } else {
-      throw new IOException("Failed to fetch data from API and cache it.");
+    Map<String, List<CPIData>> result = new LinkedHashMap<>();
+    for (CPICacheKey cacheKey : cacheKeys) {
+      List<CPIData> seriesData =
+          result.computeIfAbsent(cacheKey.getSeriesId(), seriesId -> new ArrayList<>());
+      SeriesBlock block = cachedBlocks.get(cacheKey);
+      if (block == null) {
+        continue;
+      }
+      if (monthNumbers.length == 0) {
+        for (int index = 0; index < block.size(); index++) {
+          seriesData.add(block.toCPIData(index));
+        }
+        continue;
+      }
+      int year = Integer.parseInt(cacheKey.getYear());
+      for (int monthNumber : monthNumbers) {
+        int index = block.indexOf(SeriesBlock.period(year, monthNumber));
+        if (index >= 0) {
+          seriesData.add(block.toCPIData(index));
+        }
+      }
     }
+
+    log.debug(
+        "Retrieved {} CPI data points for series IDs: {}",
+        result.values().stream().mapToInt(List::size).sum(),
+        result.keySet());
+    return result;
   }
 
   /**
-   * Fetches CPI data for the full year from the API and caches the data month by month for each
-   * series.
+   * Resolves a batch of queries, each for a range of months of one series-year.
    *
-   * @param year the year of the CPI data
+   * <p>The series-year blocks of every query are retrieved together, as by {@link
+   * #getSeriesBlocks(Collection, FetchPriority)}: one cache round trip for all of them, and as few
+   * API requests as its limits allow for the missing ones. Queries for the same series-year share
+   * its block. Months for which BLS publishes no data are left out of the results.
+   *
+   * @param queries the queries
+   * @return the results, in the order of the queries
+   * @throws IOException if an error occurs during an API request
+   * @throws BLSRateLimitException if an API request would exceed the BLS API limits
+   * @throws IllegalArgumentException if a query has no series ID, a year before 1913 or after the
+   *     current year, or an invalid month range
+   */
+  public List<CPIQueryResult> queryCPIData(final List<CPIQuery> queries) throws IOException {
+    int[][] monthRanges = new int[queries.size()][];
+    List<CPICacheKey> queryKeys = queryKeys(queries, monthRanges);
+
+    Set<CPICacheKey> cacheKeys = new LinkedHashSet<>(queryKeys);
+    log.debug("Resolving {} CPI queries over {} series blocks", queries.size(), cacheKeys.size());
+    Map<CPICacheKey, SeriesBlock> blocks = getSeriesBlocks(cacheKeys, FetchPriority.INTERACTIVE);
+    return queryResults(queryKeys, monthRanges, blocks);
+  }
+
+  /**
+   * Computes month-over-month and year-over-year percentage changes, rolling averages and annual
+   * averages for a range of years, from the cached series-year blocks rather than by asking BLS to
+   * calculate them.
+   *
+   * <p>The blocks of the range, and of the years before it that the changes and the rolling average
+   * reach back to, are retrieved as by {@link #getSeriesBlocks(Collection, FetchPriority)}. The
+   * analytics of each series are memoized until one of its blocks is fetched again.
+   *
+   * @param startYear the first year of the range
+   * @param endYear the last year of the range
    * @param seriesIds the list of series IDs
-   * @return true if the data was successfully cached, false otherwise
+   * @param window the number of months each rolling average spans
+   * @return a map of series IDs to their analytics, in the order of the series IDs
+   * @throws IOException if an error occurs during an API request
+   * @throws BLSRateLimitException if an API request would exceed the BLS API limits
+   * @throws IllegalArgumentException if the range or window is not valid
+   */
+  public Map<String, SeriesAnalytics> getAnalytics(
+      final String startYear, final String endYear, final List<String> seriesIds, final int window)
+      throws IOException {
+    int firstYear = toYear(startYear);
+    int lastYear = toYear(endYear);
+    if (firstYear > lastYear) {
+      throw new IllegalArgumentException("Start year must not be after end year.");
+    }
+    int gridFirstYear = firstYear - CPIAnalyticsEngine.leadYears(window);
+
+    List<CPICacheKey> cacheKeys = new ArrayList<>();
+    for (String seriesId : seriesIds) {
+      for (int year = gridFirstYear; year <= lastYear; year++) {
+        cacheKeys.add(generateCacheKey(String.valueOf(year), seriesId));
+      }
+    }
+    Map<CPICacheKey, SeriesBlock> blocks =
+        getSeriesBlocks(new LinkedHashSet<>(cacheKeys), FetchPriority.INTERACTIVE);
+
+    Map<String, SeriesAnalytics> result = new LinkedHashMap<>();
+    int yearsPerSeries = lastYear - gridFirstYear + 1;
+    for (int i = 0; i < cacheKeys.size(); i += yearsPerSeries) {
+      List<SeriesBlock> seriesBlocks = new ArrayList<>(yearsPerSeries);
+      for (CPICacheKey cacheKey : cacheKeys.subList(i, i + yearsPerSeries)) {
+        seriesBlocks.add(blocks.get(cacheKey));
+      }
+      String seriesId = cacheKeys.get(i).getSeriesId();
+      result.put(
+          seriesId, analyticsEngine.analyze(seriesId, firstYear, lastYear, window, seriesBlocks));
+    }
+    return result;
+  }
+
+  /**
+   * Converts a batch of amounts from one month to another by the ratio of the values of a CPI
+   * series in the two months.
+   *
+   * <p>Values are read from the in-memory {@link CPIIndex}. The series-years it cannot answer, such
+   * as series not yet indexed or months released since, are retrieved together as by {@link
+   * #getSeriesBlocks(Collection, FetchPriority)} and indexed, so a batch costs at most one cache
+   * round trip however many amounts it holds, and none once its series are indexed. A month the
+   * index has no value for is not loaded again while the block of its year confirms that BLS has
+   * not published it.
+   *
+   * @param conversions the conversions
+   * @param defaultSeriesId the series ID of the conversions that do not name one
+   * @return the results, in the order of the conversions; a result's converted amount is null if
+   *     the series has no value for one of its months
+   * @throws IOException if an error occurs during an API request
+   * @throws BLSRateLimitException if an API request would exceed the BLS API limits
+   * @throws IllegalArgumentException if a conversion has a missing or non-finite amount, an invalid
+   *     month, or a year before 1913 or after the current year, or if the conversions name too many
+   *     distinct series
+   */
+  public List<CPIConversionResult> convertAmounts(
+      final List<CPIConversion> conversions, final String defaultSeriesId) throws IOException {
+    int count = conversions.size();
+    String[] seriesIds = new String[count];
+    int[] fromPeriods = new int[count];
+    int[] toPeriods = new int[count];
+    Set<CPICacheKey> missingKeys =
+        conversionKeys(conversions, defaultSeriesId, seriesIds, fromPeriods, toPeriods);
+    if (!missingKeys.isEmpty()) {
+      log.debug("Indexing {} series blocks for {} conversions", missingKeys.size(), count);
+      cpiIndex.load(getSeriesBlocks(missingKeys, FetchPriority.INTERACTIVE));
+    }
+    return conversionResults(conversions, seriesIds, fromPeriods, toPeriods);
+  }
+
+  /**
+   * Resolves the series and months of a batch of conversions, and finds the series-years the index
+   * cannot answer them from, to be loaded in one go.
+   *
+   * @param conversions the conversions
+   * @param defaultSeriesId the series ID of the conversions that do not name one
+   * @param seriesIds receives the series ID of each conversion
+   * @param fromPeriods receives the period code each conversion converts from
+   * @param toPeriods receives the period code each conversion converts to
+   * @return the cache keys of the blocks to load into the index
+   * @throws IllegalArgumentException if a conversion has a missing or non-finite amount, an invalid
+   *     month, or a year before 1913 or after the current year, or if the conversions name too many
+   *     distinct series
+   */
+  Set<CPICacheKey> conversionKeys(
+      final List<CPIConversion> conversions,
+      final String defaultSeriesId,
+      final String[] seriesIds,
+      final int[] fromPeriods,
+      final int[] toPeriods) {
+    int count = conversions.size();
+    for (int i = 0; i < count; i++) {
+      CPIConversion conversion = conversions.get(i);
+      Double amount = conversion.getAmount();
+      if (amount == null || !Double.isFinite(amount)) {
+        throw new IllegalArgumentException(
+            amount == null ? "Missing amount." : "Invalid amount: " + amount);
+      }
+      String seriesId = conversion.getSeriesId();
+      seriesIds[i] = seriesId == null || seriesId.isBlank() ? defaultSeriesId : seriesId;
+      fromPeriods[i] =
+          SeriesBlock.period(
+              toYear(conversion.getFromYear()), toMonthNumber(conversion.getFromMonth()));
+      toPeriods[i] =
+          SeriesBlock.period(
+              toYear(conversion.getToYear()), toMonthNumber(conversion.getToMonth()));
+    }
+    int distinctSeries = new HashSet<>(Arrays.asList(seriesIds)).size();
+    if (distinctSeries > maxConversionSeries) {
+      throw new IllegalArgumentException(
+          "The conversions name "
+              + distinctSeries
+              + " series; at most "
+              + maxConversionSeries
+              + " allowed.");
+    }
+
+    Set<CPICacheKey> missingKeys = new LinkedHashSet<>();
+    for (int i = 0; i < count; i++) {
+      addIfNotIndexed(seriesIds[i], fromPeriods[i], missingKeys);
+      addIfNotIndexed(seriesIds[i], toPeriods[i], missingKeys);
+    }
+    return missingKeys;
+  }
+
+  /**
+   * Converts a batch of amounts with the values of the index.
+   *
+   * @param conversions the conversions
+   * @param seriesIds the series ID of each conversion
+   * @param fromPeriods the period code each conversion converts from
+   * @param toPeriods the period code each conversion converts to
+   * @return the results, in the order of the conversions; a result's converted amount is null if
+   *     the index has no value for one of its months
+   * @see #conversionKeys(List, String, String[], int[], int[])
+   */
+  List<CPIConversionResult> conversionResults(
+      final List<CPIConversion> conversions,
+      final String[] seriesIds,
+      final int[] fromPeriods,
+      final int[] toPeriods) {
+    List<CPIConversionResult> results = new ArrayList<>(conversions.size());
+    for (int i = 0; i < conversions.size(); i++) {
+      double amount = conversions.get(i).getAmount();
+      double converted =
+          amount
+              * cpiIndex.valueAt(seriesIds[i], toPeriods[i])
+              / cpiIndex.valueAt(seriesIds[i], fromPeriods[i]);
+      results.add(
+          new CPIConversionResult(
+              seriesIds[i], amount, Double.isFinite(converted) ? converted : null));
+    }
+    return results;
+  }
+
+  /**
+   * Adds the cache key of the block of a period if the index has no value for it, unless the
+   * indexed block of its year was fetched recently enough to confirm that the value is absent.
+   *
+   * @param seriesId the series ID
+   * @param period the period code
+   * @param missingKeys receives the cache key of the block
+   */
+  private void addIfNotIndexed(
+      final String seriesId, final int period, final Set<CPICacheKey> missingKeys) {
+    if (Double.isNaN(cpiIndex.valueAt(seriesId, period))
+        && !expiryPolicy.confirmsAbsence(cpiIndex.fetchedAt(seriesId, period))) {
+      missingKeys.add(
+          generateCacheKey(String.valueOf(period / SeriesBlock.YEAR_MULTIPLIER), seriesId));
+    }
+  }
+
+  /**
+   * Retrieves the series-year blocks for the given cache keys, fetching the missing ones from the
+   * API at the given priority.
+   *
+   * <p>Every block is read from the cache in one round trip, whatever series and years the keys
+   * span. The missing blocks are fetched in as few API requests as its limits allow, run
+   * concurrently, and read back in a second round trip. Stale blocks are returned as they are while
+   * they are refreshed in the background. Partial blocks, merged from earlier cache layouts, are
+   * fetched again like missing ones rather than returned without the months they lack.
+   *
+   * @param cacheKeys the distinct cache keys of the blocks
+   * @param priority the priority of the API requests, if any are needed
+   * @return the blocks by cache key; a block BLS has no data for is empty
+   * @throws IOException if an error occurs during an API request
+   * @throws BLSRateLimitException if an API request would exceed the BLS API limits
+   * @throws NumberFormatException if the year of a key is not a number
+   */
+  public Map<CPICacheKey, SeriesBlock> getSeriesBlocks(
+      final Collection<CPICacheKey> cacheKeys, final FetchPriority priority) throws IOException {
+    // Read every requested block in one round trip
+    Map<CPICacheKey, SeriesBlock> cachedBlocks =
+        new HashMap<>(redisRepository.getDocuments(cacheKeys));
+    dropPartial(cachedBlocks);
+    revalidateStale(cachedBlocks);
+
+    if (cachedBlocks.size() < cacheKeys.size()) {
+      List<CPICacheKey> missingKeys = new ArrayList<>();
+      for (CPICacheKey cacheKey : cacheKeys) {
+        if (!cachedBlocks.containsKey(cacheKey)) {
+          missingKeys.add(cacheKey);
+        }
+      }
+
+      log.info(
+          "{} of {} series blocks not found in cache. Fetching them from API...",
+          missingKeys.size(),
+          cacheKeys.size());
+      fetchAndCacheAll(groupYears(missingKeys), priority);
+
+      // Read back only the blocks that were missing
+      cachedBlocks.putAll(redisRepository.getDocuments(missingKeys));
+    }
+
+    return cachedBlocks;
+  }
+
+  /**
+   * Fetches CPI data for a range of years from the API and caches it, whether or not it is already
+   * cached, so that revisions and newly released months replace what the cache holds.
+   *
+   * @param startYear the first year of the range
+   * @param endYear the last year of the range
+   * @param seriesIds the list of series IDs
+   * @param priority the priority of the API requests
+   * @return the number of API requests made
+   * @throws IOException if an error occurs during an API request
+   * @throws BLSRateLimitException if an API request would exceed the BLS API limits
+   */
+  public int refreshCPIData(
+      final String startYear,
+      final String endYear,
+      final List<String> seriesIds,
+      final FetchPriority priority)
+      throws IOException {
+    int firstYear = Integer.parseInt(startYear);
+    int lastYear = Integer.parseInt(endYear);
+    if (firstYear > lastYear) {
+      throw new IllegalArgumentException("Start year must not be after end year.");
+    }
+
+    List<Integer> years = new ArrayList<>();
+    for (int year = firstYear; year <= lastYear; year++) {
+      years.add(year);
+    }
+    Map<String, List<Integer>> allYears = new LinkedHashMap<>();
+    for (String seriesId : seriesIds) {
+      allYears.put(seriesId, years);
+    }
+    return fetchAndCacheAll(allYears, priority);
+  }
+
+  /**
+   * Gets the number of API fetches that were run by the requesting caller.
+   *
+   * @return the number of API fetches performed
+   */
+  public long getApiFetchCount() {
+    return apiFetches.getLeaderCalls();
+  }
+
+  /**
+   * Gets the number of callers that waited on another caller's in-flight API fetch instead of
+   * issuing their own.
+   *
+   * @return the number of coalesced API fetch callers
+   */
+  public long getCoalescedApiFetchCount() {
+    return apiFetches.getCoalescedCalls();
+  }
+
+  /**
+   * Publishes the counts of API fetches: those run by the requesting caller as {@code
+   * cpi.bls.fetch.leaders}, and the callers that waited on another caller's fetch instead as {@code
+   * cpi.bls.fetch.coalesced}.
+   *
+   * @param registry the registry to publish the counters in
+   */
+  @Override
+  public void bindTo(final MeterRegistry registry) {
+    FunctionCounter.builder("cpi.bls.fetch.leaders", this, service -> service.getApiFetchCount())
+        .description("API fetches run by the caller that requested them")
+        .register(registry);
+    FunctionCounter.builder(
+            "cpi.bls.fetch.coalesced", this, service -> service.getCoalescedApiFetchCount())
+        .description(
+            "Callers that waited on another caller's API fetch instead of running their own")
+        .register(registry);
+  }
+
+  /**
+   * Starts a background refresh of the cached blocks that are stale, without waiting for it, so
+   * that they are still served as they are while newer data is fetched. A refresh already in flight
+   * for the same blocks is not started again, and a refresh that fails leaves the blocks as they
+   * are.
+   *
+   * @param cachedBlocks the blocks read from the cache, by key
+   */
+  private void revalidateStale(final Map<CPICacheKey, SeriesBlock> cachedBlocks) {
+    for (BLSApiRequest request : planStaleRefreshes(cachedBlocks)) {
+      String fetchKey = generateFetchKey(request);
+      if (!revalidating.add(fetchKey)) {
+        continue;
+      }
+      log.info("Serving stale series blocks while refreshing them: {}", fetchKey);
+      fanOutExecutor
+          .submit(
+              () ->
+                  apiFetches.execute(
+                      fetchKey, () -> fetchAndCacheFromAPI(request, FetchPriority.BACKGROUND)))
+          .whenComplete(
+              (cached, failure) -> {
+                revalidating.remove(fetchKey);
+                if (failure != null) {
+                  log.warn("Background refresh of {} failed: {}", fetchKey, failure.getMessage());
+                }
+              });
+    }
+  }
+
+  /**
+   * Fetches CPI data for the given years of each series from the API in as few requests as its
+   * limits allow, and caches it. Independent requests run concurrently; the first failure is thrown
+   * at once, and requests that have not started by then are skipped.
+   *
+   * @param yearsBySeries the years to fetch for each series ID
+   * @param priority the priority of the API requests
+   * @return the number of API requests made
+   * @throws IOException if an error occurs during an API request
+   */
+  private int fetchAndCacheAll(
+      final Map<String, List<Integer>> yearsBySeries, final FetchPriority priority)
+      throws IOException {
+    List<BLSApiRequest> requests = requestPlanner().plan(yearsBySeries);
+
+    List<SingleFlight.Loader<Integer>> fetches = new ArrayList<>(requests.size());
+    for (BLSApiRequest request : requests) {
+      fetches.add(
+          () ->
+              apiFetches.execute(
+                  generateFetchKey(request), () -> fetchAndCacheFromAPI(request, priority)));
+    }
+    int cachedBlocks = fanOutExecutor.invokeAll(fetches).stream().mapToInt(Integer::intValue).sum();
+    log.debug("Cached {} series blocks from {} API requests", cachedBlocks, requests.size());
+    return requests.size();
+  }
+
+  /**
+   * Fetches CPI data for the full years of a request from the API and caches it as one block per
+   * series-year.
+   *
+   * @param request the API request
+   * @param priority the priority of the API request
+   * @return the number of series blocks cached
    * @throws IOException if an error occurs during the API request
+   * @throws BLSRateLimitException if the API request would exceed, or has exceeded, the BLS API
+   *     limits
    */
-  private Boolean fetchAndCacheFromAPI(final String year, final List<String> seriesIds)
+  private Integer fetchAndCacheFromAPI(final BLSApiRequest request, final FetchPriority priority)
       throws IOException {
-    log.info("Fetching CPI data from API for year: {}, seriesIds: {}", year, seriesIds);
+    log.info(
+        "Fetching CPI data from API for years: {}-{}, seriesIds: {}",
+        request.getStartYear(),
+        request.getEndYear(),
+        request.getSeriesIds());
 
-    // Create a single API request for all series IDs
-    BLSApiRequest request = createBLSApiRequest(year, seriesIds);
-    String responseJson = blsApiService.fetchData(request);
+    // Decode the response body as it streams in, straight into one block per series-year
+    BLSResponseParser.ParsedResponse response =
+        blsApiService.fetchData(request, priority, this::parseResponse);
 
-    BLSApiResponse blsResponse = parseBLSApiResponse(responseJson);
+    Map<CPICacheKey, SeriesBlock> blocks = blocksToCache(request, response);
 
-    // Extract CPI data from the API response
-    List<CPIData> cpiDataList = this.extractCPIDataList(blsResponse.getResults());
+    // Cache every block in one pipelined write, each expiring according to its year; empty
+    // blocks expire after the negative cache time to live
+    redisRepository.saveDocuments(blocks, cacheKey -> blockTtl(cacheKey, blocks.get(cacheKey)));
+    cpiIndex.refresh(blocks);
 
-    boolean success = true;
+    return blocks.size();
+  }
 
-    // Cache each CPIData instance in Redis
-    for (CPIData cpiData : cpiDataList) {
-      String cacheKey = generateCacheKey(year, cpiData.getMonth(), cpiData.getSeriesId());
-      redisRepository.saveDocument(cacheKey, cpiData);
-      log.info("Cached CPIData with key: {}", cacheKey);
+  /**
+   * Leaves out the cached blocks that may lack months BLS has, so that they are fetched again like
+   * missing ones.
+   *
+   * @param cachedBlocks the blocks read from the cache, by key; partial blocks are removed
+   * @see CacheExpiryPolicy#isPartial(SeriesBlock)
+   */
+  void dropPartial(final Map<CPICacheKey, SeriesBlock> cachedBlocks) {
+    cachedBlocks.values().removeIf(expiryPolicy::isPartial);
+  }
+
+  /**
+   * Plans the API requests refreshing the cached blocks that are stale.
+   *
+   * @param cachedBlocks the blocks read from the cache, by key
+   * @return the API requests; empty if no block is stale
+   */
+  List<BLSApiRequest> planStaleRefreshes(final Map<CPICacheKey, SeriesBlock> cachedBlocks) {
+    List<CPICacheKey> staleKeys = new ArrayList<>();
+    cachedBlocks.forEach(
+        (cacheKey, block) -> {
+          if (expiryPolicy.isStale(cacheKey.getYear(), block)) {
+            staleKeys.add(cacheKey);
+          }
+        });
+    return staleKeys.isEmpty() ? List.of() : requestPlanner().plan(groupYears(staleKeys));
+  }
+
+  /**
+   * Creates the planner splitting fetches into requests within the BLS API limits.
+   *
+   * @return the request planner
+   */
+  BLSRequestPlanner requestPlanner() {
+    return new BLSRequestPlanner(maxSeriesPerRequest, maxYearsPerRequest);
+  }
+
+  /**
+   * Turns a parsed API response into the blocks to cache: one per series-year BLS returned data
+   * for, and an empty block for each series-year BLS answered it has no data for.
+   *
+   * <p>BLS only answers for the whole request when it reports success without cutting the request
+   * down to its limits. After a failure nothing is taken as absent. After a cut, only the series
+   * and years BLS returned data for are taken as served, and within them the series-years without
+   * data are absent; everything else is left uncached, to be fetched again.
+   *
+   * @param request the API request
+   * @param response the parsed API response
+   * @return the blocks to cache, by key
+   * @throws BLSRateLimitException if BLS refused the request because the daily quota is used up
+   */
+  Map<CPICacheKey, SeriesBlock> blocksToCache(
+      final BLSApiRequest request, final BLSResponseParser.ParsedResponse response) {
+    // BLS refuses requests past the daily quota with a status rather than an error code
+    if (REQUEST_NOT_PROCESSED.equals(response.getStatus())
+        && response.getMessages().stream().anyMatch(message -> message.contains(THRESHOLD))) {
+      log.warn("BLS API did not process the request: {}", response.getMessages());
+      rateLimiter.exhaustDailyQuota();
+      throw new BLSRateLimitException(
+          "The BLS API did not process the request: " + String.join(" ", response.getMessages()),
+          BLSRateLimiter.untilQuotaReset());
+    }
+    Map<CPICacheKey, SeriesBlock> blocks = new LinkedHashMap<>(response.getBlocks());
+    int found = blocks.size();
+    if (!REQUEST_SUCCEEDED.equals(response.getStatus())) {
+      log.warn(
+          "BLS API answered {}: {}; caching only the data returned",
+          response.getStatus(),
+          response.getMessages());
+      return blocks;
+    }
+
+    // The series and years BLS answered for in full
+    Collection<String> servedSeriesIds = request.getSeriesIds();
+    int firstYear = Integer.parseInt(request.getStartYear());
+    int lastYear = Integer.parseInt(request.getEndYear());
+    if (response.getMessages().stream().anyMatch(CPIDataService::reducesRequest)) {
+      log.warn("BLS API reduced the request: {}", response.getMessages());
+      servedSeriesIds = new HashSet<>();
+      firstYear = Integer.MAX_VALUE;
+      lastYear = Integer.MIN_VALUE;
+      for (CPICacheKey cacheKey : blocks.keySet()) {
+        servedSeriesIds.add(cacheKey.getSeriesId());
+        firstYear = Math.min(firstYear, Integer.parseInt(cacheKey.getYear()));
+        lastYear = Math.max(lastYear, Integer.parseInt(cacheKey.getYear()));
+      }
     }
 
-    return success;
+    // Remember the series-years BLS has no data for, so they are not fetched again right away
+    long fetchedAt = System.currentTimeMillis();
+    for (String seriesId : request.getSeriesIds()) {
+      if (!servedSeriesIds.contains(seriesId)) {
+        continue;
+      }
+      for (int year = firstYear; year <= lastYear; year++) {
+        blocks.computeIfAbsent(
+            generateCacheKey(String.valueOf(year), seriesId),
+            cacheKey -> SeriesBlock.builder(seriesId).fetchedAt(fetchedAt).build());
+      }
+    }
+
+    log.info(
+        "Caching {} series blocks and {} empty ones for years: {}-{}",
+        found,
+        blocks.size() - found,
+        request.getStartYear(),
+        request.getEndYear());
+    return blocks;
+  }
+
+  /**
+   * Checks whether a BLS message reports that the request was cut down to the API limits, such as
+   * "Year range has been reduced to the system limit of 10 years."
+   *
+   * @param message the message
+   * @return true if BLS did not serve the whole request
+   */
+  private static boolean reducesRequest(final String message) {
+    String text = message.toLowerCase(Locale.ROOT);
+    return text.contains(REDUCED) || text.contains(LIMIT);
+  }
+
+  /**
+   * Gets the time to live of a block in the cache: according to its year, or the negative cache
+   * time to live if it is empty.
+   *
+   * @param cacheKey the cache key of the block
+   * @param block the block
+   * @return the time to live
+   */
+  Duration blockTtl(final CPICacheKey cacheKey, final SeriesBlock block) {
+    return block.size() == 0
+        ? expiryPolicy.negativeTtl()
+        : expiryPolicy.blockTtl(cacheKey.getYear());
   }
 
   /**
-   * Retrieves CPI data from Redis for the specified year, month, and series IDs.
+   * Parses a BLS API response as it streams in, traced as a {@code parse-bls-api-response} span.
+   *
+   * @param body the decoded response body
+   * @return the parsed response
+   * @throws IOException if the body cannot be read or is not valid JSON
+   */
+  private BLSResponseParser.ParsedResponse parseResponse(final InputStream body)
+      throws IOException {
+    return Observation.createNotStarted("cpi.bls.parse", observationRegistry)
+        .contextualName("parse-bls-api-response")
+        .observeChecked(() -> responseParser.parse(body));
+  }
+
+  /**
+   * Retrieves CPI data from Redis for the specified year, month, and series IDs, traced as a {@code
+   * fetch-cached-data} span.
    *
    * @param year the year of the CPI data
    * @param month the month of the CPI data
    * @param seriesIds the list of series IDs
+   * @param absentSeriesIds receives the series IDs whose cached block confirms that BLS has no data
+   *     for the month
    * @return a map of series IDs to CPIData retrieved from cache
    */
   private Map<String, CPIData> fetchCachedData(
-      final String year, final String month, final List<String> seriesIds) {
-    log.info(
+      final String year,
+      final String month,
+      final List<String> seriesIds,
+      final Set<String> absentSeriesIds) {
+    Observation observation =
+        Observation.createNotStarted("cpi.cache.lookup", observationRegistry)
+            .contextualName("fetch-cached-data")
+            .highCardinalityKeyValue("series.count", String.valueOf(seriesIds.size()));
+    return observation.observe(
+        () -> {
+          Map<String, CPIData> result = readCachedData(year, month, seriesIds, absentSeriesIds);
+          observation.highCardinalityKeyValue("series.found", String.valueOf(result.size()));
+          return result;
+        });
+  }
+
+  /**
+   * Reads CPI data from the cache for the specified year, month, and series IDs.
+   *
+   * @param year the year of the CPI data
+   * @param month the month of the CPI data
+   * @param seriesIds the list of series IDs
+   * @param absentSeriesIds receives the series IDs whose cached block confirms that BLS has no data
+   *     for the month
+   * @return a map of series IDs to CPIData retrieved from cache
+   * @see #fetchCachedData(String, String, List, Set)
+   */
+  private Map<String, CPIData> readCachedData(
+      final String year,
+      final String month,
+      final List<String> seriesIds,
+      final Set<String> absentSeriesIds) {
+    log.debug(
         "Fetching CPI data from cache for year: {}, month: {}, seriesIds: {}",
         year,
         month,
         seriesIds);
 
-    Map<String, CPIData> result = new HashMap<>();
-
+    Map<CPICacheKey, String> cacheKeys = new LinkedHashMap<>();
     for (String seriesId : seriesIds) {
-      String cacheKey = generateCacheKey(year, month, seriesId);
-      CPIData cachedData = redisRepository.getDocument(cacheKey);
+      cacheKeys.put(generateCacheKey(year, seriesId), seriesId);
+    }
+
+    // Read every requested series block in one round trip
+    Map<CPICacheKey, SeriesBlock> cachedBlocks = redisRepository.getDocuments(cacheKeys.keySet());
+    revalidateStale(cachedBlocks);
+    Map<String, CPIData> result = readMonth(year, month, cacheKeys, cachedBlocks, absentSeriesIds);
+
+    // Entries not yet moved out of earlier cache layouts are still served
+    if (result.size() + absentSeriesIds.size() < seriesIds.size()) {
+      List<String> missingSeriesIds = new ArrayList<>(seriesIds);
+      missingSeriesIds.removeAll(result.keySet());
+      missingSeriesIds.removeAll(absentSeriesIds);
+      result.putAll(keyspaceMigrator.readLegacy(year, month, missingSeriesIds));
+    }
+
+    log.debug(
+        "Found cached data for {} of {} series IDs, year: {}, month: {}",
+        result.size(),
+        seriesIds.size(),
+        year,
+        month);
+
+    return result;
+  }
+
+  /**
+   * Validates a batch of queries and gets the series-year block each one reads.
+   *
+   * @param queries the queries
+   * @param monthRanges receives the first and last month number of each query
+   * @return the cache key of the block of each query, in the order of the queries
+   * @throws IllegalArgumentException if a query has no series ID, a year before 1913 or after the
+   *     current year, or an invalid month range
+   */
+  static List<CPICacheKey> queryKeys(final List<CPIQuery> queries, final int[][] monthRanges) {
+    List<CPICacheKey> queryKeys = new ArrayList<>(queries.size());
+    for (CPIQuery query : queries) {
+      if (query.getSeriesId() == null || query.getSeriesId().isBlank()) {
+        throw new IllegalArgumentException("Every query needs a series ID.");
+      }
+      int year = toYear(query.getYear());
+      int fromMonth = toMonthNumber(query.getFromMonth(), 1);
+      int toMonth = toMonthNumber(query.getToMonth(), DECEMBER);
+      if (fromMonth > toMonth) {
+        throw new IllegalArgumentException(
+            "From month must not be after to month: " + query.getFromMonth());
+      }
+      monthRanges[queryKeys.size()] = new int[] {fromMonth, toMonth};
+      queryKeys.add(CPICacheKey.of(String.valueOf(year), query.getSeriesId()));
+    }
+    return queryKeys;
+  }
 
-      if (cachedData != null) {
-        result.put(seriesId, cachedData);
-        log.info("Found cached data for series ID: {}, year: {}, month: {}", seriesId, year, month);
+  /**
+   * Builds the results of a batch of queries from the blocks they read.
+   *
+   * @param queryKeys the cache key of the block of each query
+   * @param monthRanges the first and last month number of each query
+   * @param blocks the blocks by cache key
+   * @return the results, in the order of the queries
+   */
+  static List<CPIQueryResult> queryResults(
+      final List<CPICacheKey> queryKeys,
+      final int[][] monthRanges,
+      final Map<CPICacheKey, SeriesBlock> blocks) {
+    List<CPIQueryResult> results = new ArrayList<>(queryKeys.size());
+    for (int i = 0; i < queryKeys.size(); i++) {
+      CPICacheKey cacheKey = queryKeys.get(i);
+      SeriesBlock block = blocks.get(cacheKey);
+      List<CPIObservation> values = new ArrayList<>();
+      if (block != null) {
+        int year = Integer.parseInt(cacheKey.getYear());
+        for (int month = monthRanges[i][0]; month <= monthRanges[i][1]; month++) {
+          int index = block.indexOf(SeriesBlock.period(year, month));
+          if (index >= 0) {
+            values.add(
+                new CPIObservation(
+                    Months.name(month), block.valueTextAt(index), block.footnotesAt(index)));
+          }
+        }
       }
+      results.add(new CPIQueryResult(cacheKey.getSeriesId(), cacheKey.getYear(), values));
     }
+    return results;
+  }
 
+  /**
+   * Materializes CPIData for one month of cached blocks.
+   *
+   * @param year the year of the CPI data
+   * @param month the month of the CPI data
+   * @param cacheKeys the series ID of each cache key
+   * @param cachedBlocks the blocks read from the cache, by key
+   * @param absentSeriesIds receives the series IDs whose cached block confirms that BLS has no data
+   *     for the month
+   * @return a map of series IDs to the CPIData found
+   */
+  Map<String, CPIData> readMonth(
+      final String year,
+      final String month,
+      final Map<CPICacheKey, String> cacheKeys,
+      final Map<CPICacheKey, SeriesBlock> cachedBlocks,
+      final Set<String> absentSeriesIds) {
+    // Materialize CPIData only for the requested month of each block
+    int period = toPeriod(year, month);
+    Map<String, CPIData> result = new HashMap<>();
+    cachedBlocks.forEach(
+        (cacheKey, block) -> {
+          int index = block.indexOf(period);
+          if (index >= 0) {
+            result.put(cacheKeys.get(cacheKey), block.toCPIData(index));
+          } else if (expiryPolicy.confirmsAbsence(block)) {
+            absentSeriesIds.add(cacheKeys.get(cacheKey));
+          }
+        });
     return result;
   }
 
+  /**
+   * Groups the years of series-year blocks by series ID.
+   *
+   * @param cacheKeys the cache keys of the blocks
+   * @return the years of each series ID, in the order of the keys
+   */
+  static Map<String, List<Integer>> groupYears(final Collection<CPICacheKey> cacheKeys) {
+    Map<String, List<Integer>> yearsBySeries = new LinkedHashMap<>();
+    for (CPICacheKey cacheKey : cacheKeys) {
+      yearsBySeries
+          .computeIfAbsent(cacheKey.getSeriesId(), seriesId -> new ArrayList<>())
+          .add(Integer.parseInt(cacheKey.getYear()));
+    }
+    return yearsBySeries;
+  }
+
   /**
    * Creates a BLS API request for a given year and series IDs.
    *
@@ -149,7 +1064,7 @@ public class CPIDataService {
    * @param seriesIds the list of series IDs
    * @return a BLSApiRequest object
    */
-  private BLSApiRequest createBLSApiRequest(final String year, final List<String> seriesIds) {
+  static BLSApiRequest createBLSApiRequest(final String year, final List<String> seriesIds) {
     BLSApiRequest request = new BLSApiRequest();
     request.setSeriesIds(seriesIds);
     request.setStartYear(year);
@@ -158,111 +1073,119 @@ public class CPIDataService {
   }
 
   /**
-   * Parses the BLS API response JSON string into a BLSApiResponse object.
+   * Converts month names to month numbers.
    *
-   * @param responseJson the response JSON string
-   * @return a BLSApiResponse object
-   * @throws IOException if there is a problem parsing the JSON
+   * @param months the month names, or "Annual" for the annual average
+   * @return the month numbers, in the order given
+   * @throws IllegalArgumentException if a month name is not valid
    */
-  private BLSApiResponse parseBLSApiResponse(final String responseJson) throws IOException {
-    // Initialize the ObjectMapper
-    ObjectMapper objectMapper = new ObjectMapper();
-
-    // Configure the ObjectMapper to ignore unknown properties (in case there are
-    // extra fields in the JSON)
-    objectMapper.configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
-    JsonNode rootNode = objectMapper.readTree(responseJson);
-
-    /* Here we SHOULD be instantiating my model classes with just this one line but unfortunately
-    I did not have time to get that working properly. */
-    // BLSApiResponse response = objectMapper.readValue(responseJson, BLSApiResponse.class);
-
-    // Log the deserialized response
-    String status = rootNode.get("status").asText();
-    int responseTime = rootNode.get("responseTime").asInt();
-    List<String> messages =
-        objectMapper.convertValue(rootNode.get("message"), new TypeReference<List<String>>() {});
-
-    JsonNode resultsNode = rootNode.get("Results");
-    Results results = null;
-    if (resultsNode != null && !resultsNode.isNull()) {
-      results = objectMapper.treeToValue(resultsNode, Results.class);
+  private static int[] toMonthNumbers(final List<String> months) {
+    int[] monthNumbers = new int[months.size()];
+    for (int i = 0; i < monthNumbers.length; i++) {
+      monthNumbers[i] = Months.number(months.get(i));
+      if (monthNumbers[i] == 0) {
+        throw new IllegalArgumentException("Unknown month: " + months.get(i));
+      }
     }
-
-    // Set the extracted values to your BLSApiResponse object
-    BLSApiResponse response = new BLSApiResponse();
-    response.setStatus(status);
-    response.setResponseTime(responseTime);
-    response.setMessage(messages);
-    response.setResults(results);
-
-    log.info("Deserialized Response: " + response);
-
-    log.info("Results list: " + response.getResults());
-
-    return response;
+    return monthNumbers;
   }
 
   /**
-   * Extracts a list of CPIData instances from a list of Results.
+   * Converts a month name to a month number.
    *
-   * @param results A Results instance
-   * @return A list of CPIData instances.
+   * @param month the month name, or "Annual" for the annual average
+   * @return the month number
+   * @throws IllegalArgumentException if the month name is missing or not valid
    */
-  public List<CPIData> extractCPIDataList(Results results) {
-    List<CPIData> cpiDataList = new ArrayList<>();
-    log.info("Extarcting cpiData from results: " + results);
-    // Iterate through each Series
-    for (Series series : results.getSeries()) {
-      log.info("Series: " + series);
-      if (series.getData() == null) {
-        log.warn("No data found for series ID: {}", series.getSeriesID());
-        continue;
-      }
+  private static int toMonthNumber(final String month) {
+    if (month == null) {
+      throw new IllegalArgumentException("Missing month.");
+    }
+    return toMonthNumber(month, 0);
+  }
 
-      // Iterate through each DataPoint
-      for (DataPoint dataPoint : series.getData()) {
-        log.info("datapoint: " + dataPoint);
-        CPIData cpiData = new CPIData();
-
-        // Set the fields for CPIData
-        cpiData.setSeriesId(series.getSeriesID());
-        cpiData.setYear(dataPoint.getYear());
-        cpiData.setMonth(dataPoint.getPeriodName());
-        cpiData.setCPIValue(dataPoint.getValue());
-
-        // Extract footnotes as a list of strings
-        List<String> footnotesList =
-            dataPoint.getFootnotes().stream()
-                .map(
-                    footnote ->
-                        String.format("Code: %s, Text: %s", footnote.getCode(), footnote.getText()))
-                .collect(Collectors.toList());
-        cpiData.setNotes(footnotesList);
-
-        // Log the extracted CPIData
-        log.info("Extracted CPIData: {}", cpiData);
-
-        // Add the CPIData to the list
-        cpiDataList.add(cpiData);
-      }
+  /**
+   * Converts a month name to a month number.
+   *
+   * @param month the month name, "Annual" for the annual average, or null
+   * @param defaultMonth the month number to use if the name is null
+   * @return the month number
+   * @throws IllegalArgumentException if the month name is not valid
+   */
+  private static int toMonthNumber(final String month, final int defaultMonth) {
+    if (month == null) {
+      return defaultMonth;
+    }
+    int monthNumber = Months.number(month);
+    if (monthNumber == 0) {
+      throw new IllegalArgumentException("Unknown month: " + month);
     }
+    return monthNumber;
+  }
 
-    // Log the final size of the CPIData list
-    log.info("Total CPIData extracted: {}", cpiDataList.size());
+  /**
+   * Parses a four-digit year BLS may have published CPI data for.
+   *
+   * @param year the year
+   * @return the year as a number
+   * @throws IllegalArgumentException if the year is not a four-digit year, or is before 1913 or
+   *     after the current year
+   */
+  private static int toYear(final String year) {
+    if (year == null || !year.matches("\\d{4}")) {
+      throw new IllegalArgumentException("Invalid year: " + year);
+    }
+    int value = Integer.parseInt(year);
+    int currentYear = Year.now().getValue();
+    if (value < FIRST_CPI_YEAR || value > currentYear) {
+      throw new IllegalArgumentException(
+          "Year must be between " + FIRST_CPI_YEAR + " and " + currentYear + ": " + year);
+    }
+    return value;
+  }
 
-    return cpiDataList;
+  /**
+   * Converts a year and month name to a period code.
+   *
+   * @param year the year
+   * @param month the month name, or "Annual" for the annual average
+   * @return the period code, or -1 if the year or month is not valid
+   */
+  private static int toPeriod(final String year, final String month) {
+    int monthNumber = Months.number(month);
+    if (monthNumber == 0) {
+      return -1;
+    }
+    try {
+      return SeriesBlock.period(Integer.parseInt(year), monthNumber);
+    } catch (NumberFormatException e) {
+      return -1;
+    }
   }
 
   /**
-   * Generates a cache key for the specified year, month, and series ID.
+   * Generates the cache key of the block for the specified year and series ID.
    *
    * @param year the year
-   * @param month the month
    * @param seriesId the series ID
    * @return the cache key
    */
-  private String generateCacheKey(final String year, final String month, final String seriesId) {
-    return String.format("%s-%s-%s", year, month, seriesId);
+  static CPICacheKey generateCacheKey(final String year, final String seriesId) {
+    return CPICacheKey.of(year, seriesId);
+  }
+
+  /**
+   * Generates the key identifying a single API fetch: the range of years plus the set of series
+   * IDs, so that requests for the same series in a different order share a fetch.
+   *
+   * @param request the API request
+   * @return the fetch key
+   */
+  static String generateFetchKey(final BLSApiRequest request) {
+    return request.getStartYear()
+        + "-"
+        + request.getEndYear()
+        + ":"
+        + String.join(",", new TreeSet<>(request.getSeriesIds()));
   }
 }
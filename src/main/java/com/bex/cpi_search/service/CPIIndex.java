@@ -0,0 +1,336 @@
+package com.bex.cpi_search.service;
+
+import com.bex.cpi_search.model.CPICacheKey;
+import com.bex.cpi_search.model.Months;
+import com.bex.cpi_search.model.SeriesBlock;
+import com.bex.cpi_search.repository.RedisRepository;
+import jakarta.annotation.PostConstruct;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * A dense in-memory index of the values of CPI series, for answering inflation adjustments without
+ * a cache round trip. Each series is held as one array with a slot for every month and annual
+ * average from its first indexed year to its last, so looking up the value of a period is a map
+ * lookup and an array read.
+ *
+ * <p>Series are indexed as they are loaded for conversions, and their years are replaced whenever
+ * this node caches a newer block of an indexed series. Years whose blocks other nodes rewrite are
+ * dropped, to be loaded again when next needed. A period without a value, whether not yet released
+ * or not yet loaded, reads as NaN; the fetch time of each indexed year tells the two apart. A
+ * series is only added by a block that holds values, so that series BLS has no data for take no
+ * room, and once the index holds its maximum number of series the least recently read one is
+ * dropped to make room for another.
+ */
+@Component
+public class CPIIndex {
+
+  /** The number of slots each year takes: twelve months and the annual average. */
+  static final int SLOTS_PER_YEAR = Months.ANNUAL;
+
+  /** Announces the blocks rewritten by other nodes. */
+  @Autowired private RedisRepository<CPICacheKey, SeriesBlock> redisRepository;
+
+  /** The maximum number of series indexed. */
+  @Value("${cpi.index.max-series:100}")
+  private int maxSeries;
+
+  private static final Logger log = LoggerFactory.getLogger(CPIIndex.class);
+
+  /** The index of each series, by series ID; each is replaced rather than changed. */
+  private final Map<String, SeriesIndex> series = new ConcurrentHashMap<>();
+
+  /**
+   * Drops the years of blocks rewritten by other nodes as they are announced, and every series when
+   * announcements may have been missed.
+   */
+  @PostConstruct
+  public void init() {
+    redisRepository.addInvalidationListener(
+        blockKeys -> {
+          Map<String, List<Integer>> years = new HashMap<>();
+          for (String blockKey : blockKeys) {
+            CPICacheKey cacheKey = CPICacheKey.fromBlockKey(blockKey);
+            if (cacheKey != null && series.containsKey(cacheKey.getSeriesId())) {
+              years
+                  .computeIfAbsent(cacheKey.getSeriesId(), seriesId -> new ArrayList<>())
+                  .add(Integer.parseInt(cacheKey.getYear()));
+            }
+          }
+          years.forEach(this::invalidate);
+        });
+    redisRepository.addClearListener(series::clear);
+  }
+
+  /**
+   * Gets the value of a series for a period.
+   *
+   * @param seriesId the series ID
+   * @param period the period code
+   * @return the value, or NaN if the period is not indexed or has no value
+   */
+  public double valueAt(final String seriesId, final int period) {
+    SeriesIndex index = series.get(seriesId);
+    if (index == null) {
+      return Double.NaN;
+    }
+    index.lastRead = System.nanoTime();
+    return index.valueAt(period);
+  }
+
+  /**
+   * Gets when the block of the year of a period was fetched from BLS.
+   *
+   * @param seriesId the series ID
+   * @param period the period code
+   * @return the fetch time of the block in epoch milliseconds, or 0 if the year is not indexed
+   */
+  public long fetchedAt(final String seriesId, final int period) {
+    SeriesIndex index = series.get(seriesId);
+    return index != null ? index.fetchedAt(period / SeriesBlock.YEAR_MULTIPLIER) : 0;
+  }
+
+  /**
+   * Indexes blocks, adding their series to the index if needed.
+   *
+   * @param blocks the blocks, by key
+   */
+  public void load(final Map<CPICacheKey, SeriesBlock> blocks) {
+    update(blocks, true);
+  }
+
+  /**
+   * Replaces the years of indexed series with newer blocks. Blocks of series not in the index are
+   * ignored.
+   *
+   * @param blocks the blocks, by key
+   */
+  public void refresh(final Map<CPICacheKey, SeriesBlock> blocks) {
+    update(blocks, false);
+  }
+
+  /**
+   * Drops years of a series from the index.
+   *
+   * @param seriesId the series ID
+   * @param years the years to drop
+   */
+  public void invalidate(final String seriesId, final Collection<Integer> years) {
+    series.computeIfPresent(seriesId, (id, index) -> index.without(years));
+  }
+
+  /**
+   * Gets the number of series indexed.
+   *
+   * @return the number of series
+   */
+  public int size() {
+    return series.size();
+  }
+
+  /**
+   * Replaces the years of the series of the given blocks. Updates are serialized, so that two
+   * updates of one series cannot each drop the years the other adds.
+   *
+   * @param blocks the blocks, by key
+   * @param addSeries whether to add series not yet in the index, or to ignore their blocks
+   */
+  private synchronized void update(
+      final Map<CPICacheKey, SeriesBlock> blocks, final boolean addSeries) {
+    Map<String, Map<Integer, SeriesBlock>> blocksBySeries = new HashMap<>();
+    Set<String> addedSeries = new HashSet<>();
+    blocks.forEach(
+        (cacheKey, block) -> {
+          String seriesId = cacheKey.getSeriesId();
+          if (addSeries || series.containsKey(seriesId)) {
+            blocksBySeries
+                .computeIfAbsent(seriesId, id -> new HashMap<>())
+                .put(Integer.parseInt(cacheKey.getYear()), block);
+          }
+        });
+    blocksBySeries.forEach(
+        (seriesId, byYear) ->
+            series.compute(
+                seriesId,
+                (id, index) -> {
+                  if (index == null) {
+                    // Series BLS has no data for are not worth a place in the index
+                    if (!addSeries || byYear.values().stream().allMatch(b -> b.size() == 0)) {
+                      return null;
+                    }
+                    addedSeries.add(id);
+                    return SeriesIndex.EMPTY.with(byYear);
+                  }
+                  return index.with(byYear);
+                }));
+    if (!addedSeries.isEmpty()) {
+      evictLeastRecentlyRead(addedSeries);
+    }
+  }
+
+  /**
+   * Drops the least recently read series until the index holds no more than its maximum number of
+   * series.
+   *
+   * @param keptSeriesIds the series that are not dropped, having just been added
+   */
+  private void evictLeastRecentlyRead(final Set<String> keptSeriesIds) {
+    while (series.size() > maxSeries) {
+      String eldest = null;
+      long eldestRead = Long.MAX_VALUE;
+      for (Map.Entry<String, SeriesIndex> entry : series.entrySet()) {
+        long lastRead = entry.getValue().lastRead;
+        if (!keptSeriesIds.contains(entry.getKey())
+            && (eldest == null || lastRead - eldestRead < 0)) {
+          eldest = entry.getKey();
+          eldestRead = lastRead;
+        }
+      }
+      if (eldest == null) {
+        return;
+      }
+      log.debug("Dropping series {} from the CPI index", eldest);
+      series.remove(eldest);
+    }
+  }
+
+  /** The values of one series, one slot per period from its first indexed year to its last. */
+  private static final class SeriesIndex {
+
+    /** A series with no year indexed. */
+    static final SeriesIndex EMPTY = new SeriesIndex(0, new double[0], new long[0]);
+
+    /** The first year indexed. */
+    private final int firstYear;
+
+    /** The value of each period, or NaN. */
+    private final double[] values;
+
+    /** When the block of each year was fetched from BLS, or 0 if the year is not indexed. */
+    private final long[] fetchedAts;
+
+    /** When a value of the series was last read, on the nanoTime clock. */
+    private volatile long lastRead = System.nanoTime();
+
+    /**
+     * Constructs a SeriesIndex.
+     *
+     * @param firstYearValue the first year indexed
+     * @param valueValues the value of each period from the first year on, thirteen per year
+     * @param fetchedAtValues the fetch time of the block of each year, or 0
+     */
+    SeriesIndex(
+        final int firstYearValue, final double[] valueValues, final long[] fetchedAtValues) {
+      this.firstYear = firstYearValue;
+      this.values = valueValues;
+      this.fetchedAts = fetchedAtValues;
+    }
+
+    /**
+     * Carries when the series was last read over to the index replacing this one.
+     *
+     * @param replacement the index replacing this one
+     * @return the replacement
+     */
+    private SeriesIndex replacedBy(final SeriesIndex replacement) {
+      replacement.lastRead = lastRead;
+      return replacement;
+    }
+
+    /**
+     * Gets the value of a period.
+     *
+     * @param period the period code
+     * @return the value, or NaN if the period is outside the indexed years or has no value
+     */
+    double valueAt(final int period) {
+      int slot = period % SeriesBlock.YEAR_MULTIPLIER;
+      int index = (period / SeriesBlock.YEAR_MULTIPLIER - firstYear) * SLOTS_PER_YEAR + slot - 1;
+      return slot >= 1 && slot <= SLOTS_PER_YEAR && index >= 0 && index < values.length
+          ? values[index]
+          : Double.NaN;
+    }
+
+    /**
+     * Gets when the block of a year was fetched from BLS.
+     *
+     * @param year the year
+     * @return the fetch time in epoch milliseconds, or 0 if the year is not indexed
+     */
+    long fetchedAt(final int year) {
+      int index = year - firstYear;
+      return index >= 0 && index < fetchedAts.length ? fetchedAts[index] : 0;
+    }
+
+    /**
+     * Creates an index with the given years replaced, widening the range of years if needed.
+     *
+     * @param byYear the block of each year to replace
+     * @return the new index
+     */
+    SeriesIndex with(final Map<Integer, SeriesBlock> byYear) {
+      int lastYear = firstYear + values.length / SLOTS_PER_YEAR - 1;
+      int newFirstYear = values.length == 0 ? Integer.MAX_VALUE : firstYear;
+      int newLastYear = values.length == 0 ? Integer.MIN_VALUE : lastYear;
+      for (int year : byYear.keySet()) {
+        newFirstYear = Math.min(newFirstYear, year);
+        newLastYear = Math.max(newLastYear, year);
+      }
+
+      double[] newValues = new double[(newLastYear - newFirstYear + 1) * SLOTS_PER_YEAR];
+      long[] newFetchedAts = new long[newLastYear - newFirstYear + 1];
+      Arrays.fill(newValues, Double.NaN);
+      if (values.length > 0) {
+        System.arraycopy(
+            values, 0, newValues, (firstYear - newFirstYear) * SLOTS_PER_YEAR, values.length);
+        System.arraycopy(fetchedAts, 0, newFetchedAts, firstYear - newFirstYear, fetchedAts.length);
+      }
+      for (Map.Entry<Integer, SeriesBlock> entry : byYear.entrySet()) {
+        int year = entry.getKey();
+        SeriesBlock block = entry.getValue();
+        newFetchedAts[year - newFirstYear] = block.getFetchedAt();
+        int offset = (year - newFirstYear) * SLOTS_PER_YEAR - 1;
+        Arrays.fill(newValues, offset + 1, offset + 1 + SLOTS_PER_YEAR, Double.NaN);
+        for (int i = 0; i < block.size(); i++) {
+          int period = block.periodAt(i);
+          int slot = period % SeriesBlock.YEAR_MULTIPLIER;
+          if (period / SeriesBlock.YEAR_MULTIPLIER == year && slot >= 1 && slot <= SLOTS_PER_YEAR) {
+            newValues[offset + slot] = block.valueAt(i);
+          }
+        }
+      }
+      return replacedBy(new SeriesIndex(newFirstYear, newValues, newFetchedAts));
+    }
+
+    /**
+     * Creates an index with the given years cleared.
+     *
+     * @param years the years to clear
+     * @return the new index
+     */
+    SeriesIndex without(final Collection<Integer> years) {
+      double[] newValues = values.clone();
+      long[] newFetchedAts = fetchedAts.clone();
+      for (int year : years) {
+        int offset = (year - firstYear) * SLOTS_PER_YEAR;
+        if (offset >= 0 && offset < newValues.length) {
+          Arrays.fill(newValues, offset, offset + SLOTS_PER_YEAR, Double.NaN);
+          newFetchedAts[year - firstYear] = 0;
+        }
+      }
+      return replacedBy(new SeriesIndex(firstYear, newValues, newFetchedAts));
+    }
+  }
+}
@@ -0,0 +1,171 @@
+package com.bex.cpi_search.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.http.Outcome;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.RestClientResponseException;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+
+/**
+ * Records the application's own meters: the calls made to the BLS API, the calls the client-side
+ * rate limiter refused to make, and how often the cache answers a form request. Requests served,
+ * and Redis commands sent, are timed by the web framework and the Redis client; the cache tiers
+ * publish their own counters.
+ */
+@Component
+public class CPIMetrics {
+
+  /** The timer of BLS API calls, tagged with the priority, status and outcome of each call. */
+  public static final String BLS_REQUESTS = "cpi.bls.requests";
+
+  /** The counter of calls the client-side rate limiter refused, tagged with their priority. */
+  public static final String BLS_REFUSALS = "cpi.bls.refusals";
+
+  /** The distribution of decoded BLS response body sizes, in bytes. */
+  public static final String BLS_RESPONSE_SIZE = "cpi.bls.response.size";
+
+  /** The counter of form lookups, tagged with how much of the lookup the cache answered. */
+  public static final String CACHE_LOOKUPS = "cpi.cache.lookups";
+
+  /** The status of a call that failed without a response, such as on a timeout. */
+  static final String STATUS_IO_ERROR = "IO_ERROR";
+
+  /** The registry the meters are recorded in. */
+  private final MeterRegistry meterRegistry;
+
+  /** Lookups answered entirely from the cache. */
+  private final Counter lookupHits;
+
+  /** Lookups answered in part from the cache. */
+  private final Counter lookupPartialHits;
+
+  /** Lookups the cache could not answer at all. */
+  private final Counter lookupMisses;
+
+  /**
+   * Constructs a CPIMetrics recording in the given registry.
+   *
+   * @param providedMeterRegistry the registry the meters are recorded in
+   */
+  public CPIMetrics(final MeterRegistry providedMeterRegistry) {
+    this.meterRegistry = providedMeterRegistry;
+    this.lookupHits = lookupCounter("hit");
+    this.lookupPartialHits = lookupCounter("partial");
+    this.lookupMisses = lookupCounter("miss");
+  }
+
+  /**
+   * Starts timing a BLS API call, once the rate limiter has let it through.
+   *
+   * @return the sample to pass to {@link #recordBLSRequest}
+   */
+  public Timer.Sample startBLSRequest() {
+    return Timer.start(meterRegistry);
+  }
+
+  /**
+   * Records a completed BLS API call.
+   *
+   * @param sample the sample started when the call was
+   * @param priority the priority of the call
+   * @param status the HTTP status code of the response, or the reason there was none
+   * @param responseBytes the decoded size of the response body, or a negative number if none was
+   *     read
+   */
+  public void recordBLSRequest(
+      final Timer.Sample sample,
+      final FetchPriority priority,
+      final String status,
+      final long responseBytes) {
+    sample.stop(
+        Timer.builder(BLS_REQUESTS)
+            .description("Calls made to the BLS API, from sending each request to reading its body")
+            .tag("priority", priority.name())
+            .tag("status", status)
+            .tag("outcome", outcome(status))
+            .register(meterRegistry));
+    if (responseBytes >= 0) {
+      DistributionSummary.builder(BLS_RESPONSE_SIZE)
+          .description("Decoded size of BLS API response bodies")
+          .baseUnit("bytes")
+          .register(meterRegistry)
+          .record(responseBytes);
+    }
+  }
+
+  /**
+   * Records a BLS API call the client-side rate limiter refused, which was never sent.
+   *
+   * @param priority the priority of the call
+   */
+  public void recordBLSRefusal(final FetchPriority priority) {
+    Counter.builder(BLS_REFUSALS)
+        .description("BLS API calls refused by the client-side rate limiter or daily quota")
+        .tag("priority", priority.name())
+        .register(meterRegistry)
+        .increment();
+  }
+
+  /**
+   * Gets the status a failed BLS API call is recorded with.
+   *
+   * @param failure the failure of the call
+   * @return the HTTP status code of an error response, or the reason there was no response
+   */
+  public static String status(final Throwable failure) {
+    if (failure instanceof RestClientResponseException e) {
+      return String.valueOf(e.getStatusCode().value());
+    }
+    if (failure instanceof WebClientResponseException e) {
+      return String.valueOf(e.getStatusCode().value());
+    }
+    return STATUS_IO_ERROR;
+  }
+
+  /**
+   * Records how much of a form lookup the cache answered. A series BLS is known to have no data for
+   * counts as answered, since it is not fetched again.
+   *
+   * @param answered the number of series answered from the cache
+   * @param requested the number of series requested
+   */
+  public void recordCacheLookup(final int answered, final int requested) {
+    if (answered >= requested) {
+      lookupHits.increment();
+    } else if (answered == 0) {
+      lookupMisses.increment();
+    } else {
+      lookupPartialHits.increment();
+    }
+  }
+
+  /**
+   * Registers the counter of form lookups with one result.
+   *
+   * @param result how much of each lookup the cache answered
+   * @return the counter
+   */
+  private Counter lookupCounter(final String result) {
+    return Counter.builder(CACHE_LOOKUPS)
+        .description("Form lookups, by how much of each the cache answered")
+        .tag("result", result)
+        .register(meterRegistry);
+  }
+
+  /**
+   * Gets the outcome a BLS API call is tagged with.
+   *
+   * @param status the HTTP status code of the response, or the reason there was none
+   * @return the outcome of the HTTP status code, or {@code UNKNOWN} if there was no response
+   */
+  private static String outcome(final String status) {
+    try {
+      return Outcome.forStatus(Integer.parseInt(status)).name();
+    } catch (NumberFormatException e) {
+      return Outcome.UNKNOWN.name();
+    }
+  }
+}
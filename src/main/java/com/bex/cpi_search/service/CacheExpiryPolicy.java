@@ -0,0 +1,202 @@
+package com.bex.cpi_search.service;
+
+import com.bex.cpi_search.model.SeriesBlock;
+import java.time.DateTimeException;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.Month;
+import java.time.Year;
+import java.time.ZoneId;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Decides how long a cached series-year block lives in Redis. Blocks for the current year are still
+ * being filled in by BLS and expire quickly; blocks for past years change only with the annual
+ * revisions and otherwise only expire so that series nobody asks for any more eventually leave the
+ * cache. Once BLS has published every month of a year, clients may reuse responses for it longer,
+ * revalidating them against the cached data.
+ */
+@Component
+public class CacheExpiryPolicy {
+
+  /** The time zone of the BLS release schedule. */
+  private static final ZoneId RELEASE_ZONE = ZoneId.of("America/New_York");
+
+  /** How many past years the annual revisions of BLS reach back. */
+  private static final int REVISED_YEARS = 5;
+
+  /** The prefix of LAUS series IDs, whose annual benchmark revisions are published in spring. */
+  private static final String LAUS_PREFIX = "LA";
+
+  /** The time to live of blocks for the current year. */
+  @Value("${cpi.cache.block.ttl.current-year:P1D}")
+  private Duration currentYearTtl;
+
+  /** The time to live of blocks for past years. */
+  @Value("${cpi.cache.block.ttl.past-years:P400D}")
+  private Duration pastYearsTtl;
+
+  /**
+   * How long BLS having no data for a series-year, or for a month of a cached block, is trusted
+   * before BLS is asked again.
+   */
+  @Value("${cpi.cache.negative.ttl:PT1H}")
+  private Duration negativeTtl;
+
+  /** How long a block that may still receive new data is served without being refreshed. */
+  @Value("${cpi.cache.block.fresh-for:PT6H}")
+  private Duration freshFor;
+
+  /**
+   * Gets the time to live of the block holding a year of data.
+   *
+   * @param year the year of the block
+   * @return the time to live; zero means the block never expires
+   */
+  public Duration blockTtl(final String year) {
+    return isCurrentYear(year) ? currentYearTtl : pastYearsTtl;
+  }
+
+  /**
+   * Gets the time to live of an empty block, cached when BLS has no data for a series-year.
+   *
+   * @return the time to live
+   */
+  public Duration negativeTtl() {
+    return negativeTtl;
+  }
+
+  /**
+   * Checks whether a cached block was fetched recently enough that a month missing from it can be
+   * taken as not published, rather than fetched again.
+   *
+   * @param block the block
+   * @return true if the block confirms that the months it lacks are absent
+   */
+  public boolean confirmsAbsence(final SeriesBlock block) {
+    return confirmsAbsence(block.getFetchedAt());
+  }
+
+  /**
+   * Checks whether a block fetched at the given time was fetched recently enough that a month
+   * missing from it can be taken as not published, rather than fetched again.
+   *
+   * @param fetchedAt when the block was fetched from BLS, in epoch milliseconds, or 0 if it was not
+   * @return true if the block confirms that the months it lacks are absent
+   * @see #confirmsAbsence(SeriesBlock)
+   */
+  public boolean confirmsAbsence(final long fetchedAt) {
+    return fetchedAt > 0 && System.currentTimeMillis() - fetchedAt <= negativeTtl.toMillis();
+  }
+
+  /**
+   * Checks whether a cached block may lack months BLS has, because it was not fetched from BLS but
+   * merged from entries of earlier cache layouts. Such blocks have no fetch time.
+   *
+   * @param block the block
+   * @return true if the block may be incomplete
+   */
+  public boolean isPartial(final SeriesBlock block) {
+    return block.getFetchedAt() <= 0;
+  }
+
+  /**
+   * Checks whether a cached block should be refreshed in the background. Partial blocks are always
+   * stale. Otherwise only blocks that may still receive new data go stale: blocks for the current
+   * year, and blocks holding the observation BLS flagged as the latest of the series, such as last
+   * December's until January is released. They go stale once they are older than the freshness
+   * window. Blocks for other past years go stale once BLS has revised them since they were fetched.
+   *
+   * @param year the year of the block
+   * @param block the block
+   * @return true if the block should be refreshed
+   * @see #isPartial(SeriesBlock)
+   * @see #lastRevisedAt(String, String)
+   */
+  public boolean isStale(final String year, final SeriesBlock block) {
+    if (isPartial(block)) {
+      return true;
+    }
+    if (!isCurrentYear(year) && !block.hasLatest()) {
+      return block.getFetchedAt() < lastRevisedAt(year, block.getSeriesId());
+    }
+    return System.currentTimeMillis() - block.getFetchedAt() > freshFor.toMillis();
+  }
+
+  /**
+   * Gets when BLS last revised a past year of a series. Each February BLS revises the seasonally
+   * adjusted series of the past five years, and LAUS series receive their annual benchmark
+   * revisions by April, so a year is taken as revised on March 1, or May 1 for LAUS series, Eastern
+   * Time.
+   *
+   * @param year the year
+   * @param seriesId the series ID
+   * @return when the year was last revised, in epoch milliseconds, or 0 if it is no longer revised
+   *     or is not valid
+   */
+  long lastRevisedAt(final String year, final String seriesId) {
+    Month revisedBy = seriesId.startsWith(LAUS_PREFIX) ? Month.MAY : Month.MARCH;
+    LocalDate today = LocalDate.now(RELEASE_ZONE);
+    LocalDate revisedOn = LocalDate.of(today.getYear(), revisedBy, 1);
+    if (today.isBefore(revisedOn)) {
+      revisedOn = revisedOn.minusYears(1);
+    }
+    try {
+      if (revisedOn.getYear() - Integer.parseInt(year) > REVISED_YEARS) {
+        return 0;
+      }
+    } catch (NumberFormatException e) {
+      return 0;
+    }
+    return revisedOn.atStartOfDay(RELEASE_ZONE).toInstant().toEpochMilli();
+  }
+
+  /**
+   * Gets when BLS has published every month of a year. BLS publishes December and the annual
+   * average in January, and its annual revisions with the January release in February, so from
+   * March 1 of the next year, Eastern Time, the year's data no longer changes from month to month.
+   * It is not final: each February BLS revises the seasonally adjusted series of the past five
+   * years, and LAUCN county series receive benchmark revisions every spring.
+   *
+   * @param year the year
+   * @return when the year was, or will be, published in full; null if the year is not valid
+   */
+  public Instant finalizedAt(final String year) {
+    try {
+      return LocalDate.of(Integer.parseInt(year) + 1, Month.MARCH, 1)
+          .atStartOfDay(RELEASE_ZONE)
+          .toInstant();
+    } catch (NumberFormatException | DateTimeException e) {
+      return null;
+    }
+  }
+
+  /**
+   * Checks whether BLS has published every month of a year, after which its data changes only with
+   * the annual revisions.
+   *
+   * @param year the year
+   * @return true if the year is published in full
+   * @see #finalizedAt(String)
+   */
+  public boolean isFinalized(final String year) {
+    Instant finalizedAt = finalizedAt(year);
+    return finalizedAt != null && !Instant.now().isBefore(finalizedAt);
+  }
+
+  /**
+   * Checks whether a year is the current year, or later.
+   *
+   * @param year the year
+   * @return true if BLS may still publish or revise data for the year
+   */
+  public boolean isCurrentYear(final String year) {
+    try {
+      return Integer.parseInt(year) >= Year.now().getValue();
+    } catch (NumberFormatException e) {
+      return false;
+    }
+  }
+}
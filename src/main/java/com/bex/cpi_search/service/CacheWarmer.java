@@ -0,0 +1,184 @@
+package com.bex.cpi_search.service;
+
+import com.bex.cpi_search.model.CPIData;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.TimeGauge;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import java.io.IOException;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.Year;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.task.TaskExecutionAutoConfiguration;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Keeps the blocks of the configured series cached for the current and previous years, so that
+ * interactive requests are served from the cache. When the application starts, the blocks missing
+ * from the cache are fetched in the background. On the release schedule, every block is fetched
+ * again so that newly released and revised months replace the cached ones. All fetches are made at
+ * background priority, behind interactive requests and within the reserve of the daily quota. The
+ * state of the warm-ups is published as meters.
+ */
+@Component
+public class CacheWarmer implements MeterBinder {
+
+  private static final Logger log = LoggerFactory.getLogger(CacheWarmer.class);
+
+  /** The service used to fetch and cache CPI data. */
+  @Autowired private CPIDataService cpiDataService;
+
+  /** The application's task executor, which runs the warm-up at startup. */
+  @Autowired
+  @Qualifier(TaskExecutionAutoConfiguration.APPLICATION_TASK_EXECUTOR_BEAN_NAME)
+  private TaskExecutor taskExecutor;
+
+  /** Whether the cache is warmed at startup and on the release schedule. */
+  @Value("${cpi.cache.warmer.enabled:true}")
+  private boolean warmerEnabled;
+
+  /** The series IDs kept warm. */
+  @Value("${cpi.series-ids}")
+  private List<String> seriesIds;
+
+  /** The number of years kept warm, counting back from the current year. */
+  @Value("${cpi.cache.warmer.years:2}")
+  private int years;
+
+  /** Set while a warm-up is running, so that runs do not overlap. */
+  private final AtomicBoolean running = new AtomicBoolean();
+
+  /** When the last warm-up started, or null if none has run. */
+  private volatile Instant lastStartedAt;
+
+  /** How long the last finished warm-up took, or null if none has finished. */
+  private volatile Duration lastDuration;
+
+  /** Whether the last finished warm-up succeeded. */
+  private volatile boolean lastSucceeded;
+
+  /** Fetches the missing blocks in the background once the application is ready, if enabled. */
+  @EventListener(ApplicationReadyEvent.class)
+  public void warmOnStartup() {
+    if (!warmerEnabled) {
+      return;
+    }
+    taskExecutor.execute(() -> warm(false));
+  }
+
+  /** Fetches every block again on the release schedule, if enabled. */
+  @Scheduled(
+      cron = "${cpi.cache.warmer.cron:0 35 8 * * MON-FRI}",
+      zone = "${cpi.cache.warmer.zone:America/New_York}")
+  public void refreshOnRelease() {
+    if (warmerEnabled) {
+      warm(true);
+    }
+  }
+
+  /**
+   * Warms the cache for the configured series, unless a warm-up is already running.
+   *
+   * @param refresh true to fetch every block again, false to fetch only missing blocks
+   * @return true if the warm-up ran and succeeded
+   */
+  public boolean warm(final boolean refresh) {
+    if (!running.compareAndSet(false, true)) {
+      log.info("Cache warm-up already running; skipping this run.");
+      return false;
+    }
+
+    int lastYear = Year.now().getValue();
+    int firstYear = lastYear - Math.max(1, years) + 1;
+    String startYear = String.valueOf(firstYear);
+    String endYear = String.valueOf(lastYear);
+    lastStartedAt = Instant.now();
+    long start = System.nanoTime();
+    boolean succeeded = false;
+    try {
+      log.info(
+          "Cache warm-up started: {} {} series for years {}-{}",
+          refresh ? "refreshing" : "filling",
+          seriesIds.size(),
+          startYear,
+          endYear);
+      if (refresh) {
+        int requests =
+            cpiDataService.refreshCPIData(startYear, endYear, seriesIds, FetchPriority.BACKGROUND);
+        log.info(
+            "Cache warm-up fetched {} series-years in {} requests",
+            seriesIds.size() * (lastYear - firstYear + 1),
+            requests);
+      } else {
+        Map<String, List<CPIData>> cached =
+            cpiDataService.getCPIData(
+                startYear, endYear, List.of(), seriesIds, FetchPriority.BACKGROUND);
+        log.info(
+            "Cache warm-up holds {} data points",
+            cached.values().stream().mapToInt(List::size).sum());
+      }
+      succeeded = true;
+    } catch (IOException | RuntimeException e) {
+      log.warn("Cache warm-up failed: {}", e.getMessage());
+    } finally {
+      lastDuration = Duration.ofNanos(System.nanoTime() - start);
+      lastSucceeded = succeeded;
+      running.set(false);
+      log.info(
+          "Cache warm-up {} in {} ms", succeeded ? "finished" : "stopped", lastDuration.toMillis());
+    }
+    return succeeded;
+  }
+
+  /**
+   * Publishes the state of the warm-ups: whether one is running as {@code
+   * cpi.cache.warmer.running}, and when the last one started, how long the last finished one took
+   * and whether it succeeded as {@code cpi.cache.warmer.last.start}, {@code
+   * cpi.cache.warmer.last.duration} and {@code cpi.cache.warmer.last.success}. The last three are
+   * NaN until a warm-up has started or finished.
+   *
+   * @param registry the registry to publish the meters in
+   */
+  @Override
+  public void bindTo(final MeterRegistry registry) {
+    Gauge.builder("cpi.cache.warmer.running", this, warmer -> warmer.running.get() ? 1 : 0)
+        .description("Whether a cache warm-up is running")
+        .register(registry);
+    Gauge.builder(
+            "cpi.cache.warmer.last.start",
+            this,
+            warmer ->
+                warmer.lastStartedAt == null
+                    ? Double.NaN
+                    : warmer.lastStartedAt.toEpochMilli() / 1000.0)
+        .description("When the last cache warm-up started, in seconds since the epoch")
+        .baseUnit("seconds")
+        .register(registry);
+    TimeGauge.builder(
+            "cpi.cache.warmer.last.duration",
+            this,
+            TimeUnit.MILLISECONDS,
+            warmer -> warmer.lastDuration == null ? Double.NaN : warmer.lastDuration.toMillis())
+        .description("How long the last finished cache warm-up took")
+        .register(registry);
+    Gauge.builder(
+            "cpi.cache.warmer.last.success",
+            this,
+            warmer -> warmer.lastDuration == null ? Double.NaN : (warmer.lastSucceeded ? 1 : 0))
+        .description("Whether the last finished cache warm-up succeeded")
+        .register(registry);
+  }
+}
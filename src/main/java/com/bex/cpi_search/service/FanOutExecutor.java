@@ -0,0 +1,199 @@
+package com.bex.cpi_search.service;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.core.task.VirtualThreadTaskExecutor;
+import org.springframework.stereotype.Component;
+
+/**
+ * Runs independent BLS API calls concurrently, one thread per call, with at most a fixed number of
+ * calls in flight across the application. Calls run on virtual threads when the JVM supports them,
+ * and on short-lived platform threads otherwise. A batch of calls fails as soon as any call in it
+ * fails. The calls still running are left to finish, since other requests may be waiting on them,
+ * but calls that have not started yet are skipped.
+ */
+@Component
+public class FanOutExecutor {
+
+  /** The first Java release with virtual threads. */
+  private static final int VIRTUAL_THREADS_RELEASE = 21;
+
+  /** The prefix of the names of the threads that run calls. */
+  private static final String THREAD_NAME_PREFIX = "bls-fetch-";
+
+  private static final Logger log = LoggerFactory.getLogger(FanOutExecutor.class);
+
+  /** Starts a new thread for each call. */
+  private final AsyncTaskExecutor taskExecutor;
+
+  /** Bounds the number of calls in flight across all batches. */
+  private final Semaphore permits;
+
+  /**
+   * Constructs a FanOutExecutor.
+   *
+   * @param maxConcurrencyValue the maximum number of calls in flight at once
+   */
+  public FanOutExecutor(
+      @Value("${cpi.bls.fetch.max-concurrency:4}") final int maxConcurrencyValue) {
+    if (maxConcurrencyValue < 1) {
+      throw new IllegalArgumentException("Maximum concurrency must be positive.");
+    }
+    this.permits = new Semaphore(maxConcurrencyValue);
+    if (Runtime.version().feature() >= VIRTUAL_THREADS_RELEASE) {
+      this.taskExecutor = new VirtualThreadTaskExecutor(THREAD_NAME_PREFIX);
+    } else {
+      this.taskExecutor = new SimpleAsyncTaskExecutor(THREAD_NAME_PREFIX);
+    }
+    log.info(
+        "BLS fetches run on {} threads, at most {} at once",
+        taskExecutor instanceof VirtualThreadTaskExecutor ? "virtual" : "platform",
+        maxConcurrencyValue);
+  }
+
+  /**
+   * Runs every call and waits for all of them. A single call runs on the calling thread.
+   *
+   * @param <V> the type of the result of a call
+   * @param calls the calls to run
+   * @return the results of the calls, in the order of the calls
+   * @throws IOException if any call fails with an {@link IOException}, or the wait is interrupted
+   */
+  public <V> List<V> invokeAll(final List<? extends SingleFlight.Loader<V>> calls)
+      throws IOException {
+    if (calls.size() == 1) {
+      return List.of(call(calls.get(0)));
+    }
+
+    List<CompletableFuture<V>> results = new ArrayList<>(calls.size());
+    List<Future<?>> running = new ArrayList<>(calls.size());
+    CompletableFuture<V> firstFailure = new CompletableFuture<>();
+    for (SingleFlight.Loader<V> call : calls) {
+      CompletableFuture<V> result = new CompletableFuture<>();
+      results.add(result);
+      running.add(
+          taskExecutor.submit(
+              () -> {
+                try {
+                  result.complete(runWithPermit(call, firstFailure));
+                } catch (IOException | RuntimeException | Error e) {
+                  result.completeExceptionally(e);
+                  firstFailure.completeExceptionally(e);
+                }
+              }));
+    }
+
+    try {
+      // Wake up when every call has succeeded, or as soon as one has failed
+      CompletableFuture.anyOf(
+              CompletableFuture.allOf(results.toArray(new CompletableFuture<?>[0])), firstFailure)
+          .get();
+      List<V> values = new ArrayList<>(results.size());
+      for (CompletableFuture<V> result : results) {
+        values.add(result.join());
+      }
+      return values;
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IOException("Interrupted while waiting for BLS fetches.", e);
+    } catch (ExecutionException e) {
+      throw unwrap(e.getCause());
+    } finally {
+      // Drop calls that have not started; a no-op once every call has finished. Running calls are
+      // not interrupted, since a call may be loading data that other requests are waiting for.
+      running.forEach(future -> future.cancel(false));
+    }
+  }
+
+  /**
+   * Starts a call in the background, under the same limit on calls in flight, without waiting for
+   * it.
+   *
+   * @param <V> the type of the result of the call
+   * @param call the call to run
+   * @return a future completed with the result or failure of the call
+   */
+  public <V> CompletableFuture<V> submit(final SingleFlight.Loader<V> call) {
+    CompletableFuture<V> result = new CompletableFuture<>();
+    taskExecutor.execute(
+        () -> {
+          try {
+            result.complete(call(call));
+          } catch (IOException | RuntimeException | Error e) {
+            result.completeExceptionally(e);
+          }
+        });
+    return result;
+  }
+
+  /**
+   * Runs a call on the calling thread, under the same limit on calls in flight.
+   *
+   * @param <V> the type of the result of the call
+   * @param call the call to run
+   * @return the result of the call
+   * @throws IOException if the call fails, or waiting for a permit is interrupted
+   */
+  public <V> V call(final SingleFlight.Loader<V> call) throws IOException {
+    return runWithPermit(call, null);
+  }
+
+  /**
+   * Runs a call once a permit is available, unless its batch has failed while it waited.
+   *
+   * @param <V> the type of the result
+   * @param call the call
+   * @param batchFailure completed once another call of the batch has failed, or null if the call is
+   *     not part of a batch
+   * @return the result of the call
+   * @throws IOException if the call fails, or waiting for a permit is interrupted
+   * @throws CancellationException if the batch failed before the call started
+   */
+  private <V> V runWithPermit(final SingleFlight.Loader<V> call, final Future<?> batchFailure)
+      throws IOException {
+    try {
+      permits.acquire();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IOException("Interrupted while waiting to start a BLS fetch.", e);
+    }
+    try {
+      if (batchFailure != null && batchFailure.isDone()) {
+        throw new CancellationException("Another BLS fetch of the batch failed.");
+      }
+      return call.load();
+    } finally {
+      permits.release();
+    }
+  }
+
+  /**
+   * Unwraps the failure of a call, rethrowing unchecked failures as they were thrown.
+   *
+   * @param cause the failure
+   * @return the failure as an {@link IOException}
+   */
+  private static IOException unwrap(final Throwable cause) {
+    if (cause instanceof IOException ioException) {
+      return ioException;
+    }
+    if (cause instanceof RuntimeException runtimeException) {
+      throw runtimeException;
+    }
+    if (cause instanceof Error error) {
+      throw error;
+    }
+    return new IOException("BLS fetch failed.", cause);
+  }
+}
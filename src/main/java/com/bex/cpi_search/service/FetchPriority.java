@@ -0,0 +1,11 @@
+package com.bex.cpi_search.service;
+
+/** The priority of a call to the BLS API, in the order callers are served. */
+public enum FetchPriority {
+
+  /** A call a user is waiting on. */
+  INTERACTIVE,
+
+  /** A call made by a background job, served after interactive calls. */
+  BACKGROUND
+}
@@ -0,0 +1,397 @@
+package com.bex.cpi_search.service;
+
+import com.bex.cpi_search.model.CPICacheKey;
+import com.bex.cpi_search.model.CPIData;
+import com.bex.cpi_search.model.FootnoteDictionary;
+import com.bex.cpi_search.model.Months;
+import com.bex.cpi_search.model.SeriesBlock;
+import com.bex.cpi_search.repository.RedisRepository;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.redis.core.Cursor;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.ScanOptions;
+import org.springframework.data.redis.serializer.SerializationException;
+import org.springframework.stereotype.Component;
+
+/**
+ * Moves CPI data from the legacy single {@code documents} hash, with one field per month, series
+ * and year, into per series-year {@link SeriesBlock}s while the application keeps serving requests.
+ *
+ * <p>Entries are converted in batches and merged into their blocks without replacing months a block
+ * already holds, then removed from the hash; entries that cannot be read are left where they are.
+ * Blocks built this way hold only the months the hash had, so they are kept partial, without a
+ * fetch time, and fetched from BLS when a whole block is needed. Until migration has finished,
+ * cache misses also consult the hash through {@link #readLegacy(String, String, Collection)}, so no
+ * cached data disappears mid-migration. Once the hash holds no readable entry, a marker key records
+ * it, so that later startups neither check the hash again nor consult it on misses.
+ */
+@Component
+public class KeyspaceMigrator {
+
+  /** The key of the legacy hash holding every cached document. */
+  private static final String LEGACY_DOCUMENTS_KEY = "documents";
+
+  /** The key of the legacy hash, as bytes. */
+  private static final byte[] LEGACY_KEY_BYTES =
+      LEGACY_DOCUMENTS_KEY.getBytes(StandardCharsets.UTF_8);
+
+  /** The key recording when the legacy hash was found to hold no readable entry. */
+  static final String MIGRATED_KEY = "cpi-search:migration:documents";
+
+  private static final Logger log = LoggerFactory.getLogger(KeyspaceMigrator.class);
+
+  /** The template used to read and clear the legacy hash. */
+  @Autowired private RedisTemplate<String, Object> redisTemplate;
+
+  /** Merges the entries of the legacy hash into blocks. */
+  @Autowired private RedisRepository<CPICacheKey, SeriesBlock> redisRepository;
+
+  /** The policy deciding the expiry of each block written. */
+  @Autowired private CacheExpiryPolicy expiryPolicy;
+
+  /** Whether the migration runs in the background when the application starts. */
+  @Value("${cpi.cache.migration.enabled:true}")
+  private boolean migrationEnabled;
+
+  /** The number of entries or keys moved per batch. */
+  @Value("${cpi.cache.migration.batch-size:500}")
+  private int batchSize;
+
+  /**
+   * Set once the legacy hash is known to hold no readable entry, by the check at startup or a
+   * migration run, so that misses stop consulting it.
+   */
+  private volatile boolean legacyDrained;
+
+  /**
+   * Checks in the background, once the application is ready, whether the legacy hash holds any
+   * data, so that misses stop consulting it if not, and migrates the data if enabled.
+   */
+  @EventListener(ApplicationReadyEvent.class)
+  public void migrateOnStartup() {
+    Thread migration = new Thread(this::probeAndMigrate, "keyspace-migration");
+    migration.setDaemon(true);
+    migration.start();
+  }
+
+  /**
+   * Checks whether the legacy hash was already migrated or holds any data, and migrates it if
+   * enabled.
+   */
+  void probeAndMigrate() {
+    try {
+      if (Boolean.TRUE.equals(redisTemplate.hasKey(MIGRATED_KEY))) {
+        legacyDrained = true;
+        return;
+      }
+      legacyDrained = !hasLegacyData();
+      if (legacyDrained) {
+        markMigrated();
+      }
+    } catch (RuntimeException e) {
+      log.warn("Failed to check for data in the legacy documents hash", e);
+      return;
+    }
+    if (legacyDrained) {
+      log.info("No data left in the legacy documents hash.");
+    } else if (migrationEnabled) {
+      migrate();
+    }
+  }
+
+  /**
+   * Moves every entry of the legacy hash into series blocks.
+   *
+   * @return the number of entries moved
+   */
+  public int migrate() {
+    long start = System.nanoTime();
+    Progress progress = new Progress();
+    try {
+      migrateDocumentsHash(progress);
+      Long remaining = redisTemplate.opsForHash().size(LEGACY_DOCUMENTS_KEY);
+      legacyDrained =
+          progress.retained == 0 && (remaining == null || remaining == progress.skipped);
+      if (legacyDrained) {
+        markMigrated();
+      }
+    } catch (RuntimeException e) {
+      log.error("Keyspace migration stopped after moving {} entries.", progress.moved, e);
+      return progress.moved;
+    }
+    log.info(
+        "Keyspace migration moved {} entries, skipped {} unreadable entries and left {} entries"
+            + " whose blocks were rewritten concurrently in {} ms.",
+        progress.moved,
+        progress.skipped,
+        progress.retained,
+        Duration.ofNanos(System.nanoTime() - start).toMillis());
+    return progress.moved;
+  }
+
+  /**
+   * Checks whether the legacy {@code documents} hash exists.
+   *
+   * @return true if there is data to migrate
+   */
+  public boolean hasLegacyData() {
+    return Boolean.TRUE.equals(redisTemplate.hasKey(LEGACY_DOCUMENTS_KEY));
+  }
+
+  /** Records that the legacy hash holds no readable entry, so that later startups skip it. */
+  private void markMigrated() {
+    redisTemplate.opsForValue().set(MIGRATED_KEY, Instant.now().toString());
+  }
+
+  /**
+   * Reads a month missing from the block layout out of the legacy hash, merging any data found into
+   * its block. Entries that cannot be deserialized are treated as missing.
+   *
+   * @param year the year
+   * @param month the month name
+   * @param seriesIds the series IDs missing from the block layout
+   * @return a map of series IDs to the data found in the legacy hash
+   */
+  public Map<String, CPIData> readLegacy(
+      final String year, final String month, final Collection<String> seriesIds) {
+    Map<String, CPIData> found = new HashMap<>();
+    int monthNumber = Months.number(month);
+    if (legacyDrained || seriesIds.isEmpty() || monthNumber == 0) {
+      return found;
+    }
+
+    List<String> seriesList = new ArrayList<>(seriesIds);
+    byte[][] legacyFields = new byte[seriesList.size()][];
+    for (int i = 0; i < legacyFields.length; i++) {
+      legacyFields[i] = legacyKey(year, month, seriesList.get(i));
+    }
+    List<byte[]> legacyValues =
+        redisTemplate.execute(
+            (RedisCallback<List<byte[]>>)
+                connection -> connection.hashCommands().hMGet(LEGACY_KEY_BYTES, legacyFields));
+    if (legacyValues == null) {
+      return found;
+    }
+
+    Map<CPICacheKey, List<CPIData>> entries = new LinkedHashMap<>();
+    for (int i = 0; i < seriesList.size(); i++) {
+      CPIData cpiData = decode(legacyValues.get(i));
+      if (cpiData != null) {
+        found.put(seriesList.get(i), cpiData);
+        entries
+            .computeIfAbsent(CPICacheKey.of(year, seriesList.get(i)), key -> new ArrayList<>())
+            .add(cpiData);
+      }
+    }
+    if (!entries.isEmpty()) {
+      mergeIntoBlocks(entries);
+    }
+    return found;
+  }
+
+  /**
+   * Moves the entries of the legacy {@code documents} hash, scanning it in batches.
+   *
+   * @param progress the migration counters
+   */
+  private void migrateDocumentsHash(final Progress progress) {
+    ScanOptions options = ScanOptions.scanOptions().count(batchSize).build();
+    try (Cursor<Map.Entry<byte[], byte[]>> cursor =
+        redisTemplate.execute(
+            (RedisCallback<Cursor<Map.Entry<byte[], byte[]>>>)
+                connection -> connection.hashCommands().hScan(LEGACY_KEY_BYTES, options))) {
+      Map<CPICacheKey, List<CPIData>> batch = new LinkedHashMap<>();
+      Map<CPICacheKey, List<byte[]>> legacyFields = new LinkedHashMap<>();
+      int batched = 0;
+
+      while (cursor.hasNext()) {
+        Map.Entry<byte[], byte[]> entry = cursor.next();
+        CPIData cpiData = decode(entry.getValue());
+        if (cpiData == null || period(cpiData) < 0) {
+          progress.skipped++;
+          continue;
+        }
+        CPICacheKey key = CPICacheKey.of(cpiData.getYear(), cpiData.getSeriesId());
+        batch.computeIfAbsent(key, k -> new ArrayList<>()).add(cpiData);
+        legacyFields.computeIfAbsent(key, k -> new ArrayList<>()).add(entry.getKey());
+
+        if (++batched >= batchSize) {
+          moveDocumentsBatch(batch, legacyFields, progress);
+          batched = 0;
+        }
+      }
+      moveDocumentsBatch(batch, legacyFields, progress);
+    }
+  }
+
+  /**
+   * Merges a batch of legacy entries into their blocks and removes the entries of the blocks merged
+   * from the legacy hash.
+   *
+   * @param batch the entries to merge, by block; cleared once moved
+   * @param legacyFields the legacy fields of the entries, by block; cleared once moved
+   * @param progress the migration counters
+   */
+  private void moveDocumentsBatch(
+      final Map<CPICacheKey, List<CPIData>> batch,
+      final Map<CPICacheKey, List<byte[]>> legacyFields,
+      final Progress progress) {
+    if (batch.isEmpty()) {
+      return;
+    }
+    Set<CPICacheKey> merged = mergeIntoBlocks(batch);
+    List<byte[]> movedFields = new ArrayList<>();
+    legacyFields.forEach(
+        (key, fields) -> {
+          if (merged.contains(key)) {
+            movedFields.addAll(fields);
+          } else {
+            progress.retained += fields.size();
+          }
+        });
+    if (!movedFields.isEmpty()) {
+      byte[][] fields = movedFields.toArray(new byte[0][]);
+      redisTemplate.execute(
+          (RedisCallback<Long>)
+              connection -> connection.hashCommands().hDel(LEGACY_KEY_BYTES, fields));
+    }
+    progress.moved += movedFields.size();
+    batch.clear();
+    legacyFields.clear();
+  }
+
+  /**
+   * Merges entries of the legacy hash into their blocks through the repository, so that the blocks
+   * written reach the near caches of every node. A block is only merged into if it is itself
+   * partial; a block fetched from BLS is left as it is. Entries never replace a month a block
+   * already holds, and a block rewritten concurrently is merged again rather than overwritten.
+   *
+   * @param entries the entries to merge, by block
+   * @return the keys of the blocks whose entries are settled, whether merged or superseded by a
+   *     block fetched from BLS
+   * @see RedisRepository#mergeDocuments(Map, java.util.function.BinaryOperator,
+   *     java.util.function.Function)
+   */
+  private Set<CPICacheKey> mergeIntoBlocks(final Map<CPICacheKey, List<CPIData>> entries) {
+    if (entries.isEmpty()) {
+      return Set.of();
+    }
+    Map<CPICacheKey, SeriesBlock> legacyBlocks = new LinkedHashMap<>();
+    entries.forEach(
+        (key, keyEntries) -> {
+          SeriesBlock.Builder builder = SeriesBlock.builder(key.getSeriesId());
+          for (CPIData cpiData : keyEntries) {
+            builder.add(
+                period(cpiData),
+                cpiData.getCPIValue(),
+                FootnoteDictionary.idOf(cpiData.getNotes()));
+          }
+          legacyBlocks.put(key, builder.build());
+        });
+    return redisRepository.mergeDocuments(
+        legacyBlocks, this::mergeBlocks, key -> expiryPolicy.blockTtl(key.getYear()));
+  }
+
+  /**
+   * Merges a block built from entries of the legacy hash into a saved block, which keeps its months
+   * and fetch time.
+   *
+   * @param saved the saved block
+   * @param legacy the block built from entries of the legacy hash
+   * @return the merged block, or null to leave the saved block as it is because it was fetched from
+   *     BLS
+   */
+  SeriesBlock mergeBlocks(final SeriesBlock saved, final SeriesBlock legacy) {
+    if (!expiryPolicy.isPartial(saved)) {
+      return null;
+    }
+    SeriesBlock.Builder builder = SeriesBlock.builder(saved.getSeriesId());
+    for (int i = 0; i < legacy.size(); i++) {
+      builder.add(legacy.periodAt(i), legacy.valueAt(i), legacy.scaleAt(i), legacy.footnoteIdAt(i));
+    }
+    // Added last so that months already in the block win
+    for (int i = 0; i < saved.size(); i++) {
+      builder.add(saved.periodAt(i), saved.valueAt(i), saved.scaleAt(i), saved.footnoteIdAt(i));
+    }
+    return builder.fetchedAt(saved.getFetchedAt()).latestPeriod(saved.getLatestPeriod()).build();
+  }
+
+  /**
+   * Gets the period of an entry of the legacy hash.
+   *
+   * @param cpiData the entry
+   * @return the period code, or -1 if the year or month of the entry is not valid
+   */
+  private static int period(final CPIData cpiData) {
+    int month = Months.number(cpiData.getMonth());
+    if (month == 0) {
+      return -1;
+    }
+    try {
+      return SeriesBlock.period(Integer.parseInt(cpiData.getYear()), month);
+    } catch (NumberFormatException e) {
+      return -1;
+    }
+  }
+
+  /**
+   * Deserializes an entry of the legacy hash.
+   *
+   * @param value the serialized entry, or null
+   * @return the entry, or null if it is missing or unreadable
+   */
+  private CPIData decode(final byte[] value) {
+    if (value == null) {
+      return null;
+    }
+    try {
+      return redisTemplate.getHashValueSerializer().deserialize(value) instanceof CPIData cpiData
+          ? cpiData
+          : null;
+    } catch (SerializationException e) {
+      log.warn("Skipping unreadable legacy entry of {} bytes", value.length);
+      return null;
+    }
+  }
+
+  /**
+   * Builds a field of the legacy {@code documents} hash.
+   *
+   * @param year the year
+   * @param month the month name
+   * @param seriesId the series ID
+   * @return the field, as bytes
+   */
+  private static byte[] legacyKey(final String year, final String month, final String seriesId) {
+    return (year + '-' + month + '-' + seriesId).getBytes(StandardCharsets.UTF_8);
+  }
+
+  /** Counts the entries handled by a migration run. */
+  private static final class Progress {
+
+    /** The number of entries moved. */
+    private int moved;
+
+    /** The number of entries that could not be read. */
+    private int skipped;
+
+    /** The number of readable entries left because their blocks were rewritten concurrently. */
+    private int retained;
+  }
+}
@@ -0,0 +1,158 @@
+package com.bex.cpi_search.service;
+
+import com.bex.cpi_search.model.BLSApiRequest;
+import io.micrometer.core.instrument.Timer;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.concurrent.TimeoutException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Service;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+import reactor.util.function.Tuples;
+
+/**
+ * Service class for interacting with the BLS API without blocking, for the reactive request
+ * pipeline. Requests are sent with a {@link WebClient} on the Reactor Netty event loops, and the
+ * response body is read once it has fully arrived.
+ */
+@Service
+@ConditionalOnProperty(name = "cpi.pipeline.mode", havingValue = "reactive")
+public class ReactiveBLSApiService {
+
+  /** The WebClient used to make HTTP requests to the BLS API. */
+  private final WebClient webClient;
+
+  /** The URL of the BLS time series data endpoint. */
+  private final String apiUrl;
+
+  /** Keeps calls within the BLS API request rate and daily quota. */
+  private final BLSRateLimiter rateLimiter;
+
+  /** Records the latency, status and response size of each call. */
+  private final CPIMetrics metrics;
+
+  /** The most time a call may take from sending its request until its body has arrived. */
+  private final Duration responseTimeout;
+
+  private static final Logger log = LoggerFactory.getLogger(ReactiveBLSApiService.class);
+
+  /**
+   * Constructs a ReactiveBLSApiService with the specified WebClient.
+   *
+   * @param providedWebClient the WebClient to be used for API calls
+   * @param apiUrlValue the URL of the BLS time series data endpoint
+   * @param providedRateLimiter keeps calls within the BLS API request rate and daily quota
+   * @param providedMetrics records the latency, status and response size of each call
+   * @param responseTimeoutValue the most time a call may take from sending its request until its
+   *     body has arrived
+   */
+  public ReactiveBLSApiService(
+      final WebClient providedWebClient,
+      @Value("${cpi.bls.api.url:https://api.bls.gov/publicAPI/v2/timeseries/data/}")
+          final String apiUrlValue,
+      final BLSRateLimiter providedRateLimiter,
+      final CPIMetrics providedMetrics,
+      @Value("${cpi.bls.http.response-timeout:PT60S}") final Duration responseTimeoutValue) {
+    this.webClient = providedWebClient;
+    this.apiUrl = apiUrlValue;
+    this.rateLimiter = providedRateLimiter;
+    this.metrics = providedMetrics;
+    this.responseTimeout = responseTimeoutValue;
+  }
+
+  /**
+   * Fetches data from the BLS API, handing the decoded response body to a reader.
+   *
+   * <p>The call first waits for its turn under the BLS API request rate and is counted against the
+   * daily query quota. That wait is bounded by the rate limiter's maximum wait, and runs on a
+   * worker thread rather than an event loop. Calls it refuses are counted apart; the calls let
+   * through are timed, as by {@link BLSApiService}, from then until their response body has been
+   * read. It fails with a {@link TimeoutException} if the response body has not fully arrived
+   * within the response timeout of sending the request.
+   *
+   * @param <T> the type of the result
+   * @param request the BLSApiRequest object containing request parameters
+   * @param priority the priority of the call
+   * @param reader reads the decoded response body
+   * @return a Mono of the result of the reader, failing with a {@link BLSRateLimitException} if the
+   *     call would exceed the BLS API request rate or daily quota
+   */
+  public <T> Mono<T> fetchData(
+      final BLSApiRequest request,
+      final FetchPriority priority,
+      final BLSApiService.ResponseBodyReader<T> reader) {
+    return Mono.fromRunnable(() -> rateLimiter.acquire(priority))
+        .subscribeOn(Schedulers.boundedElastic())
+        .doOnError(BLSRateLimitException.class, e -> metrics.recordBLSRefusal(priority))
+        .then(
+            Mono.defer(
+                () -> {
+                  Timer.Sample sample = metrics.startBLSRequest();
+                  log.info(
+                      "Sending request to BLS API: URL = {}, Series = {}, Years = {}-{}",
+                      apiUrl,
+                      request.getSeriesIds().size(),
+                      request.getStartYear(),
+                      request.getEndYear());
+                  BLSApiService.payloadLog.debug("BLS API request: {}", request);
+                  return webClient
+                      .post()
+                      .uri(apiUrl)
+                      .contentType(MediaType.APPLICATION_JSON)
+                      .bodyValue(request)
+                      .retrieve()
+                      .toEntityFlux(DataBuffer.class)
+                      .flatMap(
+                          response ->
+                              DataBufferUtils.join(response.getBody())
+                                  .map(body -> Tuples.of(response, body)))
+                      .timeout(
+                          responseTimeout,
+                          Mono.error(
+                              () ->
+                                  new TimeoutException(
+                                      "BLS API response not read within " + responseTimeout)))
+                      .flatMap(
+                          received -> {
+                            ResponseEntity<Flux<DataBuffer>> response = received.getT1();
+                            DataBuffer body = received.getT2();
+                            return Mono.fromCallable(
+                                () -> {
+                                  int bodyBytes = body.readableByteCount();
+                                  if (BLSApiService.payloadLog.isDebugEnabled()) {
+                                    BLSApiService.payloadLog.debug(
+                                        "BLS API response: {}",
+                                        body.toString(
+                                            body.readPosition(),
+                                            bodyBytes,
+                                            StandardCharsets.UTF_8));
+                                  }
+                                  T result;
+                                  try (InputStream decoded = body.asInputStream(true)) {
+                                    result = reader.read(decoded);
+                                  }
+                                  metrics.recordBLSRequest(
+                                      sample,
+                                      priority,
+                                      String.valueOf(response.getStatusCode().value()),
+                                      bodyBytes);
+                                  return result;
+                                });
+                          })
+                      .doOnError(
+                          e ->
+                              metrics.recordBLSRequest(sample, priority, CPIMetrics.status(e), -1));
+                }));
+  }
+}
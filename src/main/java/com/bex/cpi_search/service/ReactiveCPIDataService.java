@@ -0,0 +1,372 @@
+package com.bex.cpi_search.service;
+
+import com.bex.cpi_search.model.BLSApiRequest;
+import com.bex.cpi_search.model.CPICacheKey;
+import com.bex.cpi_search.model.CPIConversion;
+import com.bex.cpi_search.model.CPIConversionResult;
+import com.bex.cpi_search.model.CPIData;
+import com.bex.cpi_search.model.CPIQuery;
+import com.bex.cpi_search.model.CPIQueryResult;
+import com.bex.cpi_search.model.SeriesBlock;
+import com.bex.cpi_search.repository.RedisRepository;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+/**
+ * Service class for managing CPI (Consumer Price Index) data without blocking, for the reactive
+ * request pipeline. It reads and writes the same cache as {@link CPIDataService}, and follows the
+ * same rules: concurrent fetches of the same data are coalesced, stale blocks are served while they
+ * are refreshed, and confirmed absences are not fetched again. Requests and cache round trips are
+ * chained rather than waited for, so a few event-loop threads can hold many pending requests.
+ */
+@Service
+@ConditionalOnProperty(name = "cpi.pipeline.mode", havingValue = "reactive")
+public class ReactiveCPIDataService {
+
+  /** Fetches data from the BLS API without blocking. */
+  @Autowired private ReactiveBLSApiService blsApiService;
+
+  /** Parses BLS API responses into series blocks. */
+  @Autowired private BLSResponseParser responseParser;
+
+  /** Reads and writes the cached series blocks. */
+  @Autowired private RedisRepository<CPICacheKey, SeriesBlock> redisRepository;
+
+  /** Reads months missing from the cache out of the legacy documents hash. */
+  @Autowired private KeyspaceMigrator keyspaceMigrator;
+
+  /** Counts how much of each form lookup the cache answers. */
+  @Autowired private CPIMetrics metrics;
+
+  /** The blocking service, whose planning and caching rules are shared. */
+  @Autowired private CPIDataService cpiDataService;
+
+  /** Answers inflation adjustments from memory. */
+  @Autowired private CPIIndex cpiIndex;
+
+  /** The maximum number of BLS API requests in flight at once for one lookup. */
+  @Value("${cpi.bls.fetch.max-concurrency:4}")
+  private int maxConcurrency;
+
+  private static final Logger log = LoggerFactory.getLogger(ReactiveCPIDataService.class);
+
+  /** The API fetches in flight by fetch key, so that concurrent callers share one. */
+  private final Map<String, Mono<Integer>> apiFetches = new ConcurrentHashMap<>();
+
+  /** The fetch keys of the background refreshes in flight, so each is started only once. */
+  private final Set<String> revalidating = ConcurrentHashMap.newKeySet();
+
+  /**
+   * Retrieves CPI values and notes for specific month, year, and series IDs.
+   *
+   * @param year the year of the CPI data
+   * @param month the month of the CPI data
+   * @param seriesIds the list of series IDs
+   * @return a Mono of a map of series IDs to CPIData, failing with a {@link
+   *     CPIDataNotFoundException} if BLS has no data for some of the series in the month
+   * @see CPIDataService#getCPIData(String, String, List)
+   */
+  public Mono<Map<String, CPIData>> getCPIData(
+      final String year, final String month, final List<String> seriesIds) {
+    log.debug("Retrieving CPI data for year: {}, month: {}, seriesIds: {}", year, month, seriesIds);
+
+    Set<String> absentSeriesIds = new HashSet<>();
+    return fetchCachedData(year, month, seriesIds, absentSeriesIds)
+        .flatMap(
+            cachedData -> {
+              metrics.recordCacheLookup(
+                  cachedData.size() + absentSeriesIds.size(), seriesIds.size());
+              if (cachedData.size() == seriesIds.size()) {
+                log.debug("Successfully retrieved all requested data from cache.");
+                return Mono.just(cachedData);
+              }
+
+              // Fetching again would not help while BLS's answer that the data is absent is recent
+              if (cachedData.size() + absentSeriesIds.size() == seriesIds.size()) {
+                log.debug(
+                    "BLS recently had no data for series IDs: {}; not fetching again.",
+                    absentSeriesIds);
+                return Mono.error(new CPIDataNotFoundException(year, month, absentSeriesIds));
+              }
+
+              log.info("Not all requested data found in cache. Fetching data from API...");
+              BLSApiRequest request = CPIDataService.createBLSApiRequest(year, seriesIds);
+              return fetchOnce(request, FetchPriority.INTERACTIVE)
+                  .then(fetchCachedData(year, month, seriesIds, new HashSet<>()))
+                  .flatMap(
+                      finalResult -> {
+                        if (finalResult.size() != seriesIds.size()) {
+                          List<String> missingSeriesIds = new ArrayList<>(seriesIds);
+                          missingSeriesIds.removeAll(finalResult.keySet());
+                          log.warn(
+                              "Data not found for series IDs after fetching from API: {}",
+                              missingSeriesIds);
+                          return Mono.error(
+                              new CPIDataNotFoundException(year, month, missingSeriesIds));
+                        }
+                        return Mono.just(finalResult);
+                      });
+            });
+  }
+
+  /**
+   * Resolves a batch of queries, each for a range of months of one series-year.
+   *
+   * @param queries the queries
+   * @return a Mono of the results, in the order of the queries
+   * @throws IllegalArgumentException if a query has no series ID, a year before 1913 or after the
+   *     current year, or an invalid month range
+   * @see CPIDataService#queryCPIData(List)
+   */
+  public Mono<List<CPIQueryResult>> queryCPIData(final List<CPIQuery> queries) {
+    int[][] monthRanges = new int[queries.size()][];
+    List<CPICacheKey> queryKeys = CPIDataService.queryKeys(queries, monthRanges);
+
+    Set<CPICacheKey> cacheKeys = new LinkedHashSet<>(queryKeys);
+    log.debug("Resolving {} CPI queries over {} series blocks", queries.size(), cacheKeys.size());
+    return getSeriesBlocks(cacheKeys, FetchPriority.INTERACTIVE)
+        .map(blocks -> CPIDataService.queryResults(queryKeys, monthRanges, blocks));
+  }
+
+  /**
+   * Converts a batch of amounts from one month to another by the ratio of the values of a CPI
+   * series in the two months, loading the series-years the in-memory {@link CPIIndex} cannot answer
+   * in one go.
+   *
+   * @param conversions the conversions
+   * @param defaultSeriesId the series ID of the conversions that do not name one
+   * @return a Mono of the results, in the order of the conversions; a result's converted amount is
+   *     null if the series has no value for one of its months
+   * @throws IllegalArgumentException if a conversion has a missing or non-finite amount, an invalid
+   *     month, or a year before 1913 or after the current year, or if the conversions name too many
+   *     distinct series
+   * @see CPIDataService#convertAmounts(List, String)
+   */
+  public Mono<List<CPIConversionResult>> convertAmounts(
+      final List<CPIConversion> conversions, final String defaultSeriesId) {
+    int count = conversions.size();
+    String[] seriesIds = new String[count];
+    int[] fromPeriods = new int[count];
+    int[] toPeriods = new int[count];
+    Set<CPICacheKey> missingKeys =
+        cpiDataService.conversionKeys(
+            conversions, defaultSeriesId, seriesIds, fromPeriods, toPeriods);
+
+    Mono<Void> indexed = Mono.empty();
+    if (!missingKeys.isEmpty()) {
+      log.debug("Indexing {} series blocks for {} conversions", missingKeys.size(), count);
+      indexed =
+          getSeriesBlocks(missingKeys, FetchPriority.INTERACTIVE).doOnNext(cpiIndex::load).then();
+    }
+    return indexed.then(
+        Mono.fromSupplier(
+            () ->
+                cpiDataService.conversionResults(conversions, seriesIds, fromPeriods, toPeriods)));
+  }
+
+  /**
+   * Retrieves the series-year blocks for the given cache keys, fetching the missing ones from the
+   * API at the given priority.
+   *
+   * @param cacheKeys the distinct cache keys of the blocks
+   * @param priority the priority of the API requests, if any are needed
+   * @return a Mono of the blocks by cache key; a block BLS has no data for is empty
+   * @see CPIDataService#getSeriesBlocks(Collection, FetchPriority)
+   */
+  public Mono<Map<CPICacheKey, SeriesBlock>> getSeriesBlocks(
+      final Collection<CPICacheKey> cacheKeys, final FetchPriority priority) {
+    return redisRepository
+        .getDocumentsReactive(cacheKeys)
+        .flatMap(
+            documents -> {
+              Map<CPICacheKey, SeriesBlock> cachedBlocks = new HashMap<>(documents);
+              cpiDataService.dropPartial(cachedBlocks);
+              revalidateStale(cachedBlocks);
+
+              List<CPICacheKey> missingKeys = new ArrayList<>();
+              for (CPICacheKey cacheKey : cacheKeys) {
+                if (!cachedBlocks.containsKey(cacheKey)) {
+                  missingKeys.add(cacheKey);
+                }
+              }
+              if (missingKeys.isEmpty()) {
+                return Mono.just(cachedBlocks);
+              }
+
+              log.info(
+                  "{} of {} series blocks not found in cache. Fetching them from API...",
+                  missingKeys.size(),
+                  cacheKeys.size());
+              return fetchAndCacheAll(CPIDataService.groupYears(missingKeys), priority)
+                  // Read back only the blocks that were missing
+                  .then(redisRepository.getDocumentsReactive(missingKeys))
+                  .map(
+                      fetched -> {
+                        cachedBlocks.putAll(fetched);
+                        return cachedBlocks;
+                      });
+            });
+  }
+
+  /**
+   * Starts a background refresh of the cached blocks that are stale, without waiting for it.
+   *
+   * @param cachedBlocks the blocks read from the cache, by key
+   */
+  private void revalidateStale(final Map<CPICacheKey, SeriesBlock> cachedBlocks) {
+    for (BLSApiRequest request : cpiDataService.planStaleRefreshes(cachedBlocks)) {
+      String fetchKey = CPIDataService.generateFetchKey(request);
+      if (!revalidating.add(fetchKey)) {
+        continue;
+      }
+      log.info("Serving stale series blocks while refreshing them: {}", fetchKey);
+      fetchOnce(request, FetchPriority.BACKGROUND)
+          .doFinally(signal -> revalidating.remove(fetchKey))
+          .subscribe(
+              cached -> {},
+              failure ->
+                  log.warn("Background refresh of {} failed: {}", fetchKey, failure.getMessage()));
+    }
+  }
+
+  /**
+   * Fetches CPI data for the given years of each series from the API in as few requests as its
+   * limits allow, and caches it. At most {@link #maxConcurrency} requests are in flight at once;
+   * the first failure cancels the rest.
+   *
+   * @param yearsBySeries the years to fetch for each series ID
+   * @param priority the priority of the API requests
+   * @return a Mono completing once every request is cached
+   */
+  private Mono<Void> fetchAndCacheAll(
+      final Map<String, List<Integer>> yearsBySeries, final FetchPriority priority) {
+    return Flux.fromIterable(cpiDataService.requestPlanner().plan(yearsBySeries))
+        .flatMap(request -> fetchOnce(request, priority), maxConcurrency)
+        .reduce(0, Integer::sum)
+        .doOnNext(cachedBlocks -> log.debug("Cached {} series blocks from the API", cachedBlocks))
+        .then();
+  }
+
+  /**
+   * Fetches and caches a request, sharing a fetch already in flight for the same request.
+   *
+   * @param request the API request
+   * @param priority the priority of the API request, if it is not already in flight
+   * @return a Mono of the number of series blocks cached
+   */
+  private Mono<Integer> fetchOnce(final BLSApiRequest request, final FetchPriority priority) {
+    String fetchKey = CPIDataService.generateFetchKey(request);
+    return singleFlight(fetchKey, () -> fetchAndCacheFromAPI(request, priority));
+  }
+
+  /**
+   * Shares one subscription to a fetch between every caller that asks for the same key while it is
+   * in flight.
+   *
+   * @param fetchKey the key identifying the fetch
+   * @param fetch creates the fetch, if none is in flight
+   * @return a Mono of the result of the shared fetch
+   */
+  private Mono<Integer> singleFlight(final String fetchKey, final Supplier<Mono<Integer>> fetch) {
+    return Mono.defer(
+        () ->
+            apiFetches.computeIfAbsent(
+                fetchKey, key -> fetch.get().doFinally(signal -> apiFetches.remove(key)).cache()));
+  }
+
+  /**
+   * Fetches CPI data for the full years of a request from the API and caches it as one block per
+   * series-year.
+   *
+   * @param request the API request
+   * @param priority the priority of the API request
+   * @return a Mono of the number of series blocks cached, failing with a {@link
+   *     BLSRateLimitException} if the API request would exceed, or has exceeded, the BLS API limits
+   */
+  private Mono<Integer> fetchAndCacheFromAPI(
+      final BLSApiRequest request, final FetchPriority priority) {
+    log.info(
+        "Fetching CPI data from API for years: {}-{}, seriesIds: {}",
+        request.getStartYear(),
+        request.getEndYear(),
+        request.getSeriesIds());
+
+    return blsApiService
+        .fetchData(request, priority, responseParser::parse)
+        .flatMap(
+            response -> {
+              Map<CPICacheKey, SeriesBlock> blocks =
+                  cpiDataService.blocksToCache(request, response);
+              return redisRepository
+                  .saveDocumentsReactive(
+                      blocks, cacheKey -> cpiDataService.blockTtl(cacheKey, blocks.get(cacheKey)))
+                  .doOnSuccess(saved -> cpiIndex.refresh(blocks))
+                  .thenReturn(blocks.size());
+            });
+  }
+
+  /**
+   * Retrieves CPI data from the cache for the specified year, month, and series IDs.
+   *
+   * @param year the year of the CPI data
+   * @param month the month of the CPI data
+   * @param seriesIds the list of series IDs
+   * @param absentSeriesIds receives the series IDs whose cached block confirms that BLS has no data
+   *     for the month
+   * @return a Mono of a map of series IDs to CPIData retrieved from cache
+   */
+  private Mono<Map<String, CPIData>> fetchCachedData(
+      final String year,
+      final String month,
+      final List<String> seriesIds,
+      final Set<String> absentSeriesIds) {
+    Map<CPICacheKey, String> cacheKeys = new LinkedHashMap<>();
+    for (String seriesId : seriesIds) {
+      cacheKeys.put(CPIDataService.generateCacheKey(year, seriesId), seriesId);
+    }
+
+    return redisRepository
+        .getDocumentsReactive(cacheKeys.keySet())
+        .flatMap(
+            cachedBlocks -> {
+              revalidateStale(cachedBlocks);
+              Map<String, CPIData> result =
+                  cpiDataService.readMonth(year, month, cacheKeys, cachedBlocks, absentSeriesIds);
+              if (result.size() + absentSeriesIds.size() == seriesIds.size()) {
+                return Mono.just(result);
+              }
+
+              // Entries not yet moved out of earlier cache layouts are still served; the legacy
+              // layout is only read through the blocking client, off the event loop
+              List<String> missingSeriesIds = new ArrayList<>(seriesIds);
+              missingSeriesIds.removeAll(result.keySet());
+              missingSeriesIds.removeAll(absentSeriesIds);
+              return Mono.fromCallable(
+                      () -> keyspaceMigrator.readLegacy(year, month, missingSeriesIds))
+                  .subscribeOn(Schedulers.boundedElastic())
+                  .map(
+                      legacy -> {
+                        result.putAll(legacy);
+                        return result;
+                      });
+            });
+  }
+}
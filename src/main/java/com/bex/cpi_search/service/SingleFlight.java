@@ -0,0 +1,130 @@
+package com.bex.cpi_search.service;
+
+import java.io.IOException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Coalesces concurrent calls for the same key into a single execution. The first caller for a key
+ * (the leader) runs the loader; every caller arriving while that load is in flight waits on the
+ * leader's result instead of starting its own.
+ *
+ * @param <K> the type of the key identifying a unit of work
+ * @param <V> the type of the result of a unit of work
+ */
+public final class SingleFlight<K, V> {
+
+  /**
+   * A unit of work that may fail with an {@link IOException}.
+   *
+   * @param <V> the type of the result
+   */
+  @FunctionalInterface
+  public interface Loader<V> {
+
+    /**
+     * Performs the work.
+     *
+     * @return the result of the work
+     * @throws IOException if the work fails
+     */
+    V load() throws IOException;
+  }
+
+  /** The loads currently in flight, keyed by unit of work. */
+  private final ConcurrentMap<K, CompletableFuture<V>> inFlight = new ConcurrentHashMap<>();
+
+  /** The number of calls that ran the loader themselves. */
+  private final LongAdder leaderCalls = new LongAdder();
+
+  /** The number of calls that waited on another caller's load. */
+  private final LongAdder coalescedCalls = new LongAdder();
+
+  /**
+   * Runs the loader for the given key, or waits for the load already in flight for that key.
+   *
+   * @param key the key identifying the unit of work
+   * @param loader the work to run if no load is in flight for the key
+   * @return the result of the load
+   * @throws IOException if the load fails with an {@link IOException}
+   */
+  public V execute(final K key, final Loader<V> loader) throws IOException {
+    CompletableFuture<V> created = new CompletableFuture<>();
+    CompletableFuture<V> existing = inFlight.putIfAbsent(key, created);
+
+    if (existing != null) {
+      coalescedCalls.increment();
+      return await(existing);
+    }
+
+    leaderCalls.increment();
+    try {
+      V value = loader.load();
+      created.complete(value);
+      return value;
+    } catch (IOException | RuntimeException | Error e) {
+      created.completeExceptionally(e);
+      throw e;
+    } finally {
+      inFlight.remove(key, created);
+    }
+  }
+
+  /**
+   * Gets the number of calls that ran the loader themselves.
+   *
+   * @return the number of leader calls
+   */
+  public long getLeaderCalls() {
+    return leaderCalls.sum();
+  }
+
+  /**
+   * Gets the number of calls that were coalesced onto another caller's load.
+   *
+   * @return the number of coalesced calls
+   */
+  public long getCoalescedCalls() {
+    return coalescedCalls.sum();
+  }
+
+  /**
+   * Gets the number of loads currently in flight.
+   *
+   * @return the number of in-flight loads
+   */
+  public int getInFlightCount() {
+    return inFlight.size();
+  }
+
+  /**
+   * Waits for an in-flight load and unwraps its outcome.
+   *
+   * @param future the in-flight load
+   * @return the result of the load
+   * @throws IOException if the load failed with an {@link IOException}
+   */
+  private V await(final CompletableFuture<V> future) throws IOException {
+    try {
+      return future.get();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IOException("Interrupted while waiting for an in-flight fetch.", e);
+    } catch (ExecutionException e) {
+      Throwable cause = e.getCause();
+      if (cause instanceof IOException ioException) {
+        throw ioException;
+      }
+      if (cause instanceof RuntimeException runtimeException) {
+        throw runtimeException;
+      }
+      if (cause instanceof Error error) {
+        throw error;
+      }
+      throw new IOException("In-flight fetch failed.", cause);
+    }
+  }
+}
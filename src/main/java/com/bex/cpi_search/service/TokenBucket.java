@@ -0,0 +1,188 @@
+package com.bex.cpi_search.service;
+
+import java.time.Duration;
+import java.util.PriorityQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * A token bucket that callers wait on in priority order. Tokens are added at a fixed rate up to the
+ * capacity of the bucket, and each call takes one. Callers queue by priority, then by arrival, and
+ * only the caller at the head of the queue may take a token. A caller that would wait longer than
+ * the maximum wait is refused at once rather than queued.
+ *
+ * <p>Callers wait on a lock condition rather than a monitor, so that virtual threads waiting for a
+ * token release their carrier thread.
+ */
+public final class TokenBucket {
+
+  /** The number of tokens added per nanosecond. */
+  private final double tokensPerNanosecond;
+
+  /** The maximum number of tokens the bucket holds. */
+  private final double capacity;
+
+  /** The longest a caller may wait for a token, in nanoseconds. */
+  private final long maxWaitNanos;
+
+  /** Guards the bucket and its queue. */
+  private final ReentrantLock lock = new ReentrantLock();
+
+  /** Signalled when the head of the queue leaves, so that the next caller can take its place. */
+  private final Condition headLeft = lock.newCondition();
+
+  /** The callers waiting for a token, head first. */
+  private final PriorityQueue<Ticket> queue = new PriorityQueue<>();
+
+  /** The number of tokens in the bucket when it was last refilled. */
+  private double tokens;
+
+  /** When the bucket was last refilled, in {@link System#nanoTime()} units. */
+  private long refilledAt;
+
+  /** The arrival order of the next caller. */
+  private long nextSequence;
+
+  /**
+   * A caller's place in the queue.
+   *
+   * @param priority the ordinal of the caller's priority
+   * @param sequence the caller's arrival order
+   */
+  private record Ticket(int priority, long sequence) implements Comparable<Ticket> {
+
+    @Override
+    public int compareTo(final Ticket other) {
+      int byPriority = Integer.compare(priority, other.priority);
+      return byPriority != 0 ? byPriority : Long.compare(sequence, other.sequence);
+    }
+  }
+
+  /**
+   * Constructs a full token bucket.
+   *
+   * @param tokensPerSecondValue the number of tokens added per second
+   * @param capacityValue the maximum number of tokens the bucket holds
+   * @param maxWaitValue the longest a caller may wait for a token
+   */
+  public TokenBucket(
+      final double tokensPerSecondValue, final int capacityValue, final Duration maxWaitValue) {
+    if (tokensPerSecondValue <= 0 || capacityValue < 1) {
+      throw new IllegalArgumentException("Token rate and capacity must be positive.");
+    }
+    this.tokensPerNanosecond = tokensPerSecondValue / TimeUnit.SECONDS.toNanos(1);
+    this.capacity = capacityValue;
+    this.maxWaitNanos = maxWaitValue.toNanos();
+    this.tokens = capacityValue;
+    this.refilledAt = System.nanoTime();
+  }
+
+  /**
+   * Takes a token, waiting behind callers of the same or higher priority until one is available.
+   *
+   * @param priority the priority of the caller
+   * @throws BLSRateLimitException if the caller would wait, or has waited, longer than the maximum
+   *     wait
+   * @throws InterruptedException if the caller is interrupted while waiting
+   */
+  public void acquire(final FetchPriority priority) throws InterruptedException {
+    lock.lock();
+    try {
+      awaitToken(priority);
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * Gets the number of callers waiting for a token.
+   *
+   * @return the number of waiting callers
+   */
+  public int getQueueLength() {
+    lock.lock();
+    try {
+      return queue.size();
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * Queues the caller and waits until it takes a token. Must be called holding the lock.
+   *
+   * @param priority the priority of the caller
+   * @throws BLSRateLimitException if the caller would wait, or has waited, longer than the maximum
+   *     wait
+   * @throws InterruptedException if the caller is interrupted while waiting
+   */
+  private void awaitToken(final FetchPriority priority) throws InterruptedException {
+    long now = System.nanoTime();
+    refill(now);
+    Ticket ticket = new Ticket(priority.ordinal(), nextSequence++);
+
+    // Refuse at once if the callers ahead would use up every token until the maximum wait
+    long ahead = queue.stream().filter(waiting -> waiting.compareTo(ticket) < 0).count();
+    long expectedWait = nanosUntil(ahead + 1);
+    if (expectedWait > maxWaitNanos) {
+      throw rejected(expectedWait);
+    }
+
+    long deadline = now + maxWaitNanos;
+    queue.add(ticket);
+    try {
+      while (true) {
+        now = System.nanoTime();
+        refill(now);
+        boolean atHead = queue.peek() == ticket;
+        if (atHead && tokens >= 1) {
+          tokens -= 1;
+          return;
+        }
+        long remaining = deadline - now;
+        if (remaining <= 0) {
+          throw rejected(nanosUntil(1));
+        }
+        // The head waits for the next token; everyone else waits to be woken when the head leaves
+        long wait = atHead ? Math.min(remaining, nanosUntil(1)) : remaining;
+        headLeft.awaitNanos(Math.max(1, wait));
+      }
+    } finally {
+      queue.remove(ticket);
+      headLeft.signalAll();
+    }
+  }
+
+  /**
+   * Adds the tokens accrued since the last refill.
+   *
+   * @param now the current time, in {@link System#nanoTime()} units
+   */
+  private void refill(final long now) {
+    tokens = Math.min(capacity, tokens + (now - refilledAt) * tokensPerNanosecond);
+    refilledAt = now;
+  }
+
+  /**
+   * Gets the time until the bucket holds a number of tokens.
+   *
+   * @param count the number of tokens
+   * @return the time in nanoseconds, zero if the bucket already holds them
+   */
+  private long nanosUntil(final double count) {
+    double missing = count - tokens;
+    return missing <= 0 ? 0 : (long) Math.ceil(missing / tokensPerNanosecond);
+  }
+
+  /**
+   * Creates the exception refusing a caller.
+   *
+   * @param retryAfterNanos how long until the caller could be served, in nanoseconds
+   * @return the exception
+   */
+  private static BLSRateLimitException rejected(final long retryAfterNanos) {
+    return new BLSRateLimitException(
+        "Too many BLS API requests; try again shortly.", Duration.ofNanos(retryAfterNanos));
+  }
+}
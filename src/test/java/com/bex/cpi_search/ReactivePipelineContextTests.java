@@ -0,0 +1,57 @@
+package com.bex.cpi_search;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.bex.cpi_search.controller.CPIDataController;
+import com.bex.cpi_search.controller.ReactiveCPIDataController;
+import com.bex.cpi_search.service.ReactiveCPIDataService;
+import org.junit.jupiter.api.Test;
+import org.mockito.Answers;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.ApplicationContext;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.test.web.reactive.server.WebTestClient;
+
+@SpringBootTest(
+    webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+    properties = {
+      "cpi.pipeline.mode=reactive",
+      "spring.redis.host=localhost",
+      "spring.redis.port=6379",
+      "spring.redis.password=",
+      "spring.docker.compose.enabled=false",
+      "cpi.cache.warmer.enabled=false",
+      "cpi.cache.migration.enabled=false"
+    })
+public class ReactivePipelineContextTests {
+
+  // Every Redis connection is a mock, so the context starts without a Redis server
+  @MockBean(answer = Answers.RETURNS_MOCKS)
+  private LettuceConnectionFactory redisConnectionFactory;
+
+  @Autowired private ApplicationContext context;
+
+  @Autowired private WebTestClient webTestClient;
+
+  @Test
+  void startsTheReactivePipelineInPlaceOfTheServletOne() {
+    assertTrue(context.getBeansOfType(CPIDataController.class).isEmpty());
+    assertEquals(1, context.getBeanNamesForType(ReactiveCPIDataService.class).length);
+    assertEquals(1, context.getBeanNamesForType(ReactiveCPIDataController.class).length);
+  }
+
+  @Test
+  void servesTheRequestForm() {
+    webTestClient
+        .get()
+        .uri("/request-data")
+        .exchange()
+        .expectStatus()
+        .isOk()
+        .expectBody(String.class)
+        .value(body -> assertTrue(body.contains("<option value=\"LUU0202891000\">"), body));
+  }
+}
@@ -0,0 +1,123 @@
+package com.bex.cpi_search.controller;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+
+import com.bex.cpi_search.model.CPIData;
+import com.bex.cpi_search.service.CPIDataService;
+import com.bex.cpi_search.service.CacheExpiryPolicy;
+import java.time.Duration;
+import java.time.Year;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.ui.ExtendedModelMap;
+import org.springframework.web.context.request.ServletWebRequest;
+
+public class CPIDataControllerTests {
+
+  private static final List<String> SERIES_IDS = List.of("CUUR0000SA0", "CUUR0000AA0");
+
+  @Test
+  void revalidatesYearsPublishedInFullAgainstTheCachedData() throws Exception {
+    AtomicReference<String> cpiValue = new AtomicReference<>("236.119");
+    CPIDataController controller =
+        controller(
+            new CPIDataService() {
+              @Override
+              public Map<String, CPIData> getCPIData(
+                  final String year, final String month, final List<String> seriesIds) {
+                return Map.of("CUUR0000SA0", cpiData(cpiValue.get()));
+              }
+            });
+    String eTag =
+        CPIDataController.dataETag("2015", "March", Map.of("CUUR0000SA0", cpiData("236.119")));
+
+    MockHttpServletResponse unchanged = showForm(controller, eTag);
+    assertEquals(304, unchanged.getStatus());
+    assertEquals("max-age=86400, public", unchanged.getHeader(HttpHeaders.CACHE_CONTROL));
+
+    // An annual revision changes the cached data, and with it the ETag
+    cpiValue.set("236.120");
+    MockHttpServletResponse revised = showForm(controller, eTag);
+    assertEquals(200, revised.getStatus());
+    assertNotEquals(eTag, revised.getHeader(HttpHeaders.ETAG));
+  }
+
+  @Test
+  void forbidsStoringErrorPages() throws Exception {
+    CPIDataController controller =
+        controller(
+            new CPIDataService() {
+              @Override
+              public Map<String, CPIData> getCPIData(
+                  final String year, final String month, final List<String> seriesIds) {
+                throw new IllegalStateException("BLS API unavailable");
+              }
+            });
+    MockHttpServletRequest request = new MockHttpServletRequest("GET", "/request-data");
+    MockHttpServletResponse response = new MockHttpServletResponse();
+
+    String view =
+        controller.showForm(
+            SERIES_IDS,
+            Year.now().toString(),
+            "January",
+            new ServletWebRequest(request, response),
+            response,
+            new ExtendedModelMap());
+
+    assertEquals("error", view);
+    assertEquals("no-store", response.getHeader(HttpHeaders.CACHE_CONTROL));
+  }
+
+  @Test
+  void derivesTheDataETagFromTheValuesShown() {
+    assertEquals(
+        CPIDataController.dataETag("2015", "March", Map.of("CUUR0000SA0", cpiData("236.119"))),
+        CPIDataController.dataETag("2015", "march", Map.of("CUUR0000SA0", cpiData("236.119"))));
+    assertNotEquals(
+        CPIDataController.dataETag("2015", "March", Map.of("CUUR0000SA0", cpiData("236.119"))),
+        CPIDataController.dataETag("2015", "March", Map.of("CUUR0000SA0", cpiData("236.120"))));
+  }
+
+  private static CPIDataController controller(final CPIDataService cpiDataService) {
+    CacheExpiryPolicy expiryPolicy = new CacheExpiryPolicy();
+    ReflectionTestUtils.setField(expiryPolicy, "currentYearTtl", Duration.ofDays(1));
+    ReflectionTestUtils.setField(expiryPolicy, "pastYearsTtl", Duration.ofDays(400));
+    ReflectionTestUtils.setField(expiryPolicy, "negativeTtl", Duration.ofHours(1));
+    ReflectionTestUtils.setField(expiryPolicy, "freshFor", Duration.ofHours(6));
+    return new CPIDataController(
+        cpiDataService, expiryPolicy, SERIES_IDS, Duration.ofDays(1), Duration.ofMinutes(5));
+  }
+
+  private static MockHttpServletResponse showForm(
+      final CPIDataController controller, final String ifNoneMatch) throws Exception {
+    MockHttpServletRequest request = new MockHttpServletRequest("GET", "/request-data");
+    request.addHeader(HttpHeaders.IF_NONE_MATCH, ifNoneMatch);
+    MockHttpServletResponse response = new MockHttpServletResponse();
+    controller.showForm(
+        SERIES_IDS,
+        "2015",
+        "March",
+        new ServletWebRequest(request, response),
+        response,
+        new ExtendedModelMap());
+    return response;
+  }
+
+  private static CPIData cpiData(final String cpiValue) {
+    CPIData cpiData = new CPIData();
+    cpiData.setSeriesId("CUUR0000SA0");
+    cpiData.setYear("2015");
+    cpiData.setMonth("March");
+    cpiData.setCPIValue(cpiValue);
+    cpiData.setNotes(List.of());
+    return cpiData;
+  }
+}
@@ -0,0 +1,233 @@
+package com.bex.cpi_search.controller;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import com.bex.cpi_search.model.CPICacheKey;
+import com.bex.cpi_search.model.FootnoteDictionary;
+import com.bex.cpi_search.model.SeriesBlock;
+import com.bex.cpi_search.service.BLSRateLimitException;
+import com.bex.cpi_search.service.CPIDataExporter;
+import com.bex.cpi_search.service.CPIDataService;
+import com.bex.cpi_search.service.CPIIndex;
+import com.bex.cpi_search.service.CacheExpiryPolicy;
+import com.bex.cpi_search.service.FetchPriority;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Year;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.zip.GZIPInputStream;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.client.ResourceAccessException;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+public class CPIQueryControllerTests {
+
+  private static final CPICacheKey KEY = CPICacheKey.of("2015", "CUUR0000SA0");
+
+  private static final SeriesBlock BLOCK =
+      SeriesBlock.builder("CUUR0000SA0")
+          .add(SeriesBlock.period(2015, 1), "233.707", FootnoteDictionary.NO_NOTES)
+          .build();
+
+  private static final String QUERY =
+      "{\"queries\":[{\"seriesId\":\"CUUR0000SA0\",\"year\":\"%s\"}]}";
+
+  private static final String CONVERSION =
+      "{\"conversions\":[{%s\"fromYear\":\"2015\",\"fromMonth\":\"January\","
+          + "\"toYear\":\"2015\",\"toMonth\":\"January\"}]}";
+
+  private final AtomicReference<Exception> failure = new AtomicReference<>();
+
+  private final CPIDataService cpiDataService =
+      new CPIDataService() {
+        @Override
+        public Map<CPICacheKey, SeriesBlock> getSeriesBlocks(
+            final Collection<CPICacheKey> cacheKeys, final FetchPriority priority)
+            throws IOException {
+          if (failure.get() instanceof IOException e) {
+            throw e;
+          }
+          if (failure.get() instanceof RuntimeException e) {
+            throw e;
+          }
+          return cacheKeys.contains(KEY) ? Map.of(KEY, BLOCK) : Map.of();
+        }
+      };
+
+  @Test
+  void compressesTheExportForClientsAcceptingGzip() throws Exception {
+    CPIQueryController controller = controller();
+
+    ResponseEntity<StreamingResponseBody> response =
+        controller.export(List.of("CUUR0000SA0"), 2015, 2015, "csv", null, "br, gzip;q=0.8");
+    ByteArrayOutputStream body = new ByteArrayOutputStream();
+    response.getBody().writeTo(body);
+
+    assertEquals("gzip", response.getHeaders().getFirst(HttpHeaders.CONTENT_ENCODING));
+    try (GZIPInputStream gzip = new GZIPInputStream(new ByteArrayInputStream(body.toByteArray()))) {
+      assertEquals(
+          "seriesId,year,month,value,notes\nCUUR0000SA0,2015,January,233.707,\n",
+          new String(gzip.readAllBytes(), StandardCharsets.UTF_8));
+    }
+  }
+
+  @Test
+  void sendsTheExportUncompressedWhenGzipIsRefused() throws Exception {
+    CPIQueryController controller = controller();
+
+    ResponseEntity<StreamingResponseBody> response =
+        controller.export(List.of("CUUR0000SA0"), 2015, 2015, "csv", null, "gzip;q=0");
+    ByteArrayOutputStream body = new ByteArrayOutputStream();
+    response.getBody().writeTo(body);
+
+    assertNull(response.getHeaders().getFirst(HttpHeaders.CONTENT_ENCODING));
+    assertEquals(
+        "seriesId,year,month,value,notes\nCUUR0000SA0,2015,January,233.707,\n",
+        body.toString(StandardCharsets.UTF_8));
+  }
+
+  @Test
+  void rejectsExportsOfYearsBlsHasNotPublished() throws Exception {
+    MockMvc mockMvc = MockMvcBuilders.standaloneSetup(controller()).build();
+    String nextYear = String.valueOf(Year.now().getValue() + 1);
+
+    mockMvc
+        .perform(
+            get("/api/v1/cpi/export").param("seriesIds", "CUUR0000SA0").param("startYear", "0"))
+        .andExpect(status().isBadRequest());
+    mockMvc
+        .perform(
+            get("/api/v1/cpi/export").param("seriesIds", "CUUR0000SA0").param("endYear", nextYear))
+        .andExpect(status().isBadRequest());
+  }
+
+  @Test
+  void answersQueriesFromTheBlocksTheyRead() throws Exception {
+    MockMvc mockMvc = MockMvcBuilders.standaloneSetup(controller()).build();
+
+    mockMvc
+        .perform(
+            post("/api/v1/cpi/query")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(query("2015")))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.results[0].values[0].month").value("January"))
+        .andExpect(jsonPath("$.results[0].values[0].value").value("233.707"));
+  }
+
+  @Test
+  void rejectsQueriesForYearsBlsHasNotPublished() throws Exception {
+    MockMvc mockMvc = MockMvcBuilders.standaloneSetup(controller()).build();
+
+    for (String year : List.of("0000", "1912", String.valueOf(Year.now().getValue() + 1))) {
+      mockMvc
+          .perform(
+              post("/api/v1/cpi/query")
+                  .contentType(MediaType.APPLICATION_JSON)
+                  .content(query(year)))
+          .andExpect(status().isBadRequest())
+          .andExpect(content().contentType(MediaType.APPLICATION_PROBLEM_JSON));
+    }
+  }
+
+  @Test
+  void tellsClientsWhenToRetryOnceTheBlsLimitsAreReached() throws Exception {
+    MockMvc mockMvc = MockMvcBuilders.standaloneSetup(controller()).build();
+    failure.set(new BLSRateLimitException("Too many BLS API requests", Duration.ofMillis(1500)));
+
+    mockMvc
+        .perform(
+            post("/api/v1/cpi/query")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(query("2015")))
+        .andExpect(status().isTooManyRequests())
+        .andExpect(header().string(HttpHeaders.RETRY_AFTER, "2"));
+  }
+
+  @Test
+  void reportsBlsFailuresAsABadGateway() throws Exception {
+    MockMvc mockMvc = MockMvcBuilders.standaloneSetup(controller()).build();
+
+    failure.set(new IOException("Connection reset"));
+    mockMvc
+        .perform(
+            post("/api/v1/cpi/query")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(query("2015")))
+        .andExpect(status().isBadGateway());
+    failure.set(new ResourceAccessException("Read timed out"));
+    mockMvc
+        .perform(
+            post("/api/v1/cpi/query")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(query("2015")))
+        .andExpect(status().isBadGateway());
+  }
+
+  @Test
+  void convertsAmountsWithTheIndexedValues() throws Exception {
+    MockMvc mockMvc = MockMvcBuilders.standaloneSetup(controller()).build();
+
+    mockMvc
+        .perform(
+            post("/api/v1/cpi/convert")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(CONVERSION.formatted("\"amount\":100,")))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.results[0].seriesId").value("CUUR0000SA0"))
+        .andExpect(jsonPath("$.results[0].convertedAmount").value(100.0));
+  }
+
+  @Test
+  void rejectsConversionsWithoutAnAmount() throws Exception {
+    MockMvc mockMvc = MockMvcBuilders.standaloneSetup(controller()).build();
+
+    for (String amount : List.of("", "\"amount\":null,")) {
+      mockMvc
+          .perform(
+              post("/api/v1/cpi/convert")
+                  .contentType(MediaType.APPLICATION_JSON)
+                  .content(CONVERSION.formatted(amount)))
+          .andExpect(status().isBadRequest())
+          .andExpect(content().contentType(MediaType.APPLICATION_PROBLEM_JSON))
+          .andExpect(jsonPath("$.detail").value("Missing amount."));
+    }
+  }
+
+  private static String query(final String year) {
+    return QUERY.formatted(year);
+  }
+
+  private CPIQueryController controller() {
+    CPIDataExporter exporter = new CPIDataExporter();
+    ReflectionTestUtils.setField(exporter, "cpiDataService", cpiDataService);
+    ReflectionTestUtils.setField(exporter, "chunkSize", 100);
+    ReflectionTestUtils.setField(exporter, "maxSeries", 50);
+    ReflectionTestUtils.setField(exporter, "maxSeriesYears", 2500);
+    CPIIndex cpiIndex = new CPIIndex();
+    ReflectionTestUtils.setField(cpiIndex, "maxSeries", 100);
+    ReflectionTestUtils.setField(cpiDataService, "cpiIndex", cpiIndex);
+    ReflectionTestUtils.setField(cpiDataService, "expiryPolicy", new CacheExpiryPolicy());
+    ReflectionTestUtils.setField(cpiDataService, "maxConversionSeries", 10);
+    return new CPIQueryController(cpiDataService, exporter, 1000, 10000, "CUUR0000SA0");
+  }
+}
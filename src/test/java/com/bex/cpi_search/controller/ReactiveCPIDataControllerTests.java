@@ -0,0 +1,156 @@
+package com.bex.cpi_search.controller;
+
+import com.bex.cpi_search.model.CPIData;
+import com.bex.cpi_search.service.CPIDataNotFoundException;
+import com.bex.cpi_search.service.CacheExpiryPolicy;
+import com.bex.cpi_search.service.ReactiveCPIDataService;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Year;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.test.web.reactive.server.WebTestClient;
+import org.springframework.web.reactive.result.view.View;
+import org.springframework.web.reactive.result.view.ViewResolver;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+
+public class ReactiveCPIDataControllerTests {
+
+  private static final List<String> SERIES_IDS = List.of("CUUR0000SA0", "CUUR0000AA0");
+
+  private static final String LOOKUP =
+      "/request-data?seriesIds=CUUR0000SA0&year={year}&month=March";
+
+  /** Renders the name of each view and the CPI values of its model, in place of the templates. */
+  private static final ViewResolver VIEW_NAMES =
+      (viewName, locale) ->
+          Mono.just(
+              new View() {
+                @Override
+                public List<MediaType> getSupportedMediaTypes() {
+                  return List.of(MediaType.TEXT_HTML);
+                }
+
+                @Override
+                public Mono<Void> render(
+                    final Map<String, ?> model,
+                    final MediaType contentType,
+                    final ServerWebExchange exchange) {
+                  StringBuilder body = new StringBuilder(viewName);
+                  if (model.get("response") instanceof Map<?, ?> response) {
+                    response.forEach(
+                        (seriesId, cpiData) ->
+                            body.append(' ')
+                                .append(seriesId)
+                                .append('=')
+                                .append(((CPIData) cpiData).getCPIValue()));
+                  }
+                  byte[] bytes = body.toString().getBytes(StandardCharsets.UTF_8);
+                  return exchange
+                      .getResponse()
+                      .writeWith(Mono.just(exchange.getResponse().bufferFactory().wrap(bytes)));
+                }
+              });
+
+  @Test
+  void looksUpTheDataOfTheSelectedMonth() {
+    WebTestClient client = client(Mono.just(Map.of("CUUR0000SA0", cpiData("236.119"))));
+
+    client
+        .get()
+        .uri(LOOKUP, Year.now().toString())
+        .exchange()
+        .expectStatus()
+        .isOk()
+        .expectHeader()
+        .cacheControl(CacheControl.maxAge(Duration.ofMinutes(5)).cachePublic())
+        .expectHeader()
+        .exists(HttpHeaders.ETAG)
+        .expectBody(String.class)
+        .isEqualTo("request-response CUUR0000SA0=236.119");
+  }
+
+  @Test
+  void showsAnUncachedErrorPageWhenBlsHasNoData() {
+    WebTestClient client =
+        client(Mono.error(new CPIDataNotFoundException("2015", "March", List.of("CUUR0000SA0"))));
+
+    client
+        .get()
+        .uri(LOOKUP, "2015")
+        .exchange()
+        .expectStatus()
+        .isOk()
+        .expectHeader()
+        .valueEquals(HttpHeaders.CACHE_CONTROL, "no-store")
+        .expectHeader()
+        .doesNotExist(HttpHeaders.ETAG)
+        .expectBody(String.class)
+        .isEqualTo("error");
+  }
+
+  @Test
+  void answersNotModifiedWhileTheCachedDataIsUnchanged() {
+    WebTestClient client = client(Mono.just(Map.of("CUUR0000SA0", cpiData("236.119"))));
+    String eTag =
+        client
+            .get()
+            .uri(LOOKUP, "2015")
+            .exchange()
+            .expectStatus()
+            .isOk()
+            .returnResult(String.class)
+            .getResponseHeaders()
+            .getETag();
+
+    client
+        .get()
+        .uri(LOOKUP, "2015")
+        .header(HttpHeaders.IF_NONE_MATCH, eTag)
+        .exchange()
+        .expectStatus()
+        .isNotModified()
+        .expectHeader()
+        .valueEquals(HttpHeaders.CACHE_CONTROL, "max-age=86400, public")
+        .expectBody()
+        .isEmpty();
+  }
+
+  private static WebTestClient client(final Mono<Map<String, CPIData>> cpiData) {
+    ReactiveCPIDataService cpiDataService =
+        new ReactiveCPIDataService() {
+          @Override
+          public Mono<Map<String, CPIData>> getCPIData(
+              final String year, final String month, final List<String> seriesIds) {
+            return cpiData;
+          }
+        };
+    CacheExpiryPolicy expiryPolicy = new CacheExpiryPolicy();
+    ReflectionTestUtils.setField(expiryPolicy, "currentYearTtl", Duration.ofDays(1));
+    ReflectionTestUtils.setField(expiryPolicy, "pastYearsTtl", Duration.ofDays(400));
+    ReflectionTestUtils.setField(expiryPolicy, "negativeTtl", Duration.ofHours(1));
+    ReflectionTestUtils.setField(expiryPolicy, "freshFor", Duration.ofHours(6));
+    ReactiveCPIDataController controller =
+        new ReactiveCPIDataController(
+            cpiDataService, expiryPolicy, SERIES_IDS, Duration.ofDays(1), Duration.ofMinutes(5));
+    return WebTestClient.bindToController(controller)
+        .viewResolvers(registry -> registry.viewResolver(VIEW_NAMES))
+        .build();
+  }
+
+  private static CPIData cpiData(final String cpiValue) {
+    CPIData cpiData = new CPIData();
+    cpiData.setSeriesId("CUUR0000SA0");
+    cpiData.setYear("2015");
+    cpiData.setMonth("March");
+    cpiData.setCPIValue(cpiValue);
+    cpiData.setNotes(List.of());
+    return cpiData;
+  }
+}
@@ -0,0 +1,92 @@
+package com.bex.cpi_search.controller;
+
+import com.bex.cpi_search.model.CPICacheKey;
+import com.bex.cpi_search.model.FootnoteDictionary;
+import com.bex.cpi_search.model.SeriesBlock;
+import com.bex.cpi_search.service.CPIDataService;
+import com.bex.cpi_search.service.CPIIndex;
+import com.bex.cpi_search.service.CacheExpiryPolicy;
+import com.bex.cpi_search.service.FetchPriority;
+import com.bex.cpi_search.service.ReactiveCPIDataService;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.MediaType;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.test.web.reactive.server.WebTestClient;
+import reactor.core.publisher.Mono;
+
+public class ReactiveCPIQueryControllerTests {
+
+  private static final CPICacheKey KEY = CPICacheKey.of("2015", "CUUR0000SA0");
+
+  private static final SeriesBlock BLOCK =
+      SeriesBlock.builder("CUUR0000SA0")
+          .add(SeriesBlock.period(2015, 1), "233.707", FootnoteDictionary.NO_NOTES)
+          .build();
+
+  private static final String CONVERSION =
+      "{\"conversions\":[{%s\"fromYear\":\"2015\",\"fromMonth\":\"January\","
+          + "\"toYear\":\"2015\",\"toMonth\":\"January\"}]}";
+
+  private final WebTestClient client = client();
+
+  @Test
+  void convertsAmountsWithTheIndexedValues() {
+    client
+        .post()
+        .uri("/api/v1/cpi/convert")
+        .contentType(MediaType.APPLICATION_JSON)
+        .bodyValue(CONVERSION.formatted("\"amount\":100,"))
+        .exchange()
+        .expectStatus()
+        .isOk()
+        .expectBody()
+        .jsonPath("$.results[0].seriesId")
+        .isEqualTo("CUUR0000SA0")
+        .jsonPath("$.results[0].convertedAmount")
+        .isEqualTo(100.0);
+  }
+
+  @Test
+  void rejectsConversionsWithoutAnAmount() {
+    for (String amount : List.of("", "\"amount\":null,")) {
+      client
+          .post()
+          .uri("/api/v1/cpi/convert")
+          .contentType(MediaType.APPLICATION_JSON)
+          .bodyValue(CONVERSION.formatted(amount))
+          .exchange()
+          .expectStatus()
+          .isBadRequest()
+          .expectHeader()
+          .contentType(MediaType.APPLICATION_PROBLEM_JSON)
+          .expectBody()
+          .jsonPath("$.detail")
+          .isEqualTo("Missing amount.");
+    }
+  }
+
+  private static WebTestClient client() {
+    CPIIndex cpiIndex = new CPIIndex();
+    ReflectionTestUtils.setField(cpiIndex, "maxSeries", 100);
+    CPIDataService cpiDataService = new CPIDataService();
+    ReflectionTestUtils.setField(cpiDataService, "cpiIndex", cpiIndex);
+    ReflectionTestUtils.setField(cpiDataService, "expiryPolicy", new CacheExpiryPolicy());
+    ReflectionTestUtils.setField(cpiDataService, "maxConversionSeries", 10);
+    ReactiveCPIDataService reactiveCpiDataService =
+        new ReactiveCPIDataService() {
+          @Override
+          public Mono<Map<CPICacheKey, SeriesBlock>> getSeriesBlocks(
+              final Collection<CPICacheKey> cacheKeys, final FetchPriority priority) {
+            return Mono.just(cacheKeys.contains(KEY) ? Map.of(KEY, BLOCK) : Map.of());
+          }
+        };
+    ReflectionTestUtils.setField(reactiveCpiDataService, "cpiDataService", cpiDataService);
+    ReflectionTestUtils.setField(reactiveCpiDataService, "cpiIndex", cpiIndex);
+    return WebTestClient.bindToController(
+            new ReactiveCPIQueryController(reactiveCpiDataService, 1000, 10000, "CUUR0000SA0"))
+        .build();
+  }
+}
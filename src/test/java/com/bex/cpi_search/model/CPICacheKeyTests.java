@@ -0,0 +1,25 @@
+package com.bex.cpi_search.model;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import org.junit.jupiter.api.Test;
+
+public class CPICacheKeyTests {
+
+  @Test
+  void encodesSeriesYearBlock() {
+    CPICacheKey key = CPICacheKey.of("2024", "LUU0202891000");
+
+    assertEquals("cpi:v2:LUU0202891000:2024", key.blockKey());
+  }
+
+  @Test
+  void parsesBlockKey() {
+    assertEquals(
+        CPICacheKey.of("2024", "LUU0202891000"),
+        CPICacheKey.fromBlockKey("cpi:v2:LUU0202891000:2024"));
+    assertNull(CPICacheKey.fromBlockKey("cpi:LUU0202891000:2024"));
+    assertNull(CPICacheKey.fromBlockKey("cpi:v2::2024"));
+  }
+}
@@ -0,0 +1,50 @@
+package com.bex.cpi_search.model;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+public class SeriesBlockTests {
+
+  @Test
+  void sortsObservationsByPeriodAndKeepsLastDuplicate() {
+    SeriesBlock block =
+        SeriesBlock.builder("CUUR0000SA0")
+            .add(202403, "312.332", FootnoteDictionary.NO_NOTES)
+            .add(202401, "308.417", FootnoteDictionary.NO_NOTES)
+            .add(202403, "312.230", FootnoteDictionary.NO_NOTES)
+            .build();
+
+    assertEquals(2, block.size());
+    assertEquals(202401, block.periodAt(0));
+    assertEquals("312.230", block.valueTextAt(block.indexOf(202403)));
+    assertTrue(block.indexOf(202402) < 0);
+  }
+
+  @Test
+  void materializesCpiDataForOneObservation() {
+    List<String> notes = List.of("Code: P, Text: Preliminary.");
+    SeriesBlock block =
+        SeriesBlock.builder("LUU0202891000")
+            .add(SeriesBlock.period(2023, Months.ANNUAL), "-", FootnoteDictionary.idOf(notes))
+            .build();
+
+    CPIData cpiData = block.toCPIData(0);
+
+    assertEquals("LUU0202891000", cpiData.getSeriesId());
+    assertEquals("2023", cpiData.getYear());
+    assertEquals("Annual", cpiData.getMonth());
+    assertEquals("-", cpiData.getCPIValue());
+    assertEquals(notes, cpiData.getNotes());
+  }
+
+  @Test
+  void internsEqualFootnoteLists() {
+    int id = FootnoteDictionary.idOf(List.of("Code: R, Text: Revised"));
+
+    assertEquals(id, FootnoteDictionary.idOf(List.of("Code: R, Text: Revised")));
+    assertEquals(FootnoteDictionary.NO_NOTES, FootnoteDictionary.idOf(List.of()));
+  }
+}
@@ -0,0 +1,146 @@
+package com.bex.cpi_search.repository;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.bex.cpi_search.model.CPIData;
+import com.bex.cpi_search.model.FootnoteDictionary;
+import com.bex.cpi_search.model.SeriesBlock;
+import java.util.Arrays;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.serializer.GenericJackson2JsonRedisSerializer;
+import org.springframework.data.redis.serializer.SerializationException;
+
+public class CPIDataRedisSerializerTests {
+
+  private final CPIDataRedisSerializer serializer = new CPIDataRedisSerializer(512);
+
+  @Test
+  void roundTripsCpiData() {
+    CPIData cpiData =
+        cpiData("2024", "March", "308.417", List.of("Code: P, Text: Preliminary.", "Custom note"));
+
+    CPIData copy = (CPIData) serializer.deserialize(serializer.serialize(cpiData));
+
+    assertEquals("LUU0202891000", copy.getSeriesId());
+    assertEquals("2024", copy.getYear());
+    assertEquals("March", copy.getMonth());
+    assertEquals("308.417", copy.getCPIValue());
+    assertEquals(cpiData.getNotes(), copy.getNotes());
+  }
+
+  @Test
+  void keepsValuesThatAreNotPlainDecimalsAsText() {
+    for (String value : new String[] {"-", "1E+3", "0.000", "-12.5", "1.10"}) {
+      CPIData copy =
+          (CPIData)
+              serializer.deserialize(serializer.serialize(cpiData("2024", "Annual", value, null)));
+
+      assertEquals(value, copy.getCPIValue());
+      assertEquals("Annual", copy.getMonth());
+    }
+  }
+
+  @Test
+  void isSmallerThanJson() {
+    CPIData cpiData = cpiData("2024", "March", "308.417", List.of("Code: null, Text: null"));
+
+    int binary = serializer.serialize(cpiData).length;
+    int json = new GenericJackson2JsonRedisSerializer().serialize(cpiData).length;
+
+    assertTrue(binary * 4 < json, "binary " + binary + " bytes, JSON " + json + " bytes");
+  }
+
+  @Test
+  void deflatesLargePayloads() {
+    CPIDataRedisSerializer compressing = new CPIDataRedisSerializer(16);
+    CPIData cpiData = cpiData("2024", "May", "1.5", List.of("x".repeat(400)));
+
+    byte[] bytes = compressing.serialize(cpiData);
+    CPIData copy = (CPIData) compressing.deserialize(bytes);
+
+    assertTrue(bytes.length < 100);
+    assertEquals(cpiData.getNotes(), copy.getNotes());
+  }
+
+  @Test
+  void roundTripsSeriesBlocks() {
+    int preliminary = FootnoteDictionary.idOf(List.of("Code: P, Text: Preliminary."));
+    SeriesBlock block =
+        SeriesBlock.builder("CUUR0000SA0")
+            .add(202402, "310.326", FootnoteDictionary.NO_NOTES)
+            .add(202401, "308.417", FootnoteDictionary.NO_NOTES)
+            .add(202403, "-", preliminary)
+            .add(202413, "1.10", FootnoteDictionary.idOf(List.of("Custom note")))
+            .fetchedAt(1_717_171_717_171L)
+            .latestPeriod(202403)
+            .build();
+
+    SeriesBlock copy = (SeriesBlock) serializer.deserialize(serializer.serialize(block));
+
+    assertEquals("CUUR0000SA0", copy.getSeriesId());
+    assertEquals(1_717_171_717_171L, copy.getFetchedAt());
+    assertEquals(202403, copy.getLatestPeriod());
+    assertEquals(block.size(), copy.size());
+    for (int i = 0; i < block.size(); i++) {
+      assertEquals(block.periodAt(i), copy.periodAt(i));
+      assertEquals(block.valueTextAt(i), copy.valueTextAt(i));
+      assertEquals(block.footnotesAt(i), copy.footnotesAt(i));
+    }
+    assertEquals("1.10", copy.valueTextAt(copy.indexOf(202413)));
+  }
+
+  @Test
+  void readsSeriesBlocksWithoutFetchMetadata() {
+    SeriesBlock block =
+        SeriesBlock.builder("CUUR0000SA0")
+            .add(202401, "308.417", FootnoteDictionary.NO_NOTES)
+            .build();
+    byte[] bytes = serializer.serialize(block);
+    // Drop the fetch time and latest period, one byte each when zero, and mark the older format
+    byte[] untimed = Arrays.copyOf(bytes, bytes.length - 2);
+    untimed[1] = CPIDataRedisSerializer.FORMAT_SERIES_BLOCK;
+
+    SeriesBlock copy = (SeriesBlock) serializer.deserialize(untimed);
+
+    assertEquals("308.417", copy.valueTextAt(0));
+    assertEquals(0, copy.getFetchedAt());
+  }
+
+  @Test
+  void readsLegacyJsonValues() {
+    CPIData cpiData = cpiData("2023", "July", "99.9", List.of());
+    byte[] json = new GenericJackson2JsonRedisSerializer().serialize(cpiData);
+
+    Object copy = serializer.deserialize(json);
+
+    assertInstanceOf(CPIData.class, copy);
+    assertEquals("99.9", ((CPIData) copy).getCPIValue());
+  }
+
+  @Test
+  void rejectsTruncatedHeaders() {
+    assertThrows(
+        SerializationException.class,
+        () -> serializer.deserialize(new byte[] {CPIDataRedisSerializer.MAGIC}));
+    assertThrows(
+        SerializationException.class,
+        () ->
+            serializer.deserialize(
+                new byte[] {CPIDataRedisSerializer.MAGIC, CPIDataRedisSerializer.FORMAT_CPI_DATA}));
+  }
+
+  private static CPIData cpiData(
+      final String year, final String month, final String value, final List<String> notes) {
+    CPIData cpiData = new CPIData();
+    cpiData.setSeriesId("LUU0202891000");
+    cpiData.setYear(year);
+    cpiData.setMonth(month);
+    cpiData.setCPIValue(value);
+    cpiData.setNotes(notes);
+    return cpiData;
+  }
+}
@@ -0,0 +1,70 @@
+package com.bex.cpi_search.repository;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.jupiter.api.Test;
+
+public class NearCacheTests {
+
+  @Test
+  void evictsLeastRecentlyUsedEntryWhenFull() {
+    NearCache<String, String> cache = new NearCache<>(2, Duration.ZERO);
+    cache.put("a", "1");
+    cache.put("b", "2");
+    cache.get("a");
+    cache.put("c", "3");
+
+    assertEquals("1", cache.get("a"));
+    assertNull(cache.get("b"));
+    assertEquals("3", cache.get("c"));
+
+    CacheTierStats stats = cache.stats("near");
+    assertEquals(3, stats.getHits());
+    assertEquals(1, stats.getMisses());
+    assertEquals(1, stats.getEvictions());
+  }
+
+  @Test
+  void expiresEntriesAfterTtl() {
+    AtomicLong now = new AtomicLong();
+    NearCache<String, String> cache = new NearCache<>(10, Duration.ofSeconds(5), now::get);
+    cache.put("a", "1");
+
+    now.set(Duration.ofSeconds(4).toNanos());
+    assertEquals("1", cache.get("a"));
+
+    now.set(Duration.ofSeconds(5).toNanos());
+    assertNull(cache.get("a"));
+    assertEquals(0, cache.size());
+    assertEquals(1, cache.stats("near").getEvictions());
+  }
+
+  @Test
+  void invalidateRemovesEntry() {
+    NearCache<String, String> cache = new NearCache<>(10, Duration.ZERO);
+    cache.put("a", "1");
+    cache.invalidate("a");
+
+    assertNull(cache.get("a"));
+  }
+
+  @Test
+  void doesNotCacheAReadOverAnEntryChangedSinceTheReadStarted() {
+    NearCache<String, String> cache = new NearCache<>(10, Duration.ZERO);
+    long readVersion = cache.version();
+    cache.invalidate("a");
+
+    assertFalse(cache.putIfUnchanged("a", "stale", readVersion));
+    assertNull(cache.get("a"));
+
+    readVersion = cache.version();
+    assertTrue(cache.putIfUnchanged("a", "1", readVersion));
+    assertTrue(cache.putIfUnchanged("b", "2", readVersion));
+    assertEquals("1", cache.get("a"));
+  }
+}
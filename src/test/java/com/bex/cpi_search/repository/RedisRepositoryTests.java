@@ -0,0 +1,219 @@
+package com.bex.cpi_search.repository;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.bex.cpi_search.model.CPICacheKey;
+import com.bex.cpi_search.model.FootnoteDictionary;
+import com.bex.cpi_search.model.SeriesBlock;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.connection.DefaultMessage;
+import org.springframework.data.redis.connection.RedisStandaloneConfiguration;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.data.redis.serializer.StringRedisSerializer;
+import org.springframework.test.util.ReflectionTestUtils;
+
+public class RedisRepositoryTests {
+
+  private static final CPICacheKey KEY = CPICacheKey.of("2015", "CUUR0000SA0");
+
+  @SuppressWarnings("unchecked")
+  private final RedisTemplate<String, SeriesBlock> redisTemplate = mock(RedisTemplate.class);
+
+  @SuppressWarnings("unchecked")
+  private final ValueOperations<String, SeriesBlock> valueOps = mock(ValueOperations.class);
+
+  private final RedisMessageListenerContainer listenerContainer =
+      mock(RedisMessageListenerContainer.class);
+
+  @Test
+  void servesBlocksReadFromRedisFromTheNearCache() {
+    RedisRepository<CPICacheKey, SeriesBlock> repository = repository(true);
+    when(valueOps.multiGet(anyList())).thenReturn(List.of(block(236.119)));
+
+    repository.getDocuments(List.of(KEY));
+    repository.getDocuments(List.of(KEY));
+
+    verify(valueOps, times(1)).multiGet(anyList());
+  }
+
+  @Test
+  void doesNotCacheABlockInvalidatedWhileItWasRead() {
+    RedisRepository<CPICacheKey, SeriesBlock> repository = repository(true);
+    when(valueOps.multiGet(anyList()))
+        .thenAnswer(
+            invocation -> {
+              // Another node rewrites the block after Redis answered, before the answer is cached
+              repository.onMessage(invalidation(KEY.blockKey()), null);
+              return List.of(block(236.119));
+            });
+
+    repository.getDocuments(List.of(KEY));
+    repository.getDocuments(List.of(KEY));
+
+    verify(valueOps, times(2)).multiGet(anyList());
+  }
+
+  @Test
+  void bypassesTheNearCacheUntilSubscribed() {
+    RedisRepository<CPICacheKey, SeriesBlock> repository = repository(false);
+    when(valueOps.multiGet(anyList())).thenReturn(List.of(block(236.119)));
+
+    repository.getDocuments(List.of(KEY));
+    repository.getDocuments(List.of(KEY));
+
+    verify(valueOps, times(2)).multiGet(anyList());
+  }
+
+  @Test
+  void clearsTheNearCacheWhenSubscribedAgain() {
+    RedisRepository<CPICacheKey, SeriesBlock> repository = repository(true);
+    AtomicInteger clears = new AtomicInteger();
+    repository.addClearListener(clears::incrementAndGet);
+    when(valueOps.multiGet(anyList())).thenReturn(List.of(block(236.119)));
+
+    repository.getDocuments(List.of(KEY));
+    repository.onChannelSubscribed(
+        RedisRepository.INVALIDATION_CHANNEL.getBytes(StandardCharsets.UTF_8), 1);
+    repository.getDocuments(List.of(KEY));
+
+    assertEquals(1, clears.get());
+    verify(valueOps, times(2)).multiGet(anyList());
+  }
+
+  @Test
+  @SuppressWarnings("unchecked")
+  void mergesAgainWhenTheCompareAndSetLoses() {
+    RedisRepository<CPICacheKey, SeriesBlock> repository = repository(true);
+    CPIDataRedisSerializer serializer = new CPIDataRedisSerializer(512);
+    when(redisTemplate.getValueSerializer()).thenReturn((RedisSerializer) serializer);
+    byte[] saved = serializer.serialize(block(236.119));
+    when(redisTemplate.execute(any(RedisCallback.class))).thenReturn(List.of(saved));
+    when(redisTemplate.executePipelined(any(RedisCallback.class)))
+        .thenReturn(List.of(0L))
+        .thenReturn(List.of(1L));
+
+    Set<CPICacheKey> settled =
+        repository.mergeDocuments(
+            Map.of(KEY, block(236.120)), (current, merged) -> merged, key -> Duration.ZERO);
+
+    assertEquals(Set.of(KEY), settled);
+    verify(redisTemplate, times(2)).executePipelined(any(RedisCallback.class));
+  }
+
+  @Test
+  @SuppressWarnings("unchecked")
+  void givesUpMergingBlocksStillContendedAfterTheLastAttempt() {
+    RedisRepository<CPICacheKey, SeriesBlock> repository = repository(true);
+    CPIDataRedisSerializer serializer = new CPIDataRedisSerializer(512);
+    when(redisTemplate.getValueSerializer()).thenReturn((RedisSerializer) serializer);
+    when(redisTemplate.execute(any(RedisCallback.class)))
+        .thenReturn(List.of(serializer.serialize(block(236.119))));
+    when(redisTemplate.executePipelined(any(RedisCallback.class))).thenReturn(List.of(0L));
+
+    Set<CPICacheKey> settled =
+        repository.mergeDocuments(
+            Map.of(KEY, block(236.120)), (current, merged) -> merged, key -> Duration.ZERO);
+
+    assertTrue(settled.isEmpty());
+    verify(redisTemplate, times(RedisRepository.MAX_MERGE_ATTEMPTS))
+        .executePipelined(any(RedisCallback.class));
+  }
+
+  @Test
+  void compareAndSetScriptOnlyWritesOverTheBlockItMergedWith() {
+    LettuceConnectionFactory connectionFactory =
+        new LettuceConnectionFactory(new RedisStandaloneConfiguration("localhost", 6379));
+    connectionFactory.afterPropertiesSet();
+    connectionFactory.start();
+    try {
+      assumeTrue(isReachable(connectionFactory), "Redis is not running on localhost:6379");
+      RedisTemplate<String, SeriesBlock> template = new RedisTemplate<>();
+      template.setConnectionFactory(connectionFactory);
+      template.setKeySerializer(new StringRedisSerializer());
+      template.setValueSerializer(new CPIDataRedisSerializer(512));
+      template.afterPropertiesSet();
+      CPICacheKey key = CPICacheKey.of("2015", "TEST" + System.nanoTime());
+      RedisRepository<CPICacheKey, SeriesBlock> repository = repository(false);
+      ReflectionTestUtils.setField(repository, "redisTemplate", template);
+      AtomicBoolean rewritten = new AtomicBoolean();
+
+      try {
+        template.opsForValue().set(key.blockKey(), block(236.119));
+        Set<CPICacheKey> settled =
+            repository.mergeDocuments(
+                Map.of(key, block(236.121)),
+                (current, merged) -> {
+                  // Another writer saves a block after this one was read, so the first write loses
+                  if (rewritten.compareAndSet(false, true)) {
+                    template.opsForValue().set(key.blockKey(), block(236.120));
+                  }
+                  return current.valueAt(0) < merged.valueAt(0) ? merged : null;
+                },
+                cacheKey -> Duration.ofMinutes(1));
+
+        assertEquals(Set.of(key), settled);
+        assertEquals(236.121, template.opsForValue().get(key.blockKey()).valueAt(0));
+        assertTrue(template.getExpire(key.blockKey()) > 0);
+      } finally {
+        template.delete(key.blockKey());
+      }
+    } finally {
+      connectionFactory.destroy();
+    }
+  }
+
+  private RedisRepository<CPICacheKey, SeriesBlock> repository(final boolean subscribed) {
+    when(redisTemplate.opsForValue()).thenReturn(valueOps);
+    when(listenerContainer.isListening()).thenReturn(subscribed);
+    RedisRepository<CPICacheKey, SeriesBlock> repository = new RedisRepository<>();
+    ReflectionTestUtils.setField(repository, "redisTemplate", redisTemplate);
+    ReflectionTestUtils.setField(repository, "listenerContainer", listenerContainer);
+    ReflectionTestUtils.setField(repository, "nearCacheMaxEntries", 100);
+    ReflectionTestUtils.setField(repository, "nearCacheTtl", Duration.ofMinutes(10));
+    repository.init();
+    return repository;
+  }
+
+  private static DefaultMessage invalidation(final String blockKey) {
+    return new DefaultMessage(
+        RedisRepository.INVALIDATION_CHANNEL.getBytes(StandardCharsets.UTF_8),
+        ("other-node" + RedisRepository.MESSAGE_SEPARATOR + blockKey)
+            .getBytes(StandardCharsets.UTF_8));
+  }
+
+  private static boolean isReachable(final LettuceConnectionFactory connectionFactory) {
+    try {
+      connectionFactory.getConnection().close();
+      return true;
+    } catch (RuntimeException e) {
+      return false;
+    }
+  }
+
+  private static SeriesBlock block(final double value) {
+    return SeriesBlock.builder("CUUR0000SA0")
+        .add(201503, value, 3, FootnoteDictionary.NO_NOTES)
+        .fetchedAt(1)
+        .build();
+  }
+}
@@ -0,0 +1,205 @@
+package com.bex.cpi_search.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.bex.cpi_search.config.AppConfig;
+import com.bex.cpi_search.model.BLSApiRequest;
+import com.sun.net.httpserver.HttpServer;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.micrometer.observation.ObservationRegistry;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.zip.GZIPOutputStream;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.client.ResourceAccessException;
+
+public class BLSApiServiceTests {
+
+  private static final String RESPONSE = "{\"status\":\"REQUEST_SUCCEEDED\",\"message\":[]}";
+
+  private HttpServer server;
+
+  private BLSApiService blsApiService;
+
+  private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+  private final AtomicReference<String> acceptEncoding = new AtomicReference<>();
+
+  @BeforeEach
+  void startStubServer() throws IOException {
+    server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+    server.createContext(
+        "/data",
+        exchange -> {
+          acceptEncoding.set(exchange.getRequestHeaders().getFirst("Accept-Encoding"));
+          byte[] body = gzip(RESPONSE);
+          exchange.getResponseHeaders().set("Content-Type", "application/json");
+          exchange.getResponseHeaders().set("Content-Encoding", "gzip");
+          exchange.sendResponseHeaders(200, body.length);
+          try (OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+          }
+        });
+    server.createContext(
+        "/slow",
+        exchange -> {
+          try {
+            Thread.sleep(2000);
+          } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+          }
+          exchange.sendResponseHeaders(200, -1);
+          exchange.close();
+        });
+    server.createContext(
+        "/trickle",
+        exchange -> {
+          exchange.sendResponseHeaders(200, RESPONSE.length());
+          try (OutputStream out = exchange.getResponseBody()) {
+            for (byte b : RESPONSE.getBytes(StandardCharsets.UTF_8)) {
+              out.write(b);
+              out.flush();
+              Thread.sleep(100);
+            }
+          } catch (IOException | InterruptedException e) {
+            // The client gave up on the response
+          }
+        });
+    server.start();
+  }
+
+  @AfterEach
+  void stopStubServer() {
+    server.stop(0);
+  }
+
+  @Test
+  void requestsAndDecodesGzipResponses() {
+    blsApiService = service("/data", Duration.ofSeconds(5));
+
+    String body = blsApiService.fetchData(request());
+
+    assertEquals("gzip", acceptEncoding.get());
+    assertEquals(RESPONSE, body);
+  }
+
+  @Test
+  void failsWhenTheServerIsSlowerThanTheReadTimeout() {
+    blsApiService = service("/slow", Duration.ofMillis(200));
+
+    assertThrows(ResourceAccessException.class, () -> blsApiService.fetchData(request()));
+  }
+
+  @Test
+  void failsWhenTheBodyIsNotReadWithinTheResponseTimeout() {
+    blsApiService = service("/trickle", Duration.ofSeconds(5), Duration.ofMillis(500));
+
+    long start = System.nanoTime();
+    assertThrows(ResourceAccessException.class, () -> blsApiService.fetchData(request()));
+    assertTrue(Duration.ofNanos(System.nanoTime() - start).compareTo(Duration.ofSeconds(2)) < 0);
+  }
+
+  @Test
+  void recordsTheStatusAndDecodedSizeOfEachCall() {
+    blsApiService = service("/data", Duration.ofSeconds(5));
+    blsApiService.fetchData(request());
+
+    assertEquals(
+        1,
+        meterRegistry
+            .get(CPIMetrics.BLS_REQUESTS)
+            .tags("priority", "INTERACTIVE", "status", "200", "outcome", "SUCCESS")
+            .timer()
+            .count());
+    DistributionSummary responseSize = meterRegistry.get(CPIMetrics.BLS_RESPONSE_SIZE).summary();
+    assertEquals(RESPONSE.length(), responseSize.totalAmount());
+  }
+
+  @Test
+  void recordsCallsThatFailWithoutAResponse() {
+    blsApiService = service("/slow", Duration.ofMillis(200));
+    assertThrows(ResourceAccessException.class, () -> blsApiService.fetchData(request()));
+
+    assertEquals(
+        1,
+        meterRegistry
+            .get(CPIMetrics.BLS_REQUESTS)
+            .tags("status", "IO_ERROR", "outcome", "UNKNOWN")
+            .timer()
+            .count());
+  }
+
+  @Test
+  void countsCallsTheRateLimiterRefusesApartFromTheCallsSent() {
+    BLSRateLimiter rateLimiter = new BLSRateLimiter(0.001, 1, Duration.ZERO, 0, 0, null);
+    blsApiService = service("/data", Duration.ofSeconds(5), Duration.ofSeconds(10), rateLimiter);
+
+    blsApiService.fetchData(request());
+    assertThrows(BLSRateLimitException.class, () -> blsApiService.fetchData(request()));
+
+    assertEquals(1, meterRegistry.get(CPIMetrics.BLS_REQUESTS).timer().count());
+    assertEquals(
+        1,
+        meterRegistry
+            .get(CPIMetrics.BLS_REFUSALS)
+            .tags("priority", "INTERACTIVE")
+            .counter()
+            .count());
+  }
+
+  private BLSApiService service(final String path, final Duration readTimeout) {
+    return service(path, readTimeout, Duration.ofSeconds(10));
+  }
+
+  private BLSApiService service(
+      final String path, final Duration readTimeout, final Duration responseTimeout) {
+    return service(
+        path,
+        readTimeout,
+        responseTimeout,
+        new BLSRateLimiter(100, 10, Duration.ofSeconds(1), 0, 0, null));
+  }
+
+  private BLSApiService service(
+      final String path,
+      final Duration readTimeout,
+      final Duration responseTimeout,
+      final BLSRateLimiter rateLimiter) {
+    String url = "http://localhost:" + server.getAddress().getPort() + path;
+    return new BLSApiService(
+        new AppConfig().restTemplate(Duration.ofSeconds(1), readTimeout),
+        url,
+        rateLimiter,
+        new CPIMetrics(meterRegistry),
+        ObservationRegistry.NOOP,
+        responseTimeout);
+  }
+
+  private static BLSApiRequest request() {
+    BLSApiRequest request = new BLSApiRequest();
+    request.setSeriesIds(List.of("CUUR0000SA0"));
+    request.setStartYear("2024");
+    request.setEndYear("2024");
+    return request;
+  }
+
+  private static byte[] gzip(final String text) throws IOException {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    try (GZIPOutputStream out = new GZIPOutputStream(bytes)) {
+      out.write(text.getBytes(StandardCharsets.UTF_8));
+    }
+    return bytes.toByteArray();
+  }
+}
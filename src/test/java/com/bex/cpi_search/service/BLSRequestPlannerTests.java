@@ -0,0 +1,46 @@
+package com.bex.cpi_search.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.bex.cpi_search.model.BLSApiRequest;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.IntStream;
+import org.junit.jupiter.api.Test;
+
+public class BLSRequestPlannerTests {
+
+  @Test
+  void splitsSeriesAndYearsToRequestLimits() {
+    Map<String, List<Integer>> missing = new LinkedHashMap<>();
+    for (int s = 0; s < 3; s++) {
+      missing.put("S" + s, IntStream.rangeClosed(2000, 2024).boxed().toList());
+    }
+
+    List<BLSApiRequest> requests = new BLSRequestPlanner(2, 20).plan(missing);
+
+    assertEquals(4, requests.size());
+    assertEquals(List.of("S0", "S1"), requests.get(0).getSeriesIds());
+    assertEquals("2000", requests.get(0).getStartYear());
+    assertEquals("2019", requests.get(0).getEndYear());
+    assertEquals("2020", requests.get(1).getStartYear());
+    assertEquals("2024", requests.get(1).getEndYear());
+    assertEquals(List.of("S2"), requests.get(2).getSeriesIds());
+  }
+
+  @Test
+  void skipsYearsThatAreNotMissing() {
+    Map<String, List<Integer>> missing = new LinkedHashMap<>();
+    missing.put("S0", List.of(1990, 1991, 2020));
+    missing.put("S1", List.of());
+
+    List<BLSApiRequest> requests = new BLSRequestPlanner(50, 20).plan(missing);
+
+    assertEquals(2, requests.size());
+    assertEquals("1991", requests.get(0).getEndYear());
+    assertEquals("2020", requests.get(1).getStartYear());
+    assertTrue(requests.stream().allMatch(r -> r.getSeriesIds().equals(List.of("S0"))));
+  }
+}
@@ -0,0 +1,79 @@
+package com.bex.cpi_search.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.bex.cpi_search.model.CPICacheKey;
+import com.bex.cpi_search.model.SeriesBlock;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+
+public class BLSResponseParserTests {
+
+  private static final String RESPONSE =
+      """
+      {"status":"REQUEST_SUCCEEDED","responseTime":142,
+       "message":["No Data Available for Series BOGUS Year: 2024"],
+       "Results":{"series":[
+        {"seriesID":"CUUR0000SA0","catalog":{"series_title":"All items"},"data":[
+          {"year":"2024","period":"M02","periodName":"February","latest":"true",
+           "value":"310.326","footnotes":[{"code":"P","text":"Preliminary."}]},
+          {"year":"2024","period":"M01","periodName":"January","value":"308.417",
+           "footnotes":[{}]},
+          {"year":"2023","period":"M13","periodName":"Annual","value":"304.702",
+           "footnotes":[{}],"calculations":{"net_changes":{"1":"0.3"}}},
+          {"year":"2023","period":"S01","periodName":"1st Half","value":"303.0",
+           "footnotes":[{}]}]},
+        {"seriesID":"LUU0202891000","data":[
+          {"year":"2024","period":"M01","periodName":"January","value":"-",
+           "footnotes":[{"code":"N","text":"Not available"}]}]},
+        {"seriesID":"BOGUS","data":[]}]}}
+      """;
+
+  private final BLSResponseParser parser = new BLSResponseParser(new ObjectMapper());
+
+  @Test
+  void decodesOneBlockPerSeriesYear() throws Exception {
+    BLSResponseParser.ParsedResponse response = parser.parse(RESPONSE);
+    Map<CPICacheKey, SeriesBlock> blocks = response.getBlocks();
+
+    assertEquals("REQUEST_SUCCEEDED", response.getStatus());
+    assertEquals(142, response.getResponseTime());
+    assertEquals(1, response.getMessages().size());
+    assertEquals(3, blocks.size());
+
+    SeriesBlock current = blocks.get(CPICacheKey.of("2024", "CUUR0000SA0"));
+    assertEquals(2, current.size());
+    assertEquals(202401, current.periodAt(0));
+    assertEquals("308.417", current.valueTextAt(0));
+    assertEquals(List.of("Code: null, Text: null"), current.footnotesAt(0));
+    assertEquals("310.326", current.valueTextAt(1));
+    assertEquals(List.of("Code: P, Text: Preliminary."), current.footnotesAt(1));
+    assertEquals(202402, current.getLatestPeriod());
+    assertTrue(current.getFetchedAt() > 0);
+
+    SeriesBlock previous = blocks.get(CPICacheKey.of("2023", "CUUR0000SA0"));
+    assertEquals(1, previous.size());
+    assertEquals("304.702", previous.valueTextAt(previous.indexOf(202313)));
+    assertFalse(previous.hasLatest());
+
+    SeriesBlock unavailable = blocks.get(CPICacheKey.of("2024", "LUU0202891000"));
+    assertTrue(Double.isNaN(unavailable.valueAt(0)));
+    assertEquals("-", unavailable.valueTextAt(0));
+  }
+
+  @Test
+  void parsesStreamsLikeStrings() throws Exception {
+    byte[] bytes = RESPONSE.getBytes(StandardCharsets.UTF_8);
+
+    Map<CPICacheKey, SeriesBlock> blocks =
+        parser.parse(new ByteArrayInputStream(bytes)).getBlocks();
+
+    assertEquals(parser.parse(RESPONSE).getBlocks().keySet(), blocks.keySet());
+  }
+}
@@ -0,0 +1,97 @@
+package com.bex.cpi_search.service;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.bex.cpi_search.model.FootnoteDictionary;
+import com.bex.cpi_search.model.SeriesAnalytics;
+import com.bex.cpi_search.model.SeriesBlock;
+import java.util.Arrays;
+import org.junit.jupiter.api.Test;
+
+public class CPIAnalyticsEngineTests {
+
+  private static final double DELTA = 1e-9;
+
+  @Test
+  void computesPercentChangesAndRollingAveragesOverMissingValues() {
+    double[] values = {100, 110, Double.NaN, 121, 0, 50};
+
+    assertArrayEquals(
+        new double[] {Double.NaN, 10, Double.NaN, Double.NaN, -100, Double.NaN},
+        CPIAnalyticsEngine.percentChange(values, 1),
+        DELTA);
+    assertArrayEquals(
+        new double[] {Double.NaN, 105, Double.NaN, Double.NaN, 60.5, 25},
+        CPIAnalyticsEngine.rollingAverage(values, 2),
+        DELTA);
+  }
+
+  @Test
+  void analyzesTheRangeWithTheYearBeforeIt() {
+    // 2022 at 100 throughout, then 2023 rising by one a month and released up to October
+    SeriesBlock.Builder previous = SeriesBlock.builder("CUUR0000SA0").fetchedAt(1);
+    SeriesBlock.Builder current = SeriesBlock.builder("CUUR0000SA0").fetchedAt(2);
+    for (int month = 1; month <= 12; month++) {
+      previous.add(SeriesBlock.period(2022, month), 100, 0, FootnoteDictionary.NO_NOTES);
+      if (month <= 10) {
+        current.add(SeriesBlock.period(2023, month), 100 + month, 0, FootnoteDictionary.NO_NOTES);
+      }
+    }
+    previous.add(SeriesBlock.period(2022, 13), 99, 0, FootnoteDictionary.NO_NOTES);
+
+    SeriesAnalytics analytics =
+        CPIAnalyticsEngine.compute(
+            "CUUR0000SA0", 2022, 2023, 3, Arrays.asList(null, previous.build(), current.build()));
+
+    assertEquals(22, analytics.size());
+    int january = analytics.indexOf(202301);
+    assertEquals(12, january);
+    assertEquals(202301, analytics.periodAt(january));
+    assertEquals(1, analytics.monthOverMonthAt(january), DELTA);
+    assertEquals(10, analytics.yearOverYearAt(analytics.indexOf(202310)), DELTA);
+    assertEquals(101, analytics.rollingAverageAt(analytics.indexOf(202302)), DELTA);
+    assertTrue(Double.isNaN(analytics.yearOverYearAt(analytics.indexOf(202201))));
+    assertEquals(100, analytics.annualAverage(2022), DELTA);
+    assertTrue(Double.isNaN(analytics.annualAverage(2023)));
+    assertTrue(analytics.indexOf(202311) < 0);
+  }
+
+  @Test
+  void memoizesAnalyticsUntilABlockIsFetchedAgain() {
+    CPIAnalyticsEngine engine = new CPIAnalyticsEngine(10);
+    SeriesBlock block =
+        SeriesBlock.builder("CUUR0000SA0")
+            .add(202301, 100, 0, FootnoteDictionary.NO_NOTES)
+            .fetchedAt(1)
+            .build();
+    SeriesBlock refetched =
+        SeriesBlock.builder("CUUR0000SA0")
+            .add(202301, 101, 0, FootnoteDictionary.NO_NOTES)
+            .fetchedAt(2)
+            .build();
+
+    SeriesAnalytics first =
+        engine.analyze("CUUR0000SA0", 2023, 2023, 12, Arrays.asList(null, block));
+    SeriesAnalytics again =
+        engine.analyze("CUUR0000SA0", 2023, 2023, 12, Arrays.asList(null, block));
+    SeriesAnalytics refreshed =
+        engine.analyze("CUUR0000SA0", 2023, 2023, 12, Arrays.asList(null, refetched));
+
+    assertSame(first, again);
+    assertNotSame(first, refreshed);
+    assertEquals(101, refreshed.valueAt(0), DELTA);
+  }
+
+  @Test
+  void readsAsManyYearsBeforeTheRangeAsTheWindowNeeds() {
+    assertEquals(1, CPIAnalyticsEngine.leadYears(1));
+    assertEquals(1, CPIAnalyticsEngine.leadYears(13));
+    assertEquals(2, CPIAnalyticsEngine.leadYears(14));
+    assertThrows(IllegalArgumentException.class, () -> CPIAnalyticsEngine.leadYears(0));
+  }
+}
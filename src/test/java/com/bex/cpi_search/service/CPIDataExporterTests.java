@@ -0,0 +1,177 @@
+package com.bex.cpi_search.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.bex.cpi_search.model.CPICacheKey;
+import com.bex.cpi_search.model.FootnoteDictionary;
+import com.bex.cpi_search.model.SeriesBlock;
+import java.io.StringWriter;
+import java.time.Year;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+public class CPIDataExporterTests {
+
+  private static final Map<CPICacheKey, SeriesBlock> BLOCKS =
+      Map.of(
+          CPICacheKey.of("2015", "CUUR0000SA0"),
+          SeriesBlock.builder("CUUR0000SA0")
+              .add(SeriesBlock.period(2015, 1), "233.707", FootnoteDictionary.NO_NOTES)
+              .add(
+                  SeriesBlock.period(2015, 2),
+                  "234.722",
+                  FootnoteDictionary.idOf(
+                      List.of(
+                          "Code: A, Text: Area boundaries do not reflect official OMB definitions.",
+                          "Code: Q, Text: \"Quoted\"")))
+              .build(),
+          CPICacheKey.of("2016", "CUUR0000SA0"),
+          SeriesBlock.builder("CUUR0000SA0")
+              .add(SeriesBlock.period(2016, 1), "236.916", FootnoteDictionary.NO_NOTES)
+              .build(),
+          CPICacheKey.of("2015", "CUUR0000SA0L1E"),
+          SeriesBlock.builder("CUUR0000SA0L1E")
+              .add(SeriesBlock.period(2015, 1), "240.083", FootnoteDictionary.NO_NOTES)
+              .build());
+
+  private static final List<String> SERIES_IDS = List.of("CUUR0000SA0", "CUUR0000SA0L1E");
+
+  @Test
+  void parsesCursorOfLastRowReceived() {
+    CPIDataExporter exporter = exporter();
+
+    assertFalse(exporter.range(SERIES_IDS, 2000, 2026, null).isContinued());
+    assertTrue(exporter.range(SERIES_IDS, 2000, 2026, "CUUR0000SA0L1E:2010:Annual").isContinued());
+    assertEquals(CPIDataExporter.Format.NDJSON, CPIDataExporter.Format.of("ndjson"));
+  }
+
+  @Test
+  void rejectsCursorOutsideExport() {
+    CPIDataExporter exporter = exporter();
+    List<String> seriesIds = List.of("CUUR0000SA0");
+
+    assertThrows(
+        IllegalArgumentException.class,
+        () -> exporter.range(seriesIds, 2000, 2026, "CUUR0000SA0L1E:2010:May"));
+    assertThrows(
+        IllegalArgumentException.class,
+        () -> exporter.range(seriesIds, 2000, 2026, "CUUR0000SA0:1999:May"));
+    assertThrows(
+        IllegalArgumentException.class,
+        () -> exporter.range(seriesIds, 2000, 2026, "CUUR0000SA0:2010:Mayday"));
+    assertThrows(
+        IllegalArgumentException.class, () -> exporter.range(seriesIds, 2000, 2026, "garbage"));
+  }
+
+  @Test
+  void rejectsYearsBlsHasNotPublished() {
+    CPIDataExporter exporter = exporter();
+    int nextYear = Year.now().getValue() + 1;
+
+    assertThrows(
+        IllegalArgumentException.class, () -> exporter.range(SERIES_IDS, 1912, 2000, null));
+    assertThrows(
+        IllegalArgumentException.class, () -> exporter.range(SERIES_IDS, 2000, nextYear, null));
+    assertThrows(IllegalArgumentException.class, () -> exporter.range(SERIES_IDS, 0, 9999, null));
+  }
+
+  @Test
+  void rejectsExportsLargerThanAllowed() {
+    CPIDataExporter exporter = exporter();
+    ReflectionTestUtils.setField(exporter, "maxSeries", 1);
+
+    assertThrows(
+        IllegalArgumentException.class, () -> exporter.range(SERIES_IDS, 2015, 2016, null));
+
+    ReflectionTestUtils.setField(exporter, "maxSeries", 2);
+    ReflectionTestUtils.setField(exporter, "maxSeriesYears", 3);
+    exporter.range(List.of("CUUR0000SA0", "CUUR0000SA0"), 2014, 2016, null);
+    assertThrows(
+        IllegalArgumentException.class, () -> exporter.range(SERIES_IDS, 2015, 2016, null));
+  }
+
+  @Test
+  void exportsCsvRowsInSeriesThenPeriodOrderQuotingFields() throws Exception {
+    CPIDataExporter exporter = exporter();
+    StringWriter writer = new StringWriter();
+
+    long rows =
+        exporter.export(
+            exporter.range(SERIES_IDS, 2015, 2016, null), CPIDataExporter.Format.CSV, writer);
+
+    assertEquals(4, rows);
+    assertEquals(
+        "seriesId,year,month,value,notes\n"
+            + "CUUR0000SA0,2015,January,233.707,\n"
+            + "CUUR0000SA0,2015,February,234.722,\"Code: A, Text: Area boundaries do not reflect"
+            + " official OMB definitions.; Code: Q, Text: \"\"Quoted\"\"\"\n"
+            + "CUUR0000SA0,2016,January,236.916,\n"
+            + "CUUR0000SA0L1E,2015,January,240.083,\n",
+        writer.toString());
+  }
+
+  @Test
+  void continuesAfterTheCursorWithoutAHeader() throws Exception {
+    CPIDataExporter exporter = exporter();
+    StringWriter writer = new StringWriter();
+
+    long rows =
+        exporter.export(
+            exporter.range(SERIES_IDS, 2015, 2016, "CUUR0000SA0:2015:February"),
+            CPIDataExporter.Format.CSV,
+            writer);
+
+    assertEquals(2, rows);
+    assertEquals(
+        "CUUR0000SA0,2016,January,236.916,\nCUUR0000SA0L1E,2015,January,240.083,\n",
+        writer.toString());
+  }
+
+  @Test
+  void exportsOneJsonObjectPerLine() throws Exception {
+    CPIDataExporter exporter = exporter();
+    StringWriter writer = new StringWriter();
+
+    exporter.export(
+        exporter.range(List.of("CUUR0000SA0L1E"), 2015, 2015, null),
+        CPIDataExporter.Format.NDJSON,
+        writer);
+
+    assertEquals(
+        "{\"seriesId\":\"CUUR0000SA0L1E\",\"year\":\"2015\",\"month\":\"January\","
+            + "\"value\":\"240.083\"}\n",
+        writer.toString());
+  }
+
+  private static CPIDataExporter exporter() {
+    CPIDataExporter exporter = new CPIDataExporter();
+    ReflectionTestUtils.setField(
+        exporter,
+        "cpiDataService",
+        new CPIDataService() {
+          @Override
+          public Map<CPICacheKey, SeriesBlock> getSeriesBlocks(
+              final Collection<CPICacheKey> cacheKeys, final FetchPriority priority) {
+            Map<CPICacheKey, SeriesBlock> blocks = new HashMap<>();
+            cacheKeys.forEach(
+                cacheKey -> {
+                  if (BLOCKS.containsKey(cacheKey)) {
+                    blocks.put(cacheKey, BLOCKS.get(cacheKey));
+                  }
+                });
+            return blocks;
+          }
+        });
+    ReflectionTestUtils.setField(exporter, "chunkSize", 2);
+    ReflectionTestUtils.setField(exporter, "maxSeries", 50);
+    ReflectionTestUtils.setField(exporter, "maxSeriesYears", 2500);
+    return exporter;
+  }
+}
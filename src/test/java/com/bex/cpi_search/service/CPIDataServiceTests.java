@@ -0,0 +1,189 @@
+package com.bex.cpi_search.service;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.bex.cpi_search.model.BLSApiRequest;
+import com.bex.cpi_search.model.CPICacheKey;
+import com.bex.cpi_search.model.CPIObservation;
+import com.bex.cpi_search.model.CPIQuery;
+import com.bex.cpi_search.model.CPIQueryResult;
+import com.bex.cpi_search.model.FootnoteDictionary;
+import com.bex.cpi_search.model.SeriesBlock;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.time.Year;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+
+public class CPIDataServiceTests {
+
+  private final BLSResponseParser parser = new BLSResponseParser(new ObjectMapper());
+
+  private final CPIDataService cpiDataService = new CPIDataService();
+
+  @Test
+  void cachesEmptyBlocksForSeriesYearsASuccessfulResponseLacks() throws Exception {
+    Map<CPICacheKey, SeriesBlock> blocks =
+        cpiDataService.blocksToCache(
+            request("2023", "2024", "CUUR0000SA0", "BOGUS"),
+            parser.parse(response("REQUEST_SUCCEEDED", "No Data Available for Series BOGUS")));
+
+    assertEquals(4, blocks.size());
+    assertEquals(1, blocks.get(CPICacheKey.of("2024", "CUUR0000SA0")).size());
+    assertEmpty(blocks.get(CPICacheKey.of("2023", "CUUR0000SA0")));
+    assertEmpty(blocks.get(CPICacheKey.of("2023", "BOGUS")));
+    assertEmpty(blocks.get(CPICacheKey.of("2024", "BOGUS")));
+  }
+
+  @Test
+  void cachesOnlyTheDataReturnedByAFailedResponse() throws Exception {
+    Map<CPICacheKey, SeriesBlock> blocks =
+        cpiDataService.blocksToCache(
+            request("2023", "2024", "CUUR0000SA0", "CUUR0000SA0E"),
+            parser.parse(response("REQUEST_FAILED", "Invalid Series for Series CUUR0000SA0E")));
+
+    assertEquals(List.of(CPICacheKey.of("2024", "CUUR0000SA0")), List.copyOf(blocks.keySet()));
+  }
+
+  @Test
+  void takesOnlyTheServedSeriesAndYearsOfAReducedResponseAsAbsent() throws Exception {
+    Map<CPICacheKey, SeriesBlock> blocks =
+        cpiDataService.blocksToCache(
+            request("2005", "2024", "CUUR0000SA0", "CUUR0000SA0E"),
+            parser.parse(
+                """
+                {"status":"REQUEST_SUCCEEDED","responseTime":10,
+                 "message":["Year range has been reduced to the system limit of 10 years."],
+                 "Results":{"series":[
+                  {"seriesID":"CUUR0000SA0","data":[
+                    {"year":"2024","period":"M01","periodName":"January","value":"308.417",
+                     "footnotes":[{}]},
+                    {"year":"2015","period":"M01","periodName":"January","value":"233.707",
+                     "footnotes":[{}]}]}]}}
+                """));
+
+    assertEquals(10, blocks.size());
+    assertEmpty(blocks.get(CPICacheKey.of("2020", "CUUR0000SA0")));
+    assertFalse(blocks.containsKey(CPICacheKey.of("2014", "CUUR0000SA0")));
+    assertFalse(blocks.containsKey(CPICacheKey.of("2024", "CUUR0000SA0E")));
+  }
+
+  @Test
+  void readsTheBlockOfEachQueryWithItsMonthRange() {
+    int[][] monthRanges = new int[3][];
+
+    List<CPICacheKey> queryKeys =
+        CPIDataService.queryKeys(
+            List.of(
+                query("CUUR0000SA0", "2015", "February", "March"),
+                query("CUUR0000SA0", "2015", null, null),
+                query("CUUR0000SA0L1E", "2016", "December", null)),
+            monthRanges);
+
+    assertEquals(
+        List.of(
+            CPICacheKey.of("2015", "CUUR0000SA0"),
+            CPICacheKey.of("2015", "CUUR0000SA0"),
+            CPICacheKey.of("2016", "CUUR0000SA0L1E")),
+        queryKeys);
+    assertArrayEquals(new int[][] {{2, 3}, {1, 12}, {12, 12}}, monthRanges);
+  }
+
+  @Test
+  void rejectsQueriesForYearsBlsHasNotPublished() {
+    String nextYear = String.valueOf(Year.now().getValue() + 1);
+
+    for (String year : List.of("0000", "1912", nextYear, "9999", "20x5", "15")) {
+      assertThrows(
+          IllegalArgumentException.class,
+          () ->
+              CPIDataService.queryKeys(
+                  List.of(query("CUUR0000SA0", year, null, null)), new int[1][]),
+          year);
+    }
+    CPIDataService.queryKeys(List.of(query("CUUR0000SA0", "1913", null, null)), new int[1][]);
+    CPIDataService.queryKeys(
+        List.of(query("CUUR0000SA0", Year.now().toString(), null, null)), new int[1][]);
+  }
+
+  @Test
+  void rejectsQueriesWithoutASeriesOrWithAnInvertedMonthRange() {
+    assertThrows(
+        IllegalArgumentException.class,
+        () -> CPIDataService.queryKeys(List.of(query(" ", "2015", null, null)), new int[1][]));
+    assertThrows(
+        IllegalArgumentException.class,
+        () ->
+            CPIDataService.queryKeys(
+                List.of(query("CUUR0000SA0", "2015", "March", "February")), new int[1][]));
+    assertThrows(
+        IllegalArgumentException.class,
+        () ->
+            CPIDataService.queryKeys(
+                List.of(query("CUUR0000SA0", "2015", "Marchember", null)), new int[1][]));
+  }
+
+  @Test
+  void answersEachQueryWithTheMonthsItsBlockHolds() {
+    CPICacheKey cached = CPICacheKey.of("2015", "CUUR0000SA0");
+    CPICacheKey missing = CPICacheKey.of("2015", "CUUR0000SA0L1E");
+    SeriesBlock block =
+        SeriesBlock.builder("CUUR0000SA0")
+            .add(SeriesBlock.period(2015, 1), "233.707", FootnoteDictionary.NO_NOTES)
+            .add(SeriesBlock.period(2015, 3), "236.119", FootnoteDictionary.NO_NOTES)
+            .add(SeriesBlock.period(2015, 4), "236.599", FootnoteDictionary.NO_NOTES)
+            .build();
+
+    List<CPIQueryResult> results =
+        CPIDataService.queryResults(
+            List.of(cached, missing), new int[][] {{2, 4}, {1, 12}}, Map.of(cached, block));
+
+    assertEquals("CUUR0000SA0", results.get(0).getSeriesId());
+    assertEquals("2015", results.get(0).getYear());
+    assertEquals(
+        List.of("March", "April"),
+        results.get(0).getValues().stream().map(CPIObservation::getMonth).toList());
+    assertEquals("236.119", results.get(0).getValues().get(0).getValue());
+    assertEquals("CUUR0000SA0L1E", results.get(1).getSeriesId());
+    assertTrue(results.get(1).getValues().isEmpty());
+  }
+
+  private static void assertEmpty(final SeriesBlock block) {
+    assertEquals(0, block.size());
+    assertTrue(block.getFetchedAt() > 0);
+  }
+
+  private static BLSApiRequest request(
+      final String startYear, final String endYear, final String... seriesIds) {
+    BLSApiRequest request = new BLSApiRequest();
+    request.setSeriesIds(List.of(seriesIds));
+    request.setStartYear(startYear);
+    request.setEndYear(endYear);
+    return request;
+  }
+
+  private static CPIQuery query(
+      final String seriesId, final String year, final String fromMonth, final String toMonth) {
+    CPIQuery query = new CPIQuery();
+    query.setSeriesId(seriesId);
+    query.setYear(year);
+    query.setFromMonth(fromMonth);
+    query.setToMonth(toMonth);
+    return query;
+  }
+
+  private static String response(final String status, final String message) {
+    return """
+        {"status":"%s","responseTime":10,"message":["%s"],
+         "Results":{"series":[
+          {"seriesID":"CUUR0000SA0","data":[
+            {"year":"2024","period":"M01","periodName":"January","value":"308.417",
+             "footnotes":[{}]}]}]}}
+        """
+        .formatted(status, message);
+  }
+}
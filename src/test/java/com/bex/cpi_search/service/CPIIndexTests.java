@@ -0,0 +1,103 @@
+package com.bex.cpi_search.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.bex.cpi_search.model.CPICacheKey;
+import com.bex.cpi_search.model.FootnoteDictionary;
+import com.bex.cpi_search.model.SeriesBlock;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+public class CPIIndexTests {
+
+  private static final String SERIES_ID = "CUUR0000SA0";
+
+  @Test
+  void widensTheIndexAsYearsAreLoaded() {
+    CPIIndex index = new CPIIndex();
+
+    index.load(Map.of(CPICacheKey.of("2020", SERIES_ID), block(2020, 258.682)));
+    index.load(Map.of(CPICacheKey.of("2024", SERIES_ID), block(2024, 308.417)));
+    index.load(Map.of(CPICacheKey.of("2018", SERIES_ID), block(2018, 247.867)));
+
+    assertEquals(247.867, index.valueAt(SERIES_ID, 201801));
+    assertEquals(258.682, index.valueAt(SERIES_ID, 202001));
+    assertEquals(308.417, index.valueAt(SERIES_ID, 202401));
+    assertTrue(Double.isNaN(index.valueAt(SERIES_ID, 202201)));
+    assertTrue(Double.isNaN(index.valueAt(SERIES_ID, 202402)));
+    assertTrue(Double.isNaN(index.valueAt(SERIES_ID, 202501)));
+    assertTrue(Double.isNaN(index.valueAt("CUUR0000SA0E", 202401)));
+  }
+
+  @Test
+  void refreshesOnlyIndexedSeriesAndDropsInvalidatedYears() {
+    CPIIndex index = new CPIIndex();
+    index.load(Map.of(CPICacheKey.of("2024", SERIES_ID), block(2024, 308.417)));
+
+    index.refresh(
+        Map.of(
+            CPICacheKey.of("2024", SERIES_ID),
+            block(2024, 308.5),
+            CPICacheKey.of("2024", "CUUR0000SA0E"),
+            block(2024, 280.0)));
+
+    assertEquals(308.5, index.valueAt(SERIES_ID, 202401));
+    assertTrue(Double.isNaN(index.valueAt("CUUR0000SA0E", 202401)));
+    assertEquals(1, index.size());
+
+    index.invalidate(SERIES_ID, List.of(2024));
+
+    assertTrue(Double.isNaN(index.valueAt(SERIES_ID, 202401)));
+  }
+
+  @Test
+  void indexesOnlySeriesWithDataAndDropsTheLeastRecentlyRead() {
+    CPIIndex index = new CPIIndex();
+    ReflectionTestUtils.setField(index, "maxSeries", 2);
+
+    index.load(
+        Map.of(CPICacheKey.of("2024", "CUUR0000XX0"), SeriesBlock.builder("CUUR0000XX0").build()));
+    assertEquals(0, index.size());
+
+    index.load(Map.of(CPICacheKey.of("2024", SERIES_ID), block(2024, 308.417)));
+    index.load(Map.of(CPICacheKey.of("2024", "CUUR0000SA0E"), block(2024, 280.0)));
+    index.valueAt(SERIES_ID, 202401);
+    index.load(Map.of(CPICacheKey.of("2024", "CUUR0000SA0L1E"), block(2024, 315.0)));
+
+    assertEquals(2, index.size());
+    assertEquals(308.417, index.valueAt(SERIES_ID, 202401));
+    assertEquals(315.0, index.valueAt("CUUR0000SA0L1E", 202401));
+    assertTrue(Double.isNaN(index.valueAt("CUUR0000SA0E", 202401)));
+  }
+
+  @Test
+  void recordsWhenEachYearWasFetched() {
+    CPIIndex index = new CPIIndex();
+    index.load(
+        Map.of(
+            CPICacheKey.of("2024", SERIES_ID),
+            SeriesBlock.builder(SERIES_ID)
+                .add(202401, 308.417, 3, FootnoteDictionary.NO_NOTES)
+                .fetchedAt(1_700_000_000_000L)
+                .build()));
+
+    // February is not published, but the block of its year was fetched
+    assertTrue(Double.isNaN(index.valueAt(SERIES_ID, 202402)));
+    assertEquals(1_700_000_000_000L, index.fetchedAt(SERIES_ID, 202402));
+    assertEquals(0, index.fetchedAt(SERIES_ID, 202302));
+    assertEquals(0, index.fetchedAt("CUUR0000SA0E", 202402));
+
+    index.invalidate(SERIES_ID, List.of(2024));
+
+    assertEquals(0, index.fetchedAt(SERIES_ID, 202402));
+  }
+
+  private static SeriesBlock block(final int year, final double january) {
+    return SeriesBlock.builder(SERIES_ID)
+        .add(SeriesBlock.period(year, 1), january, 3, FootnoteDictionary.NO_NOTES)
+        .build();
+  }
+}
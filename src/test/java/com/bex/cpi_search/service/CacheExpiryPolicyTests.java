@@ -0,0 +1,98 @@
+package com.bex.cpi_search.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.bex.cpi_search.model.CPICacheKey;
+import com.bex.cpi_search.model.FootnoteDictionary;
+import com.bex.cpi_search.model.SeriesBlock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.Year;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+public class CacheExpiryPolicyTests {
+
+  private final CacheExpiryPolicy expiryPolicy = expiryPolicy();
+
+  @Test
+  void confirmsAbsenceOnlyWhileTheBlockIsRecentAndComplete() {
+    long now = System.currentTimeMillis();
+
+    assertTrue(expiryPolicy.confirmsAbsence(block(now - Duration.ofMinutes(59).toMillis())));
+    assertFalse(expiryPolicy.confirmsAbsence(block(now - Duration.ofMinutes(61).toMillis())));
+    // Merged from earlier cache layouts, so it may lack months BLS has
+    assertFalse(expiryPolicy.confirmsAbsence(block(0)));
+  }
+
+  @Test
+  void expiresEmptyBlocksAfterTheNegativeTtl() {
+    CPIDataService cpiDataService = new CPIDataService();
+    ReflectionTestUtils.setField(cpiDataService, "expiryPolicy", expiryPolicy);
+    CPICacheKey pastYear = CPICacheKey.of("2015", "CUUR0000SA0");
+    CPICacheKey currentYear = CPICacheKey.of(Year.now().toString(), "CUUR0000SA0");
+
+    assertEquals(
+        Duration.ofHours(1),
+        cpiDataService.blockTtl(pastYear, SeriesBlock.builder("CUUR0000SA0").fetchedAt(1).build()));
+    assertEquals(
+        Duration.ofDays(400), cpiDataService.blockTtl(pastYear, block(System.currentTimeMillis())));
+    assertEquals(
+        Duration.ofDays(1),
+        cpiDataService.blockTtl(currentYear, block(System.currentTimeMillis())));
+  }
+
+  @Test
+  void refreshesPartialBlocksAndChangeableBlocksOnceOld() {
+    String pastYear = "2015";
+    String currentYear = Year.now().toString();
+    long longAgo = System.currentTimeMillis() - Duration.ofHours(7).toMillis();
+
+    assertTrue(expiryPolicy.isStale(pastYear, block(0)));
+    assertFalse(expiryPolicy.isStale(pastYear, block(longAgo)));
+    assertTrue(expiryPolicy.isStale(currentYear, block(longAgo)));
+    assertFalse(expiryPolicy.isStale(currentYear, block(System.currentTimeMillis())));
+  }
+
+  @Test
+  void refreshesPastYearsRevisedSinceTheyWereFetched() {
+    String revisedYear = Year.now().minusYears(2).toString();
+    long beforeRevision = System.currentTimeMillis() - Duration.ofDays(400).toMillis();
+
+    assertTrue(expiryPolicy.isStale(revisedYear, block(beforeRevision)));
+    assertFalse(expiryPolicy.isStale(revisedYear, block(System.currentTimeMillis())));
+    assertFalse(expiryPolicy.isStale("2015", block(beforeRevision)));
+    // LAUS benchmark revisions are published later in the spring than the CPI revisions
+    assertNotEquals(
+        expiryPolicy.lastRevisedAt(revisedYear, "LAUCN040010000000005"),
+        expiryPolicy.lastRevisedAt(revisedYear, "CUUR0000SA0"));
+  }
+
+  @Test
+  void publishesAYearInFullOnMarchFirstEasternTime() {
+    assertEquals(Instant.parse("2024-03-01T05:00:00Z"), expiryPolicy.finalizedAt("2023"));
+    assertTrue(expiryPolicy.isFinalized("2015"));
+    assertFalse(expiryPolicy.isFinalized(Year.now().toString()));
+    assertNull(expiryPolicy.finalizedAt("20x3"));
+  }
+
+  static CacheExpiryPolicy expiryPolicy() {
+    CacheExpiryPolicy expiryPolicy = new CacheExpiryPolicy();
+    ReflectionTestUtils.setField(expiryPolicy, "currentYearTtl", Duration.ofDays(1));
+    ReflectionTestUtils.setField(expiryPolicy, "pastYearsTtl", Duration.ofDays(400));
+    ReflectionTestUtils.setField(expiryPolicy, "negativeTtl", Duration.ofHours(1));
+    ReflectionTestUtils.setField(expiryPolicy, "freshFor", Duration.ofHours(6));
+    return expiryPolicy;
+  }
+
+  private static SeriesBlock block(final long fetchedAt) {
+    return SeriesBlock.builder("CUUR0000SA0")
+        .add(201503, 236.119, 0, FootnoteDictionary.NO_NOTES)
+        .fetchedAt(fetchedAt)
+        .build();
+  }
+}
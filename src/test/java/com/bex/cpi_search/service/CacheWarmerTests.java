@@ -0,0 +1,125 @@
+package com.bex.cpi_search.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.bex.cpi_search.model.CPIData;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.task.SyncTaskExecutor;
+import org.springframework.test.util.ReflectionTestUtils;
+
+public class CacheWarmerTests {
+
+  private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+  private final AtomicInteger fills = new AtomicInteger();
+
+  private final AtomicReference<CountDownLatch> release = new AtomicReference<>();
+
+  private final CPIDataService cpiDataService =
+      new CPIDataService() {
+        @Override
+        public Map<String, List<CPIData>> getCPIData(
+            final String startYear,
+            final String endYear,
+            final List<String> months,
+            final List<String> seriesIds,
+            final FetchPriority priority)
+            throws IOException {
+          fills.incrementAndGet();
+          if (release.get() != null) {
+            try {
+              release.get().await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+              Thread.currentThread().interrupt();
+            }
+          }
+          return Map.of();
+        }
+
+        @Override
+        public int refreshCPIData(
+            final String startYear,
+            final String endYear,
+            final List<String> seriesIds,
+            final FetchPriority priority)
+            throws IOException {
+          throw new IOException("BLS API unavailable");
+        }
+      };
+
+  @Test
+  void fillsTheCacheOnTheTaskExecutorOnceTheApplicationIsReady() {
+    CacheWarmer warmer = warmer(true);
+
+    warmer.warmOnStartup();
+
+    assertEquals(1, fills.get());
+    assertEquals(1, gauge("cpi.cache.warmer.last.success"));
+    assertFalse(Double.isNaN(gauge("cpi.cache.warmer.last.start")));
+  }
+
+  @Test
+  void doesNothingWhenDisabled() {
+    CacheWarmer warmer = warmer(false);
+
+    warmer.warmOnStartup();
+    warmer.refreshOnRelease();
+
+    assertEquals(0, fills.get());
+    assertTrue(Double.isNaN(gauge("cpi.cache.warmer.last.success")));
+  }
+
+  @Test
+  void skipsRunsWhileAWarmUpIsRunning() throws Exception {
+    CacheWarmer warmer = warmer(true);
+    release.set(new CountDownLatch(1));
+    Thread running = new Thread(() -> warmer.warm(false));
+    running.start();
+    while (gauge("cpi.cache.warmer.running") == 0) {
+      Thread.sleep(1);
+    }
+
+    assertFalse(warmer.warm(false));
+    release.get().countDown();
+    running.join();
+
+    assertEquals(1, fills.get());
+    assertEquals(0, gauge("cpi.cache.warmer.running"));
+  }
+
+  @Test
+  void publishesAFailedRefresh() {
+    CacheWarmer warmer = warmer(true);
+
+    assertFalse(warmer.warm(true));
+
+    assertEquals(0, gauge("cpi.cache.warmer.last.success"));
+    assertFalse(Double.isNaN(gauge("cpi.cache.warmer.last.duration")));
+  }
+
+  private CacheWarmer warmer(final boolean enabled) {
+    CacheWarmer warmer = new CacheWarmer();
+    ReflectionTestUtils.setField(warmer, "cpiDataService", cpiDataService);
+    ReflectionTestUtils.setField(warmer, "taskExecutor", new SyncTaskExecutor());
+    ReflectionTestUtils.setField(warmer, "warmerEnabled", enabled);
+    ReflectionTestUtils.setField(warmer, "seriesIds", List.of("CUUR0000SA0"));
+    ReflectionTestUtils.setField(warmer, "years", 2);
+    warmer.bindTo(meterRegistry);
+    return warmer;
+  }
+
+  private double gauge(final String name) {
+    return meterRegistry.get(name).gauge().value();
+  }
+}
@@ -0,0 +1,103 @@
+package com.bex.cpi_search.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Test;
+
+public class FanOutExecutorTests {
+
+  @Test
+  void runsCallsConcurrentlyUpToTheCap() throws Exception {
+    FanOutExecutor executor = new FanOutExecutor(2);
+    AtomicInteger inFlight = new AtomicInteger();
+    AtomicInteger maxInFlight = new AtomicInteger();
+    List<SingleFlight.Loader<Integer>> calls =
+        List.of(
+            sleeping(1, inFlight, maxInFlight),
+            sleeping(2, inFlight, maxInFlight),
+            sleeping(3, inFlight, maxInFlight),
+            sleeping(4, inFlight, maxInFlight));
+
+    long start = System.nanoTime();
+    List<Integer> results = executor.invokeAll(calls);
+    long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+    assertEquals(List.of(1, 2, 3, 4), results);
+    assertEquals(2, maxInFlight.get());
+    assertTrue(elapsedMillis < 600, "took " + elapsedMillis + " ms");
+  }
+
+  @Test
+  void firstFailureReturnsWithoutInterruptingTheRest() throws Exception {
+    FanOutExecutor executor = new FanOutExecutor(4);
+    CountDownLatch started = new CountDownLatch(1);
+    CountDownLatch finished = new CountDownLatch(1);
+    AtomicBoolean interrupted = new AtomicBoolean();
+    List<SingleFlight.Loader<Integer>> calls =
+        List.of(
+            () -> {
+              started.countDown();
+              try {
+                Thread.sleep(500);
+                return 1;
+              } catch (InterruptedException e) {
+                interrupted.set(true);
+                throw new InterruptedIOException();
+              } finally {
+                finished.countDown();
+              }
+            },
+            () -> {
+              // Fail once the slow call is under way; a call not started yet would be skipped
+              try {
+                started.await();
+              } catch (InterruptedException e) {
+                throw new InterruptedIOException();
+              }
+              throw new IOException("BLS unavailable");
+            });
+
+    long start = System.nanoTime();
+    IOException failure = assertThrows(IOException.class, () -> executor.invokeAll(calls));
+    long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+    assertEquals("BLS unavailable", failure.getMessage());
+    assertTrue(elapsedMillis < 400, "took " + elapsedMillis + " ms");
+    // The slow call may lead a fetch other requests wait on, so it is left to finish
+    assertTrue(finished.await(2, TimeUnit.SECONDS));
+    assertFalse(interrupted.get());
+  }
+
+  @Test
+  void callsOnTheCallingThread() throws Exception {
+    FanOutExecutor executor = new FanOutExecutor(1);
+    Thread caller = Thread.currentThread();
+
+    assertEquals(caller, executor.call(Thread::currentThread));
+  }
+
+  private static SingleFlight.Loader<Integer> sleeping(
+      final int value, final AtomicInteger inFlight, final AtomicInteger maxInFlight) {
+    return () -> {
+      maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+      try {
+        Thread.sleep(200);
+      } catch (InterruptedException e) {
+        throw new InterruptedIOException();
+      } finally {
+        inFlight.decrementAndGet();
+      }
+      return value;
+    };
+  }
+}
@@ -0,0 +1,203 @@
+package com.bex.cpi_search.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.bex.cpi_search.model.CPICacheKey;
+import com.bex.cpi_search.model.CPIData;
+import com.bex.cpi_search.model.FootnoteDictionary;
+import com.bex.cpi_search.model.SeriesBlock;
+import com.bex.cpi_search.repository.CPIDataRedisSerializer;
+import com.bex.cpi_search.repository.RedisRepository;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.data.redis.core.Cursor;
+import org.springframework.data.redis.core.HashOperations;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.test.util.ReflectionTestUtils;
+
+public class KeyspaceMigratorTests {
+
+  private static final CPICacheKey KEY = CPICacheKey.of("2015", "CUUR0000SA0");
+
+  private final CPIDataRedisSerializer serializer = new CPIDataRedisSerializer(512);
+
+  @SuppressWarnings("unchecked")
+  private final RedisTemplate<String, Object> redisTemplate = mock(RedisTemplate.class);
+
+  @SuppressWarnings("unchecked")
+  private final ValueOperations<String, Object> valueOps = mock(ValueOperations.class);
+
+  @SuppressWarnings("unchecked")
+  private final HashOperations<String, Object, Object> hashOps = mock(HashOperations.class);
+
+  @SuppressWarnings("unchecked")
+  private final RedisRepository<CPICacheKey, SeriesBlock> redisRepository =
+      mock(RedisRepository.class);
+
+  private final KeyspaceMigrator migrator = migrator();
+
+  @Test
+  void keepsTheMonthsAndFetchTimeOfAPartialBlock() {
+    SeriesBlock saved =
+        SeriesBlock.builder("CUUR0000SA0")
+            .add(201501, 233.707, 3, FootnoteDictionary.NO_NOTES)
+            .latestPeriod(201501)
+            .build();
+    SeriesBlock legacy =
+        SeriesBlock.builder("CUUR0000SA0")
+            .add(201501, 999.999, 3, FootnoteDictionary.NO_NOTES)
+            .add(201502, 234.722, 3, FootnoteDictionary.NO_NOTES)
+            .build();
+
+    SeriesBlock merged = migrator.mergeBlocks(saved, legacy);
+
+    assertEquals(2, merged.size());
+    assertEquals(233.707, merged.valueAt(merged.indexOf(201501)));
+    assertEquals(234.722, merged.valueAt(merged.indexOf(201502)));
+    assertEquals(201501, merged.getLatestPeriod());
+    assertEquals(0, merged.getFetchedAt());
+  }
+
+  @Test
+  void leavesBlocksFetchedFromBlsAlone() {
+    SeriesBlock fetched =
+        SeriesBlock.builder("CUUR0000SA0")
+            .add(201501, 233.707, 3, FootnoteDictionary.NO_NOTES)
+            .fetchedAt(System.currentTimeMillis())
+            .build();
+    SeriesBlock legacy =
+        SeriesBlock.builder("CUUR0000SA0")
+            .add(201502, 234.722, 3, FootnoteDictionary.NO_NOTES)
+            .build();
+
+    assertNull(migrator.mergeBlocks(fetched, legacy));
+  }
+
+  @Test
+  @SuppressWarnings("unchecked")
+  void readsMissingMonthsFromTheLegacyHashAndMergesThemIntoBlocks() {
+    when(redisTemplate.execute(any(RedisCallback.class)))
+        .thenReturn(Arrays.asList(serializer.serialize(cpiData("February", "234.722")), null));
+
+    Map<String, CPIData> found =
+        migrator.readLegacy("2015", "February", List.of("CUUR0000SA0", "CUUR0000SA0L1E"));
+
+    assertEquals(Set.of("CUUR0000SA0"), found.keySet());
+    assertEquals("234.722", found.get("CUUR0000SA0").getCPIValue());
+    ArgumentCaptor<Map<CPICacheKey, SeriesBlock>> merged = ArgumentCaptor.forClass(Map.class);
+    verify(redisRepository).mergeDocuments(merged.capture(), any(), any());
+    assertEquals(Set.of(KEY), merged.getValue().keySet());
+    assertEquals(201502, merged.getValue().get(KEY).periodAt(0));
+  }
+
+  @Test
+  @SuppressWarnings("unchecked")
+  void stopsReadingTheLegacyHashOnceMigrated() {
+    when(redisTemplate.hasKey(KeyspaceMigrator.MIGRATED_KEY)).thenReturn(true);
+
+    migrator.probeAndMigrate();
+    Map<String, CPIData> found = migrator.readLegacy("2015", "February", List.of("CUUR0000SA0"));
+
+    assertTrue(found.isEmpty());
+    verify(redisTemplate, never()).hasKey("documents");
+    verify(redisTemplate, never()).execute(any(RedisCallback.class));
+  }
+
+  @Test
+  @SuppressWarnings("unchecked")
+  void movesTheDocumentsHashInBatchesAndRecordsWhenItIsDrained() {
+    ReflectionTestUtils.setField(migrator, "batchSize", 1);
+    Cursor<Map.Entry<byte[], byte[]>> cursor =
+        cursor(
+            entry("2015-January-CUUR0000SA0", cpiData("January", "233.707")),
+            entry("2015-February-CUUR0000SA0", cpiData("February", "234.722")),
+            Map.entry(field("garbage"), new byte[] {1, 2, 3}));
+    when(redisTemplate.execute(any(RedisCallback.class))).thenReturn(cursor).thenReturn(1L);
+    when(redisRepository.mergeDocuments(anyMap(), any(), any())).thenReturn(Set.of(KEY));
+    when(hashOps.size("documents")).thenReturn(1L);
+
+    int moved = migrator.migrate();
+
+    assertEquals(2, moved);
+    verify(redisRepository, times(2)).mergeDocuments(anyMap(), any(), any());
+    // One scan, then one HDEL per batch merged
+    verify(redisTemplate, times(3)).execute(any(RedisCallback.class));
+    verify(valueOps).set(eq(KeyspaceMigrator.MIGRATED_KEY), any());
+  }
+
+  @Test
+  @SuppressWarnings("unchecked")
+  void keepsConsultingTheLegacyHashWhileBlocksAreContended() {
+    Cursor<Map.Entry<byte[], byte[]>> cursor =
+        cursor(entry("2015-January-CUUR0000SA0", cpiData("January", "233.707")));
+    when(redisTemplate.execute(any(RedisCallback.class))).thenReturn(cursor);
+    when(redisRepository.mergeDocuments(anyMap(), any(), any())).thenReturn(Set.of());
+    when(hashOps.size("documents")).thenReturn(1L);
+
+    assertEquals(0, migrator.migrate());
+    verify(valueOps, never()).set(any(), any());
+    verify(redisTemplate, times(1)).execute(any(RedisCallback.class));
+  }
+
+  @SuppressWarnings({"unchecked", "rawtypes"})
+  private KeyspaceMigrator migrator() {
+    when(redisTemplate.getHashValueSerializer()).thenReturn((RedisSerializer) serializer);
+    when(redisTemplate.opsForValue()).thenReturn(valueOps);
+    when(redisTemplate.opsForHash()).thenReturn(hashOps);
+    KeyspaceMigrator keyspaceMigrator = new KeyspaceMigrator();
+    ReflectionTestUtils.setField(keyspaceMigrator, "redisTemplate", redisTemplate);
+    ReflectionTestUtils.setField(keyspaceMigrator, "redisRepository", redisRepository);
+    ReflectionTestUtils.setField(
+        keyspaceMigrator, "expiryPolicy", CacheExpiryPolicyTests.expiryPolicy());
+    ReflectionTestUtils.setField(keyspaceMigrator, "batchSize", 500);
+    return keyspaceMigrator;
+  }
+
+  @SafeVarargs
+  @SuppressWarnings("unchecked")
+  private static Cursor<Map.Entry<byte[], byte[]>> cursor(
+      final Map.Entry<byte[], byte[]>... entries) {
+    Iterator<Map.Entry<byte[], byte[]>> iterator = List.of(entries).iterator();
+    Cursor<Map.Entry<byte[], byte[]>> cursor = mock(Cursor.class);
+    when(cursor.hasNext()).thenAnswer(invocation -> iterator.hasNext());
+    when(cursor.next()).thenAnswer(invocation -> iterator.next());
+    return cursor;
+  }
+
+  private Map.Entry<byte[], byte[]> entry(final String legacyField, final CPIData cpiData) {
+    return Map.entry(field(legacyField), serializer.serialize(cpiData));
+  }
+
+  private static byte[] field(final String legacyField) {
+    return legacyField.getBytes(StandardCharsets.UTF_8);
+  }
+
+  private static CPIData cpiData(final String month, final String value) {
+    CPIData cpiData = new CPIData();
+    cpiData.setSeriesId("CUUR0000SA0");
+    cpiData.setYear("2015");
+    cpiData.setMonth(month);
+    cpiData.setCPIValue(value);
+    cpiData.setNotes(List.of());
+    return cpiData;
+  }
+}
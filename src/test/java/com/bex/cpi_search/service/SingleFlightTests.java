@@ -0,0 +1,91 @@
+package com.bex.cpi_search.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Test;
+
+public class SingleFlightTests {
+
+  @Test
+  void concurrentCallersShareOneLoad() throws Exception {
+    SingleFlight<String, Integer> flight = new SingleFlight<>();
+    AtomicInteger loads = new AtomicInteger();
+    CountDownLatch leaderStarted = new CountDownLatch(1);
+    CountDownLatch release = new CountDownLatch(1);
+    int callers = 8;
+
+    ExecutorService executor = Executors.newFixedThreadPool(callers);
+    try {
+      List<Future<Integer>> results = new ArrayList<>();
+      results.add(
+          executor.submit(
+              () ->
+                  flight.execute(
+                      "2024:A,B",
+                      () -> {
+                        leaderStarted.countDown();
+                        await(release);
+                        return loads.incrementAndGet();
+                      })));
+      leaderStarted.await(5, TimeUnit.SECONDS);
+
+      for (int i = 1; i < callers; i++) {
+        results.add(executor.submit(() -> flight.execute("2024:A,B", loads::incrementAndGet)));
+      }
+      while (flight.getCoalescedCalls() < callers - 1) {
+        Thread.onSpinWait();
+      }
+      release.countDown();
+
+      for (Future<Integer> result : results) {
+        assertEquals(1, result.get(5, TimeUnit.SECONDS));
+      }
+    } finally {
+      executor.shutdownNow();
+    }
+
+    assertEquals(1, loads.get());
+    assertEquals(1, flight.getLeaderCalls());
+    assertEquals(callers - 1, flight.getCoalescedCalls());
+    assertEquals(0, flight.getInFlightCount());
+  }
+
+  @Test
+  void failureIsSharedAndKeyIsReleased() throws Exception {
+    SingleFlight<String, Integer> flight = new SingleFlight<>();
+    IOException failure = new IOException("BLS unavailable");
+
+    IOException thrown =
+        assertThrows(
+            IOException.class,
+            () ->
+                flight.execute(
+                    "2024:A",
+                    () -> {
+                      throw failure;
+                    }));
+
+    assertSame(failure, thrown);
+    assertEquals(0, flight.getInFlightCount());
+    assertEquals(7, flight.execute("2024:A", () -> 7));
+  }
+
+  private static void await(final CountDownLatch latch) throws IOException {
+    try {
+      latch.await(5, TimeUnit.SECONDS);
+    } catch (InterruptedException e) {
+      throw new IOException(e);
+    }
+  }
+}
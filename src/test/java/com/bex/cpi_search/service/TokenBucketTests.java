@@ -0,0 +1,81 @@
+package com.bex.cpi_search.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import org.junit.jupiter.api.Test;
+
+public class TokenBucketTests {
+
+  @Test
+  void servesInteractiveCallersBeforeBackgroundOnes() throws Exception {
+    TokenBucket bucket = new TokenBucket(10, 1, Duration.ofSeconds(2));
+    bucket.acquire(FetchPriority.INTERACTIVE);
+    List<FetchPriority> served = new CopyOnWriteArrayList<>();
+
+    Thread background = start(bucket, FetchPriority.BACKGROUND, served);
+    awaitQueueLength(bucket, 1);
+    Thread interactive = start(bucket, FetchPriority.INTERACTIVE, served);
+    background.join();
+    interactive.join();
+
+    // The background caller was first in line but not yet at a token when the interactive one came
+    assertEquals(List.of(FetchPriority.INTERACTIVE, FetchPriority.BACKGROUND), served);
+  }
+
+  @Test
+  void refusesCallersThatWouldWaitTooLong() throws Exception {
+    TokenBucket bucket = new TokenBucket(1, 2, Duration.ofMillis(100));
+    bucket.acquire(FetchPriority.INTERACTIVE);
+    bucket.acquire(FetchPriority.INTERACTIVE);
+
+    long start = System.nanoTime();
+    BLSRateLimitException refused =
+        assertThrows(BLSRateLimitException.class, () -> bucket.acquire(FetchPriority.BACKGROUND));
+
+    assertTrue(System.nanoTime() - start < Duration.ofMillis(50).toNanos());
+    assertTrue(refused.getRetryAfter().compareTo(Duration.ofMillis(500)) > 0);
+  }
+
+  @Test
+  void leavesTheQueueWhenInterruptedWhileWaiting() throws Exception {
+    TokenBucket bucket = new TokenBucket(1, 1, Duration.ofSeconds(5));
+    bucket.acquire(FetchPriority.INTERACTIVE);
+    List<FetchPriority> served = new CopyOnWriteArrayList<>();
+
+    Thread waiting = start(bucket, FetchPriority.INTERACTIVE, served);
+    awaitQueueLength(bucket, 1);
+    waiting.interrupt();
+    waiting.join();
+
+    assertEquals(0, bucket.getQueueLength());
+    assertTrue(served.isEmpty());
+  }
+
+  private static Thread start(
+      final TokenBucket bucket, final FetchPriority priority, final List<FetchPriority> served) {
+    Thread thread =
+        new Thread(
+            () -> {
+              try {
+                bucket.acquire(priority);
+                served.add(priority);
+              } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+              }
+            });
+    thread.start();
+    return thread;
+  }
+
+  private static void awaitQueueLength(final TokenBucket bucket, final int length)
+      throws InterruptedException {
+    while (bucket.getQueueLength() < length) {
+      Thread.sleep(1);
+    }
+  }
+}